@@ -32,6 +32,7 @@ import org.elasticsearch.common.lucene.search.function.FunctionScoreQuery;
 import java.io.IOException;
 import java.lang.reflect.Field;
 import java.util.Collection;
+import java.util.Set;
 
 /**
  *
@@ -61,6 +62,14 @@ public class CustomFieldQuery extends FieldQuery {
         highlightFilters.remove();
     }
 
+    /**
+     * The terms of the (flattened) query for the provided field, with multi term queries expanded against
+     * the reader. Returns <tt>null</tt> if the query has no terms for the field.
+     */
+    public Set<String> termSet(String field) {
+        return getTermSet(field);
+    }
+
     @Override
     void flatten(Query sourceQuery, IndexReader reader, Collection<Query> flatQueries) throws IOException {
         if (sourceQuery instanceof DisjunctionMaxQuery) {
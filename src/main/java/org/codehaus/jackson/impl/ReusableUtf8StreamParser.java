@@ -0,0 +1,98 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.codehaus.jackson.impl;
+
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.io.IOContext;
+import org.codehaus.jackson.sym.BytesToNameCanonicalizer;
+import org.codehaus.jackson.util.BufferRecycler;
+
+import java.io.IOException;
+
+/**
+ * A {@link Utf8StreamParser} over bytes that can be reset to parse new content, keeping its buffers and the
+ * field names it canonicalized. Lives in the jackson package since the parser is final and its parsing state is
+ * only accessible from the package. Not thread safe, meant to be cached per thread.
+ */
+// JACKSON MONITOR: Against Utf8StreamParser, the reset has to clear all of its parsing state
+public class ReusableUtf8StreamParser {
+
+    private static final byte[] NO_BYTES = new byte[0];
+
+    private final Utf8StreamParser parser;
+
+    public ReusableUtf8StreamParser(int features) {
+        // own recycler, its buffers are only used by this parser, and no source reference to not keep the content around
+        IOContext ctxt = new IOContext(new BufferRecycler(), null, false);
+        BytesToNameCanonicalizer symbols = BytesToNameCanonicalizer.createRoot().makeChild(true, JsonParser.Feature.INTERN_FIELD_NAMES.enabledIn(features));
+        this.parser = new Utf8StreamParser(ctxt, features, null, null, symbols, NO_BYTES, 0, 0, false);
+        this.parser._closed = true;
+    }
+
+    /**
+     * Resets the parser to parse the provided (UTF-8) bytes.
+     */
+    public JsonParser reset(byte[] data, int offset, int length) {
+        Utf8StreamParser parser = this.parser;
+        parser._inputBuffer = data;
+        parser._inputPtr = offset;
+        parser._inputEnd = offset + length;
+        parser._closed = false;
+        parser._currInputProcessed = 0;
+        parser._currInputRow = 1;
+        parser._currInputRowStart = 0;
+        parser._tokenInputTotal = 0;
+        parser._tokenInputRow = 1;
+        parser._tokenInputCol = 0;
+        parser._parsingContext = JsonReadContext.createRootContext();
+        // clears both the current and the last cleared token
+        parser.clearCurrentToken();
+        parser.clearCurrentToken();
+        parser._nextToken = null;
+        parser._tokenIncomplete = false;
+        parser._nameCopied = false;
+        parser._binaryValue = null;
+        parser._numTypesValid = JsonParserBase.NR_UNKNOWN;
+        return parser;
+    }
+
+    /**
+     * Releases the parsed content once done with it, the parser can then be reset to new content.
+     */
+    public void release() {
+        parser._closed = true;
+        parser._inputBuffer = NO_BYTES;
+        parser._inputPtr = 0;
+        parser._inputEnd = 0;
+        try {
+            // returns the text buffers to the parser recycler
+            parser._releaseBuffers();
+        } catch (IOException e) {
+            // ignore, no input stream
+        }
+    }
+
+    /**
+     * The number of field names the parser canonicalized so far.
+     */
+    public int symbolsCount() {
+        return parser._symbols.size();
+    }
+}
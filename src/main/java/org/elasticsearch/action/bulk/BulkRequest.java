@@ -90,30 +90,31 @@ public class BulkRequest implements ActionRequest {
      * Adds a framed data in binary format
      */
     public BulkRequest add(byte[] data, int from, int length, boolean contentUnsafe, @Nullable String defaultIndex, @Nullable String defaultType) throws Exception {
+        addComplete(data, from, length, contentUnsafe, defaultIndex, defaultType);
+        return this;
+    }
+
+    /**
+     * Adds the complete actions found in the framed data, and returns the position up to which the data was
+     * consumed. Consuming stops before an action that is not fully framed yet (for example, an index action
+     * without its source), allowing to add the rest of the data once more of it is available.
+     */
+    public int addComplete(byte[] data, int from, int length, boolean contentUnsafe, @Nullable String defaultIndex, @Nullable String defaultType) throws Exception {
         XContent xContent = XContentFactory.xContent(data, from, length);
         byte marker = xContent.streamSeparator();
+        int consumed = from;
         while (true) {
             int nextMarker = findNextMarker(marker, from, data, length);
             if (nextMarker == -1) {
                 break;
             }
             // now parse the action
-            XContentParser parser = xContent.createParser(data, from, nextMarker - from);
+            XContentParser parser = xContent.createCachedParser(data, from, nextMarker - from);
 
             // move pointers
             from = nextMarker + 1;
 
-            // Move to START_OBJECT
-            XContentParser.Token token = parser.nextToken();
-            if (token == null) {
-                continue;
-            }
-            assert token == XContentParser.Token.START_OBJECT;
-            // Move to FIELD_NAME, that's the action
-            token = parser.nextToken();
-            assert token == XContentParser.Token.FIELD_NAME;
-            String action = parser.currentName();
-
+            String action;
             String index = defaultIndex;
             String type = defaultType;
             String id = null;
@@ -126,46 +127,64 @@ public class BulkRequest implements ActionRequest {
             VersionType versionType = VersionType.INTERNAL;
             String percolate = null;
 
-            // at this stage, next token can either be END_OBJECT (and use default index and type, with auto generated id)
-            // or START_OBJECT which will have another set of parameters
-
-            String currentFieldName = null;
-            while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
-                if (token == XContentParser.Token.FIELD_NAME) {
-                    currentFieldName = parser.currentName();
-                } else if (token.isValue()) {
-                    if ("_index".equals(currentFieldName)) {
-                        index = parser.text();
-                    } else if ("_type".equals(currentFieldName)) {
-                        type = parser.text();
-                    } else if ("_id".equals(currentFieldName)) {
-                        id = parser.text();
-                    } else if ("_routing".equals(currentFieldName) || "routing".equals(currentFieldName)) {
-                        routing = parser.text();
-                    } else if ("_parent".equals(currentFieldName) || "parent".equals(currentFieldName)) {
-                        parent = parser.text();
-                    } else if ("_timestamp".equals(currentFieldName) || "timestamp".equals(currentFieldName)) {
-                        timestamp = parser.text();
-                    } else if ("_ttl".equals(currentFieldName) || "ttl".equals(currentFieldName)) {
-                        if (parser.currentToken() == XContentParser.Token.VALUE_STRING) {
-                            ttl = TimeValue.parseTimeValue(parser.text(), null).millis();
-                        } else {
-                            ttl = parser.longValue();
+            try {
+                // Move to START_OBJECT
+                XContentParser.Token token = parser.nextToken();
+                if (token == null) {
+                    consumed = from;
+                    continue;
+                }
+                assert token == XContentParser.Token.START_OBJECT;
+                // Move to FIELD_NAME, that's the action
+                token = parser.nextToken();
+                assert token == XContentParser.Token.FIELD_NAME;
+                action = parser.currentName();
+
+                // at this stage, next token can either be END_OBJECT (and use default index and type, with auto generated id)
+                // or START_OBJECT which will have another set of parameters
+
+                String currentFieldName = null;
+                while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+                    if (token == XContentParser.Token.FIELD_NAME) {
+                        currentFieldName = parser.currentName();
+                    } else if (token.isValue()) {
+                        if ("_index".equals(currentFieldName)) {
+                            index = parser.text();
+                        } else if ("_type".equals(currentFieldName)) {
+                            type = parser.text();
+                        } else if ("_id".equals(currentFieldName)) {
+                            id = parser.text();
+                        } else if ("_routing".equals(currentFieldName) || "routing".equals(currentFieldName)) {
+                            routing = parser.text();
+                        } else if ("_parent".equals(currentFieldName) || "parent".equals(currentFieldName)) {
+                            parent = parser.text();
+                        } else if ("_timestamp".equals(currentFieldName) || "timestamp".equals(currentFieldName)) {
+                            timestamp = parser.text();
+                        } else if ("_ttl".equals(currentFieldName) || "ttl".equals(currentFieldName)) {
+                            if (parser.currentToken() == XContentParser.Token.VALUE_STRING) {
+                                ttl = TimeValue.parseTimeValue(parser.text(), null).millis();
+                            } else {
+                                ttl = parser.longValue();
+                            }
+                        } else if ("op_type".equals(currentFieldName) || "opType".equals(currentFieldName)) {
+                            opType = parser.text();
+                        } else if ("_version".equals(currentFieldName) || "version".equals(currentFieldName)) {
+                            version = parser.longValue();
+                        } else if ("_version_type".equals(currentFieldName) || "_versionType".equals(currentFieldName) || "version_type".equals(currentFieldName) || "versionType".equals(currentFieldName)) {
+                            versionType = VersionType.fromString(parser.text());
+                        } else if ("percolate".equals(currentFieldName) || "_percolate".equals(currentFieldName)) {
+                            percolate = parser.textOrNull();
                         }
-                    } else if ("op_type".equals(currentFieldName) || "opType".equals(currentFieldName)) {
-                        opType = parser.text();
-                    } else if ("_version".equals(currentFieldName) || "version".equals(currentFieldName)) {
-                        version = parser.longValue();
-                    } else if ("_version_type".equals(currentFieldName) || "_versionType".equals(currentFieldName) || "version_type".equals(currentFieldName) || "versionType".equals(currentFieldName)) {
-                        versionType = VersionType.fromString(parser.text());
-                    } else if ("percolate".equals(currentFieldName) || "_percolate".equals(currentFieldName)) {
-                        percolate = parser.textOrNull();
                     }
                 }
+            } finally {
+                // closing the parser allows the recycling of its buffers and parsed field names to the next action lines
+                parser.close();
             }
 
             if ("delete".equals(action)) {
                 add(new DeleteRequest(index, type, id).parent(parent).version(version).versionType(versionType).routing(routing));
+                consumed = from;
             } else {
                 nextMarker = findNextMarker(marker, from, data, length);
                 if (nextMarker == -1) {
@@ -193,9 +212,10 @@ public class BulkRequest implements ActionRequest {
                 }
                 // move pointers
                 from = nextMarker + 1;
+                consumed = from;
             }
         }
-        return this;
+        return consumed;
     }
 
     /**
@@ -249,6 +269,13 @@ public class BulkRequest implements ActionRequest {
         return requests.size();
     }
 
+    /**
+     * The requests added to this bulk request, in order.
+     */
+    public List<ActionRequest> requests() {
+        return this.requests;
+    }
+
     @Override
     public ActionRequestValidationException validate() {
         ActionRequestValidationException validationException = null;
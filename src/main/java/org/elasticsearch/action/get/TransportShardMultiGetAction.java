@@ -19,6 +19,7 @@
 
 package org.elasticsearch.action.get;
 
+import org.apache.lucene.index.IndexReader;
 import org.elasticsearch.ElasticSearchException;
 import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.action.ActionListener;
@@ -28,9 +29,12 @@ import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.block.ClusterBlockLevel;
 import org.elasticsearch.cluster.routing.ShardIterator;
 import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.lucene.uid.SegmentsUidLookup;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.get.GetResult;
+import org.elasticsearch.index.get.ShardGetService;
+import org.elasticsearch.index.mapper.Uid;
 import org.elasticsearch.index.service.IndexService;
 import org.elasticsearch.index.shard.service.IndexShard;
 import org.elasticsearch.indices.IndicesService;
@@ -38,6 +42,14 @@ import org.elasticsearch.script.ScriptService;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.TransportService;
 
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class TransportShardMultiGetAction extends TransportShardSingleOperationAction<MultiGetShardRequest, MultiGetShardResponse> {
 
     private final IndicesService indicesService;
@@ -46,6 +58,8 @@ public class TransportShardMultiGetAction extends TransportShardSingleOperationA
 
     private final boolean realtime;
 
+    private final int chunkSize;
+
     @Inject
     public TransportShardMultiGetAction(Settings settings, ClusterService clusterService, TransportService transportService,
                                         IndicesService indicesService, ScriptService scriptService, ThreadPool threadPool) {
@@ -54,6 +68,8 @@ public class TransportShardMultiGetAction extends TransportShardSingleOperationA
         this.scriptService = scriptService;
 
         this.realtime = settings.getAsBoolean("action.get.realtime", true);
+        // large shard requests are split into chunks of this size, executed in parallel on the search pool
+        this.chunkSize = settings.getAsInt("action.mget.shard.chunk_size", 100);
     }
 
     @Override
@@ -109,22 +125,217 @@ public class TransportShardMultiGetAction extends TransportShardSingleOperationA
             indexShard.refresh(new Engine.Refresh(false));
         }
 
+        final MultiGetShardItems items = new MultiGetShardItems(request, shardId, indexShard);
+        // all items are resolved against the same searcher, acquired once for the shard request
+        Engine.Searcher searcher = indexShard.searcher();
+        try {
+            items.lookup(searcher);
+            if (chunkSize <= 0 || items.loads() <= chunkSize) {
+                items.executeChunks();
+            } else {
+                // the other chunks are picked up by helper tasks, but this thread works on them as well, and only
+                // waits for chunks that were started by a helper, so a busy search pool never blocks the request
+                int helpers = (items.loads() - 1) / chunkSize;
+                Executor executor = threadPool.executor(ThreadPool.Names.SEARCH);
+                for (int i = 0; i < helpers; i++) {
+                    try {
+                        executor.execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                items.executeChunks();
+                            }
+                        });
+                    } catch (RejectedExecutionException e) {
+                        // the pool is full, this thread will execute the chunks
+                        break;
+                    }
+                }
+                items.executeChunks();
+                items.awaitStartedChunks();
+            }
+        } finally {
+            searcher.release();
+        }
+
         MultiGetShardResponse response = new MultiGetShardResponse();
-        for (int i = 0; i < request.locations.size(); i++) {
+        for (int i = 0; i < items.size(); i++) {
+            if (items.failures[i] != null) {
+                response.add(request.locations.get(i), items.failures[i]);
+            } else {
+                response.add(request.locations.get(i), items.responses[i]);
+            }
+        }
+        return response;
+    }
+
+    /**
+     * The items of a shard multi get request. All items are first looked up on the request thread, in uid order,
+     * and then loaded in doc id order, in chunks executed by one or more threads.
+     */
+    class MultiGetShardItems {
+
+        private final MultiGetShardRequest request;
+        private final int shardId;
+        private final IndexShard indexShard;
+
+        final GetResponse[] responses;
+        final MultiGetResponse.Failure[] failures;
+
+        private final ShardGetService.Lookup[] lookups;
+        // the positions of the looked up items, in the order they are loaded
+        private int[] loadOrder = new int[0];
+
+        private final AtomicInteger nextChunk = new AtomicInteger();
+        private final AtomicInteger runningChunks = new AtomicInteger();
+
+        MultiGetShardItems(MultiGetShardRequest request, int shardId, IndexShard indexShard) {
+            this.request = request;
+            this.shardId = shardId;
+            this.indexShard = indexShard;
+            this.responses = new GetResponse[request.locations.size()];
+            this.failures = new MultiGetResponse.Failure[request.locations.size()];
+            this.lookups = new ShardGetService.Lookup[request.locations.size()];
+        }
+
+        int size() {
+            return responses.length;
+        }
+
+        /**
+         * The number of items left to load once looked up.
+         */
+        int loads() {
+            return loadOrder.length;
+        }
+
+        /**
+         * Looks up all the items against the provided searcher. The uids are resolved in sorted order through
+         * one {@link SegmentsUidLookup}, so the uid term dictionary of each segment is walked forward, and the
+         * docs are then loaded segment by segment in doc id order, which keeps stored fields reads sequential.
+         */
+        void lookup(Engine.Searcher searcher) {
+            Integer[] byUid = new Integer[size()];
+            final String[] uids = new String[size()];
+            for (int i = 0; i < byUid.length; i++) {
+                byUid[i] = i;
+                String type = request.types.get(i);
+                String id = request.ids.get(i);
+                uids[i] = type == null || type.equals("_all") ? id : Uid.createUid(type, id);
+            }
+            Arrays.sort(byUid, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer o1, Integer o2) {
+                    return uids[o1].compareTo(uids[o2]);
+                }
+            });
+
+            IndexReader[] subReaders = searcher.searcher().subReaders();
+            int looked = 0;
+            SegmentsUidLookup uidLookup = new SegmentsUidLookup(subReaders);
+            try {
+                for (Integer i : byUid) {
+                    String type = request.types.get(i);
+                    String id = request.ids.get(i);
+                    try {
+                        lookups[i] = indexShard.getService().lookup(type, id, request.fields.get(i), request.realtime(), searcher, uidLookup);
+                        looked++;
+                    } catch (Exception e) {
+                        logger.debug("[{}][{}] failed to execute multi_get for [{}]/[{}]", e, request.index(), shardId, type, id);
+                        failures[i] = new MultiGetResponse.Failure(request.index(), type, id, ExceptionsHelper.detailedMessage(e));
+                    }
+                }
+            } finally {
+                uidLookup.close();
+            }
+
+            final Map<IndexReader, Integer> segments = new IdentityHashMap<IndexReader, Integer>();
+            for (int i = 0; i < subReaders.length; i++) {
+                segments.put(subReaders[i], i);
+            }
+            Integer[] byDoc = new Integer[looked];
+            int index = 0;
+            for (int i = 0; i < lookups.length; i++) {
+                if (lookups[i] != null) {
+                    byDoc[index++] = i;
+                }
+            }
+            // missing docs and docs served from the transaction log go first, they have no segment
+            Arrays.sort(byDoc, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer o1, Integer o2) {
+                    int segment1 = segment(lookups[o1]);
+                    int segment2 = segment(lookups[o2]);
+                    if (segment1 != segment2) {
+                        return segment1 < segment2 ? -1 : 1;
+                    }
+                    int doc1 = lookups[o1].docId();
+                    int doc2 = lookups[o2].docId();
+                    return doc1 < doc2 ? -1 : (doc1 == doc2 ? 0 : 1);
+                }
+
+                private int segment(ShardGetService.Lookup lookup) {
+                    Integer segment = lookup.reader() == null ? null : segments.get(lookup.reader());
+                    return segment == null ? -1 : segment;
+                }
+            });
+            loadOrder = new int[looked];
+            for (int i = 0; i < looked; i++) {
+                loadOrder[i] = byDoc[i];
+            }
+        }
+
+        /**
+         * Executes chunks until there are no more chunks left to start.
+         */
+        void executeChunks() {
+            int chunks = chunkSize <= 0 ? 1 : (loads() + chunkSize - 1) / chunkSize;
+            runningChunks.incrementAndGet();
+            try {
+                int chunk;
+                while ((chunk = nextChunk.getAndIncrement()) < chunks) {
+                    int from = chunkSize <= 0 ? 0 : chunk * chunkSize;
+                    int to = chunkSize <= 0 ? loads() : Math.min(loads(), from + chunkSize);
+                    for (int i = from; i < to; i++) {
+                        load(loadOrder[i]);
+                    }
+                }
+            } finally {
+                synchronized (this) {
+                    runningChunks.decrementAndGet();
+                    notifyAll();
+                }
+            }
+        }
+
+        /**
+         * Waits for the chunks started by helpers, even if interrupted, as they still use the shared searcher.
+         */
+        synchronized void awaitStartedChunks() {
+            boolean interrupted = false;
+            while (runningChunks.get() > 0) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void load(int i) {
             String type = request.types.get(i);
             String id = request.ids.get(i);
-            String[] fields = request.fields.get(i);
 
             try {
-                GetResult getResult = indexShard.getService().get(type, id, fields, request.realtime());
-                response.add(request.locations.get(i), new GetResponse(getResult));
+                GetResult getResult = indexShard.getService().load(lookups[i]);
+                responses[i] = new GetResponse(getResult);
             } catch (Exception e) {
                 logger.debug("[{}][{}] failed to execute multi_get for [{}]/[{}]", e, request.index(), shardId, type, id);
-                response.add(request.locations.get(i), new MultiGetResponse.Failure(request.index(), type, id, ExceptionsHelper.detailedMessage(e)));
+                failures[i] = new MultiGetResponse.Failure(request.index(), type, id, ExceptionsHelper.detailedMessage(e));
             }
         }
-
-        return response;
     }
 
 }
\ No newline at end of file
@@ -43,6 +43,7 @@ import org.elasticsearch.transport.*;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
 
@@ -64,6 +65,8 @@ public class ShardStateAction extends AbstractComponent {
 
     private final BlockingQueue<ShardRouting> startedShardsQueue = new LinkedTransferQueue<ShardRouting>();
 
+    private final BlockingQueue<ShardRoutingEntry> failedShardQueue = new LinkedTransferQueue<ShardRoutingEntry>();
+
     @Inject
     public ShardStateAction(Settings settings, ClusterService clusterService, TransportService transportService,
                             AllocationService allocationService, ThreadPool threadPool) {
@@ -113,18 +116,35 @@ public class ShardStateAction extends AbstractComponent {
 
     private void innerShardFailed(final ShardRouting shardRouting, final String reason) {
         logger.warn("received shard failed for {}, reason [{}]", shardRouting, reason);
+        // buffer failed shards the same way started shards are, so a burst of failures (for example, a node
+        // with many shards failing them all) results in a single reroute and a single cluster state
+        failedShardQueue.add(new ShardRoutingEntry(shardRouting, reason));
+
         clusterService.submitStateUpdateTask("shard-failed (" + shardRouting + "), reason [" + reason + "]", new ClusterStateUpdateTask() {
             @Override
             public ClusterState execute(ClusterState currentState) {
-                if (logger.isDebugEnabled()) {
-                    logger.debug("Received failed shard {}, reason [{}]", shardRouting, reason);
+                List<ShardRoutingEntry> shardRoutingEntries = new ArrayList<ShardRoutingEntry>();
+                failedShardQueue.drainTo(shardRoutingEntries);
+
+                // nothing to process (a previous event has process it already)
+                if (shardRoutingEntries.isEmpty()) {
+                    return currentState;
                 }
-                RoutingAllocation.Result routingResult = allocationService.applyFailedShard(currentState, shardRouting);
+
+                List<ShardRouting> shards = new ArrayList<ShardRouting>(shardRoutingEntries.size());
+                for (ShardRoutingEntry shardRoutingEntry : shardRoutingEntries) {
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("Received failed shard {}, reason [{}]", shardRoutingEntry.shardRouting, shardRoutingEntry.reason);
+                    }
+                    shards.add(shardRoutingEntry.shardRouting);
+                }
+
+                RoutingAllocation.Result routingResult = allocationService.applyFailedShards(currentState, shards);
                 if (!routingResult.changed()) {
                     return currentState;
                 }
                 if (logger.isDebugEnabled()) {
-                    logger.debug("Applying failed shard {}, reason [{}]", shardRouting, reason);
+                    logger.debug("Applying failed shards {}", shards);
                 }
                 return newClusterStateBuilder().state(currentState).routingResult(routingResult).build();
             }
@@ -155,13 +175,13 @@ public class ShardStateAction extends AbstractComponent {
 
                 RoutingTable routingTable = currentState.routingTable();
 
-                for (int i = 0; i < shards.size(); i++) {
-                    ShardRouting shardRouting = shards.get(i);
+                for (Iterator<ShardRouting> it = shards.iterator(); it.hasNext(); ) {
+                    ShardRouting shardRouting = it.next();
                     IndexRoutingTable indexRoutingTable = routingTable.index(shardRouting.index());
                     // if there is no routing table, the index has been deleted while it was being allocated
                     // which is fine, we should just ignore this
                     if (indexRoutingTable == null) {
-                        shards.remove(i);
+                        it.remove();
                     } else {
                         // find the one that maps to us, if its already started, no need to do anything...
                         // the shard might already be started since the nodes that is starting the shards might get cluster events
@@ -172,7 +192,8 @@ public class ShardStateAction extends AbstractComponent {
                                 // we found the same shard that exists on the same node id
                                 if (entry.started()) {
                                     // already started, do nothing here...
-                                    shards.remove(i);
+                                    it.remove();
+                                    break;
                                 }
                             }
                         }
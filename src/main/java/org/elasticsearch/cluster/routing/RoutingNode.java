@@ -20,10 +20,9 @@
 package org.elasticsearch.cluster.routing;
 
 import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.index.shard.ShardId;
 
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
+import java.util.*;
 
 import static com.google.common.collect.Lists.newArrayList;
 
@@ -35,6 +34,11 @@ public class RoutingNode implements Iterable<MutableShardRouting> {
 
     private final List<MutableShardRouting> shards;
 
+    private final List<MutableShardRouting> readOnlyShards;
+
+    // shard id to the shard on this node, so allocation deciders can check for a shard without iterating all the node shards
+    private final Map<ShardId, MutableShardRouting> shardsById = new HashMap<ShardId, MutableShardRouting>();
+
     public RoutingNode(DiscoveryNode node) {
         this(node, new ArrayList<MutableShardRouting>());
     }
@@ -42,11 +46,41 @@ public class RoutingNode implements Iterable<MutableShardRouting> {
     public RoutingNode(DiscoveryNode node, List<MutableShardRouting> shards) {
         this.node = node;
         this.shards = shards;
+        this.readOnlyShards = Collections.unmodifiableList(shards);
+        for (int i = 0; i < shards.size(); i++) {
+            MutableShardRouting shard = shards.get(i);
+            if (!shardsById.containsKey(shard.shardId())) {
+                shardsById.put(shard.shardId(), shard);
+            }
+        }
     }
 
+    /**
+     * Iterates over the shards of this node, removing a shard should be done using the iterator.
+     */
     @Override
     public Iterator<MutableShardRouting> iterator() {
-        return shards.iterator();
+        final Iterator<MutableShardRouting> it = shards.iterator();
+        return new Iterator<MutableShardRouting>() {
+            private MutableShardRouting current;
+
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public MutableShardRouting next() {
+                current = it.next();
+                return current;
+            }
+
+            @Override
+            public void remove() {
+                it.remove();
+                removedFromIndex(current);
+            }
+        };
     }
 
     public DiscoveryNode node() {
@@ -57,17 +91,31 @@ public class RoutingNode implements Iterable<MutableShardRouting> {
         return this.node.id();
     }
 
+    /**
+     * The (read only) shards allocated on this node, use {@link #add(MutableShardRouting)} and {@link #iterator()}
+     * to change them.
+     */
     public List<MutableShardRouting> shards() {
-        return this.shards;
+        return this.readOnlyShards;
+    }
+
+    /**
+     * The shard with the provided shard id on this node, <tt>null</tt> if there is none.
+     */
+    public MutableShardRouting shard(ShardId shardId) {
+        return shardsById.get(shardId);
     }
 
     public void add(MutableShardRouting shard) {
         shards.add(shard);
         shard.assignToNode(node.id());
+        if (!shardsById.containsKey(shard.shardId())) {
+            shardsById.put(shard.shardId(), shard);
+        }
     }
 
     public void removeByShardId(int shardId) {
-        for (Iterator<MutableShardRouting> it = shards.iterator(); it.hasNext(); ) {
+        for (Iterator<MutableShardRouting> it = iterator(); it.hasNext(); ) {
             MutableShardRouting shard = it.next();
             if (shard.id() == shardId) {
                 it.remove();
@@ -75,6 +123,21 @@ public class RoutingNode implements Iterable<MutableShardRouting> {
         }
     }
 
+    private void removedFromIndex(MutableShardRouting removed) {
+        if (shardsById.get(removed.shardId()) != removed) {
+            return;
+        }
+        shardsById.remove(removed.shardId());
+        // there should only be a single copy of a shard on a node, but keep the index correct if not
+        for (int i = 0; i < shards.size(); i++) {
+            MutableShardRouting shard = shards.get(i);
+            if (shard.shardId().equals(removed.shardId())) {
+                shardsById.put(shard.shardId(), shard);
+                break;
+            }
+        }
+    }
+
     public int numberOfShardsWithState(ShardRoutingState... states) {
         int count = 0;
         for (MutableShardRouting shardEntry : this) {
@@ -24,6 +24,7 @@ import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.block.ClusterBlocks;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.index.shard.ShardId;
 
 import java.util.HashMap;
 import java.util.Iterator;
@@ -175,12 +176,9 @@ public class RoutingNodes implements Iterable<RoutingNode> {
     public MutableShardRouting findPrimaryForReplica(ShardRouting shard) {
         assert !shard.primary();
         for (RoutingNode routingNode : nodesToShards.values()) {
-            List<MutableShardRouting> shards = routingNode.shards();
-            for (int i = 0; i < shards.size(); i++) {
-                MutableShardRouting shardRouting = shards.get(i);
-                if (shardRouting.shardId().equals(shard.shardId()) && shardRouting.primary()) {
-                    return shardRouting;
-                }
+            MutableShardRouting shardRouting = routingNode.shard(shard.shardId());
+            if (shardRouting != null && shardRouting.primary()) {
+                return shardRouting;
             }
         }
         return null;
@@ -192,13 +190,11 @@ public class RoutingNodes implements Iterable<RoutingNode> {
 
     public List<MutableShardRouting> shardsRoutingFor(String index, int shardId) {
         List<MutableShardRouting> shards = newArrayList();
+        ShardId id = new ShardId(index, shardId);
         for (RoutingNode routingNode : this) {
-            List<MutableShardRouting> nShards = routingNode.shards();
-            for (int i = 0; i < nShards.size(); i++) {
-                MutableShardRouting shardRouting = nShards.get(i);
-                if (shardRouting.index().equals(index) && shardRouting.id() == shardId) {
-                    shards.add(shardRouting);
-                }
+            MutableShardRouting shardRouting = routingNode.shard(id);
+            if (shardRouting != null) {
+                shards.add(shardRouting);
             }
         }
         for (int i = 0; i < unassigned.size(); i++) {
@@ -19,6 +19,7 @@
 
 package org.elasticsearch.cluster.routing.allocation;
 
+import com.google.common.collect.ImmutableList;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.routing.*;
@@ -88,9 +89,22 @@ public class AllocationService extends AbstractComponent {
      * <p>If the same instance of the routing table is returned, then no change has been made.
      */
     public RoutingAllocation.Result applyFailedShard(ClusterState clusterState, ShardRouting failedShard) {
+        return applyFailedShards(clusterState, ImmutableList.of(failedShard));
+    }
+
+    /**
+     * Applies the failed shards, and reroutes once for all of them. Note, shards can be called several
+     * times within this method.
+     * <p/>
+     * <p>If the same instance of the routing table is returned, then no change has been made.
+     */
+    public RoutingAllocation.Result applyFailedShards(ClusterState clusterState, List<? extends ShardRouting> failedShards) {
         RoutingNodes routingNodes = clusterState.routingNodes();
-        FailedRerouteAllocation allocation = new FailedRerouteAllocation(allocationDeciders, routingNodes, clusterState.nodes(), failedShard);
-        boolean changed = applyFailedShard(allocation);
+        FailedRerouteAllocation allocation = new FailedRerouteAllocation(allocationDeciders, routingNodes, clusterState.nodes(), failedShards);
+        boolean changed = false;
+        for (ShardRouting failedShard : failedShards) {
+            changed |= applyFailedShard(allocation, failedShard);
+        }
         if (!changed) {
             return new RoutingAllocation.Result(false, clusterState.routingTable(), allocation.explanation());
         }
@@ -260,7 +274,7 @@ public class AllocationService extends AbstractComponent {
         }
         Set<String> nodeIdsToRemove = newHashSet();
         for (RoutingNode routingNode : routingNodes) {
-            for (Iterator<MutableShardRouting> shardsIterator = routingNode.shards().iterator(); shardsIterator.hasNext(); ) {
+            for (Iterator<MutableShardRouting> shardsIterator = routingNode.iterator(); shardsIterator.hasNext(); ) {
                 MutableShardRouting shardRoutingEntry = shardsIterator.next();
                 if (shardRoutingEntry.assignedToNode()) {
                     // we store the relocation state here since when we call de-assign node
@@ -359,14 +373,12 @@ public class AllocationService extends AbstractComponent {
      * Applies the relevant logic to handle a failed shard. Returns <tt>true</tt> if changes happened that
      * require relocation.
      */
-    private boolean applyFailedShard(FailedRerouteAllocation allocation) {
-        IndexRoutingTable indexRoutingTable = allocation.routingTable().index(allocation.failedShard().index());
+    private boolean applyFailedShard(FailedRerouteAllocation allocation, ShardRouting failedShard) {
+        IndexRoutingTable indexRoutingTable = allocation.routingTable().index(failedShard.index());
         if (indexRoutingTable == null) {
             return false;
         }
 
-        ShardRouting failedShard = allocation.failedShard();
-
         boolean shardDirty = false;
         boolean inRelocation = failedShard.relocatingNodeId() != null;
         if (inRelocation) {
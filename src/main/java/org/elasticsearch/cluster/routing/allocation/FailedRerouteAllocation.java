@@ -24,19 +24,21 @@ import org.elasticsearch.cluster.routing.RoutingNodes;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.routing.allocation.decider.AllocationDeciders;
 
+import java.util.List;
+
 /**
  *
  */
 public class FailedRerouteAllocation extends RoutingAllocation {
 
-    private final ShardRouting failedShard;
+    private final List<? extends ShardRouting> failedShards;
 
-    public FailedRerouteAllocation(AllocationDeciders deciders, RoutingNodes routingNodes, DiscoveryNodes nodes, ShardRouting failedShard) {
+    public FailedRerouteAllocation(AllocationDeciders deciders, RoutingNodes routingNodes, DiscoveryNodes nodes, List<? extends ShardRouting> failedShards) {
         super(deciders, routingNodes, nodes);
-        this.failedShard = failedShard;
+        this.failedShards = failedShards;
     }
 
-    public ShardRouting failedShard() {
-        return failedShard;
+    public List<? extends ShardRouting> failedShards() {
+        return failedShards;
     }
 }
@@ -91,14 +91,29 @@ public class EvenShardsCountAllocator extends AbstractComponent implements Shard
             }
         }
 
-        // allocate all the unassigned shards above the average per node.
+        if (routingNodes.unassigned().isEmpty()) {
+            return changed;
+        }
+
+        // allocate all the unassigned shards above the average per node. The counts are computed once and
+        // then updated as shards are allocated, so we only re-sort the nodes and not recount all the shards
+        final TObjectIntHashMap<String> nodeCounts = nodeCounts(allocation);
+        Comparator<RoutingNode> leastToHigh = new Comparator<RoutingNode>() {
+            @Override
+            public int compare(RoutingNode o1, RoutingNode o2) {
+                return nodeCounts.get(o1.nodeId()) - nodeCounts.get(o2.nodeId());
+            }
+        };
         for (Iterator<MutableShardRouting> it = routingNodes.unassigned().iterator(); it.hasNext(); ) {
             MutableShardRouting shard = it.next();
+            RoutingNode[] sortedNodes = routingNodes.nodesToShards().values().toArray(new RoutingNode[routingNodes.nodesToShards().size()]);
+            Arrays.sort(sortedNodes, leastToHigh);
             // go over the nodes and try and allocate the remaining ones
-            for (RoutingNode routingNode : sortedNodesLeastToHigh(allocation)) {
+            for (RoutingNode routingNode : sortedNodes) {
                 if (allocation.deciders().canAllocate(shard, routingNode, allocation).allocate()) {
                     changed = true;
                     routingNode.add(shard);
+                    nodeCounts.adjustOrPutValue(routingNode.nodeId(), 1, 1);
                     it.remove();
                     break;
                 }
@@ -191,9 +206,9 @@ public class EvenShardsCountAllocator extends AbstractComponent implements Shard
         return changed;
     }
 
-    private RoutingNode[] sortedNodesLeastToHigh(RoutingAllocation allocation) {
+    private TObjectIntHashMap<String> nodeCounts(RoutingAllocation allocation) {
         // create count per node id, taking into account relocations
-        final TObjectIntHashMap<String> nodeCounts = new TObjectIntHashMap<String>();
+        TObjectIntHashMap<String> nodeCounts = new TObjectIntHashMap<String>();
         for (RoutingNode node : allocation.routingNodes()) {
             for (int i = 0; i < node.shards().size(); i++) {
                 ShardRouting shardRouting = node.shards().get(i);
@@ -201,6 +216,11 @@ public class EvenShardsCountAllocator extends AbstractComponent implements Shard
                 nodeCounts.adjustOrPutValue(nodeId, 1, 1);
             }
         }
+        return nodeCounts;
+    }
+
+    private RoutingNode[] sortedNodesLeastToHigh(RoutingAllocation allocation) {
+        final TObjectIntHashMap<String> nodeCounts = nodeCounts(allocation);
         RoutingNode[] nodes = allocation.routingNodes().nodesToShards().values().toArray(new RoutingNode[allocation.routingNodes().nodesToShards().values().size()]);
         Arrays.sort(nodes, new Comparator<RoutingNode>() {
             @Override
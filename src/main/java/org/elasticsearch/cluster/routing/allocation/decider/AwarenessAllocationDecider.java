@@ -121,16 +121,14 @@ public class AwarenessAllocationDecider extends AllocationDecider {
             // build the count of shards per attribute value
             TObjectIntHashMap<String> shardPerAttribute = new TObjectIntHashMap<String>();
             for (RoutingNode routingNode : allocation.routingNodes()) {
-                for (int i = 0; i < routingNode.shards().size(); i++) {
-                    MutableShardRouting nodeShardRouting = routingNode.shards().get(i);
-                    if (nodeShardRouting.shardId().equals(shardRouting.shardId())) {
-                        // if the shard is relocating, then make sure we count it as part of the node it is relocating to
-                        if (nodeShardRouting.relocating()) {
-                            RoutingNode relocationNode = allocation.routingNodes().node(nodeShardRouting.relocatingNodeId());
-                            shardPerAttribute.adjustOrPutValue(relocationNode.node().attributes().get(awarenessAttribute), 1, 1);
-                        } else if (nodeShardRouting.started()) {
-                            shardPerAttribute.adjustOrPutValue(routingNode.node().attributes().get(awarenessAttribute), 1, 1);
-                        }
+                MutableShardRouting nodeShardRouting = routingNode.shard(shardRouting.shardId());
+                if (nodeShardRouting != null) {
+                    // if the shard is relocating, then make sure we count it as part of the node it is relocating to
+                    if (nodeShardRouting.relocating()) {
+                        RoutingNode relocationNode = allocation.routingNodes().node(nodeShardRouting.relocatingNodeId());
+                        shardPerAttribute.adjustOrPutValue(relocationNode.node().attributes().get(awarenessAttribute), 1, 1);
+                    } else if (nodeShardRouting.started()) {
+                        shardPerAttribute.adjustOrPutValue(routingNode.node().attributes().get(awarenessAttribute), 1, 1);
                     }
                 }
             }
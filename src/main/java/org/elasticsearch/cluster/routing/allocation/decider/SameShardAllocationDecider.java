@@ -19,15 +19,12 @@
 
 package org.elasticsearch.cluster.routing.allocation.decider;
 
-import org.elasticsearch.cluster.routing.MutableShardRouting;
 import org.elasticsearch.cluster.routing.RoutingNode;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.routing.allocation.RoutingAllocation;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.settings.Settings;
 
-import java.util.List;
-
 /**
  * An allocation strategy that does not allow for the same shard instance to be allocated on the same node.
  */
@@ -40,12 +37,9 @@ public class SameShardAllocationDecider extends AllocationDecider {
 
     @Override
     public Decision canAllocate(ShardRouting shardRouting, RoutingNode node, RoutingAllocation allocation) {
-        List<MutableShardRouting> shards = node.shards();
-        for (int i = 0; i < shards.size(); i++) {
-            // we do not allow for two shards of the same shard id to exists on the same node
-            if (shards.get(i).shardId().equals(shardRouting.shardId())) {
-                return Decision.NO;
-            }
+        // we do not allow for two shards of the same shard id to exists on the same node
+        if (node.shard(shardRouting.shardId()) != null) {
+            return Decision.NO;
         }
         return Decision.YES;
     }
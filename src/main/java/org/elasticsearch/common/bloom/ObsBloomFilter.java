@@ -19,9 +19,12 @@
 
 package org.elasticsearch.common.bloom;
 
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
 import org.apache.lucene.util.OpenBitSet;
 import org.elasticsearch.common.RamUsage;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
 
 public class ObsBloomFilter implements BloomFilter {
@@ -37,6 +40,40 @@ public class ObsBloomFilter implements BloomFilter {
         this.size = size;
     }
 
+    private ObsBloomFilter(int hashCount, long size, OpenBitSet bitset) {
+        this.hashCount = hashCount;
+        this.bitset = bitset;
+        this.size = size;
+    }
+
+    /**
+     * Reads a filter previously written using {@link #writeTo(org.apache.lucene.store.IndexOutput)}.
+     */
+    public static ObsBloomFilter readFrom(IndexInput in) throws IOException {
+        int hashCount = in.readVInt();
+        long size = in.readVLong();
+        int numWords = in.readVInt();
+        if (numWords < 0 || (long) numWords * 8 > in.length() - in.getFilePointer()) {
+            throw new IOException("invalid bloom filter size [" + numWords + "] words");
+        }
+        long[] bits = new long[numWords];
+        for (int i = 0; i < numWords; i++) {
+            bits[i] = in.readLong();
+        }
+        return new ObsBloomFilter(hashCount, size, new OpenBitSet(bits, numWords));
+    }
+
+    public void writeTo(IndexOutput out) throws IOException {
+        out.writeVInt(hashCount);
+        out.writeVLong(size);
+        int numWords = bitset.getNumWords();
+        long[] bits = bitset.getBits();
+        out.writeVInt(numWords);
+        for (int i = 0; i < numWords; i++) {
+            out.writeLong(bits[i]);
+        }
+    }
+
     long emptyBuckets() {
         long n = 0;
         for (long i = 0; i < buckets(); i++) {
@@ -21,8 +21,7 @@ package org.elasticsearch.common.compress;
 
 import org.apache.lucene.util.UnicodeUtil;
 import org.elasticsearch.common.Unicode;
-import org.elasticsearch.common.compress.lzf.LZFDecoder;
-import org.elasticsearch.common.compress.lzf.LZFEncoder;
+import org.elasticsearch.common.compress.lzf.LZFCompressor;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Streamable;
@@ -42,7 +41,9 @@ public class CompressedString implements Streamable {
 
     public CompressedString(String str) throws IOException {
         UnicodeUtil.UTF8Result result = Unicode.unsafeFromStringAsUtf8(str);
-        this.bytes = LZFEncoder.encode(result.result, result.length);
+        // always lzf and not the default compressor, equality is based on the compressed bytes, and those
+        // need to be the same regardless of the node (and its configuration) that created them
+        this.bytes = CompressorFactory.compressor(LZFCompressor.TYPE).compress(result.result, 0, result.length);
     }
 
     public byte[] compressed() {
@@ -50,11 +51,12 @@ public class CompressedString implements Streamable {
     }
 
     public byte[] uncompressed() throws IOException {
-        return LZFDecoder.decode(bytes);
+        Compressor compressor = CompressorFactory.compressor(bytes, 0, bytes.length);
+        return compressor.uncompress(bytes, 0, bytes.length);
     }
 
     public String string() throws IOException {
-        return Unicode.fromBytes(LZFDecoder.decode(bytes));
+        return Unicode.fromBytes(uncompressed());
     }
 
     public static CompressedString readCompressedString(StreamInput in) throws IOException {
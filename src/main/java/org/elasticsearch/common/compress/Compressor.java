@@ -0,0 +1,53 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.common.compress;
+
+import org.elasticsearch.common.io.stream.CompressedStreamInput;
+import org.elasticsearch.common.io.stream.CompressedStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.IOException;
+
+/**
+ * A compression codec. Compressed content starts with a header specific to each compressor, so the compressor
+ * used can be detected when reading it back, see {@link CompressorFactory#compressor(byte[], int, int)}.
+ */
+public interface Compressor {
+
+    String type();
+
+    boolean isCompressed(byte[] data, int offset, int length);
+
+    byte[] compress(byte[] data, int offset, int length) throws IOException;
+
+    byte[] uncompress(byte[] data, int offset, int length) throws IOException;
+
+    /**
+     * Creates a new compressed stream input, reusable by resetting it, that never closes the wrapped stream.
+     */
+    CompressedStreamInput streamInput(StreamInput in) throws IOException;
+
+    /**
+     * Creates a new compressed stream output, reusable by resetting it, that never closes the wrapped stream.
+     */
+    CompressedStreamOutput streamOutput(StreamOutput out) throws IOException;
+
+    CompressorMetrics metrics();
+}
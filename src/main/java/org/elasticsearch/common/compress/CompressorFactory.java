@@ -0,0 +1,135 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.common.compress;
+
+import com.google.common.collect.ImmutableMap;
+import org.elasticsearch.ElasticSearchIllegalArgumentException;
+import org.elasticsearch.common.compress.lz4.LZ4Compressor;
+import org.elasticsearch.common.compress.lzf.LZFCompressor;
+import org.elasticsearch.common.settings.Settings;
+import org.jboss.netty.buffer.ChannelBuffer;
+
+import java.io.IOException;
+
+/**
+ * Holds the available compressors, and detects the compressor used for compressed content. Content is
+ * compressed with the default compressor (<tt>compress.default.type</tt>, defaults to <tt>lzf</tt>) unless a
+ * specific one is asked for, and is always read back with the compressor it was compressed with.
+ */
+public class CompressorFactory {
+
+    private static final LZFCompressor LZF = new LZFCompressor();
+
+    private static final Compressor[] compressors;
+
+    private static final ImmutableMap<String, Compressor> compressorsByType;
+
+    private static volatile Compressor defaultCompressor;
+
+    static {
+        compressors = new Compressor[]{LZF, new LZ4Compressor(false), new LZ4Compressor(true)};
+        ImmutableMap.Builder<String, Compressor> builder = ImmutableMap.builder();
+        for (Compressor compressor : compressors) {
+            builder.put(compressor.type(), compressor);
+        }
+        compressorsByType = builder.build();
+        defaultCompressor = LZF;
+    }
+
+    public static void configure(Settings settings) {
+        String type = settings.get("compress.default.type");
+        if (type != null) {
+            defaultCompressor = compressor(type, true);
+        }
+    }
+
+    public static Compressor defaultCompressor() {
+        return defaultCompressor;
+    }
+
+    /**
+     * Returns the compressor for the given type, <tt>null</tt> if there is none.
+     */
+    public static Compressor compressor(String type) {
+        return compressorsByType.get(type);
+    }
+
+    /**
+     * Returns the compressor for the given type, failing if there is none.
+     */
+    public static Compressor compressor(String type, boolean failIfMissing) {
+        Compressor compressor = compressorsByType.get(type);
+        if (compressor == null && failIfMissing) {
+            throw new ElasticSearchIllegalArgumentException("No compressor found for type [" + type + "], available types " + compressorsByType.keySet());
+        }
+        return compressor;
+    }
+
+    public static boolean isCompressed(byte[] data) {
+        return compressor(data, 0, data.length) != null;
+    }
+
+    public static boolean isCompressed(byte[] data, int offset, int length) {
+        return compressor(data, offset, length) != null;
+    }
+
+    /**
+     * Returns the compressor the data was compressed with, <tt>null</tt> if its not compressed.
+     */
+    public static Compressor compressor(byte[] data, int offset, int length) {
+        for (Compressor compressor : compressors) {
+            if (compressor.isCompressed(data, offset, length)) {
+                return compressor;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the compressor the readable content of the buffer was compressed with, <tt>null</tt> if its not compressed.
+     */
+    public static Compressor compressor(ChannelBuffer buffer) {
+        byte[] header = new byte[Math.min(buffer.readableBytes(), 8)];
+        buffer.getBytes(buffer.readerIndex(), header);
+        return compressor(header, 0, header.length);
+    }
+
+    /**
+     * Uncompresses the data if its compressed, otherwise returns <tt>null</tt>.
+     */
+    public static byte[] uncompressIfNeeded(byte[] data, int offset, int length) throws IOException {
+        Compressor compressor = compressor(data, offset, length);
+        if (compressor == null) {
+            return null;
+        }
+        return compressor.uncompress(data, offset, length);
+    }
+
+    public static CompressorStats[] stats() {
+        CompressorStats[] stats = new CompressorStats[compressors.length];
+        for (int i = 0; i < compressors.length; i++) {
+            stats[i] = compressors[i].metrics().stats(compressors[i].type());
+        }
+        return stats;
+    }
+
+    private CompressorFactory() {
+
+    }
+}
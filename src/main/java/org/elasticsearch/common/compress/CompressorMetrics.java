@@ -0,0 +1,49 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.common.compress;
+
+import org.elasticsearch.common.metrics.CounterMetric;
+
+/**
+ * Live compression metrics of a compressor, across all its usages on the node.
+ */
+public class CompressorMetrics {
+
+    private final CounterMetric uncompressedSize = new CounterMetric();
+    private final CounterMetric compressedSize = new CounterMetric();
+    private final CounterMetric compressTime = new CounterMetric();
+    private final CounterMetric decompressedSize = new CounterMetric();
+    private final CounterMetric uncompressTime = new CounterMetric();
+
+    public void compressed(long uncompressedLength, long compressedLength, long tookInNanos) {
+        uncompressedSize.inc(uncompressedLength);
+        compressedSize.inc(compressedLength);
+        compressTime.inc(tookInNanos);
+    }
+
+    public void uncompressed(long uncompressedLength, long tookInNanos) {
+        decompressedSize.inc(uncompressedLength);
+        uncompressTime.inc(tookInNanos);
+    }
+
+    public CompressorStats stats(String type) {
+        return new CompressorStats(type, uncompressedSize.count(), compressedSize.count(), compressTime.count(),
+                decompressedSize.count(), uncompressTime.count());
+    }
+}
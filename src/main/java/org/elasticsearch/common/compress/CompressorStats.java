@@ -0,0 +1,171 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.common.compress;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Streamable;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *
+ */
+public class CompressorStats implements Streamable, ToXContent {
+
+    private String type;
+    private long uncompressedSize;
+    private long compressedSize;
+    private long compressTimeInNanos;
+    private long decompressedSize;
+    private long uncompressTimeInNanos;
+
+    CompressorStats() {
+
+    }
+
+    public CompressorStats(String type, long uncompressedSize, long compressedSize, long compressTimeInNanos, long decompressedSize, long uncompressTimeInNanos) {
+        this.type = type;
+        this.uncompressedSize = uncompressedSize;
+        this.compressedSize = compressedSize;
+        this.compressTimeInNanos = compressTimeInNanos;
+        this.decompressedSize = decompressedSize;
+        this.uncompressTimeInNanos = uncompressTimeInNanos;
+    }
+
+    public String type() {
+        return this.type;
+    }
+
+    public String getType() {
+        return type();
+    }
+
+    /**
+     * The size of the content that was compressed.
+     */
+    public ByteSizeValue uncompressedSize() {
+        return new ByteSizeValue(uncompressedSize);
+    }
+
+    public ByteSizeValue getUncompressedSize() {
+        return uncompressedSize();
+    }
+
+    /**
+     * The size of the content after it was compressed.
+     */
+    public ByteSizeValue compressedSize() {
+        return new ByteSizeValue(compressedSize);
+    }
+
+    public ByteSizeValue getCompressedSize() {
+        return compressedSize();
+    }
+
+    /**
+     * The uncompressed to compressed size ratio, <tt>-1</tt> if nothing was compressed.
+     */
+    public double ratio() {
+        if (compressedSize == 0) {
+            return -1;
+        }
+        return ((double) uncompressedSize) / compressedSize;
+    }
+
+    public double getRatio() {
+        return ratio();
+    }
+
+    public TimeValue compressTime() {
+        return new TimeValue(compressTimeInNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public TimeValue getCompressTime() {
+        return compressTime();
+    }
+
+    /**
+     * The size of the content that was uncompressed.
+     */
+    public ByteSizeValue decompressedSize() {
+        return new ByteSizeValue(decompressedSize);
+    }
+
+    public ByteSizeValue getDecompressedSize() {
+        return decompressedSize();
+    }
+
+    public TimeValue uncompressTime() {
+        return new TimeValue(uncompressTimeInNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public TimeValue getUncompressTime() {
+        return uncompressTime();
+    }
+
+    public static CompressorStats readCompressorStats(StreamInput in) throws IOException {
+        CompressorStats stats = new CompressorStats();
+        stats.readFrom(in);
+        return stats;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        type = in.readUTF();
+        uncompressedSize = in.readVLong();
+        compressedSize = in.readVLong();
+        compressTimeInNanos = in.readVLong();
+        decompressedSize = in.readVLong();
+        uncompressTimeInNanos = in.readVLong();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeUTF(type);
+        out.writeVLong(uncompressedSize);
+        out.writeVLong(compressedSize);
+        out.writeVLong(compressTimeInNanos);
+        out.writeVLong(decompressedSize);
+        out.writeVLong(uncompressTimeInNanos);
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject(type);
+        builder.field("uncompressed_size", uncompressedSize().toString());
+        builder.field("uncompressed_size_in_bytes", uncompressedSize);
+        builder.field("compressed_size", compressedSize().toString());
+        builder.field("compressed_size_in_bytes", compressedSize);
+        builder.field("ratio", ratio());
+        builder.field("compress_time", compressTime().toString());
+        builder.field("compress_time_in_millis", compressTime().millis());
+        builder.field("decompressed_size", decompressedSize().toString());
+        builder.field("decompressed_size_in_bytes", decompressedSize);
+        builder.field("uncompress_time", uncompressTime().toString());
+        builder.field("uncompress_time_in_millis", uncompressTime().millis());
+        builder.endObject();
+        return builder;
+    }
+}
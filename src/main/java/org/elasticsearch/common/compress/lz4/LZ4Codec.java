@@ -0,0 +1,483 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.common.compress.lz4;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.util.Arrays;
+
+/**
+ * A pure java implementation of the LZ4 block format (greedy, single hash probe, favoring speed over ratio),
+ * with a simple chunk framing on top of it, similar to LZF chunks: each chunk starts with the <tt>L4</tt> magic
+ * bytes, the chunk type, and its (big endian, 2 bytes) lengths.
+ * <p/>
+ * Chunks can also be compressed against a preset dictionary ({@link #BLOCK_TYPE_COMPRESSED_DICTIONARY}), matches
+ * can then reference the dictionary as if it was prepended to the chunk. Their header has a trailing byte with the
+ * id of the dictionary, and chunks compressed with an unknown one are rejected. Decoding into a buffer allocated with
+ * {@link #newDecodeBuffer()} (at {@link #DECODE_OFFSET}) handles all chunk types.
+ */
+public class LZ4Codec {
+
+    public static final byte BYTE_L = 'L';
+    public static final byte BYTE_4 = '4';
+
+    public static final int BLOCK_TYPE_NON_COMPRESSED = 0;
+    public static final int BLOCK_TYPE_COMPRESSED = 1;
+    public static final int BLOCK_TYPE_COMPRESSED_DICTIONARY = 2;
+
+    public static final int MAX_CHUNK_LEN = 0xFFFF;
+
+    public static final int HEADER_LEN_NOT_COMPRESSED = 5;
+    public static final int HEADER_LEN_COMPRESSED = 7;
+    public static final int HEADER_LEN_COMPRESSED_DICTIONARY = 8;
+
+    private static final int HASH_LOG = 12;
+
+    public static final int HASH_TABLE_SIZE = 1 << HASH_LOG;
+
+    private static final int MIN_MATCH = 4;
+    private static final int LAST_LITERALS = 5;
+    private static final int MF_LIMIT = 12;
+    private static final int MAX_DISTANCE = 0xFFFF;
+    private static final int SKIP_STRENGTH = 6;
+
+    private static final int RUN_MASK = 0x0F;
+
+    private static final byte[] DICTIONARY = LZ4Dictionary.BYTES;
+
+    /**
+     * The offset chunks are decoded at in a buffer allocated with {@link #newDecodeBuffer()}, the dictionary
+     * sits right before it.
+     */
+    public static final int DECODE_OFFSET = DICTIONARY.length;
+
+    /**
+     * The hash table with all the dictionary positions, used as the starting point when compressing with it.
+     */
+    private static final int[] DICTIONARY_HASH_TABLE = new int[HASH_TABLE_SIZE];
+
+    static {
+        Arrays.fill(DICTIONARY_HASH_TABLE, -1);
+        for (int i = 0; i + MIN_MATCH <= DICTIONARY.length; i++) {
+            DICTIONARY_HASH_TABLE[hash(readInt(DICTIONARY, i))] = i;
+        }
+    }
+
+    private static final ThreadLocal<byte[]> cachedDecodeBuffer = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return newDecodeBuffer();
+        }
+    };
+
+    public static boolean isCompressed(byte[] data, int offset, int length) {
+        return length >= HEADER_LEN_NOT_COMPRESSED && data[offset] == BYTE_L && data[offset + 1] == BYTE_4
+                && (data[offset + 2] == BLOCK_TYPE_NON_COMPRESSED || data[offset + 2] == BLOCK_TYPE_COMPRESSED
+                || data[offset + 2] == BLOCK_TYPE_COMPRESSED_DICTIONARY);
+    }
+
+    /**
+     * A buffer holding the dictionary, followed by room (at {@link #DECODE_OFFSET}) for a chunk, either decoded
+     * into it or to compress against the dictionary.
+     */
+    public static byte[] newDecodeBuffer() {
+        byte[] buffer = new byte[DECODE_OFFSET + MAX_CHUNK_LEN];
+        System.arraycopy(DICTIONARY, 0, buffer, 0, DICTIONARY.length);
+        return buffer;
+    }
+
+    /**
+     * The maximum size a block of the given length can compress to.
+     */
+    public static int maxCompressedLength(int length) {
+        return length + length / 255 + 16;
+    }
+
+    /**
+     * Compresses the source into the dest buffer (which must be at least {@link #maxCompressedLength(int)} long),
+     * returning the compressed length.
+     */
+    public static int compress(byte[] src, final int srcOff, final int srcLen, byte[] dest, final int destOff, int[] hashTable) {
+        return compress(src, srcOff, srcOff, srcLen, dest, destOff, hashTable, null);
+    }
+
+    /**
+     * Compresses the source against the dictionary, the source must be in a window allocated with
+     * {@link #newDecodeBuffer()}, at {@link #DECODE_OFFSET}.
+     */
+    public static int compressWithDictionary(byte[] window, final int srcLen, byte[] dest, final int destOff, int[] hashTable) {
+        return compress(window, 0, DECODE_OFFSET, srcLen, dest, destOff, hashTable, DICTIONARY_HASH_TABLE);
+    }
+
+    /**
+     * Compresses the source, matches can start anywhere from <tt>windowOff</tt> (before the source when compressing
+     * against a dictionary, in which case the initial hash table holds its positions).
+     */
+    private static int compress(byte[] src, final int windowOff, final int srcOff, final int srcLen, byte[] dest, final int destOff, int[] hashTable, int[] initialHashTable) {
+        final int srcEnd = srcOff + srcLen;
+        final int matchLimit = srcEnd - LAST_LITERALS;
+        final int mfLimit = srcEnd - MF_LIMIT;
+
+        int sOff = srcOff;
+        int dOff = destOff;
+        int anchor = srcOff;
+
+        if (srcLen > MF_LIMIT) {
+            if (initialHashTable == null) {
+                Arrays.fill(hashTable, -1);
+            } else {
+                System.arraycopy(initialHashTable, 0, hashTable, 0, HASH_TABLE_SIZE);
+            }
+            int attempts = 1 << SKIP_STRENGTH;
+            while (sOff < mfLimit) {
+                int sequence = readInt(src, sOff);
+                int h = hash(sequence);
+                int ref = hashTable[h];
+                hashTable[h] = sOff;
+                if (ref < 0 || sOff - ref > MAX_DISTANCE || readInt(src, ref) != sequence) {
+                    // skip faster over data that does not compress
+                    sOff += attempts++ >>> SKIP_STRENGTH;
+                    continue;
+                }
+                attempts = 1 << SKIP_STRENGTH;
+
+                // extend the match backwards, into the pending literals
+                while (sOff > anchor && ref > windowOff && src[sOff - 1] == src[ref - 1]) {
+                    sOff--;
+                    ref--;
+                }
+                int matchLen = MIN_MATCH;
+                while (sOff + matchLen < matchLimit && src[sOff + matchLen] == src[ref + matchLen]) {
+                    matchLen++;
+                }
+
+                dOff = writeSequence(src, anchor, sOff - anchor, sOff - ref, matchLen, dest, dOff);
+                sOff += matchLen;
+                anchor = sOff;
+            }
+        }
+
+        // the last literals
+        int literalLen = srcEnd - anchor;
+        int tokenOff = dOff++;
+        if (literalLen >= RUN_MASK) {
+            dest[tokenOff] = (byte) (RUN_MASK << 4);
+            dOff = writeLength(literalLen - RUN_MASK, dest, dOff);
+        } else {
+            dest[tokenOff] = (byte) (literalLen << 4);
+        }
+        System.arraycopy(src, anchor, dest, dOff, literalLen);
+        dOff += literalLen;
+        return dOff - destOff;
+    }
+
+    /**
+     * Uncompresses the source into the dest buffer, the uncompressed length must be known up front (its stored
+     * in the chunk header).
+     */
+    public static void uncompress(byte[] src, final int srcOff, final int srcLen, byte[] dest, final int destOff, final int destLen) throws IOException {
+        uncompress(src, srcOff, srcLen, dest, destOff, destOff, destLen);
+    }
+
+    /**
+     * Uncompresses the source into the dest buffer, matches can reference anything from <tt>windowOff</tt>, which
+     * is before <tt>destOff</tt> when the dictionary precedes it.
+     */
+    private static void uncompress(byte[] src, final int srcOff, final int srcLen, byte[] dest, final int windowOff, final int destOff, final int destLen) throws IOException {
+        final int srcEnd = srcOff + srcLen;
+        final int destEnd = destOff + destLen;
+        int sOff = srcOff;
+        int dOff = destOff;
+
+        while (true) {
+            if (sOff >= srcEnd) {
+                throw new StreamCorruptedException("Corrupted LZ4 block, missing token");
+            }
+            int token = src[sOff++] & 0xFF;
+
+            int literalLen = token >>> 4;
+            if (literalLen == RUN_MASK) {
+                int b;
+                do {
+                    if (sOff >= srcEnd) {
+                        throw new StreamCorruptedException("Corrupted LZ4 block, truncated literal length");
+                    }
+                    b = src[sOff++] & 0xFF;
+                    literalLen += b;
+                } while (b == 0xFF);
+            }
+            if (literalLen > srcEnd - sOff || literalLen > destEnd - dOff) {
+                throw new StreamCorruptedException("Corrupted LZ4 block, literals out of bounds");
+            }
+            System.arraycopy(src, sOff, dest, dOff, literalLen);
+            sOff += literalLen;
+            dOff += literalLen;
+
+            if (sOff == srcEnd) {
+                // the last sequence only has literals
+                break;
+            }
+
+            if (srcEnd - sOff < 2) {
+                throw new StreamCorruptedException("Corrupted LZ4 block, truncated match offset");
+            }
+            int offset = (src[sOff++] & 0xFF) | ((src[sOff++] & 0xFF) << 8);
+            int matchLen = token & RUN_MASK;
+            if (matchLen == RUN_MASK) {
+                int b;
+                do {
+                    if (sOff >= srcEnd) {
+                        throw new StreamCorruptedException("Corrupted LZ4 block, truncated match length");
+                    }
+                    b = src[sOff++] & 0xFF;
+                    matchLen += b;
+                } while (b == 0xFF);
+            }
+            matchLen += MIN_MATCH;
+
+            int ref = dOff - offset;
+            if (offset == 0 || ref < windowOff || matchLen > destEnd - dOff) {
+                throw new StreamCorruptedException("Corrupted LZ4 block, match out of bounds");
+            }
+            if (offset >= matchLen) {
+                System.arraycopy(dest, ref, dest, dOff, matchLen);
+                dOff += matchLen;
+            } else {
+                // overlapping match, repeats the last offset bytes
+                for (int i = 0; i < matchLen; i++) {
+                    dest[dOff++] = dest[ref++];
+                }
+            }
+        }
+
+        if (dOff != destEnd) {
+            throw new StreamCorruptedException("Corrupted LZ4 block, uncompressed [" + (dOff - destOff) + "] bytes, expected [" + destLen + "]");
+        }
+    }
+
+    /**
+     * Compresses (if it makes sense) and writes a single chunk of up to {@link #MAX_CHUNK_LEN} bytes, returning
+     * the number of bytes written.
+     *
+     * @param encodeBuffer a scratch buffer of at least <tt>HEADER_LEN_COMPRESSED_DICTIONARY + maxCompressedLength(MAX_CHUNK_LEN)</tt> bytes
+     * @param hashTable    a scratch hash table of {@link #HASH_TABLE_SIZE} entries
+     */
+    public static int writeChunk(byte[] data, int offset, int length, OutputStream out, byte[] encodeBuffer, int[] hashTable) throws IOException {
+        return writeChunk(data, offset, length, out, encodeBuffer, hashTable, null);
+    }
+
+    /**
+     * Same as {@link #writeChunk(byte[], int, int, java.io.OutputStream, byte[], int[])}, compressing against the
+     * dictionary if a dictionary window (see {@link #newDecodeBuffer()}) is provided.
+     */
+    public static int writeChunk(byte[] data, int offset, int length, OutputStream out, byte[] encodeBuffer, int[] hashTable, byte[] dictionaryWindow) throws IOException {
+        int compressedLength;
+        int headerLength;
+        byte type;
+        if (dictionaryWindow == null) {
+            headerLength = HEADER_LEN_COMPRESSED;
+            compressedLength = compress(data, offset, length, encodeBuffer, headerLength, hashTable);
+            type = BLOCK_TYPE_COMPRESSED;
+        } else {
+            headerLength = HEADER_LEN_COMPRESSED_DICTIONARY;
+            System.arraycopy(data, offset, dictionaryWindow, DECODE_OFFSET, length);
+            compressedLength = compressWithDictionary(dictionaryWindow, length, encodeBuffer, headerLength, hashTable);
+            type = BLOCK_TYPE_COMPRESSED_DICTIONARY;
+            encodeBuffer[7] = LZ4Dictionary.ID;
+        }
+        if (compressedLength < length - (headerLength - HEADER_LEN_NOT_COMPRESSED)) {
+            encodeBuffer[0] = BYTE_L;
+            encodeBuffer[1] = BYTE_4;
+            encodeBuffer[2] = type;
+            encodeBuffer[3] = (byte) (length >> 8);
+            encodeBuffer[4] = (byte) length;
+            encodeBuffer[5] = (byte) (compressedLength >> 8);
+            encodeBuffer[6] = (byte) compressedLength;
+            out.write(encodeBuffer, 0, headerLength + compressedLength);
+            return headerLength + compressedLength;
+        }
+        encodeBuffer[0] = BYTE_L;
+        encodeBuffer[1] = BYTE_4;
+        encodeBuffer[2] = BLOCK_TYPE_NON_COMPRESSED;
+        encodeBuffer[3] = (byte) (length >> 8);
+        encodeBuffer[4] = (byte) length;
+        out.write(encodeBuffer, 0, HEADER_LEN_NOT_COMPRESSED);
+        out.write(data, offset, length);
+        return HEADER_LEN_NOT_COMPRESSED + length;
+    }
+
+    /**
+     * Reads and uncompresses a single chunk into the decode buffer (at {@link #DECODE_OFFSET}), returning its
+     * length, or <tt>-1</tt> if there are no more chunks.
+     *
+     * @param inputBuffer  a scratch buffer of at least {@link #MAX_CHUNK_LEN} bytes
+     * @param decodeBuffer a buffer allocated with {@link #newDecodeBuffer()}
+     */
+    public static int readChunk(InputStream in, byte[] inputBuffer, byte[] decodeBuffer) throws IOException {
+        int b = in.read();
+        if (b < 0) {
+            return -1;
+        }
+        readFully(in, inputBuffer, 1, HEADER_LEN_NOT_COMPRESSED - 1);
+        if (b != BYTE_L || inputBuffer[1] != BYTE_4) {
+            throw new StreamCorruptedException("Corrupted LZ4 stream, invalid chunk header");
+        }
+        int type = inputBuffer[2];
+        int length = ((inputBuffer[3] & 0xFF) << 8) | (inputBuffer[4] & 0xFF);
+        if (type == BLOCK_TYPE_NON_COMPRESSED) {
+            readFully(in, decodeBuffer, DECODE_OFFSET, length);
+            return length;
+        }
+        if (type != BLOCK_TYPE_COMPRESSED && type != BLOCK_TYPE_COMPRESSED_DICTIONARY) {
+            throw new StreamCorruptedException("Corrupted LZ4 stream, invalid chunk type [" + type + "]");
+        }
+        readFully(in, inputBuffer, 0, 2);
+        int compressedLength = ((inputBuffer[0] & 0xFF) << 8) | (inputBuffer[1] & 0xFF);
+        if (type == BLOCK_TYPE_COMPRESSED_DICTIONARY) {
+            readFully(in, inputBuffer, 0, 1);
+            checkDictionaryId(inputBuffer[0]);
+        }
+        readFully(in, inputBuffer, 0, compressedLength);
+        int windowOff = type == BLOCK_TYPE_COMPRESSED_DICTIONARY ? 0 : DECODE_OFFSET;
+        uncompress(inputBuffer, 0, compressedLength, decodeBuffer, windowOff, DECODE_OFFSET, length);
+        return length;
+    }
+
+    /**
+     * Uncompresses a sequence of chunks held in the given byte array.
+     */
+    public static byte[] uncompressChunks(byte[] data, final int offset, final int length) throws IOException {
+        final int end = offset + length;
+        // first, compute the uncompressed length from the chunk headers
+        int uncompressedLength = 0;
+        int ptr = offset;
+        while (ptr < end) {
+            if (!isCompressed(data, ptr, end - ptr)) {
+                throw new StreamCorruptedException("Corrupted LZ4 chunk header at [" + (ptr - offset) + "]");
+            }
+            int chunkLength = ((data[ptr + 3] & 0xFF) << 8) | (data[ptr + 4] & 0xFF);
+            uncompressedLength += chunkLength;
+            if (data[ptr + 2] != BLOCK_TYPE_NON_COMPRESSED) {
+                int headerLength = data[ptr + 2] == BLOCK_TYPE_COMPRESSED_DICTIONARY ? HEADER_LEN_COMPRESSED_DICTIONARY : HEADER_LEN_COMPRESSED;
+                if (end - ptr < headerLength) {
+                    throw new StreamCorruptedException("Corrupted LZ4 chunk header at [" + (ptr - offset) + "]");
+                }
+                if (data[ptr + 2] == BLOCK_TYPE_COMPRESSED_DICTIONARY) {
+                    checkDictionaryId(data[ptr + 7]);
+                }
+                ptr += headerLength + (((data[ptr + 5] & 0xFF) << 8) | (data[ptr + 6] & 0xFF));
+            } else {
+                ptr += HEADER_LEN_NOT_COMPRESSED + chunkLength;
+            }
+        }
+        if (ptr != end) {
+            throw new EOFException("Unexpected end of LZ4 content");
+        }
+
+        byte[] result = new byte[uncompressedLength];
+        int resultPtr = 0;
+        ptr = offset;
+        while (ptr < end) {
+            int chunkLength = ((data[ptr + 3] & 0xFF) << 8) | (data[ptr + 4] & 0xFF);
+            if (data[ptr + 2] == BLOCK_TYPE_COMPRESSED) {
+                int compressedLength = ((data[ptr + 5] & 0xFF) << 8) | (data[ptr + 6] & 0xFF);
+                uncompress(data, ptr + HEADER_LEN_COMPRESSED, compressedLength, result, resultPtr, chunkLength);
+                ptr += HEADER_LEN_COMPRESSED + compressedLength;
+            } else if (data[ptr + 2] == BLOCK_TYPE_COMPRESSED_DICTIONARY) {
+                // the dictionary has to precede the chunk, decode it in the (per thread) decode buffer
+                int compressedLength = ((data[ptr + 5] & 0xFF) << 8) | (data[ptr + 6] & 0xFF);
+                byte[] decodeBuffer = cachedDecodeBuffer.get();
+                uncompress(data, ptr + HEADER_LEN_COMPRESSED_DICTIONARY, compressedLength, decodeBuffer, 0, DECODE_OFFSET, chunkLength);
+                System.arraycopy(decodeBuffer, DECODE_OFFSET, result, resultPtr, chunkLength);
+                ptr += HEADER_LEN_COMPRESSED_DICTIONARY + compressedLength;
+            } else {
+                System.arraycopy(data, ptr + HEADER_LEN_NOT_COMPRESSED, result, resultPtr, chunkLength);
+                ptr += HEADER_LEN_NOT_COMPRESSED + chunkLength;
+            }
+            resultPtr += chunkLength;
+        }
+        return result;
+    }
+
+    /**
+     * There is a single known dictionary, content compressed with another one can't be decoded.
+     */
+    private static void checkDictionaryId(byte id) throws StreamCorruptedException {
+        if (id != LZ4Dictionary.ID) {
+            throw new StreamCorruptedException("Corrupted LZ4 stream, unknown dictionary id [" + id + "]");
+        }
+    }
+
+    private static void readFully(InputStream in, byte[] buffer, int offset, int length) throws IOException {
+        while (length > 0) {
+            int read = in.read(buffer, offset, length);
+            if (read < 0) {
+                throw new EOFException("Unexpected end of LZ4 stream");
+            }
+            offset += read;
+            length -= read;
+        }
+    }
+
+    private static int writeSequence(byte[] src, int literalOff, int literalLen, int matchOffset, int matchLen, byte[] dest, int dOff) {
+        int tokenOff = dOff++;
+        int token;
+        if (literalLen >= RUN_MASK) {
+            token = RUN_MASK << 4;
+            dOff = writeLength(literalLen - RUN_MASK, dest, dOff);
+        } else {
+            token = literalLen << 4;
+        }
+        System.arraycopy(src, literalOff, dest, dOff, literalLen);
+        dOff += literalLen;
+
+        dest[dOff++] = (byte) matchOffset;
+        dest[dOff++] = (byte) (matchOffset >>> 8);
+
+        int matchRun = matchLen - MIN_MATCH;
+        if (matchRun >= RUN_MASK) {
+            token |= RUN_MASK;
+            dOff = writeLength(matchRun - RUN_MASK, dest, dOff);
+        } else {
+            token |= matchRun;
+        }
+        dest[tokenOff] = (byte) token;
+        return dOff;
+    }
+
+    private static int writeLength(int length, byte[] dest, int dOff) {
+        while (length >= 0xFF) {
+            dest[dOff++] = (byte) 0xFF;
+            length -= 0xFF;
+        }
+        dest[dOff++] = (byte) length;
+        return dOff;
+    }
+
+    private static int readInt(byte[] buf, int offset) {
+        return (buf[offset] & 0xFF) | ((buf[offset + 1] & 0xFF) << 8) | ((buf[offset + 2] & 0xFF) << 16) | ((buf[offset + 3] & 0xFF) << 24);
+    }
+
+    private static int hash(int sequence) {
+        return (sequence * -1640531535) >>> (32 - HASH_LOG);
+    }
+}
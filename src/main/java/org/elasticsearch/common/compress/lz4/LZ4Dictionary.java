@@ -0,0 +1,72 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.compress.lz4;
+
+import org.elasticsearch.common.Unicode;
+
+/**
+ * A preset dictionary of the fragments common in json documents (structure, well known field names and
+ * values), chunks compressed with it can reference it as if it was prepended to them. Small documents hardly
+ * compress on their own since they start with an empty history, the dictionary gives them one.
+ * <p/>
+ * <b>Never change it</b>, compressed content depends on it, a different dictionary needs a new {@link #ID}.
+ */
+class LZ4Dictionary {
+
+    private static final String[] FRAGMENTS = new String[]{
+            "\"description\":\"", "\"title\":\"", "\"name\":\"", "\"first_name\":\"", "\"last_name\":\"", "\"email\":\"",
+            "\"address\":\"", "\"city\":\"", "\"country\":\"", "\"location\":{\"lat\":", ",\"lon\":", "\"price\":",
+            "\"category\":\"", "\"content\":\"", "\"text\":\"", "\"body\":\"", "\"comments\":[", "\"value\":", "\"count\":",
+            "\"total\":", "\"size\":", "\"length\":", "\"duration\":", "\"took\":", "\"version\":\"", "\"enabled\":true",
+            "\"active\":false", ":null,\"", ":true,\"", ":false,\"", "\"properties\":{", "\"attributes\":{", "\"metadata\":{",
+            "\"headers\":{\"", "\"Content-Type\":\"application/json\"", "\"content_type\":\"text/html\"",
+            "\"agent\":\"Mozilla/5.0 (Windows NT 6.1; WOW64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/",
+            "\"user_agent\":\"Mozilla/5.0 (Macintosh; Intel Mac OS X 10_7_3) ", "\"referrer\":\"https://www.",
+            "\"url\":\"http://www.", ".com/", "\"path\":\"/", "\"query\":\"", "\"method\":\"POST\"", "\"method\":\"GET\"",
+            "\"status\":200", "\"status\":404", "\"status\":500", "\"response\":", "\"bytes\":", "\"request\":\"",
+            "\"client_ip\":\"", "\"ip\":\"192.168.", "\"remote_addr\":\"10.", "\"port\":", "\"pid\":", "\"thread\":\"",
+            "\"logger\":\"org.", "\"class\":\"", "\"exception\":\"java.lang.", "\"stack_trace\":\"", "\"error\":\"",
+            "\"severity\":\"", "\"level\":\"DEBUG\"", "\"level\":\"WARN\"", "\"level\":\"ERROR\"", "\"level\":\"INFO\"",
+            "\"source\":\"", "\"type\":\"", "\"tags\":[\"", "\"program\":\"", "\"host\":\"", "\"hostname\":\"",
+            "\"service\":\"", "\"environment\":\"production\"", "\"id\":\"", "\"user_id\":", "\"user\":\"",
+            "\"created_at\":\"", "\"updated_at\":\"", "\"date\":\"", "\"time\":\"", "\"timestamp\":",
+            "\"message\":\"", "\"@fields\":{\"", "\"@source\":\"", "\"@message\":\"", "\"@tags\":[", "\"@type\":\"",
+            "\"@timestamp\":\"20", "T00:00:00.000Z\",\"", "\"},{\"", "\"],\"", "\"}}", "\"]}", "\":{\"", "\",\"", "\":\"",
+    };
+
+    /**
+     * The id of the dictionary, written in the header of the chunks compressed with it.
+     */
+    static final byte ID = 1;
+
+    static final byte[] BYTES;
+
+    static {
+        StringBuilder sb = new StringBuilder();
+        for (String fragment : FRAGMENTS) {
+            sb.append(fragment);
+        }
+        BYTES = Unicode.fromStringAsBytes(sb.toString());
+    }
+
+    private LZ4Dictionary() {
+
+    }
+}
@@ -116,8 +116,9 @@ public class ChunkEncoder {
 
     /**
      * Method for encoding individual chunk, writing it to given output stream.
+     * Returns the number of bytes written.
      */
-    public void encodeAndWriteChunk(byte[] data, int offset, int len, OutputStream out)
+    public int encodeAndWriteChunk(byte[] data, int offset, int len, OutputStream out)
             throws IOException {
         byte[] headerBuf = _headerBuffer;
         if (headerBuf == null) {
@@ -131,12 +132,13 @@ public class ChunkEncoder {
             if (compLen < (len - 2)) { // nah; just return uncompressed
                 LZFChunk.writeCompressedHeader(len, compLen, out, headerBuf);
                 out.write(_encodeBuffer, 0, compLen);
-                return;
+                return LZFChunk.HEADER_LEN_COMPRESSED + compLen;
             }
         }
         // Otherwise leave uncompressed:
         LZFChunk.writeNonCompressedHeader(len, out, headerBuf);
         out.write(data, offset, len);
+        return LZFChunk.HEADER_LEN_NOT_COMPRESSED + len;
     }
 
     /*
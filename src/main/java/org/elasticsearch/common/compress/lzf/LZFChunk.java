@@ -35,6 +35,9 @@ public class LZFChunk {
      */
     public static final int MAX_HEADER_LEN = 7;
 
+    public static final int HEADER_LEN_COMPRESSED = 7;
+    public static final int HEADER_LEN_NOT_COMPRESSED = 5;
+
     public final static byte BYTE_Z = 'Z';
     public final static byte BYTE_V = 'V';
 
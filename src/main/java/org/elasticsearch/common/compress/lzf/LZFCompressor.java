@@ -0,0 +1,81 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.common.compress.lzf;
+
+import org.elasticsearch.common.compress.Compressor;
+import org.elasticsearch.common.compress.CompressorMetrics;
+import org.elasticsearch.common.io.stream.CompressedStreamInput;
+import org.elasticsearch.common.io.stream.CompressedStreamOutput;
+import org.elasticsearch.common.io.stream.LZFStreamInput;
+import org.elasticsearch.common.io.stream.LZFStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.IOException;
+
+/**
+ *
+ */
+public class LZFCompressor implements Compressor {
+
+    public static final String TYPE = "lzf";
+
+    public static final CompressorMetrics METRICS = new CompressorMetrics();
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public boolean isCompressed(byte[] data, int offset, int length) {
+        return LZF.isCompressed(data, offset, length);
+    }
+
+    @Override
+    public byte[] compress(byte[] data, int offset, int length) throws IOException {
+        long start = System.nanoTime();
+        byte[] compressed = LZFEncoder.encode(data, offset, length);
+        METRICS.compressed(length, compressed.length, System.nanoTime() - start);
+        return compressed;
+    }
+
+    @Override
+    public byte[] uncompress(byte[] data, int offset, int length) throws IOException {
+        long start = System.nanoTime();
+        byte[] uncompressed = LZFDecoder.decode(data, offset, length);
+        METRICS.uncompressed(uncompressed.length, System.nanoTime() - start);
+        return uncompressed;
+    }
+
+    @Override
+    public CompressedStreamInput streamInput(StreamInput in) throws IOException {
+        return new LZFStreamInput(in, true);
+    }
+
+    @Override
+    public CompressedStreamOutput streamOutput(StreamOutput out) throws IOException {
+        return new LZFStreamOutput(out, true);
+    }
+
+    @Override
+    public CompressorMetrics metrics() {
+        return METRICS;
+    }
+}
@@ -19,8 +19,12 @@
 
 package org.elasticsearch.common.io.stream;
 
+import org.elasticsearch.common.compress.Compressor;
+
 import java.io.IOException;
 import java.lang.ref.SoftReference;
+import java.util.IdentityHashMap;
+import java.util.Map;
 
 /**
  *
@@ -29,11 +33,19 @@ public class CachedStreamInput {
 
     static class Entry {
         final HandlesStreamInput handles;
-        final LZFStreamInput lzf;
+        final Map<Compressor, CompressedStreamInput> compressed = new IdentityHashMap<Compressor, CompressedStreamInput>();
 
-        Entry(HandlesStreamInput handles, LZFStreamInput lzf) {
+        Entry(HandlesStreamInput handles) {
             this.handles = handles;
-            this.lzf = lzf;
+        }
+
+        CompressedStreamInput compressed(Compressor compressor) throws IOException {
+            CompressedStreamInput in = compressed.get(compressor);
+            if (in == null) {
+                in = compressor.streamInput(null);
+                compressed.put(compressor, in);
+            }
+            return in;
         }
     }
 
@@ -44,8 +56,7 @@ public class CachedStreamInput {
         Entry entry = ref == null ? null : ref.get();
         if (entry == null) {
             HandlesStreamInput handles = new HandlesStreamInput();
-            LZFStreamInput lzf = new LZFStreamInput(null, true);
-            entry = new Entry(handles, lzf);
+            entry = new Entry(handles);
             cache.set(new SoftReference<Entry>(entry));
         }
         return entry;
@@ -55,10 +66,10 @@ public class CachedStreamInput {
         cache.remove();
     }
 
-    public static LZFStreamInput cachedLzf(StreamInput in) throws IOException {
-        LZFStreamInput lzf = instance().lzf;
-        lzf.reset(in);
-        return lzf;
+    public static CompressedStreamInput cachedCompressed(Compressor compressor, StreamInput in) throws IOException {
+        CompressedStreamInput compressed = instance().compressed(compressor);
+        compressed.reset(in);
+        return compressed;
     }
 
     public static HandlesStreamInput cachedHandles(StreamInput in) {
@@ -67,10 +78,11 @@ public class CachedStreamInput {
         return handles;
     }
 
-    public static HandlesStreamInput cachedHandlesLzf(StreamInput in) throws IOException {
+    public static HandlesStreamInput cachedHandlesCompressed(Compressor compressor, StreamInput in) throws IOException {
         Entry entry = instance();
-        entry.lzf.reset(in);
-        entry.handles.reset(entry.lzf);
+        CompressedStreamInput compressed = entry.compressed(compressor);
+        compressed.reset(in);
+        entry.handles.reset(compressed);
         return entry.handles;
     }
 }
@@ -20,9 +20,12 @@
 package org.elasticsearch.common.io.stream;
 
 import jsr166y.LinkedTransferQueue;
+import org.elasticsearch.common.compress.Compressor;
 
 import java.io.IOException;
 import java.lang.ref.SoftReference;
+import java.util.IdentityHashMap;
+import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -34,19 +37,17 @@ public class CachedStreamOutput {
     private static Entry newEntry() {
         BytesStreamOutput bytes = new BytesStreamOutput();
         HandlesStreamOutput handles = new HandlesStreamOutput(bytes);
-        LZFStreamOutput lzf = new LZFStreamOutput(bytes, true);
-        return new Entry(bytes, handles, lzf);
+        return new Entry(bytes, handles);
     }
 
     public static class Entry {
         private final BytesStreamOutput bytes;
         private final HandlesStreamOutput handles;
-        private final LZFStreamOutput lzf;
+        private final Map<Compressor, CompressedStreamOutput> compressed = new IdentityHashMap<Compressor, CompressedStreamOutput>();
 
-        Entry(BytesStreamOutput bytes, HandlesStreamOutput handles, LZFStreamOutput lzf) {
+        Entry(BytesStreamOutput bytes, HandlesStreamOutput handles) {
             this.bytes = bytes;
             this.handles = handles;
-            this.lzf = lzf;
         }
 
         /**
@@ -64,13 +65,17 @@ public class CachedStreamOutput {
             return bytes;
         }
 
-        public LZFStreamOutput cachedLZFBytes() throws IOException {
-            lzf.reset();
-            return lzf;
+        /**
+         * Returns a cached stream, compressing with the given compressor into the (reset) cached bytes.
+         */
+        public CompressedStreamOutput cachedCompressedBytes(Compressor compressor) throws IOException {
+            CompressedStreamOutput out = compressed(compressor);
+            out.reset();
+            return out;
         }
 
-        public HandlesStreamOutput cachedHandlesLzfBytes() throws IOException {
-            handles.reset(lzf);
+        public HandlesStreamOutput cachedHandlesCompressedBytes(Compressor compressor) throws IOException {
+            handles.reset(compressed(compressor));
             return handles;
         }
 
@@ -78,6 +83,15 @@ public class CachedStreamOutput {
             handles.reset(bytes);
             return handles;
         }
+
+        private CompressedStreamOutput compressed(Compressor compressor) throws IOException {
+            CompressedStreamOutput out = compressed.get(compressor);
+            if (out == null) {
+                out = compressor.streamOutput(bytes);
+                compressed.put(compressor, out);
+            }
+            return out;
+        }
     }
 
     static class SoftWrapper<T> {
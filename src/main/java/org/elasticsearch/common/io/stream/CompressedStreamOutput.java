@@ -0,0 +1,35 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.common.io.stream;
+
+import java.io.IOException;
+
+/**
+ * A stream output writing compressed (chunked) content into a wrapped stream output, see
+ * {@link org.elasticsearch.common.compress.Compressor#streamOutput(StreamOutput)}.
+ */
+public abstract class CompressedStreamOutput extends StreamOutput {
+
+    /**
+     * Resets the stream to write into the given stream output.
+     */
+    public abstract void reset(StreamOutput out) throws IOException;
+
+    public abstract StreamOutput wrappedOut();
+}
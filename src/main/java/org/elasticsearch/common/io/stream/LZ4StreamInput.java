@@ -0,0 +1,132 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.common.io.stream;
+
+import org.elasticsearch.common.compress.CompressorMetrics;
+import org.elasticsearch.common.compress.lz4.LZ4Codec;
+
+import java.io.EOFException;
+import java.io.IOException;
+
+/**
+ * Reads {@link LZ4Codec} chunks from the wrapped stream input. Closing it only resets it, so it can be reused.
+ */
+public class LZ4StreamInput extends CompressedStreamInput {
+
+    private StreamInput in;
+
+    private final CompressorMetrics metrics;
+
+    private final byte[] inputBuffer = new byte[LZ4Codec.MAX_CHUNK_LEN];
+
+    private final byte[] decodedBytes = LZ4Codec.newDecodeBuffer();
+
+    private int bufferPosition = LZ4Codec.DECODE_OFFSET;
+
+    private int bufferLength = LZ4Codec.DECODE_OFFSET;
+
+    public LZ4StreamInput(StreamInput in, CompressorMetrics metrics) {
+        this.in = in;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public int available() {
+        int left = bufferLength - bufferPosition;
+        return left <= 0 ? 0 : left;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!readyBuffer()) {
+            return -1;
+        }
+        return decodedBytes[bufferPosition++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int offset, int length) throws IOException {
+        if (length < 1) {
+            return 0;
+        }
+        int totalRead = 0;
+        while (totalRead < length && readyBuffer()) {
+            int chunkLength = Math.min(bufferLength - bufferPosition, length - totalRead);
+            System.arraycopy(decodedBytes, bufferPosition, b, offset + totalRead, chunkLength);
+            bufferPosition += chunkLength;
+            totalRead += chunkLength;
+        }
+        return totalRead == 0 ? -1 : totalRead;
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+        if (!readyBuffer()) {
+            throw new EOFException();
+        }
+        return decodedBytes[bufferPosition++];
+    }
+
+    @Override
+    public void readBytes(byte[] b, int offset, int len) throws IOException {
+        int result = read(b, offset, len);
+        if (result < len) {
+            throw new EOFException();
+        }
+    }
+
+    @Override
+    public void reset() throws IOException {
+        this.bufferPosition = LZ4Codec.DECODE_OFFSET;
+        this.bufferLength = LZ4Codec.DECODE_OFFSET;
+        in.reset();
+    }
+
+    @Override
+    public void reset(StreamInput in) throws IOException {
+        this.in = in;
+        this.bufferPosition = LZ4Codec.DECODE_OFFSET;
+        this.bufferLength = LZ4Codec.DECODE_OFFSET;
+    }
+
+    @Override
+    public void resetToBufferStart() {
+        this.bufferPosition = LZ4Codec.DECODE_OFFSET;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reset();
+    }
+
+    private boolean readyBuffer() throws IOException {
+        if (bufferPosition < bufferLength) {
+            return true;
+        }
+        long start = System.nanoTime();
+        int length = LZ4Codec.readChunk(in, inputBuffer, decodedBytes);
+        if (length < 0) {
+            return false;
+        }
+        metrics.uncompressed(length, System.nanoTime() - start);
+        bufferLength = LZ4Codec.DECODE_OFFSET + length;
+        bufferPosition = LZ4Codec.DECODE_OFFSET;
+        return bufferPosition < bufferLength;
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.common.io.stream;
+
+import org.elasticsearch.common.compress.CompressorMetrics;
+import org.elasticsearch.common.compress.lz4.LZ4Codec;
+
+import java.io.IOException;
+
+/**
+ * Writes {@link LZ4Codec} chunks into the wrapped stream output. The wrapped stream is never closed, closing
+ * this stream just writes the pending chunk and resets it so it can be reused.
+ */
+public class LZ4StreamOutput extends CompressedStreamOutput {
+
+    private StreamOutput out;
+
+    private final byte[] buffer = new byte[LZ4Codec.MAX_CHUNK_LEN];
+
+    private final byte[] encodeBuffer = new byte[LZ4Codec.HEADER_LEN_COMPRESSED_DICTIONARY + LZ4Codec.maxCompressedLength(LZ4Codec.MAX_CHUNK_LEN)];
+
+    private final int[] hashTable = new int[LZ4Codec.HASH_TABLE_SIZE];
+
+    private final byte[] dictionaryWindow;
+
+    private final CompressorMetrics metrics;
+
+    private int position = 0;
+
+    /**
+     * @param dictionary should chunks be compressed against the preset dictionary
+     */
+    public LZ4StreamOutput(StreamOutput out, boolean dictionary, CompressorMetrics metrics) {
+        this.out = out;
+        this.dictionaryWindow = dictionary ? LZ4Codec.newDecodeBuffer() : null;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void writeByte(byte b) throws IOException {
+        if (position >= buffer.length) {
+            writeChunk(buffer, 0, position);
+            position = 0;
+        }
+        buffer[position++] = b;
+    }
+
+    @Override
+    public void writeBytes(byte[] b, int offset, int length) throws IOException {
+        if (length == 0) {
+            return;
+        }
+        int free = buffer.length - position;
+        if (free >= length) {
+            System.arraycopy(b, offset, buffer, position, length);
+            position += length;
+            return;
+        }
+        System.arraycopy(b, offset, buffer, position, free);
+        offset += free;
+        length -= free;
+        writeChunk(buffer, 0, buffer.length);
+
+        // write full chunks directly, without copying them
+        while (length >= buffer.length) {
+            writeChunk(b, offset, buffer.length);
+            offset += buffer.length;
+            length -= buffer.length;
+        }
+
+        if (length > 0) {
+            System.arraycopy(b, offset, buffer, 0, length);
+        }
+        position = length;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (position > 0) {
+            writeChunk(buffer, 0, position);
+            position = 0;
+        }
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (position > 0) {
+            writeChunk(buffer, 0, position);
+        }
+        position = 0;
+    }
+
+    @Override
+    public void reset() throws IOException {
+        position = 0;
+        out.reset();
+    }
+
+    @Override
+    public void reset(StreamOutput out) throws IOException {
+        this.out = out;
+        reset();
+    }
+
+    @Override
+    public StreamOutput wrappedOut() {
+        return this.out;
+    }
+
+    private void writeChunk(byte[] b, int offset, int length) throws IOException {
+        long start = System.nanoTime();
+        int written = LZ4Codec.writeChunk(b, offset, length, out, encodeBuffer, hashTable, dictionaryWindow);
+        metrics.compressed(length, written, System.nanoTime() - start);
+    }
+}
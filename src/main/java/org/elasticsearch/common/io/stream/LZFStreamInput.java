@@ -22,6 +22,7 @@ package org.elasticsearch.common.io.stream;
 import org.elasticsearch.common.compress.lzf.BufferRecycler;
 import org.elasticsearch.common.compress.lzf.ChunkDecoder;
 import org.elasticsearch.common.compress.lzf.LZFChunk;
+import org.elasticsearch.common.compress.lzf.LZFCompressor;
 import org.elasticsearch.common.compress.lzf.util.ChunkDecoderFactory;
 
 import java.io.EOFException;
@@ -30,7 +31,7 @@ import java.io.IOException;
 /**
  *
  */
-public class LZFStreamInput extends StreamInput {
+public class LZFStreamInput extends CompressedStreamInput {
     /**
      * Underlying decoder in use.
      */
@@ -172,6 +173,7 @@ public class LZFStreamInput extends StreamInput {
         inputStream.reset();
     }
 
+    @Override
     public void reset(StreamInput in) throws IOException {
         this.inputStream = in;
         this.bufferPosition = 0;
@@ -181,6 +183,7 @@ public class LZFStreamInput extends StreamInput {
     /**
      * Expert!, resets to buffer start, without the need to decompress it again.
      */
+    @Override
     public void resetToBufferStart() {
         this.bufferPosition = 0;
     }
@@ -226,10 +229,12 @@ public class LZFStreamInput extends StreamInput {
         if (inputStreamClosed) {
             return false;
         }
+        long start = System.nanoTime();
         bufferLength = _decoder.decodeChunk(inputStream, _inputBuffer, _decodedBytes);
         if (bufferLength < 0) {
             return false;
         }
+        LZFCompressor.METRICS.uncompressed(bufferLength, System.nanoTime() - start);
         bufferPosition = 0;
         return (bufferPosition < bufferLength);
     }
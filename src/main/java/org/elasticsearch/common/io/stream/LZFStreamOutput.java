@@ -22,13 +22,14 @@ package org.elasticsearch.common.io.stream;
 import org.elasticsearch.common.compress.lzf.BufferRecycler;
 import org.elasticsearch.common.compress.lzf.ChunkEncoder;
 import org.elasticsearch.common.compress.lzf.LZFChunk;
+import org.elasticsearch.common.compress.lzf.LZFCompressor;
 
 import java.io.IOException;
 
 /**
  *
  */
-public class LZFStreamOutput extends StreamOutput {
+public class LZFStreamOutput extends CompressedStreamOutput {
 
     private static int OUTPUT_BUFFER_SIZE = LZFChunk.MAX_CHUNK_LEN;
 
@@ -100,7 +101,7 @@ public class LZFStreamOutput extends StreamOutput {
 
         // then write intermediate full block, if any, without copying:
         while (length >= BUFFER_LEN) {
-            _encoder.encodeAndWriteChunk(buffer, offset, BUFFER_LEN, _outputStream);
+            encodeAndWriteChunk(buffer, offset, BUFFER_LEN);
             offset += BUFFER_LEN;
             length -= BUFFER_LEN;
         }
@@ -146,11 +147,13 @@ public class LZFStreamOutput extends StreamOutput {
         _outputStream.reset();
     }
 
+    @Override
     public void reset(StreamOutput out) throws IOException {
         this._outputStream = out;
         reset();
     }
 
+    @Override
     public StreamOutput wrappedOut() {
         return this._outputStream;
     }
@@ -165,9 +168,15 @@ public class LZFStreamOutput extends StreamOutput {
 
         do {
             int chunkLen = Math.min(LZFChunk.MAX_CHUNK_LEN, left);
-            _encoder.encodeAndWriteChunk(_outputBuffer, offset, chunkLen, _outputStream);
+            encodeAndWriteChunk(_outputBuffer, offset, chunkLen);
             offset += chunkLen;
             left -= chunkLen;
         } while (left > 0);
     }
+
+    private void encodeAndWriteChunk(byte[] buffer, int offset, int length) throws IOException {
+        long start = System.nanoTime();
+        int written = _encoder.encodeAndWriteChunk(buffer, offset, length, _outputStream);
+        LZFCompressor.METRICS.compressed(length, written, System.nanoTime() - start);
+    }
 }
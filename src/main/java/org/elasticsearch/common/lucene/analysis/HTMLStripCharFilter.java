@@ -19,7 +19,6 @@
 
 package org.elasticsearch.common.lucene.analysis;
 
-import org.apache.lucene.analysis.BaseCharFilter;
 import org.apache.lucene.analysis.CharReader;
 import org.apache.lucene.analysis.CharStream;
 
@@ -34,7 +33,7 @@ import java.util.Set;
  *
  */
 // LUCENE MONITOR: Once the next Lucene version is out, use the built in HTML filter
-public class HTMLStripCharFilter extends BaseCharFilter {
+public class HTMLStripCharFilter extends ResettableCharFilter {
     private int readAheadLimit = DEFAULT_READ_AHEAD;
     private int safeReadAheadLimit = readAheadLimit - 3;
     private int numWhitespace = 0;
@@ -78,6 +77,18 @@ public class HTMLStripCharFilter extends BaseCharFilter {
         safeReadAheadLimit = readAheadLimit - 3;
     }
 
+    @Override
+    public void reset(CharStream source) throws IOException {
+        super.reset(source.markSupported() ? source : CharReader.get(new BufferedReader(source)));
+        numWhitespace = 0;
+        numRead = 0;
+        numEaten = 0;
+        numReturned = 0;
+        lastMark = 0;
+        pushed.setLength(0);
+        sb.setLength(0);
+    }
+
     public int getReadAheadLimit() {
         return readAheadLimit;
     }
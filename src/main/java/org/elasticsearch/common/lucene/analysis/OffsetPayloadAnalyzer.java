@@ -0,0 +1,128 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.lucene.analysis;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Fieldable;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Wraps the analyzer of a parsed document, adding an {@link OffsetPayloadTokenFilter} to the token streams of
+ * the provided fields. The analyzer is resolved when the document is indexed, so the per document analyzer
+ * (<tt>_analyzer</tt>) and the reusable token streams of the wrapped analyzer are used.
+ * <p/>
+ * The value index of each token stream is the position of the value among the values of the field within its
+ * Lucene document, based on the order in which the values are analyzed (the documents in order, and the values
+ * of a field in the order they were added to the document). An instance is therefore bound to the documents it
+ * was created for, and must be used to index them once.
+ */
+public final class OffsetPayloadAnalyzer extends Analyzer {
+
+    private final Analyzer analyzer;
+
+    private final Map<String, ValueCounter> counters;
+
+    public OffsetPayloadAnalyzer(Analyzer analyzer, Set<String> fields, List<Document> docs) {
+        this.analyzer = analyzer;
+        this.counters = new HashMap<String, ValueCounter>(fields.size());
+        for (String field : fields) {
+            int[] valuesPerDoc = new int[docs.size()];
+            boolean hasValues = false;
+            for (int i = 0; i < valuesPerDoc.length; i++) {
+                for (Fieldable fieldable : docs.get(i).getFieldables(field)) {
+                    // only analyzed values go through the analyzer
+                    if (fieldable.isIndexed() && fieldable.isTokenized() && fieldable.tokenStreamValue() == null) {
+                        valuesPerDoc[i]++;
+                        hasValues = true;
+                    }
+                }
+            }
+            if (hasValues) {
+                counters.put(field, new ValueCounter(valuesPerDoc));
+            }
+        }
+    }
+
+    /**
+     * Returns <tt>true</tt> if any of the provided docs has values for the fields with offsets.
+     */
+    public boolean hasValues() {
+        return !counters.isEmpty();
+    }
+
+    @Override
+    public TokenStream tokenStream(String fieldName, Reader reader) {
+        TokenStream stream = analyzer.tokenStream(fieldName, reader);
+        ValueCounter counter = counters.get(fieldName);
+        if (counter == null) {
+            return stream;
+        }
+        return new OffsetPayloadTokenFilter(stream, counter.next());
+    }
+
+    @Override
+    public TokenStream reusableTokenStream(String fieldName, Reader reader) throws IOException {
+        TokenStream stream = analyzer.reusableTokenStream(fieldName, reader);
+        ValueCounter counter = counters.get(fieldName);
+        if (counter == null) {
+            return stream;
+        }
+        return new OffsetPayloadTokenFilter(stream, counter.next());
+    }
+
+    @Override
+    public int getPositionIncrementGap(String fieldName) {
+        return analyzer.getPositionIncrementGap(fieldName);
+    }
+
+    @Override
+    public int getOffsetGap(Fieldable field) {
+        return analyzer.getOffsetGap(field);
+    }
+
+    static class ValueCounter {
+
+        private final int[] valuesPerDoc;
+
+        private int doc;
+
+        private int value;
+
+        ValueCounter(int[] valuesPerDoc) {
+            this.valuesPerDoc = valuesPerDoc;
+        }
+
+        int next() {
+            while (doc < valuesPerDoc.length - 1 && value >= valuesPerDoc[doc]) {
+                doc++;
+                value = 0;
+            }
+            return value++;
+        }
+    }
+}
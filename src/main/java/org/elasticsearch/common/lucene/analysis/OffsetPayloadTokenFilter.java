@@ -0,0 +1,100 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.lucene.analysis;
+
+import org.apache.lucene.analysis.TokenFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.analysis.tokenattributes.PayloadAttribute;
+import org.apache.lucene.index.Payload;
+
+import java.io.IOException;
+
+/**
+ * A token filter that stores the value index (the index of the value within a multi valued field) and the
+ * start and end offsets of each token as the payload of the token. This allows to get the offsets of
+ * matching terms directly from the term positions of a doc, without term vectors and without having to
+ * re-analyze the text.
+ * <p/>
+ * Note, any payload set by the wrapped stream is overridden.
+ */
+public final class OffsetPayloadTokenFilter extends TokenFilter {
+
+    private final OffsetAttribute offsetAtt = addAttribute(OffsetAttribute.class);
+
+    private final PayloadAttribute payloadAtt = addAttribute(PayloadAttribute.class);
+
+    private final int valueIndex;
+
+    // the payload bytes are copied when the token is indexed, so a single payload is reused across tokens
+    private final byte[] bytes = new byte[15];
+
+    private final Payload payload = new Payload();
+
+    public OffsetPayloadTokenFilter(TokenStream input, int valueIndex) {
+        super(input);
+        this.valueIndex = valueIndex;
+    }
+
+    @Override
+    public boolean incrementToken() throws IOException {
+        if (!input.incrementToken()) {
+            return false;
+        }
+        int startOffset = offsetAtt.startOffset();
+        int endOffset = offsetAtt.endOffset();
+        int length = writeVInt(bytes, 0, valueIndex);
+        length = writeVInt(bytes, length, startOffset);
+        length = writeVInt(bytes, length, endOffset - startOffset);
+        payload.setData(bytes, 0, length);
+        payloadAtt.setPayload(payload);
+        return true;
+    }
+
+    /**
+     * Decodes a payload written by this filter into the provided array as value index, start offset
+     * and end offset.
+     */
+    public static void decode(byte[] bytes, int offset, int[] into) {
+        int[] position = new int[]{offset};
+        into[0] = readVInt(bytes, position);
+        into[1] = readVInt(bytes, position);
+        into[2] = into[1] + readVInt(bytes, position);
+    }
+
+    private static int writeVInt(byte[] bytes, int offset, int value) {
+        while ((value & ~0x7F) != 0) {
+            bytes[offset++] = (byte) ((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        bytes[offset++] = (byte) value;
+        return offset;
+    }
+
+    private static int readVInt(byte[] bytes, int[] position) {
+        byte b = bytes[position[0]++];
+        int i = b & 0x7F;
+        for (int shift = 7; (b & 0x80) != 0; shift += 7) {
+            b = bytes[position[0]++];
+            i |= (b & 0x7F) << shift;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Licensed to Elastic Search and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Elastic Search licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.lucene.search;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.FieldComparator;
+import org.apache.lucene.search.ScoreCachingWrappingScorer;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.elasticsearch.ElasticSearchIllegalArgumentException;
+
+import java.io.IOException;
+
+/**
+ * Only passes to the wrapped collector the documents sorting strictly after the provided sort values, so a
+ * sorted search can page through results (search after the last hit of the previous page) without
+ * collecting all the previous pages. Documents with sort values equal to the provided ones are skipped,
+ * a unique sort field (like <tt>_uid</tt>) should be used as the last sort field to break ties.
+ */
+public class SearchAfterCollector extends Collector {
+
+    private final Collector collector;
+
+    private final Object[] after;
+
+    private final FieldComparator[] comparators;
+
+    // 1 if the comparator sorts its values in ascending order, -1 otherwise
+    private final int[] ascending;
+
+    private int totalHits;
+
+    public SearchAfterCollector(Collector collector, Sort sort, Object[] after) throws IOException {
+        SortField[] sortFields = sort.getSort();
+        if (after.length != sortFields.length) {
+            throw new ElasticSearchIllegalArgumentException("search_after has [" + after.length + "] values, but sorting is done on [" + sortFields.length + "] fields");
+        }
+        this.collector = collector;
+        this.after = after;
+        this.comparators = new FieldComparator[sortFields.length];
+        this.ascending = new int[sortFields.length];
+        for (int i = 0; i < sortFields.length; i++) {
+            comparators[i] = sortFields[i].getComparator(1, i);
+            // scores are sorted in descending order by default
+            boolean asc = sortFields[i].getType() != SortField.SCORE;
+            ascending[i] = asc != sortFields[i].getReverse() ? 1 : -1;
+        }
+    }
+
+    /**
+     * The number of documents matched, including the ones sorting before the provided sort values.
+     */
+    public int totalHits() {
+        return totalHits;
+    }
+
+    @Override
+    public void setScorer(Scorer scorer) throws IOException {
+        // the score might be needed both for the search after check and by the wrapped collector
+        scorer = new ScoreCachingWrappingScorer(scorer);
+        for (FieldComparator comparator : comparators) {
+            comparator.setScorer(scorer);
+        }
+        collector.setScorer(scorer);
+    }
+
+    @Override
+    public void collect(int doc) throws IOException {
+        totalHits++;
+        for (int i = 0; i < comparators.length; i++) {
+            comparators[i].copy(0, doc);
+            int cmp = compareValues(comparators[i].value(0), after[i]) * ascending[i];
+            if (cmp > 0) {
+                collector.collect(doc);
+                return;
+            }
+            if (cmp < 0) {
+                return;
+            }
+        }
+        // same sort values as the last hit, it was already returned
+    }
+
+    @Override
+    public void setNextReader(IndexReader reader, int docBase) throws IOException {
+        for (FieldComparator comparator : comparators) {
+            comparator.setNextReader(reader, docBase);
+        }
+        collector.setNextReader(reader, docBase);
+    }
+
+    @Override
+    public boolean acceptsDocsOutOfOrder() {
+        return collector.acceptsDocsOutOfOrder();
+    }
+
+    /**
+     * Compares a document sort value with a provided one, which comes from the (json) request, and might be
+     * of a different type (a <tt>Double</tt> for a <tt>Float</tt> value, a <tt>String</tt> for a number).
+     */
+    static int compareValues(Object value, Object after) {
+        if (value == null) {
+            return after == null ? 0 : -1;
+        }
+        if (after == null) {
+            return 1;
+        }
+        if (value instanceof Number) {
+            Number number = (Number) value;
+            Number afterNumber;
+            if (after instanceof Number) {
+                afterNumber = (Number) after;
+            } else {
+                try {
+                    afterNumber = Double.parseDouble(after.toString());
+                } catch (NumberFormatException e) {
+                    throw new ElasticSearchIllegalArgumentException("search_after value [" + after + "] is not a number, while sorting on a numeric value");
+                }
+            }
+            if (value instanceof Float) {
+                // the provided value went through a double conversion
+                return Float.compare(number.floatValue(), afterNumber.floatValue());
+            }
+            if (value instanceof Double || afterNumber instanceof Double || afterNumber instanceof Float) {
+                return Double.compare(number.doubleValue(), afterNumber.doubleValue());
+            }
+            long l1 = number.longValue();
+            long l2 = afterNumber.longValue();
+            return l1 < l2 ? -1 : (l1 == l2 ? 0 : 1);
+        }
+        return value.toString().compareTo(after.toString());
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.lucene.uid;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.TermPositions;
+import org.elasticsearch.common.lucene.Lucene;
+
+import java.io.IOException;
+
+/**
+ * Looks up uids against the segments of a reader, keeping a single {@link TermPositions} per segment that is
+ * seeked from one uid to the next. When the uids are looked up in sorted order, each segment uid term dictionary
+ * is scanned forward from the previous uid instead of being seeked again from its terms index.
+ * <p/>
+ * Not thread safe, and must be closed once done with.
+ */
+public class SegmentsUidLookup {
+
+    private final IndexReader[] subReaders;
+
+    private final TermPositions[] termPositions;
+
+    public SegmentsUidLookup(IndexReader[] subReaders) {
+        this.subReaders = subReaders;
+        this.termPositions = new TermPositions[subReaders.length];
+    }
+
+    public IndexReader[] subReaders() {
+        return this.subReaders;
+    }
+
+    /**
+     * Loads the doc id and version of the uid in the segment, see {@link UidField#loadDocIdAndVersion(IndexReader, Term)}.
+     */
+    public UidField.DocIdAndVersion loadDocIdAndVersion(int segment, Term uid) {
+        IndexReader reader = subReaders[segment];
+        try {
+            TermPositions positions = termPositions[segment];
+            if (positions == null) {
+                positions = reader.termPositions();
+                termPositions[segment] = positions;
+            }
+            positions.seek(uid);
+            return UidField.loadDocIdAndVersion(reader, positions);
+        } catch (Exception e) {
+            return new UidField.DocIdAndVersion(Lucene.NO_DOC, -2, reader);
+        }
+    }
+
+    public void close() {
+        for (int i = 0; i < termPositions.length; i++) {
+            if (termPositions[i] != null) {
+                try {
+                    termPositions[i].close();
+                } catch (IOException e) {
+                    // nothing to do here...
+                }
+                termPositions[i] = null;
+            }
+        }
+    }
+}
@@ -49,10 +49,30 @@ public class UidField extends AbstractField {
     }
 
     public static DocIdAndVersion loadDocIdAndVersion(IndexReader reader, Term term) {
-        int docId = Lucene.NO_DOC;
         TermPositions uid = null;
         try {
             uid = reader.termPositions(term);
+            return loadDocIdAndVersion(reader, uid);
+        } catch (Exception e) {
+            return new DocIdAndVersion(Lucene.NO_DOC, -2, reader);
+        } finally {
+            if (uid != null) {
+                try {
+                    uid.close();
+                } catch (IOException e) {
+                    // nothing to do here...
+                }
+            }
+        }
+    }
+
+    /**
+     * Loads the doc id and version of the uid the provided term positions of the reader are positioned on,
+     * without closing them so they can be seeked to the next uid.
+     */
+    public static DocIdAndVersion loadDocIdAndVersion(IndexReader reader, TermPositions uid) {
+        int docId = Lucene.NO_DOC;
+        try {
             if (!uid.next()) {
                 return null; // no doc
             }
@@ -73,14 +93,6 @@ public class UidField extends AbstractField {
             return new DocIdAndVersion(docId, -2, reader);
         } catch (Exception e) {
             return new DocIdAndVersion(docId, -2, reader);
-        } finally {
-            if (uid != null) {
-                try {
-                    uid.close();
-                } catch (IOException e) {
-                    // nothing to do here...
-                }
-            }
         }
     }
 
@@ -23,8 +23,9 @@ import java.io.*;
 
 /**
  * A generic abstraction on top of handling content, inspired by JSON and pull parsing.
- *
- *
+ * <p/>
+ * Parsers and generators reuse per thread buffers and field names symbol tables, which are only given back
+ * to the next parser or generator on the same thread once they are closed, so they should always be closed.
  */
 public interface XContent {
 
@@ -65,6 +66,12 @@ public interface XContent {
      */
     XContentParser createParser(byte[] data, int offset, int length) throws IOException;
 
+    /**
+     * Creates a parser over the provided bytes that might reuse a per thread cached parser, when not already
+     * in use on the thread. The parser must be closed once done with (to be reused) and not used afterwards.
+     */
+    XContentParser createCachedParser(byte[] data, int offset, int length) throws IOException;
+
     /**
      * Creates a parser over the provided reader.
      */
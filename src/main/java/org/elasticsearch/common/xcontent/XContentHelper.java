@@ -22,10 +22,11 @@ package org.elasticsearch.common.xcontent;
 import com.google.common.base.Charsets;
 import org.elasticsearch.ElasticSearchParseException;
 import org.elasticsearch.common.collect.Tuple;
-import org.elasticsearch.common.compress.lzf.LZF;
+import org.elasticsearch.common.compress.Compressor;
+import org.elasticsearch.common.compress.CompressorFactory;
 import org.elasticsearch.common.io.stream.BytesStreamInput;
 import org.elasticsearch.common.io.stream.CachedStreamInput;
-import org.elasticsearch.common.io.stream.LZFStreamInput;
+import org.elasticsearch.common.io.stream.CompressedStreamInput;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -39,28 +40,41 @@ import java.util.Map;
 public class XContentHelper {
 
     public static XContentParser createParser(byte[] data, int offset, int length) throws IOException {
-        if (LZF.isCompressed(data, offset, length)) {
+        Compressor compressor = CompressorFactory.compressor(data, offset, length);
+        if (compressor != null) {
             BytesStreamInput siBytes = new BytesStreamInput(data, offset, length);
-            LZFStreamInput siLzf = CachedStreamInput.cachedLzf(siBytes);
-            XContentType contentType = XContentFactory.xContentType(siLzf);
-            siLzf.resetToBufferStart();
-            return XContentFactory.xContent(contentType).createParser(siLzf);
+            CompressedStreamInput siCompressed = CachedStreamInput.cachedCompressed(compressor, siBytes);
+            XContentType contentType = XContentFactory.xContentType(siCompressed);
+            siCompressed.resetToBufferStart();
+            return XContentFactory.xContent(contentType).createParser(siCompressed);
         } else {
             return XContentFactory.xContent(data, offset, length).createParser(data, offset, length);
         }
     }
 
+    /**
+     * Like {@link #createParser(byte[], int, int)}, but might reuse the per thread cached parser for uncompressed
+     * content, see {@link XContent#createCachedParser(byte[], int, int)}.
+     */
+    public static XContentParser createCachedParser(byte[] data, int offset, int length) throws IOException {
+        if (CompressorFactory.compressor(data, offset, length) != null) {
+            return createParser(data, offset, length);
+        }
+        return XContentFactory.xContent(data, offset, length).createCachedParser(data, offset, length);
+    }
+
     public static Tuple<XContentType, Map<String, Object>> convertToMap(byte[] data, int offset, int length) throws ElasticSearchParseException {
         try {
-            if (LZF.isCompressed(data, offset, length)) {
+            Compressor compressor = CompressorFactory.compressor(data, offset, length);
+            if (compressor != null) {
                 BytesStreamInput siBytes = new BytesStreamInput(data, offset, length);
-                LZFStreamInput siLzf = CachedStreamInput.cachedLzf(siBytes);
-                XContentType contentType = XContentFactory.xContentType(siLzf);
-                siLzf.resetToBufferStart();
-                return Tuple.create(contentType, XContentFactory.xContent(contentType).createParser(siLzf).mapAndClose());
+                CompressedStreamInput siCompressed = CachedStreamInput.cachedCompressed(compressor, siBytes);
+                XContentType contentType = XContentFactory.xContentType(siCompressed);
+                siCompressed.resetToBufferStart();
+                return Tuple.create(contentType, XContentFactory.xContent(contentType).createParser(siCompressed).mapAndClose());
             } else {
                 XContentType contentType = XContentFactory.xContentType(data, offset, length);
-                return Tuple.create(contentType, XContentFactory.xContent(contentType).createParser(data, offset, length).mapAndClose());
+                return Tuple.create(contentType, XContentFactory.xContent(contentType).createCachedParser(data, offset, length).mapAndClose());
             }
         } catch (IOException e) {
             throw new ElasticSearchParseException("Failed to parse content to map", e);
@@ -0,0 +1,125 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.xcontent.json;
+
+import org.codehaus.jackson.impl.ReusableUtf8StreamParser;
+import org.elasticsearch.common.metrics.CounterMetric;
+
+import java.lang.ref.SoftReference;
+
+/**
+ * A json parser reusing a per thread jackson parser (and its buffers and canonicalized field names), see
+ * {@link JsonXContent#createCachedParser(byte[], int, int)}.
+ */
+public class CachedJsonXContentParser extends JsonXContentParser {
+
+    // same as the max number of field names jackson keeps in its root symbol table
+    private static final int MAX_SYMBOLS = 6000;
+
+    static class Entry {
+        final ReusableUtf8StreamParser parser;
+        boolean inUse;
+
+        Entry(ReusableUtf8StreamParser parser) {
+            this.parser = parser;
+        }
+    }
+
+    private static final ThreadLocal<SoftReference<Entry>> cache = new ThreadLocal<SoftReference<Entry>>();
+
+    private static final CounterMetric createdCount = new CounterMetric();
+    private static final CounterMetric reusedCount = new CounterMetric();
+
+    /**
+     * The number of jackson parsers created by the cache.
+     */
+    public static long createdCount() {
+        return createdCount.count();
+    }
+
+    /**
+     * The number of times a cached jackson parser got reused.
+     */
+    public static long reusedCount() {
+        return reusedCount.count();
+    }
+
+    public static void clear() {
+        cache.remove();
+    }
+
+    /**
+     * Returns the cached parser of the thread reset to the content, or <tt>null</tt> if the cached parser is
+     * already in use (nested parsing) or the content is not plain UTF-8.
+     */
+    static CachedJsonXContentParser cachedParser(int features, byte[] data, int offset, int length) {
+        if (length < 2 || data[offset] == 0 || data[offset + 1] == 0) {
+            // (probably) UTF-16 or UTF-32, let jackson detect the encoding
+            return null;
+        }
+        int b0 = data[offset] & 0xFF;
+        if (b0 == 0xFE || b0 == 0xFF) {
+            // UTF-16 or UTF-32 BOM
+            return null;
+        }
+        if (b0 == 0xEF && length >= 3 && (data[offset + 1] & 0xFF) == 0xBB && (data[offset + 2] & 0xFF) == 0xBF) {
+            // UTF-8 BOM
+            offset += 3;
+            length -= 3;
+        }
+        SoftReference<Entry> ref = cache.get();
+        Entry entry = ref == null ? null : ref.get();
+        if (entry != null && entry.inUse) {
+            return null;
+        }
+        if (entry == null || entry.parser.symbolsCount() > MAX_SYMBOLS) {
+            // start over with a new symbol table if the content keeps on bringing new field names
+            entry = new Entry(new ReusableUtf8StreamParser(features));
+            cache.set(new SoftReference<Entry>(entry));
+            createdCount.inc();
+        } else {
+            reusedCount.inc();
+        }
+        entry.inUse = true;
+        return new CachedJsonXContentParser(entry, data, offset, length);
+    }
+
+    private final Entry entry;
+
+    private boolean closed;
+
+    private CachedJsonXContentParser(Entry entry, byte[] data, int offset, int length) {
+        super(entry.parser.reset(data, offset, length));
+        this.entry = entry;
+    }
+
+    /**
+     * Releases the parser back to the thread cache, it must not be used afterwards.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        entry.parser.release();
+        entry.inUse = false;
+    }
+}
@@ -40,12 +40,20 @@ public class JsonXContent implements XContent {
     }
 
     private final static JsonFactory jsonFactory;
+    private final static int parserFeatures;
     public final static JsonXContent jsonXContent;
 
     static {
         jsonFactory = new JsonFactory();
         jsonFactory.configure(JsonParser.Feature.ALLOW_UNQUOTED_FIELD_NAMES, true);
         jsonFactory.configure(JsonGenerator.Feature.QUOTE_FIELD_NAMES, true);
+        int features = 0;
+        for (JsonParser.Feature feature : JsonParser.Feature.values()) {
+            if (jsonFactory.isEnabled(feature)) {
+                features |= feature.getMask();
+            }
+        }
+        parserFeatures = features;
         jsonXContent = new JsonXContent();
     }
 
@@ -92,6 +100,15 @@ public class JsonXContent implements XContent {
         return new JsonXContentParser(jsonFactory.createJsonParser(data, offset, length));
     }
 
+    @Override
+    public XContentParser createCachedParser(byte[] data, int offset, int length) throws IOException {
+        XContentParser parser = CachedJsonXContentParser.cachedParser(parserFeatures, data, offset, length);
+        if (parser == null) {
+            parser = createParser(data, offset, length);
+        }
+        return parser;
+    }
+
     @Override
     public XContentParser createParser(Reader reader) throws IOException {
         return new JsonXContentParser(jsonFactory.createJsonParser(reader));
@@ -91,6 +91,12 @@ public class SmileXContent implements XContent {
         return new SmileXContentParser(smileFactory.createJsonParser(data, offset, length));
     }
 
+    @Override
+    public XContentParser createCachedParser(byte[] data, int offset, int length) throws IOException {
+        // no cached smile parsers, jackson still reuses their buffers once closed
+        return createParser(data, offset, length);
+    }
+
     @Override
     public XContentParser createParser(Reader reader) throws IOException {
         return new JsonXContentParser(smileFactory.createJsonParser(reader));
@@ -77,6 +77,14 @@ public class XContentMapConverter {
         return map;
     }
 
+    /**
+     * Reads the value the parser is currently positioned on (the provided token), materializing
+     * objects and arrays into maps and lists.
+     */
+    public static Object readValue(XContentParser parser, XContentParser.Token t) throws IOException {
+        return readValue(parser, SIMPLE_MAP_FACTORY, t);
+    }
+
     private static List<Object> readList(XContentParser parser, MapFactory mapFactory, XContentParser.Token t) throws IOException {
         ArrayList<Object> list = new ArrayList<Object>();
         while ((t = parser.nextToken()) != XContentParser.Token.END_ARRAY) {
@@ -24,7 +24,9 @@ import com.google.common.collect.Maps;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.regex.Regex;
 import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.XContentParser;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -117,6 +119,118 @@ public class XContentMapValues {
         return null;
     }
 
+    /**
+     * Extracts raw values based on the (already split) path by streaming over the parser, only reading the
+     * values that match the path and skipping over anything else. Returns the same values as
+     * {@link #extractRawValues(String, java.util.Map)} would on the parsed map.
+     */
+    public static List<Object> extractRawValues(String[] pathElements, XContentParser parser) throws IOException {
+        List<Object> values = Lists.newArrayList();
+        if (pathElements.length == 0) {
+            return values;
+        }
+        XContentParser.Token token = parser.currentToken();
+        if (token == null) {
+            token = parser.nextToken();
+        }
+        if (token == XContentParser.Token.START_OBJECT) {
+            extractRawValues(values, pathElements, 0, parser, false);
+        }
+        return values;
+    }
+
+    /**
+     * Expects the parser to be positioned on the object start. When <tt>consumeObject</tt> is <tt>false</tt>,
+     * returns as soon as the matching field has been read (used for the top level object where nothing
+     * needs to be read afterwards).
+     */
+    private static void extractRawValues(List<Object> values, String[] pathElements, int index, XContentParser parser, boolean consumeObject) throws IOException {
+        if (index == pathElements.length) {
+            parser.skipChildren();
+            return;
+        }
+        String currentPath = pathElements[index];
+        XContentParser.Token token;
+        while ((token = parser.nextToken()) == XContentParser.Token.FIELD_NAME) {
+            String fieldName = parser.currentName();
+            token = parser.nextToken();
+            if (!currentPath.equals(fieldName)) {
+                parser.skipChildren();
+                continue;
+            }
+            if (token == XContentParser.Token.START_OBJECT) {
+                extractRawValues(values, pathElements, index + 1, parser, true);
+            } else if (token == XContentParser.Token.START_ARRAY) {
+                extractRawValuesFromArray(values, pathElements, index + 1, parser);
+            } else if (token != XContentParser.Token.VALUE_NULL) {
+                values.add(XContentMapConverter.readValue(parser, token));
+            }
+            if (!consumeObject) {
+                return;
+            }
+        }
+    }
+
+    private static void extractRawValuesFromArray(List<Object> values, String[] pathElements, int index, XContentParser parser) throws IOException {
+        XContentParser.Token token;
+        while ((token = parser.nextToken()) != XContentParser.Token.END_ARRAY) {
+            if (token == null) {
+                return;
+            }
+            if (token == XContentParser.Token.START_OBJECT) {
+                extractRawValues(values, pathElements, index, parser, true);
+            } else if (token == XContentParser.Token.START_ARRAY) {
+                extractRawValuesFromArray(values, pathElements, index, parser);
+            } else if (token != XContentParser.Token.VALUE_NULL) {
+                values.add(XContentMapConverter.readValue(parser, token));
+            }
+        }
+    }
+
+    /**
+     * Extracts a value based on the (already split) path by streaming over the parser. Only the matching value
+     * is materialized and parsing stops once it has been read. Returns the same value as
+     * {@link #extractValue(String, java.util.Map)} would on the parsed map.
+     */
+    public static Object extractValue(String[] pathElements, XContentParser parser) throws IOException {
+        if (pathElements.length == 0) {
+            return null;
+        }
+        XContentParser.Token token = parser.currentToken();
+        if (token == null) {
+            token = parser.nextToken();
+        }
+        if (token != XContentParser.Token.START_OBJECT) {
+            return null;
+        }
+        return extractValue(pathElements, 0, parser);
+    }
+
+    private static Object extractValue(String[] pathElements, int index, XContentParser parser) throws IOException {
+        String currentPath = pathElements[index];
+        XContentParser.Token token;
+        while ((token = parser.nextToken()) == XContentParser.Token.FIELD_NAME) {
+            String fieldName = parser.currentName();
+            token = parser.nextToken();
+            if (!currentPath.equals(fieldName)) {
+                parser.skipChildren();
+                continue;
+            }
+            if (index + 1 == pathElements.length) {
+                return XContentMapConverter.readValue(parser, token);
+            }
+            if (token == XContentParser.Token.START_OBJECT) {
+                return extractValue(pathElements, index + 1, parser);
+            }
+            if (token == XContentParser.Token.START_ARRAY) {
+                // arrays fan out the rest of the path to each element, materialize it and let the map based logic handle it
+                return extractValue(pathElements, index + 1, XContentMapConverter.readValue(parser, token));
+            }
+            return null;
+        }
+        return null;
+    }
+
     public static Map<String, Object> filter(Map<String, Object> map, String[] includes, String[] excludes) {
         Map<String, Object> result = Maps.newHashMap();
         filter(map, result, includes, excludes, new StringBuilder());
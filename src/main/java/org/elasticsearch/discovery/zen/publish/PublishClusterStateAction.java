@@ -22,6 +22,8 @@ package org.elasticsearch.discovery.zen.publish;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.compress.Compressor;
+import org.elasticsearch.common.compress.CompressorFactory;
 import org.elasticsearch.common.io.stream.*;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.discovery.zen.DiscoveryNodesProvider;
@@ -66,7 +68,7 @@ public class PublishClusterStateAction extends AbstractComponent {
         CachedStreamOutput.Entry cachedEntry = CachedStreamOutput.popEntry();
         byte[] clusterStateInBytes;
         try {
-            HandlesStreamOutput stream = cachedEntry.cachedHandlesLzfBytes();
+            HandlesStreamOutput stream = cachedEntry.cachedHandlesCompressedBytes(CompressorFactory.defaultCompressor());
             ClusterState.Builder.writeTo(clusterState, stream);
             stream.flush();
             clusterStateInBytes = cachedEntry.bytes().copiedByteArray();
@@ -130,7 +132,8 @@ public class PublishClusterStateAction extends AbstractComponent {
 
         @Override
         public void messageReceived(PublishClusterStateRequest request, TransportChannel channel) throws Exception {
-            StreamInput in = CachedStreamInput.cachedHandlesLzf(new BytesStreamInput(request.clusterStateInBytes));
+            Compressor compressor = CompressorFactory.compressor(request.clusterStateInBytes, 0, request.clusterStateInBytes.length);
+            StreamInput in = CachedStreamInput.cachedHandlesCompressed(compressor, new BytesStreamInput(request.clusterStateInBytes));
             ClusterState clusterState = ClusterState.Builder.readFrom(in, nodesProvider.nodes().localNode());
             listener.onNewClusterState(clusterState);
             channel.sendResponse(VoidStreamable.INSTANCE);
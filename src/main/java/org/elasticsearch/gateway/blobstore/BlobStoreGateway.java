@@ -26,7 +26,8 @@ import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.cluster.metadata.MetaData;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.blobstore.*;
-import org.elasticsearch.common.compress.lzf.LZF;
+import org.elasticsearch.common.compress.Compressor;
+import org.elasticsearch.common.compress.CompressorFactory;
 import org.elasticsearch.common.io.stream.*;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeValue;
@@ -147,7 +148,7 @@ public abstract class BlobStoreGateway extends SharedStorageGateway {
         try {
             StreamOutput streamOutput;
             if (compress) {
-                streamOutput = cachedEntry.cachedLZFBytes();
+                streamOutput = cachedEntry.cachedCompressedBytes(CompressorFactory.defaultCompressor());
             } else {
                 streamOutput = cachedEntry.cachedBytes();
             }
@@ -206,10 +207,11 @@ public abstract class BlobStoreGateway extends SharedStorageGateway {
     private MetaData readMetaData(byte[] data) throws IOException {
         XContentParser parser = null;
         try {
-            if (LZF.isCompressed(data)) {
+            Compressor compressor = CompressorFactory.compressor(data, 0, data.length);
+            if (compressor != null) {
                 BytesStreamInput siBytes = new BytesStreamInput(data);
-                LZFStreamInput siLzf = CachedStreamInput.cachedLzf(siBytes);
-                parser = XContentFactory.xContent(XContentType.JSON).createParser(siLzf);
+                CompressedStreamInput siCompressed = CachedStreamInput.cachedCompressed(compressor, siBytes);
+                parser = XContentFactory.xContent(XContentType.JSON).createParser(siCompressed);
             } else {
                 parser = XContentFactory.xContent(XContentType.JSON).createParser(data);
             }
@@ -19,6 +19,7 @@
 
 package org.elasticsearch.gateway.local;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.google.common.io.Closeables;
 import org.elasticsearch.ElasticSearchException;
@@ -27,10 +28,13 @@ import org.elasticsearch.cluster.ClusterChangedEvent;
 import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.ClusterStateListener;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.IndexTemplateMetaData;
 import org.elasticsearch.cluster.metadata.MetaData;
 import org.elasticsearch.cluster.routing.*;
 import org.elasticsearch.common.component.AbstractLifecycleComponent;
-import org.elasticsearch.common.compress.lzf.LZF;
+import org.elasticsearch.common.compress.Compressor;
+import org.elasticsearch.common.compress.CompressorFactory;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.inject.Module;
 import org.elasticsearch.common.io.FileSystemUtils;
@@ -38,17 +42,23 @@ import org.elasticsearch.common.io.Streams;
 import org.elasticsearch.common.io.stream.*;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.thread.LoggingRunnable;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.common.xcontent.*;
 import org.elasticsearch.env.NodeEnvironment;
 import org.elasticsearch.gateway.Gateway;
 import org.elasticsearch.gateway.GatewayException;
 import org.elasticsearch.index.gateway.local.LocalIndexGatewayModule;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.*;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.zip.Adler32;
 
 import static java.util.concurrent.Executors.newSingleThreadExecutor;
 import static org.elasticsearch.common.util.concurrent.EsExecutors.daemonThreadFactory;
@@ -64,6 +74,8 @@ public class LocalGateway extends AbstractLifecycleComponent<Gateway> implements
 
     private final NodeEnvironment nodeEnv;
 
+    private final ThreadPool threadPool;
+
     private final TransportNodesListGatewayMetaState listGatewayMetaState;
 
     private final TransportNodesListGatewayStartedShards listGatewayStartedShards;
@@ -82,12 +94,18 @@ public class LocalGateway extends AbstractLifecycleComponent<Gateway> implements
 
     private volatile boolean metaDataPersistedAtLeastOnce = false;
 
+    private volatile Throwable metaStateFailure;
+
+    // the checksum of the persisted state of each index, to only write the indices which content changed
+    private final ConcurrentMap<String, Long> indexStateChecksums = ConcurrentCollections.newConcurrentMap();
+
     @Inject
-    public LocalGateway(Settings settings, ClusterService clusterService, NodeEnvironment nodeEnv,
+    public LocalGateway(Settings settings, ClusterService clusterService, NodeEnvironment nodeEnv, ThreadPool threadPool,
                         TransportNodesListGatewayMetaState listGatewayMetaState, TransportNodesListGatewayStartedShards listGatewayStartedShards) {
         super(settings);
         this.clusterService = clusterService;
         this.nodeEnv = nodeEnv;
+        this.threadPool = threadPool;
         this.listGatewayMetaState = listGatewayMetaState.initGateway(this);
         this.listGatewayStartedShards = listGatewayStartedShards.initGateway(this);
 
@@ -100,8 +118,15 @@ public class LocalGateway extends AbstractLifecycleComponent<Gateway> implements
         return "local";
     }
 
-    public LocalGatewayMetaState currentMetaState() {
+    /**
+     * The locally persisted metadata, failing if it exists but could not be read (so recovery fails instead of
+     * silently dropping it).
+     */
+    public LocalGatewayMetaState currentMetaState() throws GatewayException {
         lazyInitialize();
+        if (metaStateFailure != null) {
+            throw new GatewayException("failed to read the local gateway metadata state", metaStateFailure);
+        }
         return this.currentMetaState;
     }
 
@@ -142,6 +167,15 @@ public class LocalGateway extends AbstractLifecycleComponent<Gateway> implements
             for (FailedNodeException failedNodeException : nodesState.failures()) {
                 logger.warn("failed to fetch state from node", failedNodeException);
             }
+            for (FailedNodeException failedNodeException : nodesState.failures()) {
+                // a node has a state it can't read, don't recover without it, it might be the latest one
+                for (Throwable cause = failedNodeException.getCause(); cause != null; cause = cause.getCause()) {
+                    if (cause instanceof GatewayException) {
+                        listener.onFailure(failedNodeException);
+                        return;
+                    }
+                }
+            }
         }
 
         TransportNodesListGatewayMetaState.NodeLocalGatewayMetaState electedState = null;
@@ -261,15 +295,22 @@ public class LocalGateway extends AbstractLifecycleComponent<Gateway> implements
 
             if (clusterService.localNode().masterNode()) {
                 try {
-                    File latest = findLatestMetaStateVersion();
-                    if (latest != null) {
-                        logger.debug("[find_latest_state]: loading metadata from [{}]", latest.getAbsolutePath());
-                        this.currentMetaState = readMetaState(Streams.copyToByteArray(new FileInputStream(latest)));
+                    List<File> globalStateFiles = findStateFiles(stateLocations(), "global-");
+                    if (!globalStateFiles.isEmpty()) {
+                        this.currentMetaState = loadMetaState(globalStateFiles);
                     } else {
-                        logger.debug("[find_latest_state]: no metadata state loaded");
+                        // no per index state, check for the single metadata file written by older versions
+                        File latest = findLatestMetaStateVersion();
+                        if (latest != null) {
+                            logger.debug("[find_latest_state]: loading metadata from [{}]", latest.getAbsolutePath());
+                            this.currentMetaState = readMetaState(Streams.copyToByteArray(new FileInputStream(latest)));
+                        } else {
+                            logger.debug("[find_latest_state]: no metadata state loaded");
+                        }
                     }
                 } catch (Exception e) {
                     logger.warn("failed to read local state (metadata)", e);
+                    metaStateFailure = e;
                 }
             }
 
@@ -289,6 +330,167 @@ public class LocalGateway extends AbstractLifecycleComponent<Gateway> implements
         }
     }
 
+    /**
+     * Loads the global state, and all the per index states next to it. The index states are read in parallel,
+     * as there can be thousands of them. A state file that can't be read falls back to the next older one (in
+     * any of the data locations), and loading fails if none of the state files of the global state or of an
+     * index can be read.
+     */
+    private LocalGatewayMetaState loadMetaState(List<File> globalStateFiles) throws Exception {
+        LocalGatewayMetaState globalState = null;
+        for (File globalStateFile : globalStateFiles) {
+            try {
+                logger.debug("[find_latest_state]: loading global metadata from [{}]", globalStateFile.getAbsolutePath());
+                globalState = readMetaState(readStateFile(globalStateFile));
+                break;
+            } catch (Exception e) {
+                logger.warn("[find_latest_state]: failed to read global state from [{}], trying an older one", e, globalStateFile);
+            }
+        }
+        if (globalState == null) {
+            throw new GatewayException("failed to read any of the global state files " + globalStateFiles);
+        }
+
+        Set<String> indices = Sets.newHashSet();
+        for (File indicesStateLocation : indicesStateLocations()) {
+            File[] indexStateLocations = indicesStateLocation.listFiles();
+            if (indexStateLocations == null) {
+                continue;
+            }
+            for (File indexStateLocation : indexStateLocations) {
+                if (indexStateLocation.isDirectory()) {
+                    indices.add(indexStateLocation.getName());
+                }
+            }
+        }
+
+        final Collection<IndexMetaData> indicesMetaData = new LinkedBlockingQueue<IndexMetaData>();
+        final Collection<String> failedIndices = new LinkedBlockingQueue<String>();
+        final CountDownLatch latch = new CountDownLatch(indices.size());
+        for (final String index : indices) {
+            threadPool.cached().execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        List<File> stateFiles = findStateFiles(indexStateLocations(index), "state-");
+                        for (File stateFile : stateFiles) {
+                            try {
+                                byte[] data = readStateFile(stateFile);
+                                indicesMetaData.add(readIndexState(data));
+                                indexStateChecksums.put(index, checksum(data, data.length));
+                                return;
+                            } catch (Exception e) {
+                                logger.warn("[find_latest_state]: failed to read state of index [{}] from [{}], trying an older one", e, index, stateFile);
+                            }
+                        }
+                        if (!stateFiles.isEmpty()) {
+                            failedIndices.add(index);
+                        }
+                    } finally {
+                        latch.countDown();
+                    }
+                }
+            });
+        }
+        latch.await();
+        if (!failedIndices.isEmpty()) {
+            throw new GatewayException("failed to read any of the state files of indices " + failedIndices);
+        }
+
+        MetaData.Builder metaDataBuilder = MetaData.builder().metaData(globalState.metaData());
+        for (IndexMetaData indexMetaData : indicesMetaData) {
+            metaDataBuilder.put(indexMetaData);
+        }
+        logger.debug("[find_latest_state]: loaded metadata for [{}] indices", indicesMetaData.size());
+        return new LocalGatewayMetaState(globalState.version(), metaDataBuilder.build());
+    }
+
+    private byte[] readStateFile(File stateFile) throws IOException {
+        byte[] data = Streams.copyToByteArray(new FileInputStream(stateFile));
+        if (data.length == 0) {
+            throw new IOException("empty state file [" + stateFile + "]");
+        }
+        return data;
+    }
+
+    private static long checksum(byte[] data, int length) {
+        Adler32 checksum = new Adler32();
+        checksum.update(data, 0, length);
+        return checksum.getValue();
+    }
+
+    private File[] stateLocations() {
+        File[] dataLocations = nodeEnv.nodeDataLocations();
+        File[] stateLocations = new File[dataLocations.length];
+        for (int i = 0; i < dataLocations.length; i++) {
+            stateLocations[i] = new File(dataLocations[i], "_state");
+        }
+        return stateLocations;
+    }
+
+    private File[] indicesStateLocations() {
+        File[] stateLocations = stateLocations();
+        File[] indicesStateLocations = new File[stateLocations.length];
+        for (int i = 0; i < stateLocations.length; i++) {
+            indicesStateLocations[i] = new File(stateLocations[i], "indices");
+        }
+        return indicesStateLocations;
+    }
+
+    private File[] indexStateLocations(String index) {
+        File[] indicesStateLocations = indicesStateLocations();
+        File[] indexStateLocations = new File[indicesStateLocations.length];
+        for (int i = 0; i < indicesStateLocations.length; i++) {
+            indexStateLocations[i] = new File(indicesStateLocations[i], index);
+        }
+        return indexStateLocations;
+    }
+
+    /**
+     * Finds the state files across the provided locations, the highest version first. State files are written
+     * to a temporary file and renamed, so a state file is never partially written, but it can still get
+     * corrupted on disk.
+     */
+    private List<File> findStateFiles(File[] stateLocations, final String prefix) {
+        List<File> files = Lists.newArrayList();
+        for (File stateLocation : stateLocations) {
+            File[] stateFiles = stateLocation.listFiles();
+            if (stateFiles == null) {
+                continue;
+            }
+            for (File stateFile : stateFiles) {
+                if (stateVersion(stateFile, prefix) != -1) {
+                    files.add(stateFile);
+                }
+            }
+        }
+        Collections.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File o1, File o2) {
+                long v1 = stateVersion(o1, prefix);
+                long v2 = stateVersion(o2, prefix);
+                return v1 > v2 ? -1 : (v1 == v2 ? 0 : 1);
+            }
+        });
+        return files;
+    }
+
+    /**
+     * The version of the state file, or <tt>-1</tt> if it is not a state file with the provided prefix.
+     */
+    private long stateVersion(File stateFile, String prefix) {
+        String name = stateFile.getName();
+        if (!name.startsWith(prefix) || name.endsWith(".tmp")) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            logger.debug("[find_latest_state]: unexpected state file [{}], ignoring...", stateFile);
+            return -1;
+        }
+    }
+
     private File findLatestStartedShardsVersion() throws IOException {
         long index = -1;
         File latest = null;
@@ -373,10 +575,11 @@ public class LocalGateway extends AbstractLifecycleComponent<Gateway> implements
     private LocalGatewayMetaState readMetaState(byte[] data) throws IOException {
         XContentParser parser = null;
         try {
-            if (LZF.isCompressed(data)) {
+            Compressor compressor = CompressorFactory.compressor(data, 0, data.length);
+            if (compressor != null) {
                 BytesStreamInput siBytes = new BytesStreamInput(data);
-                LZFStreamInput siLzf = CachedStreamInput.cachedLzf(siBytes);
-                parser = XContentFactory.xContent(XContentType.JSON).createParser(siLzf);
+                CompressedStreamInput siCompressed = CachedStreamInput.cachedCompressed(compressor, siBytes);
+                parser = XContentFactory.xContent(XContentType.JSON).createParser(siCompressed);
             } else {
                 parser = XContentFactory.xContent(XContentType.JSON).createParser(data);
             }
@@ -388,13 +591,36 @@ public class LocalGateway extends AbstractLifecycleComponent<Gateway> implements
         }
     }
 
+    private IndexMetaData readIndexState(byte[] data) throws IOException {
+        XContentParser parser = null;
+        try {
+            Compressor compressor = CompressorFactory.compressor(data, 0, data.length);
+            if (compressor != null) {
+                BytesStreamInput siBytes = new BytesStreamInput(data);
+                CompressedStreamInput siCompressed = CachedStreamInput.cachedCompressed(compressor, siBytes);
+                parser = XContentFactory.xContent(XContentType.JSON).createParser(siCompressed);
+            } else {
+                parser = XContentFactory.xContent(XContentType.JSON).createParser(data);
+            }
+            // move to the index name field
+            parser.nextToken();
+            parser.nextToken();
+            return IndexMetaData.Builder.fromXContent(parser);
+        } finally {
+            if (parser != null) {
+                parser.close();
+            }
+        }
+    }
+
     private LocalGatewayStartedShards readStartedShards(byte[] data) throws IOException {
         XContentParser parser = null;
         try {
-            if (LZF.isCompressed(data)) {
+            Compressor compressor = CompressorFactory.compressor(data, 0, data.length);
+            if (compressor != null) {
                 BytesStreamInput siBytes = new BytesStreamInput(data);
-                LZFStreamInput siLzf = CachedStreamInput.cachedLzf(siBytes);
-                parser = XContentFactory.xContent(XContentType.JSON).createParser(siLzf);
+                CompressedStreamInput siCompressed = CachedStreamInput.cachedCompressed(compressor, siBytes);
+                parser = XContentFactory.xContent(XContentType.JSON).createParser(siCompressed);
             } else {
                 parser = XContentFactory.xContent(XContentType.JSON).createParser(data);
             }
@@ -406,6 +632,97 @@ public class LocalGateway extends AbstractLifecycleComponent<Gateway> implements
         }
     }
 
+    private XContentBuilder stateContentBuilder(CachedStreamOutput.Entry cachedEntry) throws IOException {
+        StreamOutput streamOutput;
+        if (compress) {
+            streamOutput = cachedEntry.cachedCompressedBytes(CompressorFactory.defaultCompressor());
+        } else {
+            streamOutput = cachedEntry.cachedBytes();
+        }
+        XContentBuilder xContentBuilder = XContentFactory.contentBuilder(XContentType.JSON, streamOutput);
+        if (prettyPrint) {
+            xContentBuilder.prettyPrint();
+        }
+        return xContentBuilder;
+    }
+
+    /**
+     * Writes the serialized state to all the provided locations, to a temporary file that is then renamed, so a
+     * crash never leaves a partially written state file behind. Returns <tt>true</tt> if it was written to at
+     * least one location.
+     */
+    private boolean writeStateFile(File[] stateLocations, String fileName, CachedStreamOutput.Entry cachedEntry) {
+        boolean serializedAtLeastOnce = false;
+        for (File stateLocation : stateLocations) {
+            if (!stateLocation.exists()) {
+                FileSystemUtils.mkdirs(stateLocation);
+            }
+            File tmpStateFile = new File(stateLocation, fileName + ".tmp");
+            File stateFile = new File(stateLocation, fileName);
+            FileOutputStream fos = null;
+            try {
+                fos = new FileOutputStream(tmpStateFile);
+                fos.write(cachedEntry.bytes().underlyingBytes(), 0, cachedEntry.bytes().size());
+                fos.getChannel().force(true);
+                fos.close();
+                fos = null;
+                stateFile.delete();
+                if (!tmpStateFile.renameTo(stateFile)) {
+                    throw new IOException("failed to rename [" + tmpStateFile + "] to [" + stateFile + "]");
+                }
+                serializedAtLeastOnce = true;
+            } catch (Exception e) {
+                logger.warn("failed to write local gateway state to {}", e, stateFile);
+                tmpStateFile.delete();
+            } finally {
+                Closeables.closeQuietly(fos);
+            }
+        }
+        return serializedAtLeastOnce;
+    }
+
+    /**
+     * Deletes the state files starting with the prefix in the provided locations, but the ones of the two highest
+     * versions, so the previous state can be fallen back to if the latest one can't be read.
+     */
+    private void deleteOlderStateFiles(File[] stateLocations, String prefix) {
+        Set<Long> keptVersions = Sets.newHashSet();
+        for (File stateFile : findStateFiles(stateLocations, prefix)) {
+            long version = stateVersion(stateFile, prefix);
+            if (keptVersions.contains(version) || keptVersions.size() < 2) {
+                keptVersions.add(version);
+                continue;
+            }
+            stateFile.delete();
+        }
+    }
+
+    /**
+     * Deletes all the state files starting with the prefix (but the one to keep) in the provided locations.
+     */
+    private void deleteStateFiles(File[] stateLocations, final String prefix, final String fileNameToKeep) {
+        for (File stateLocation : stateLocations) {
+            File[] files = stateLocation.listFiles(new FilenameFilter() {
+                @Override
+                public boolean accept(File dir, String name) {
+                    return name.startsWith(prefix) && !name.equals(fileNameToKeep);
+                }
+            });
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+        }
+    }
+
+    /**
+     * Persists the metadata as a small global state file (version, persistent settings and templates) and a state
+     * file per index. Only the indices which content changed since they were last persisted are written: an index
+     * metadata instance that is the same as the persisted one is unchanged (the metadata builder reuses them), and
+     * otherwise (for example with metadata received from the master) its serialized state is compared, by
+     * checksum, to the persisted one.
+     */
     class PersistMetaData implements Runnable {
         private final ClusterChangedEvent event;
 
@@ -415,30 +732,57 @@ public class LocalGateway extends AbstractLifecycleComponent<Gateway> implements
 
         @Override
         public void run() {
-            LocalGatewayMetaState.Builder builder = LocalGatewayMetaState.builder();
-            if (currentMetaState != null) {
-                builder.state(currentMetaState);
+            final MetaData metaData = event.state().metaData();
+            final long version = metaData.version();
+            // the first time around, write all the indices (also moves older, single file, states to the per index format)
+            MetaData previousMetaData = (metaDataPersistedAtLeastOnce && currentMetaState != null) ? currentMetaState.metaData() : null;
+
+            boolean indicesPersisted = true;
+            int indicesWritten = 0;
+            for (IndexMetaData indexMetaData : metaData) {
+                if (previousMetaData != null && previousMetaData.index(indexMetaData.index()) == indexMetaData) {
+                    continue;
+                }
+                Boolean written = persistIndex(indexMetaData, version);
+                if (written == null) {
+                    indicesPersisted = false;
+                } else if (written) {
+                    indicesWritten++;
+                }
+            }
+            if (!indicesPersisted) {
+                // don't record this state as persisted, so the failed indices will be written on the next change
+                return;
+            }
+
+            // remove the state of indices that no longer exist
+            for (File indicesStateLocation : indicesStateLocations()) {
+                File[] indexStateLocations = indicesStateLocation.listFiles();
+                if (indexStateLocations == null) {
+                    continue;
+                }
+                for (File indexStateLocation : indexStateLocations) {
+                    if (!metaData.hasIndex(indexStateLocation.getName())) {
+                        FileSystemUtils.deleteRecursively(indexStateLocation);
+                        indexStateChecksums.remove(indexStateLocation.getName());
+                    }
+                }
+            }
+
+            LocalGatewayMetaState stateToWrite = LocalGatewayMetaState.builder().version(version).metaData(metaData).build();
+            // the global state does not include the indices, they are persisted on their own
+            MetaData.Builder globalMetaData = MetaData.builder().persistentSettings(metaData.persistentSettings());
+            for (IndexTemplateMetaData template : metaData.templates().values()) {
+                globalMetaData.put(template);
             }
-            final long version = event.state().metaData().version();
-            builder.version(version);
-            builder.metaData(event.state().metaData());
-            LocalGatewayMetaState stateToWrite = builder.build();
+            LocalGatewayMetaState globalState = LocalGatewayMetaState.builder().version(version).metaData(globalMetaData.build()).build();
 
             CachedStreamOutput.Entry cachedEntry = CachedStreamOutput.popEntry();
-            StreamOutput streamOutput;
             try {
                 try {
-                    if (compress) {
-                        streamOutput = cachedEntry.cachedLZFBytes();
-                    } else {
-                        streamOutput = cachedEntry.cachedBytes();
-                    }
-                    XContentBuilder xContentBuilder = XContentFactory.contentBuilder(XContentType.JSON, streamOutput);
-                    if (prettyPrint) {
-                        xContentBuilder.prettyPrint();
-                    }
+                    XContentBuilder xContentBuilder = stateContentBuilder(cachedEntry);
                     xContentBuilder.startObject();
-                    LocalGatewayMetaState.Builder.toXContent(stateToWrite, xContentBuilder, ToXContent.EMPTY_PARAMS);
+                    LocalGatewayMetaState.Builder.toXContent(globalState, xContentBuilder, ToXContent.EMPTY_PARAMS);
                     xContentBuilder.endObject();
                     xContentBuilder.close();
                 } catch (Exception e) {
@@ -446,48 +790,48 @@ public class LocalGateway extends AbstractLifecycleComponent<Gateway> implements
                     return;
                 }
 
-                boolean serializedAtLeastOnce = false;
-                for (File dataLocation : nodeEnv.nodeDataLocations()) {
-                    File stateLocation = new File(dataLocation, "_state");
-                    if (!stateLocation.exists()) {
-                        FileSystemUtils.mkdirs(stateLocation);
-                    }
-                    File stateFile = new File(stateLocation, "metadata-" + version);
-                    FileOutputStream fos = null;
-                    try {
-                        fos = new FileOutputStream(stateFile);
-                        fos.write(cachedEntry.bytes().underlyingBytes(), 0, cachedEntry.bytes().size());
-                        fos.getChannel().force(true);
-                        serializedAtLeastOnce = true;
-                    } catch (Exception e) {
-                        logger.warn("failed to write local gateway state to {}", e, stateFile);
-                    } finally {
-                        Closeables.closeQuietly(fos);
-                    }
-                }
-                if (serializedAtLeastOnce) {
+                if (writeStateFile(stateLocations(), "global-" + version, cachedEntry)) {
                     currentMetaState = stateToWrite;
                     metaDataPersistedAtLeastOnce = true;
+                    logger.trace("persisted metadata version [{}], wrote [{}] indices", version, indicesWritten);
 
-                    // delete all the other files
-                    for (File dataLocation : nodeEnv.nodeDataLocations()) {
-                        File stateLocation = new File(dataLocation, "_state");
-                        if (!stateLocation.exists()) {
-                            continue;
-                        }
-                        File[] files = stateLocation.listFiles(new FilenameFilter() {
-                            @Override
-                            public boolean accept(File dir, String name) {
-                                return name.startsWith("metadata-") && !name.equals("metadata-" + version);
-                            }
-                        });
-                        if (files != null) {
-                            for (File file : files) {
-                                file.delete();
-                            }
-                        }
-                    }
+                    // delete the older global states, and the single file metadata states of older versions
+                    deleteOlderStateFiles(stateLocations(), "global-");
+                    deleteStateFiles(stateLocations(), "metadata-", null);
+                }
+            } finally {
+                CachedStreamOutput.pushEntry(cachedEntry);
+            }
+        }
+
+        /**
+         * Persists the index state if its content changed, returning if it was written, or <tt>null</tt> if it failed.
+         */
+        private Boolean persistIndex(IndexMetaData indexMetaData, long version) {
+            CachedStreamOutput.Entry cachedEntry = CachedStreamOutput.popEntry();
+            try {
+                try {
+                    XContentBuilder xContentBuilder = stateContentBuilder(cachedEntry);
+                    xContentBuilder.startObject();
+                    IndexMetaData.Builder.toXContent(indexMetaData, xContentBuilder, ToXContent.EMPTY_PARAMS);
+                    xContentBuilder.endObject();
+                    xContentBuilder.close();
+                } catch (Exception e) {
+                    logger.warn("failed to serialize local gateway state for index [{}]", e, indexMetaData.index());
+                    return null;
+                }
+                long checksum = checksum(cachedEntry.bytes().underlyingBytes(), cachedEntry.bytes().size());
+                Long persistedChecksum = indexStateChecksums.get(indexMetaData.index());
+                if (persistedChecksum != null && persistedChecksum == checksum) {
+                    return false;
+                }
+                File[] indexStateLocations = indexStateLocations(indexMetaData.index());
+                if (!writeStateFile(indexStateLocations, "state-" + version, cachedEntry)) {
+                    return null;
                 }
+                indexStateChecksums.put(indexMetaData.index(), checksum);
+                deleteOlderStateFiles(indexStateLocations, "state-");
+                return true;
             } finally {
                 CachedStreamOutput.pushEntry(cachedEntry);
             }
@@ -511,7 +855,7 @@ public class LocalGateway extends AbstractLifecycleComponent<Gateway> implements
                 StreamOutput streamOutput;
                 try {
                     if (compress) {
-                        streamOutput = cachedEntry.cachedLZFBytes();
+                        streamOutput = cachedEntry.cachedCompressedBytes(CompressorFactory.defaultCompressor());
                     } else {
                         streamOutput = cachedEntry.cachedBytes();
                     }
@@ -30,6 +30,7 @@ import org.elasticsearch.node.service.NodeService;
 import org.elasticsearch.rest.BytesRestResponse;
 import org.elasticsearch.rest.RestController;
 import org.elasticsearch.rest.RestRequest;
+import org.elasticsearch.rest.StreamingRestHandler;
 import org.elasticsearch.rest.StringRestResponse;
 
 import java.io.File;
@@ -82,6 +83,11 @@ public class HttpServer extends AbstractLifecycleComponent<HttpServer> {
         public void dispatchRequest(HttpRequest request, HttpChannel channel) {
             server.internalDispatchRequest(request, channel);
         }
+
+        @Override
+        public StreamingRestHandler.ContentConsumer dispatchStreamingRequest(HttpRequest request, HttpChannel channel, StreamingRestHandler.FlowControl flowControl) {
+            return server.internalDispatchStreamingRequest(request, channel, flowControl);
+        }
     }
 
     @Override
@@ -128,6 +134,13 @@ public class HttpServer extends AbstractLifecycleComponent<HttpServer> {
         }
     }
 
+    public StreamingRestHandler.ContentConsumer internalDispatchStreamingRequest(final HttpRequest request, final HttpChannel channel, StreamingRestHandler.FlowControl flowControl) {
+        if (request.rawPath().startsWith("/_plugin/")) {
+            return null;
+        }
+        return restController.dispatchStreamingRequest(request, channel, flowControl);
+    }
+
     private void handlePluginSite(HttpRequest request, HttpChannel channel) {
         if (disableSites) {
             channel.sendResponse(new StringRestResponse(FORBIDDEN));
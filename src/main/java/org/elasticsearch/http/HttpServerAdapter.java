@@ -19,10 +19,18 @@
 
 package org.elasticsearch.http;
 
+import org.elasticsearch.rest.StreamingRestHandler;
+
 /**
  *
  */
 public interface HttpServerAdapter {
 
     void dispatchRequest(HttpRequest request, HttpChannel channel);
+
+    /**
+     * Dispatches a request before its content has arrived, returning the consumer of its content, or
+     * <tt>null</tt> if the content should be aggregated and the request dispatched once complete.
+     */
+    StreamingRestHandler.ContentConsumer dispatchStreamingRequest(HttpRequest request, HttpChannel channel, StreamingRestHandler.FlowControl flowControl);
 }
@@ -0,0 +1,141 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.http.netty;
+
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelFutureListener;
+import org.jboss.netty.handler.codec.http.DefaultHttpChunk;
+import org.jboss.netty.handler.codec.http.HttpChunk;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * An output stream writing the data into http chunks of (up to) the chunk size. Each chunk buffer is wrapped
+ * and not copied when written to the channel, and is reused for a later chunk once written. Make sure to call
+ * {@link #finish()} once done writing.
+ * <p/>
+ * When the channel is not writable (the client does not read the response as fast as it is produced), writing
+ * waits for the chunks already queued to be written, so the response is not buffered fully in memory, and the
+ * number of chunk buffers stays bounded. Writing fails if the channel got closed.
+ */
+public class HttpChunkedOutputStream extends OutputStream {
+
+    private final Channel channel;
+
+    private final int chunkSize;
+
+    // the buffers of the chunks already written to the channel
+    private final Queue<byte[]> freeBuffers = new ConcurrentLinkedQueue<byte[]>();
+
+    private byte[] buffer;
+
+    private int count;
+
+    private ChannelFuture lastWrite;
+
+    public HttpChunkedOutputStream(Channel channel, int chunkSize) {
+        this.channel = channel;
+        this.chunkSize = chunkSize;
+        this.buffer = new byte[chunkSize];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (count == buffer.length) {
+            writeChunk();
+        }
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (count == buffer.length) {
+                writeChunk();
+            }
+            int toCopy = Math.min(len, buffer.length - count);
+            System.arraycopy(b, off, buffer, count, toCopy);
+            count += toCopy;
+            off += toCopy;
+            len -= toCopy;
+        }
+    }
+
+    @Override
+    public void flush() {
+        // don't write small chunks on each flush, a chunk is written once its buffer is full
+    }
+
+    @Override
+    public void close() {
+        // a response is completed with finish
+    }
+
+    /**
+     * Writes the remaining data and the last chunk, returning the future of the last write.
+     */
+    public ChannelFuture finish() throws IOException {
+        if (count > 0) {
+            writeChunk();
+        }
+        return channel.write(HttpChunk.LAST_CHUNK);
+    }
+
+    private void writeChunk() throws IOException {
+        if (!channel.isOpen()) {
+            throw new IOException("channel closed while writing the response");
+        }
+        final byte[] chunk = buffer;
+        lastWrite = channel.write(new DefaultHttpChunk(ChannelBuffers.wrappedBuffer(chunk, 0, count)));
+        lastWrite.addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) throws Exception {
+                if (future.isSuccess()) {
+                    freeBuffers.offer(chunk);
+                }
+            }
+        });
+        count = 0;
+        if (!channel.isWritable()) {
+            awaitLastWrite();
+        }
+        buffer = freeBuffers.poll();
+        if (buffer == null) {
+            buffer = new byte[chunkSize];
+        }
+    }
+
+    private void awaitLastWrite() throws IOException {
+        try {
+            lastWrite.awaitUninterruptibly();
+        } catch (IllegalStateException e) {
+            // we are on a netty I/O thread, where waiting for a write would dead lock, keep on buffering
+            return;
+        }
+        if (!lastWrite.isSuccess()) {
+            throw new IOException("failed to write response chunk", lastWrite.getCause());
+        }
+    }
+}
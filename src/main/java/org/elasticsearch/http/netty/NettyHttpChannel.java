@@ -25,6 +25,7 @@ import org.elasticsearch.http.HttpChannel;
 import org.elasticsearch.http.HttpException;
 import org.elasticsearch.rest.RestResponse;
 import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.rest.StreamingXContentRestResponse;
 import org.elasticsearch.rest.XContentRestResponse;
 import org.elasticsearch.rest.support.RestUtils;
 import org.elasticsearch.transport.netty.NettyTransport;
@@ -88,6 +89,35 @@ public class NettyHttpChannel implements HttpChannel {
             resp.addHeader("X-Opaque-Id", opaque);
         }
 
+        if (transport.resetCookies) {
+            String cookieString = request.getHeader(HttpHeaders.Names.COOKIE);
+            if (cookieString != null) {
+                CookieDecoder cookieDecoder = new CookieDecoder();
+                Set<Cookie> cookies = cookieDecoder.decode(cookieString);
+                if (!cookies.isEmpty()) {
+                    // Reset the cookies if necessary.
+                    CookieEncoder cookieEncoder = new CookieEncoder(true);
+                    for (Cookie cookie : cookies) {
+                        cookieEncoder.addCookie(cookie);
+                    }
+                    resp.addHeader(HttpHeaders.Names.SET_COOKIE, cookieEncoder.encode());
+                }
+            }
+        }
+
+        if (response instanceof StreamingXContentRestResponse) {
+            if (!http10) {
+                sendStreamingResponse(resp, (StreamingXContentRestResponse) response, close);
+                return;
+            }
+            // chunked transfer encoding is not supported with http 1.0, send it built
+            try {
+                response = ((StreamingXContentRestResponse) response).build();
+            } catch (IOException e) {
+                throw new HttpException("Failed to convert response to bytes", e);
+            }
+        }
+
         // Convert the response content to a ChannelBuffer.
         ChannelFutureListener releaseContentListener = null;
         ChannelBuffer buf;
@@ -130,22 +160,6 @@ public class NettyHttpChannel implements HttpChannel {
 
         resp.setHeader(HttpHeaders.Names.CONTENT_LENGTH, String.valueOf(buf.readableBytes()));
 
-        if (transport.resetCookies) {
-            String cookieString = request.getHeader(HttpHeaders.Names.COOKIE);
-            if (cookieString != null) {
-                CookieDecoder cookieDecoder = new CookieDecoder();
-                Set<Cookie> cookies = cookieDecoder.decode(cookieString);
-                if (!cookies.isEmpty()) {
-                    // Reset the cookies if necessary.
-                    CookieEncoder cookieEncoder = new CookieEncoder(true);
-                    for (Cookie cookie : cookies) {
-                        cookieEncoder.addCookie(cookie);
-                    }
-                    resp.addHeader(HttpHeaders.Names.SET_COOKIE, cookieEncoder.encode());
-                }
-            }
-        }
-
         // Write the response.
         ChannelFuture future = channel.write(resp);
         if (releaseContentListener != null) {
@@ -158,6 +172,30 @@ public class NettyHttpChannel implements HttpChannel {
         }
     }
 
+    private void sendStreamingResponse(org.jboss.netty.handler.codec.http.HttpResponse resp, StreamingXContentRestResponse response, boolean close) {
+        resp.setChunked(true);
+        resp.setHeader(HttpHeaders.Names.TRANSFER_ENCODING, HttpHeaders.Values.CHUNKED);
+        resp.setHeader(HttpHeaders.Names.CONTENT_TYPE, response.contentType());
+        channel.write(resp);
+
+        HttpChunkedOutputStream out = new HttpChunkedOutputStream(channel, (int) transport.responseChunkSize.bytes());
+        ChannelFuture future;
+        try {
+            response.writeTo(out);
+            future = out.finish();
+        } catch (Exception e) {
+            // the status and headers were already sent, so no other response can be sent for this request (don't throw,
+            // callers would try to), all we can do is to close the connection so the client sees the response is not complete
+            transport.streamingResponseFailed(channel, e);
+            return;
+        }
+
+        // Close the connection after the write operation is done if necessary.
+        if (close) {
+            future.addListener(ChannelFutureListener.CLOSE);
+        }
+    }
+
     private HttpResponseStatus getStatus(RestStatus status) {
         switch (status) {
             case CONTINUE:
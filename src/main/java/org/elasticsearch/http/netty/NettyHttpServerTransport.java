@@ -34,6 +34,7 @@ import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.http.*;
 import org.elasticsearch.http.HttpRequest;
+import org.elasticsearch.rest.StreamingRestHandler;
 import org.elasticsearch.transport.BindTransportException;
 import org.elasticsearch.transport.netty.NettyInternalESLoggerFactory;
 import org.jboss.netty.bootstrap.ServerBootstrap;
@@ -74,6 +75,7 @@ public class NettyHttpServerTransport extends AbstractLifecycleComponent<HttpSer
     final ByteSizeValue maxInitialLineLength;
     final ByteSizeValue maxHeaderSize;
     final ByteSizeValue maxChunkSize;
+    final ByteSizeValue responseChunkSize;
 
     private final int workerCount;
 
@@ -117,6 +119,7 @@ public class NettyHttpServerTransport extends AbstractLifecycleComponent<HttpSer
         this.networkService = networkService;
         ByteSizeValue maxContentLength = componentSettings.getAsBytesSize("max_content_length", settings.getAsBytesSize("http.max_content_length", new ByteSizeValue(100, ByteSizeUnit.MB)));
         this.maxChunkSize = componentSettings.getAsBytesSize("max_chunk_size", settings.getAsBytesSize("http.max_chunk_size", new ByteSizeValue(8, ByteSizeUnit.KB)));
+        this.responseChunkSize = componentSettings.getAsBytesSize("response_chunk_size", settings.getAsBytesSize("http.response_chunk_size", new ByteSizeValue(64, ByteSizeUnit.KB)));
         this.maxHeaderSize = componentSettings.getAsBytesSize("max_header_size", settings.getAsBytesSize("http.max_header_size", new ByteSizeValue(8, ByteSizeUnit.KB)));
         this.maxInitialLineLength = componentSettings.getAsBytesSize("max_initial_line_length", settings.getAsBytesSize("http.max_initial_line_length", new ByteSizeValue(4, ByteSizeUnit.KB)));
         // don't reset cookies by default, since I don't think we really need to, and parsing of cookies with netty is slow
@@ -259,6 +262,19 @@ public class NettyHttpServerTransport extends AbstractLifecycleComponent<HttpSer
         httpServerAdapter.dispatchRequest(request, channel);
     }
 
+    StreamingRestHandler.ContentConsumer dispatchStreamingRequest(HttpRequest request, HttpChannel channel, StreamingRestHandler.FlowControl flowControl) {
+        return httpServerAdapter.dispatchStreamingRequest(request, channel, flowControl);
+    }
+
+    void streamingResponseFailed(Channel channel, Throwable e) {
+        if (NetworkExceptionHelper.isCloseConnectionException(e) || !channel.isOpen()) {
+            logger.debug("Failed to stream response, closing connection {}", e, channel);
+        } else {
+            logger.warn("Failed to stream response, closing connection {}", e, channel);
+        }
+        channel.close();
+    }
+
     void exceptionCaught(ChannelHandlerContext ctx, ExceptionEvent e) throws Exception {
         if (e.getCause() instanceof ReadTimeoutException) {
             if (logger.isTraceEnabled()) {
@@ -303,7 +319,7 @@ public class NettyHttpServerTransport extends AbstractLifecycleComponent<HttpSer
             if (transport.compression) {
                 pipeline.addLast("decoder_compress", new HttpContentDecompressor());
             }
-            pipeline.addLast("aggregator", new HttpChunkAggregator((int) transport.maxContentLength.bytes()));
+            pipeline.addLast("aggregator", new StreamingHttpChunkAggregator(transport, (int) transport.maxContentLength.bytes()));
             pipeline.addLast("encoder", new HttpResponseEncoder());
             if (transport.compression) {
                 pipeline.addLast("encoder_compress", new HttpContentCompressor(transport.compressionLevel));
@@ -0,0 +1,108 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.http.netty;
+
+import org.elasticsearch.rest.StreamingRestHandler;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.Channels;
+import org.jboss.netty.channel.MessageEvent;
+import org.jboss.netty.handler.codec.http.*;
+import org.jboss.netty.util.CharsetUtil;
+
+/**
+ * An http chunk aggregator that allows requests with chunked content to be streamed to their handler, if
+ * it supports it, instead of being aggregated in memory. Reading from the channel is paused and resumed
+ * based on the handler flow control.
+ */
+public class StreamingHttpChunkAggregator extends HttpChunkAggregator {
+
+    private static final ChannelBuffer CONTINUE = ChannelBuffers.copiedBuffer("HTTP/1.1 100 Continue\r\n\r\n", CharsetUtil.US_ASCII);
+
+    private final NettyHttpServerTransport transport;
+
+    private StreamingRestHandler.ContentConsumer contentConsumer;
+
+    private byte[] buffer = new byte[0];
+
+    public StreamingHttpChunkAggregator(NettyHttpServerTransport transport, int maxContentLength) {
+        super(maxContentLength);
+        this.transport = transport;
+    }
+
+    @Override
+    public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) throws Exception {
+        Object msg = e.getMessage();
+        if (contentConsumer == null && msg instanceof HttpRequest && ((HttpRequest) msg).isChunked()) {
+            HttpRequest request = (HttpRequest) msg;
+            contentConsumer = transport.dispatchStreamingRequest(new NettyHttpRequest(request), new NettyHttpChannel(transport, e.getChannel(), request),
+                    new ChannelFlowControl(e.getChannel()));
+            if (contentConsumer != null) {
+                if (HttpHeaders.is100ContinueExpected(request)) {
+                    Channels.write(ctx, Channels.succeededFuture(ctx.getChannel()), CONTINUE.duplicate());
+                }
+                return;
+            }
+        } else if (contentConsumer != null && msg instanceof HttpChunk) {
+            HttpChunk chunk = (HttpChunk) msg;
+            ChannelBuffer content = chunk.getContent();
+            int length = content.readableBytes();
+            if (length > 0) {
+                if (content.hasArray()) {
+                    contentConsumer.onContent(content.array(), content.arrayOffset() + content.readerIndex(), length);
+                } else {
+                    if (buffer.length < length) {
+                        buffer = new byte[length];
+                    }
+                    content.getBytes(content.readerIndex(), buffer, 0, length);
+                    contentConsumer.onContent(buffer, 0, length);
+                }
+            }
+            if (chunk.isLast()) {
+                StreamingRestHandler.ContentConsumer consumer = contentConsumer;
+                contentConsumer = null;
+                consumer.onContentEnd();
+            }
+            return;
+        }
+        super.messageReceived(ctx, e);
+    }
+
+    static class ChannelFlowControl implements StreamingRestHandler.FlowControl {
+
+        private final Channel channel;
+
+        ChannelFlowControl(Channel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void pause() {
+            channel.setReadable(false);
+        }
+
+        @Override
+        public void resume() {
+            channel.setReadable(true);
+        }
+    }
+}
@@ -20,6 +20,7 @@
 package org.elasticsearch.index.analysis;
 
 import com.google.common.collect.ImmutableMap;
+import org.apache.lucene.analysis.Analyzer;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.component.CloseableComponent;
@@ -31,6 +32,7 @@ import org.elasticsearch.index.Index;
 import org.elasticsearch.index.settings.IndexSettings;
 import org.elasticsearch.indices.analysis.IndicesAnalysisService;
 
+import java.util.IdentityHashMap;
 import java.util.Map;
 
 import static com.google.common.collect.Maps.newHashMap;
@@ -256,6 +258,21 @@ public class AnalysisService extends AbstractIndexComponent implements Closeable
         return analyzers.get(name);
     }
 
+    /**
+     * The stats of the custom analyzers of the index, by analyzer name (aliases are reported once).
+     */
+    public Map<String, AnalyzerStats> analyzerStats() {
+        Map<String, AnalyzerStats> stats = newHashMap();
+        Map<Analyzer, Boolean> seen = new IdentityHashMap<Analyzer, Boolean>();
+        for (NamedAnalyzer analyzer : analyzers.values()) {
+            if (analyzer.scope() == AnalyzerScope.INDEX && analyzer.analyzer() instanceof CustomAnalyzer
+                    && seen.put(analyzer.analyzer(), Boolean.TRUE) == null) {
+                stats.put(analyzer.name(), ((CustomAnalyzer) analyzer.analyzer()).stats());
+            }
+        }
+        return stats;
+    }
+
     public NamedAnalyzer defaultAnalyzer() {
         return defaultAnalyzer;
     }
@@ -0,0 +1,121 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.analysis;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Streamable;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentBuilderString;
+
+import java.io.IOException;
+
+/**
+ * Analysis counters of a custom analyzer: the number of values it analyzed, how many times its chain of char
+ * filters, tokenizer and token filters had to be built (instead of reused), and the time spent in the chain.
+ */
+public class AnalyzerStats implements Streamable, ToXContent {
+
+    private long analyzeCount;
+    private long chainBuildCount;
+    private long analyzeTimeInMillis;
+
+    AnalyzerStats() {
+
+    }
+
+    public AnalyzerStats(long analyzeCount, long chainBuildCount, long analyzeTimeInMillis) {
+        this.analyzeCount = analyzeCount;
+        this.chainBuildCount = chainBuildCount;
+        this.analyzeTimeInMillis = analyzeTimeInMillis;
+    }
+
+    public void add(AnalyzerStats stats) {
+        analyzeCount += stats.analyzeCount;
+        chainBuildCount += stats.chainBuildCount;
+        analyzeTimeInMillis += stats.analyzeTimeInMillis;
+    }
+
+    public long analyzeCount() {
+        return analyzeCount;
+    }
+
+    public long getAnalyzeCount() {
+        return analyzeCount;
+    }
+
+    public long chainBuildCount() {
+        return chainBuildCount;
+    }
+
+    public long getChainBuildCount() {
+        return chainBuildCount;
+    }
+
+    public TimeValue analyzeTime() {
+        return new TimeValue(analyzeTimeInMillis);
+    }
+
+    public long analyzeTimeInMillis() {
+        return analyzeTimeInMillis;
+    }
+
+    public long getAnalyzeTimeInMillis() {
+        return analyzeTimeInMillis;
+    }
+
+    public static AnalyzerStats readAnalyzerStats(StreamInput in) throws IOException {
+        AnalyzerStats stats = new AnalyzerStats();
+        stats.readFrom(in);
+        return stats;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        analyzeCount = in.readVLong();
+        chainBuildCount = in.readVLong();
+        analyzeTimeInMillis = in.readVLong();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVLong(analyzeCount);
+        out.writeVLong(chainBuildCount);
+        out.writeVLong(analyzeTimeInMillis);
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.field(Fields.ANALYZE_TOTAL, analyzeCount);
+        builder.field(Fields.CHAIN_BUILD_TOTAL, chainBuildCount);
+        builder.field(Fields.ANALYZE_TIME, analyzeTime().toString());
+        builder.field(Fields.ANALYZE_TIME_IN_MILLIS, analyzeTimeInMillis);
+        return builder;
+    }
+
+    static final class Fields {
+        static final XContentBuilderString ANALYZE_TOTAL = new XContentBuilderString("analyze_total");
+        static final XContentBuilderString CHAIN_BUILD_TOTAL = new XContentBuilderString("chain_build_total");
+        static final XContentBuilderString ANALYZE_TIME = new XContentBuilderString("analyze_time");
+        static final XContentBuilderString ANALYZE_TIME_IN_MILLIS = new XContentBuilderString("analyze_time_in_millis");
+    }
+}
@@ -20,9 +20,12 @@
 package org.elasticsearch.index.analysis;
 
 import org.apache.lucene.analysis.*;
+import org.elasticsearch.common.lucene.analysis.ResettableCharFilter;
+import org.elasticsearch.common.metrics.CounterMetric;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.util.concurrent.TimeUnit;
 
 /**
  *
@@ -37,6 +40,10 @@ public final class CustomAnalyzer extends Analyzer implements PositionIncrementG
 
     private int positionIncrementGap = 0;
 
+    private final CounterMetric analyzeCount = new CounterMetric();
+    private final CounterMetric chainBuildCount = new CounterMetric();
+    private final CounterMetric analyzeTimeInNanos = new CounterMetric();
+
     public CustomAnalyzer(TokenizerFactory tokenizerFactory, CharFilterFactory[] charFilters, TokenFilterFactory[] tokenFilters) {
         this.tokenizerFactory = tokenizerFactory;
         this.charFilters = charFilters;
@@ -65,30 +72,63 @@ public final class CustomAnalyzer extends Analyzer implements PositionIncrementG
         return this.positionIncrementGap;
     }
 
+    /**
+     * The number of values analyzed, how many times the analysis chain got built and the time spent in it.
+     */
+    public AnalyzerStats stats() {
+        return new AnalyzerStats(analyzeCount.count(), chainBuildCount.count(), TimeUnit.NANOSECONDS.toMillis(analyzeTimeInNanos.count()));
+    }
+
     @Override
     public final TokenStream tokenStream(String fieldName, Reader reader) {
+        analyzeCount.inc();
         return buildHolder(reader).tokenStream;
     }
 
     @Override
     public final TokenStream reusableTokenStream(String fieldName, Reader reader) throws IOException {
+        analyzeCount.inc();
         Holder holder = (Holder) getPreviousTokenStream();
         if (holder == null) {
-            holder = buildHolder(charFilterIfNeeded(reader));
+            holder = buildHolder(reader);
             setPreviousTokenStream(holder);
+        } else if (holder.charFilters != null) {
+            // all char filters can be reset, reuse the whole chain
+            CharStream charStream = CharReader.get(reader);
+            for (ResettableCharFilter charFilter : holder.charFilters) {
+                charFilter.reset(charStream);
+                charStream = charFilter;
+            }
+            holder.tokenizer.reset(charStream);
         } else {
             holder.tokenizer.reset(charFilterIfNeeded(reader));
         }
         return holder.tokenStream;
     }
 
-    private Holder buildHolder(Reader input) {
+    private Holder buildHolder(Reader reader) {
+        chainBuildCount.inc();
+        ResettableCharFilter[] resettableCharFilters = null;
+        Reader input = reader;
+        if (charFilters != null && charFilters.length > 0) {
+            resettableCharFilters = new ResettableCharFilter[charFilters.length];
+            CharStream charStream = CharReader.get(reader);
+            for (int i = 0; i < charFilters.length; i++) {
+                charStream = charFilters[i].create(charStream);
+                if (resettableCharFilters != null && charStream instanceof ResettableCharFilter) {
+                    resettableCharFilters[i] = (ResettableCharFilter) charStream;
+                } else {
+                    resettableCharFilters = null;
+                }
+            }
+            input = charStream;
+        }
         Tokenizer tokenizer = tokenizerFactory.create(input);
         TokenStream tokenStream = tokenizer;
         for (TokenFilterFactory tokenFilter : tokenFilters) {
             tokenStream = tokenFilter.create(tokenStream);
         }
-        return new Holder(tokenizer, tokenStream);
+        return new Holder(tokenizer, new TimingTokenFilter(tokenStream), resettableCharFilters);
     }
 
     private Reader charFilterIfNeeded(Reader reader) {
@@ -102,13 +142,67 @@ public final class CustomAnalyzer extends Analyzer implements PositionIncrementG
         return reader;
     }
 
+    /**
+     * Times the tokens pulled through the chain (which includes reading through the char filters). The time is
+     * kept in the (per thread) filter and only added to the shared counter once the value is done with.
+     */
+    private final class TimingTokenFilter extends TokenFilter {
+
+        private long timeInNanos;
+
+        TimingTokenFilter(TokenStream input) {
+            super(input);
+        }
+
+        @Override
+        public boolean incrementToken() throws IOException {
+            long start = System.nanoTime();
+            try {
+                return input.incrementToken();
+            } finally {
+                timeInNanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public void reset() throws IOException {
+            // not all consumers end or close the stream
+            flushTime();
+            super.reset();
+        }
+
+        @Override
+        public void end() throws IOException {
+            super.end();
+            flushTime();
+        }
+
+        @Override
+        public void close() throws IOException {
+            super.close();
+            flushTime();
+        }
+
+        private void flushTime() {
+            if (timeInNanos > 0) {
+                analyzeTimeInNanos.inc(timeInNanos);
+                timeInNanos = 0;
+            }
+        }
+    }
+
     static class Holder {
         final Tokenizer tokenizer;
         final TokenStream tokenStream;
+        /**
+         * The char filters chain, in order, if all of them can be reset, <tt>null</tt> otherwise.
+         */
+        final ResettableCharFilter[] charFilters;
 
-        private Holder(Tokenizer tokenizer, TokenStream tokenStream) {
+        private Holder(Tokenizer tokenizer, TokenStream tokenStream, ResettableCharFilter[] charFilters) {
             this.tokenizer = tokenizer;
             this.tokenStream = tokenStream;
+            this.charFilters = charFilters;
         }
     }
 }
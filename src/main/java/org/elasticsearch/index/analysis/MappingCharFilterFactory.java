@@ -20,8 +20,8 @@
 package org.elasticsearch.index.analysis;
 
 import org.apache.lucene.analysis.CharStream;
-import org.apache.lucene.analysis.MappingCharFilter;
 import org.apache.lucene.analysis.NormalizeCharMap;
+import org.apache.lucene.analysis.ResettableMappingCharFilter;
 import org.elasticsearch.ElasticSearchIllegalArgumentException;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.inject.assistedinject.Assisted;
@@ -54,7 +54,7 @@ public class MappingCharFilterFactory extends AbstractCharFilterFactory {
 
     @Override
     public CharStream create(CharStream tokenStream) {
-        return new MappingCharFilter(normMap, tokenStream);
+        return new ResettableMappingCharFilter(normMap, tokenStream);
     }
 
     // source => target
@@ -20,17 +20,26 @@
 package org.elasticsearch.index.cache.bloom.simple;
 
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.SegmentInfo;
+import org.apache.lucene.index.SegmentReader;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.index.TermDocs;
 import org.apache.lucene.index.TermEnum;
 import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.store.ChecksumIndexInput;
+import org.apache.lucene.store.ChecksumIndexOutput;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
 import org.apache.lucene.util.StringHelper;
 import org.apache.lucene.util.UnicodeUtil;
 import org.elasticsearch.ElasticSearchException;
 import org.elasticsearch.common.Unicode;
 import org.elasticsearch.common.bloom.BloomFilter;
 import org.elasticsearch.common.bloom.BloomFilterFactory;
+import org.elasticsearch.common.bloom.ObsBloomFilter;
 import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.SizeUnit;
 import org.elasticsearch.common.unit.SizeValue;
@@ -41,19 +50,40 @@ import org.elasticsearch.index.cache.bloom.BloomCache;
 import org.elasticsearch.index.settings.IndexSettings;
 import org.elasticsearch.threadpool.ThreadPool;
 
+import java.io.IOException;
 import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
 
 /**
- *
+ * A bloom cache that builds a filter per segment reader. Since segments are immutable, filters built for
+ * {@link SegmentReader}s are also persisted next to the segment files (<tt>[segment]_[field].bloom</tt>), so
+ * they can be loaded as is after a restart instead of being rebuilt from the terms. Persisted filters
+ * include deleted docs, which only means more false positives and keeps them valid for the life of the segment.
+ * <p/>
+ * A persisted filter records the identity of the segment it was built for (its name, doc count, and the names and
+ * lengths of its files) and a CRC32 of its content, and is only used if both match, otherwise it is rebuilt. The
+ * files are written through the shard store directory, but are not part of any commit point: snapshots and
+ * recoveries never copy them, and deleting files that are not part of the recovered commit removes them, so a
+ * recovered shard rebuilds its filters lazily. The segment identity guards against a filter left behind for a
+ * different segment that ends up with the same name.
  */
 public class SimpleBloomCache extends AbstractIndexComponent implements BloomCache, IndexReader.ReaderFinishedListener {
 
     private final ThreadPool threadPool;
 
+    static final String BLOOM_EXTENSION = ".bloom";
+
+    private static final int BLOOM_FORMAT_VERSION = 2;
+
     private final long maxSize;
 
+    private final boolean persist;
+
     private final ConcurrentMap<Object, ConcurrentMap<String, BloomFilterEntry>> cache;
 
     private final Object creationMutex = new Object();
@@ -64,6 +94,7 @@ public class SimpleBloomCache extends AbstractIndexComponent implements BloomCac
         this.threadPool = threadPool;
 
         this.maxSize = indexSettings.getAsSize("index.cache.bloom.max_size", new SizeValue(500, SizeUnit.MEGA)).singles();
+        this.persist = indexSettings.getAsBoolean("index.cache.bloom.persist", true);
         this.cache = ConcurrentCollections.newConcurrentMap();
     }
 
@@ -142,7 +173,7 @@ public class SimpleBloomCache extends AbstractIndexComponent implements BloomCac
                     // now, do the async load of it...
                     if (currentNumDocs < maxSize) {
                         filter.loading.set(true);
-                        BloomFilterLoader loader = new BloomFilterLoader(reader, fieldName);
+                        BloomFilterLoader loader = new BloomFilterLoader(reader, fieldName, false);
                         if (asyncLoad) {
                             threadPool.cached().execute(loader);
                         } else {
@@ -154,10 +185,10 @@ public class SimpleBloomCache extends AbstractIndexComponent implements BloomCac
             }
         }
         // if we too many deletes, we need to reload the bloom filter so it will be more effective
-        if (filter.numDocs > 1000 && filter.numDocs < maxSize && (currentNumDocs / filter.numDocs) < 0.6) {
+        if (filter.numDocs > 1000 && filter.numDocs < maxSize && (((double) currentNumDocs) / filter.numDocs) < 0.6) {
             if (filter.loading.compareAndSet(false, true)) {
-                // do the async loading
-                BloomFilterLoader loader = new BloomFilterLoader(reader, fieldName);
+                // do the async loading, reloaded filters skip deleted docs, so they are not persisted
+                BloomFilterLoader loader = new BloomFilterLoader(reader, fieldName, true);
                 if (asyncLoad) {
                     threadPool.cached().execute(loader);
                 } else {
@@ -172,39 +203,39 @@ public class SimpleBloomCache extends AbstractIndexComponent implements BloomCac
     class BloomFilterLoader implements Runnable {
         private final IndexReader reader;
         private final String field;
+        private final boolean reload;
 
-        BloomFilterLoader(IndexReader reader, String field) {
+        BloomFilterLoader(IndexReader reader, String field, boolean reload) {
             this.reader = reader;
             this.field = StringHelper.intern(field);
+            this.reload = reload;
         }
 
-        @SuppressWarnings({"StringEquality"})
         @Override
         public void run() {
-            TermDocs termDocs = null;
-            TermEnum termEnum = null;
             try {
-                BloomFilter filter = BloomFilterFactory.getFilter(reader.numDocs(), 15);
-                termDocs = reader.termDocs();
-                termEnum = reader.terms(new Term(field));
-                do {
-                    Term term = termEnum.term();
-                    if (term == null || term.field() != field) break;
-
-                    // LUCENE MONITOR: 4.0, move to use bytes!
-                    UnicodeUtil.UTF8Result utf8Result = Unicode.fromStringAsUtf8(term.text());
-                    termDocs.seek(termEnum);
-                    while (termDocs.next()) {
-                        // when traversing, make sure to ignore deleted docs, so the key->docId will be correct
-                        if (!reader.isDeleted(termDocs.doc())) {
-                            filter.add(utf8Result.result, 0, utf8Result.length);
-                        }
+                String fileName = null;
+                if (persist && !reload && reader instanceof SegmentReader) {
+                    fileName = ((SegmentReader) reader).getSegmentName() + "_" + field + BLOOM_EXTENSION;
+                }
+                BloomFilter filter = null;
+                int numDocs;
+                if (fileName != null) {
+                    // persisted filters cover all the docs in the segment, deleted ones included
+                    numDocs = reader.maxDoc();
+                    filter = readFilter(fileName);
+                    if (filter == null) {
+                        filter = buildFilter(numDocs, false);
+                        writeFilter(fileName, filter);
                     }
-                } while (termEnum.next());
+                } else {
+                    numDocs = reader.numDocs();
+                    filter = buildFilter(numDocs, true);
+                }
                 ConcurrentMap<String, BloomFilterEntry> fieldCache = cache.get(reader.getCoreCacheKey());
                 if (fieldCache != null) {
                     if (fieldCache.containsKey(field)) {
-                        BloomFilterEntry filterEntry = new BloomFilterEntry(reader.numDocs(), filter);
+                        BloomFilterEntry filterEntry = new BloomFilterEntry(numDocs, filter);
                         filterEntry.loading.set(false);
                         fieldCache.put(field, filterEntry);
                     }
@@ -218,6 +249,32 @@ public class SimpleBloomCache extends AbstractIndexComponent implements BloomCac
                 if (reader.getRefCount() > 0) {
                     logger.warn("failed to load bloom filter for [{}]", e, field);
                 }
+            }
+        }
+
+        @SuppressWarnings({"StringEquality"})
+        private BloomFilter buildFilter(int numDocs, boolean skipDeleted) throws IOException {
+            TermDocs termDocs = null;
+            TermEnum termEnum = null;
+            try {
+                BloomFilter filter = BloomFilterFactory.getFilter(numDocs, 15);
+                termDocs = reader.termDocs();
+                termEnum = reader.terms(new Term(field));
+                do {
+                    Term term = termEnum.term();
+                    if (term == null || term.field() != field) break;
+
+                    // LUCENE MONITOR: 4.0, move to use bytes!
+                    UnicodeUtil.UTF8Result utf8Result = Unicode.fromStringAsUtf8(term.text());
+                    termDocs.seek(termEnum);
+                    while (termDocs.next()) {
+                        // when traversing, make sure to ignore deleted docs, so the key->docId will be correct
+                        if (!skipDeleted || !reader.isDeleted(termDocs.doc())) {
+                            filter.add(utf8Result.result, 0, utf8Result.length);
+                        }
+                    }
+                } while (termEnum.next());
+                return filter;
             } finally {
                 try {
                     if (termDocs != null) {
@@ -235,6 +292,124 @@ public class SimpleBloomCache extends AbstractIndexComponent implements BloomCac
                 }
             }
         }
+
+        /**
+         * Reads the persisted filter, returning <tt>null</tt> if there is none or if it can't be used.
+         */
+        private BloomFilter readFilter(String fileName) throws IOException {
+            Directory directory = reader.directory();
+            if (!directory.fileExists(fileName)) {
+                return null;
+            }
+            IndexInput input = directory.openInput(fileName);
+            try {
+                ChecksumIndexInput checksumInput = new ChecksumIndexInput(input);
+                if (checksumInput.readVInt() != BLOOM_FORMAT_VERSION) {
+                    return null;
+                }
+                if (checksumInput.readLong() != segmentIdentity((SegmentReader) reader)) {
+                    logger.debug("persisted bloom filter [{}] belongs to a different segment, rebuilding it", fileName);
+                    return null;
+                }
+                ObsBloomFilter filter = ObsBloomFilter.readFrom(checksumInput);
+                if (checksumInput.readVInt() != reader.maxDoc()) {
+                    return null;
+                }
+                long checksum = checksumInput.getChecksum();
+                // the checksum is written last, so it also tells us that the file is complete
+                if (input.readLong() != checksum || input.getFilePointer() != input.length()) {
+                    logger.debug("persisted bloom filter [{}] is corrupted, rebuilding it", fileName);
+                    return null;
+                }
+                return filter;
+            } catch (IOException e) {
+                logger.debug("failed to read persisted bloom filter [{}], rebuilding it", e, fileName);
+                return null;
+            } finally {
+                input.close();
+            }
+        }
+
+        private void writeFilter(String fileName, BloomFilter filter) {
+            if (!(filter instanceof ObsBloomFilter)) {
+                return;
+            }
+            Directory directory = reader.directory();
+            try {
+                IndexOutput output = directory.createOutput(fileName);
+                try {
+                    ChecksumIndexOutput checksumOutput = new ChecksumIndexOutput(output);
+                    checksumOutput.writeVInt(BLOOM_FORMAT_VERSION);
+                    checksumOutput.writeLong(segmentIdentity((SegmentReader) reader));
+                    ((ObsBloomFilter) filter).writeTo(checksumOutput);
+                    checksumOutput.writeVInt(reader.maxDoc());
+                    output.writeLong(checksumOutput.getChecksum());
+                } finally {
+                    output.close();
+                }
+                deleteStaleFilters(directory);
+            } catch (Exception e) {
+                logger.debug("failed to persist bloom filter [{}]", e, fileName);
+            }
+        }
+    }
+
+    /**
+     * The identity of a segment: its name, doc count, and the names and lengths of its files. Deletes and
+     * separate norms files are left out, they change during the life of the segment, and persisted filters
+     * don't depend on them.
+     */
+    static long segmentIdentity(SegmentReader reader) throws IOException {
+        String segmentName = reader.getSegmentName();
+        CRC32 crc = new CRC32();
+        updateIdentity(crc, segmentName, reader.maxDoc());
+        SegmentInfo info = Lucene.getSegmentInfo(reader);
+        if (info != null) {
+            List<String> files = new ArrayList<String>(info.files());
+            Collections.sort(files);
+            Directory directory = reader.directory();
+            for (String file : files) {
+                // generational files (deletes, separate norms) are named [segment]_[gen].[ext]
+                if (!file.startsWith(segmentName + ".")) {
+                    continue;
+                }
+                updateIdentity(crc, file, directory.fileLength(file));
+            }
+        }
+        return crc.getValue();
+    }
+
+    private static void updateIdentity(CRC32 crc, String name, long value) {
+        byte[] bytes = Unicode.fromStringAsBytes(name);
+        crc.update(bytes, 0, bytes.length);
+        for (int i = 56; i >= 0; i -= 8) {
+            crc.update((int) (value >>> i));
+        }
+    }
+
+    /**
+     * Deletes persisted filters of segments that no longer exist (merged away). Segment names are never
+     * reused, so a filter whose segment has neither a compound file nor a field infos file is stale.
+     */
+    static void deleteStaleFilters(Directory directory) throws IOException {
+        for (String file : directory.listAll()) {
+            if (!file.endsWith(BLOOM_EXTENSION)) {
+                continue;
+            }
+            int index = file.indexOf('_', 1);
+            if (index == -1) {
+                continue;
+            }
+            String segmentName = file.substring(0, index);
+            if (directory.fileExists(segmentName + ".cfs") || directory.fileExists(segmentName + ".fnm")) {
+                continue;
+            }
+            try {
+                directory.deleteFile(file);
+            } catch (IOException e) {
+                // ignore, we will try again next time
+            }
+        }
     }
 
     static class BloomFilterEntry {
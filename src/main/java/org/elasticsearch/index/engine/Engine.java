@@ -27,9 +27,11 @@ import org.apache.lucene.index.Term;
 import org.apache.lucene.search.Filter;
 import org.apache.lucene.search.Query;
 import org.elasticsearch.ElasticSearchException;
+import org.elasticsearch.common.BytesWrap;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.component.CloseableComponent;
 import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lucene.uid.SegmentsUidLookup;
 import org.elasticsearch.common.lucene.uid.UidField;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.unit.TimeValue;
@@ -324,6 +326,7 @@ public interface Engine extends IndexShardComponent, CloseableComponent {
     static class Create implements IndexingOperation {
         private final DocumentMapper docMapper;
         private final Term uid;
+        private final BytesWrap uidBytes;
         private final ParsedDocument doc;
         private long version;
         private VersionType versionType = VersionType.INTERNAL;
@@ -335,6 +338,7 @@ public interface Engine extends IndexShardComponent, CloseableComponent {
         public Create(DocumentMapper docMapper, Term uid, ParsedDocument doc) {
             this.docMapper = docMapper;
             this.uid = uid;
+            this.uidBytes = new BytesWrap(uid.text());
             this.doc = doc;
         }
 
@@ -365,6 +369,14 @@ public interface Engine extends IndexShardComponent, CloseableComponent {
             return this.uid;
         }
 
+        /**
+         * The utf8 bytes of the uid, with a precomputed hash, used to stripe the dirty locks, key the version map
+         * and probe the bloom filters without encoding (and hashing) the uid over and over again.
+         */
+        public BytesWrap uidBytes() {
+            return this.uidBytes;
+        }
+
         public String type() {
             return this.doc.type();
         }
@@ -460,6 +472,7 @@ public interface Engine extends IndexShardComponent, CloseableComponent {
     static class Index implements IndexingOperation {
         private final DocumentMapper docMapper;
         private final Term uid;
+        private final BytesWrap uidBytes;
         private final ParsedDocument doc;
         private long version;
         private VersionType versionType = VersionType.INTERNAL;
@@ -471,6 +484,7 @@ public interface Engine extends IndexShardComponent, CloseableComponent {
         public Index(DocumentMapper docMapper, Term uid, ParsedDocument doc) {
             this.docMapper = docMapper;
             this.uid = uid;
+            this.uidBytes = new BytesWrap(uid.text());
             this.doc = doc;
         }
 
@@ -497,6 +511,13 @@ public interface Engine extends IndexShardComponent, CloseableComponent {
             return this.uid;
         }
 
+        /**
+         * The utf8 bytes of the uid, see {@link Create#uidBytes()}.
+         */
+        public BytesWrap uidBytes() {
+            return this.uidBytes;
+        }
+
         public ParsedDocument parsedDoc() {
             return this.doc;
         }
@@ -596,6 +617,7 @@ public interface Engine extends IndexShardComponent, CloseableComponent {
         private final String type;
         private final String id;
         private final Term uid;
+        private final BytesWrap uidBytes;
         private long version;
         private VersionType versionType = VersionType.INTERNAL;
         private Origin origin = Origin.PRIMARY;
@@ -608,6 +630,7 @@ public interface Engine extends IndexShardComponent, CloseableComponent {
             this.type = type;
             this.id = id;
             this.uid = uid;
+            this.uidBytes = new BytesWrap(uid.text());
         }
 
         @Override
@@ -637,6 +660,13 @@ public interface Engine extends IndexShardComponent, CloseableComponent {
             return this.uid;
         }
 
+        /**
+         * The utf8 bytes of the uid, see {@link Create#uidBytes()}.
+         */
+        public BytesWrap uidBytes() {
+            return this.uidBytes;
+        }
+
         public Delete version(long version) {
             this.version = version;
             return this;
@@ -757,11 +787,15 @@ public interface Engine extends IndexShardComponent, CloseableComponent {
     static class Get {
         private final boolean realtime;
         private final Term uid;
+        private final BytesWrap uidBytes;
         private boolean loadSource = true;
+        private Searcher searcher;
+        private SegmentsUidLookup uidLookup;
 
         public Get(boolean realtime, Term uid) {
             this.realtime = realtime;
             this.uid = uid;
+            this.uidBytes = new BytesWrap(uid.text());
         }
 
         public boolean realtime() {
@@ -772,6 +806,13 @@ public interface Engine extends IndexShardComponent, CloseableComponent {
             return uid;
         }
 
+        /**
+         * The utf8 bytes of the uid, see {@link Create#uidBytes()}.
+         */
+        public BytesWrap uidBytes() {
+            return this.uidBytes;
+        }
+
         public boolean loadSource() {
             return this.loadSource;
         }
@@ -780,6 +821,34 @@ public interface Engine extends IndexShardComponent, CloseableComponent {
             this.loadSource = loadSource;
             return this;
         }
+
+        @Nullable
+        public Searcher searcher() {
+            return this.searcher;
+        }
+
+        /**
+         * Resolves the get against the provided searcher instead of acquiring a new one. The caller owns the
+         * searcher and releases it, {@link GetResult#release()} will not.
+         */
+        public Get searcher(Searcher searcher) {
+            this.searcher = searcher;
+            return this;
+        }
+
+        @Nullable
+        public SegmentsUidLookup uidLookup() {
+            return this.uidLookup;
+        }
+
+        /**
+         * Looks the uid up in the segments of the provided searcher through the provided lookup, which is
+         * built over the searcher sub readers, so a batch of gets done in uid order shares its term positions.
+         */
+        public Get uidLookup(SegmentsUidLookup uidLookup) {
+            this.uidLookup = uidLookup;
+            return this;
+        }
     }
 
     static class GetResult {
@@ -788,6 +857,7 @@ public interface Engine extends IndexShardComponent, CloseableComponent {
         private final Translog.Source source;
         private final UidField.DocIdAndVersion docIdAndVersion;
         private final Searcher searcher;
+        private final boolean releaseSearcher;
 
         public static final GetResult NOT_EXISTS = new GetResult(false, -1, null);
 
@@ -797,14 +867,20 @@ public interface Engine extends IndexShardComponent, CloseableComponent {
             this.version = version;
             this.docIdAndVersion = null;
             this.searcher = null;
+            this.releaseSearcher = false;
         }
 
         public GetResult(Searcher searcher, UidField.DocIdAndVersion docIdAndVersion) {
+            this(searcher, docIdAndVersion, true);
+        }
+
+        public GetResult(Searcher searcher, UidField.DocIdAndVersion docIdAndVersion, boolean releaseSearcher) {
             this.exists = true;
             this.source = null;
             this.version = docIdAndVersion.version;
             this.docIdAndVersion = docIdAndVersion;
             this.searcher = searcher;
+            this.releaseSearcher = releaseSearcher;
         }
 
         public boolean exists() {
@@ -829,7 +905,7 @@ public interface Engine extends IndexShardComponent, CloseableComponent {
         }
 
         public void release() {
-            if (searcher != null) {
+            if (searcher != null && releaseSearcher) {
                 searcher.release();
             }
         }
@@ -23,16 +23,16 @@ import org.apache.lucene.index.*;
 import org.apache.lucene.search.FilteredQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.store.AlreadyClosedException;
-import org.apache.lucene.util.UnicodeUtil;
 import org.elasticsearch.ElasticSearchException;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.common.BytesWrap;
 import org.elasticsearch.common.Preconditions;
-import org.elasticsearch.common.Unicode;
 import org.elasticsearch.common.bloom.BloomFilter;
 import org.elasticsearch.common.collect.MapBuilder;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.lucene.ReaderSearcherHolder;
+import org.elasticsearch.common.lucene.uid.SegmentsUidLookup;
 import org.elasticsearch.common.lucene.uid.UidField;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeUnit;
@@ -136,7 +136,7 @@ public class RobinEngine extends AbstractIndexShardComponent implements Engine {
     // indexing searcher is initialized
     private final AtomicBoolean flushing = new AtomicBoolean();
 
-    private final ConcurrentMap<String, VersionValue> versionMap;
+    private final ConcurrentMap<BytesWrap, VersionValue> versionMap;
 
     private final Object[] dirtyLocks;
 
@@ -182,7 +182,7 @@ public class RobinEngine extends AbstractIndexShardComponent implements Engine {
         this.bloomCache = bloomCache;
 
         this.indexConcurrency = indexSettings.getAsInt("index.index_concurrency", IndexWriterConfig.DEFAULT_MAX_THREAD_STATES);
-        this.versionMap = new ConcurrentHashMap<String, VersionValue>();
+        this.versionMap = new ConcurrentHashMap<BytesWrap, VersionValue>();
         this.dirtyLocks = new Object[indexConcurrency * 10]; // we multiply it by 10 to have enough...
         for (int i = 0; i < dirtyLocks.length; i++) {
             dirtyLocks[i] = new Object();
@@ -297,7 +297,7 @@ public class RobinEngine extends AbstractIndexShardComponent implements Engine {
         rwl.readLock().lock();
         try {
             if (get.realtime()) {
-                VersionValue versionValue = versionMap.get(get.uid().text());
+                VersionValue versionValue = versionMap.get(get.uidBytes());
                 if (versionValue != null) {
                     if (versionValue.delete()) {
                         return GetResult.NOT_EXISTS;
@@ -318,26 +318,36 @@ public class RobinEngine extends AbstractIndexShardComponent implements Engine {
             }
 
             // no version, get the version from the index, we know that we refresh on flush
-            Searcher searcher = searcher();
+            final boolean ownsSearcher = get.searcher() == null;
+            Searcher searcher = ownsSearcher ? searcher() : get.searcher();
             try {
-                UnicodeUtil.UTF8Result utf8 = Unicode.fromStringAsUtf8(get.uid().text());
-                for (IndexReader reader : searcher.searcher().subReaders()) {
+                byte[] uidBytes = get.uidBytes().bytes();
+                SegmentsUidLookup uidLookup = get.uidLookup();
+                IndexReader[] subReaders = uidLookup != null ? uidLookup.subReaders() : searcher.searcher().subReaders();
+                // a uid only exists (not deleted) in a single segment, check the most recently flushed segments first,
+                // as realtime gets usually ask for recently indexed docs
+                for (int i = subReaders.length - 1; i >= 0; i--) {
+                    IndexReader reader = subReaders[i];
                     BloomFilter filter = bloomCache.filter(reader, UidFieldMapper.NAME, asyncLoadBloomFilter);
                     // we know that its not there...
-                    if (!filter.isPresent(utf8.result, 0, utf8.length)) {
+                    if (!filter.isPresent(uidBytes, 0, uidBytes.length)) {
                         continue;
                     }
-                    UidField.DocIdAndVersion docIdAndVersion = UidField.loadDocIdAndVersion(reader, get.uid());
+                    UidField.DocIdAndVersion docIdAndVersion = uidLookup != null ? uidLookup.loadDocIdAndVersion(i, get.uid()) : UidField.loadDocIdAndVersion(reader, get.uid());
                     if (docIdAndVersion != null && docIdAndVersion.docId != Lucene.NO_DOC) {
-                        return new GetResult(searcher, docIdAndVersion);
+                        return new GetResult(searcher, docIdAndVersion, ownsSearcher);
                     }
                 }
             } catch (Exception e) {
-                searcher.release();
+                if (ownsSearcher) {
+                    searcher.release();
+                }
                 //TODO: A better exception goes here
                 throw new EngineException(shardId(), "failed to load document", e);
             }
-            searcher.release();
+            if (ownsSearcher) {
+                searcher.release();
+            }
             return GetResult.NOT_EXISTS;
         } finally {
             rwl.readLock().unlock();
@@ -372,12 +382,12 @@ public class RobinEngine extends AbstractIndexShardComponent implements Engine {
     }
 
     private void innerCreate(Create create, IndexWriter writer) throws IOException {
-        synchronized (dirtyLock(create.uid())) {
+        synchronized (dirtyLock(create.uidBytes())) {
             UidField uidField = create.uidField();
             final long currentVersion;
-            VersionValue versionValue = versionMap.get(create.uid().text());
+            VersionValue versionValue = versionMap.get(create.uidBytes());
             if (versionValue == null) {
-                currentVersion = loadCurrentVersionFromIndex(create.uid());
+                currentVersion = loadCurrentVersionFromIndex(create.uid(), create.uidBytes());
             } else {
                 if (enableGcDeletes && versionValue.delete() && (threadPool.estimatedTimeInMillis() - versionValue.time()) > gcDeletesInMillis) {
                     currentVersion = -1; // deleted, and GC
@@ -461,7 +471,7 @@ public class RobinEngine extends AbstractIndexShardComponent implements Engine {
             }
             Translog.Location translogLocation = translog.add(new Translog.Create(create));
 
-            versionMap.put(create.uid().text(), new VersionValue(updatedVersion, false, threadPool.estimatedTimeInMillis(), translogLocation));
+            versionMap.put(create.uidBytes(), new VersionValue(updatedVersion, false, threadPool.estimatedTimeInMillis(), translogLocation));
         }
     }
 
@@ -494,12 +504,12 @@ public class RobinEngine extends AbstractIndexShardComponent implements Engine {
     }
 
     private void innerIndex(Index index, IndexWriter writer) throws IOException {
-        synchronized (dirtyLock(index.uid())) {
+        synchronized (dirtyLock(index.uidBytes())) {
             UidField uidField = index.uidField();
             final long currentVersion;
-            VersionValue versionValue = versionMap.get(index.uid().text());
+            VersionValue versionValue = versionMap.get(index.uidBytes());
             if (versionValue == null) {
-                currentVersion = loadCurrentVersionFromIndex(index.uid());
+                currentVersion = loadCurrentVersionFromIndex(index.uid(), index.uidBytes());
             } else {
                 if (enableGcDeletes && versionValue.delete() && (threadPool.estimatedTimeInMillis() - versionValue.time()) > gcDeletesInMillis) {
                     currentVersion = -1; // deleted, and GC
@@ -573,7 +583,7 @@ public class RobinEngine extends AbstractIndexShardComponent implements Engine {
             }
             Translog.Location translogLocation = translog.add(new Translog.Index(index));
 
-            versionMap.put(index.uid().text(), new VersionValue(updatedVersion, false, threadPool.estimatedTimeInMillis(), translogLocation));
+            versionMap.put(index.uidBytes(), new VersionValue(updatedVersion, false, threadPool.estimatedTimeInMillis(), translogLocation));
         }
     }
 
@@ -605,11 +615,11 @@ public class RobinEngine extends AbstractIndexShardComponent implements Engine {
     }
 
     private void innerDelete(Delete delete, IndexWriter writer) throws IOException {
-        synchronized (dirtyLock(delete.uid())) {
+        synchronized (dirtyLock(delete.uidBytes())) {
             final long currentVersion;
-            VersionValue versionValue = versionMap.get(delete.uid().text());
+            VersionValue versionValue = versionMap.get(delete.uidBytes());
             if (versionValue == null) {
-                currentVersion = loadCurrentVersionFromIndex(delete.uid());
+                currentVersion = loadCurrentVersionFromIndex(delete.uid(), delete.uidBytes());
             } else {
                 if (enableGcDeletes && versionValue.delete() && (threadPool.estimatedTimeInMillis() - versionValue.time()) > gcDeletesInMillis) {
                     currentVersion = -1; // deleted, and GC
@@ -664,17 +674,17 @@ public class RobinEngine extends AbstractIndexShardComponent implements Engine {
                 // doc does not exists and no prior deletes
                 delete.version(updatedVersion).notFound(true);
                 Translog.Location translogLocation = translog.add(new Translog.Delete(delete));
-                versionMap.put(delete.uid().text(), new VersionValue(updatedVersion, true, threadPool.estimatedTimeInMillis(), translogLocation));
+                versionMap.put(delete.uidBytes(), new VersionValue(updatedVersion, true, threadPool.estimatedTimeInMillis(), translogLocation));
             } else if (versionValue != null && versionValue.delete()) {
                 // a "delete on delete", in this case, we still increment the version, log it, and return that version
                 delete.version(updatedVersion).notFound(true);
                 Translog.Location translogLocation = translog.add(new Translog.Delete(delete));
-                versionMap.put(delete.uid().text(), new VersionValue(updatedVersion, true, threadPool.estimatedTimeInMillis(), translogLocation));
+                versionMap.put(delete.uidBytes(), new VersionValue(updatedVersion, true, threadPool.estimatedTimeInMillis(), translogLocation));
             } else {
                 delete.version(updatedVersion);
                 writer.deleteDocuments(delete.uid());
                 Translog.Location translogLocation = translog.add(new Translog.Delete(delete));
-                versionMap.put(delete.uid().text(), new VersionValue(updatedVersion, true, threadPool.estimatedTimeInMillis(), translogLocation));
+                versionMap.put(delete.uidBytes(), new VersionValue(updatedVersion, true, threadPool.estimatedTimeInMillis(), translogLocation));
             }
         }
     }
@@ -918,8 +928,8 @@ public class RobinEngine extends AbstractIndexShardComponent implements Engine {
     private void refreshVersioningTable(long time) {
         // we need to refresh in order to clear older version values
         refresh(new Refresh(true).force(true));
-        for (Map.Entry<String, VersionValue> entry : versionMap.entrySet()) {
-            String id = entry.getKey();
+        for (Map.Entry<BytesWrap, VersionValue> entry : versionMap.entrySet()) {
+            BytesWrap id = entry.getKey();
             synchronized (dirtyLock(id)) { // can we do it without this lock on each value? maybe batch to a set and get the lock once per set?
                 VersionValue versionValue = versionMap.get(id);
                 if (versionValue == null) {
@@ -1244,8 +1254,8 @@ public class RobinEngine extends AbstractIndexShardComponent implements Engine {
         }
     }
 
-    private Object dirtyLock(String id) {
-        int hash = id.hashCode();
+    private Object dirtyLock(BytesWrap uid) {
+        int hash = uid.hashCode();
         // abs returns Integer.MIN_VALUE, so we need to protect against it...
         if (hash == Integer.MIN_VALUE) {
             hash = 0;
@@ -1253,18 +1263,16 @@ public class RobinEngine extends AbstractIndexShardComponent implements Engine {
         return dirtyLocks[Math.abs(hash) % dirtyLocks.length];
     }
 
-    private Object dirtyLock(Term uid) {
-        return dirtyLock(uid.text());
-    }
-
-    private long loadCurrentVersionFromIndex(Term uid) {
-        UnicodeUtil.UTF8Result utf8 = Unicode.fromStringAsUtf8(uid.text());
+    private long loadCurrentVersionFromIndex(Term uid, BytesWrap uidBytes) {
         Searcher searcher = searcher();
         try {
-            for (IndexReader reader : searcher.searcher().subReaders()) {
+            IndexReader[] subReaders = searcher.searcher().subReaders();
+            // newest segments first, they are more likely to hold the updated doc
+            for (int i = subReaders.length - 1; i >= 0; i--) {
+                IndexReader reader = subReaders[i];
                 BloomFilter filter = bloomCache.filter(reader, UidFieldMapper.NAME, asyncLoadBloomFilter);
                 // we know that its not there...
-                if (!filter.isPresent(utf8.result, 0, utf8.length)) {
+                if (!filter.isPresent(uidBytes.bytes(), 0, uidBytes.bytes().length)) {
                     continue;
                 }
                 long version = UidField.loadVersion(reader, uid);
@@ -1298,6 +1306,14 @@ public class RobinEngine extends AbstractIndexShardComponent implements Engine {
             config.setTermIndexInterval(termIndexInterval);
             config.setReaderTermsIndexDivisor(termIndexDivisor);
             config.setMaxThreadStates(indexConcurrency);
+            // build (and persist) the uid bloom filter of merged segments as part of the merge, so versioned
+            // operations can use it as soon as the merged segment becomes visible
+            config.setMergedSegmentWarmer(new IndexWriter.IndexReaderWarmer() {
+                @Override
+                public void warm(IndexReader reader) throws IOException {
+                    bloomCache.filter(reader, UidFieldMapper.NAME, false);
+                }
+            });
 
             indexWriter = new IndexWriter(store.directory(), config);
         } catch (IOException e) {
@@ -37,16 +37,20 @@ public class GetStats implements Streamable, ToXContent {
     private long existsTimeInMillis;
     private long missingCount;
     private long missingTimeInMillis;
+    private long existsTranslogCount;
+    private long existsIndexCount;
     private long current;
 
     public GetStats() {
     }
 
-    public GetStats(long existsCount, long existsTimeInMillis, long missingCount, long missingTimeInMillis, long current) {
+    public GetStats(long existsCount, long existsTimeInMillis, long missingCount, long missingTimeInMillis, long existsTranslogCount, long existsIndexCount, long current) {
         this.existsCount = existsCount;
         this.existsTimeInMillis = existsTimeInMillis;
         this.missingCount = missingCount;
         this.missingTimeInMillis = missingTimeInMillis;
+        this.existsTranslogCount = existsTranslogCount;
+        this.existsIndexCount = existsIndexCount;
         this.current = current;
     }
 
@@ -58,6 +62,8 @@ public class GetStats implements Streamable, ToXContent {
         existsTimeInMillis += stats.existsTimeInMillis;
         missingCount += stats.missingCount;
         missingTimeInMillis += stats.missingTimeInMillis;
+        existsTranslogCount += stats.existsTranslogCount;
+        existsIndexCount += stats.existsIndexCount;
         current += stats.current;
     }
 
@@ -133,6 +139,28 @@ public class GetStats implements Streamable, ToXContent {
         return missingTime();
     }
 
+    /**
+     * The number of existing docs that were served (realtime) from the transaction log.
+     */
+    public long existsTranslogCount() {
+        return this.existsTranslogCount;
+    }
+
+    public long getExistsTranslogCount() {
+        return this.existsTranslogCount;
+    }
+
+    /**
+     * The number of existing docs that were loaded from the index segments.
+     */
+    public long existsIndexCount() {
+        return this.existsIndexCount;
+    }
+
+    public long getExistsIndexCount() {
+        return this.existsIndexCount;
+    }
+
     public long current() {
         return this.current;
     }
@@ -153,6 +181,8 @@ public class GetStats implements Streamable, ToXContent {
         builder.field(Fields.MISSING_TOTAL, missingCount);
         builder.field(Fields.MISSING_TIME, missingTime().toString());
         builder.field(Fields.MISSING_TIME_IN_MILLIS, missingTimeInMillis);
+        builder.field(Fields.EXISTS_TRANSLOG_TOTAL, existsTranslogCount);
+        builder.field(Fields.EXISTS_INDEX_TOTAL, existsIndexCount);
         builder.field(Fields.CURRENT, current);
         builder.endObject();
         return builder;
@@ -169,6 +199,8 @@ public class GetStats implements Streamable, ToXContent {
         static final XContentBuilderString MISSING_TOTAL = new XContentBuilderString("missing_total");
         static final XContentBuilderString MISSING_TIME = new XContentBuilderString("missing_time");
         static final XContentBuilderString MISSING_TIME_IN_MILLIS = new XContentBuilderString("missing_time_in_millis");
+        static final XContentBuilderString EXISTS_TRANSLOG_TOTAL = new XContentBuilderString("exists_translog_total");
+        static final XContentBuilderString EXISTS_INDEX_TOTAL = new XContentBuilderString("exists_index_total");
         static final XContentBuilderString CURRENT = new XContentBuilderString("current");
     }
 
@@ -184,6 +216,8 @@ public class GetStats implements Streamable, ToXContent {
         existsTimeInMillis = in.readVLong();
         missingCount = in.readVLong();
         missingTimeInMillis = in.readVLong();
+        existsTranslogCount = in.readVLong();
+        existsIndexCount = in.readVLong();
         current = in.readVLong();
     }
 
@@ -193,6 +227,8 @@ public class GetStats implements Streamable, ToXContent {
         out.writeVLong(existsTimeInMillis);
         out.writeVLong(missingCount);
         out.writeVLong(missingTimeInMillis);
+        out.writeVLong(existsTranslogCount);
+        out.writeVLong(existsIndexCount);
         out.writeVLong(current);
     }
 }
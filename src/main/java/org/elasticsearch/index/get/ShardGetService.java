@@ -21,10 +21,13 @@ package org.elasticsearch.index.get;
 
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Fieldable;
+import org.apache.lucene.index.IndexReader;
 import org.elasticsearch.ElasticSearchException;
 import org.elasticsearch.common.BytesHolder;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.lucene.document.ResetFieldSelector;
+import org.elasticsearch.common.lucene.uid.SegmentsUidLookup;
 import org.elasticsearch.common.lucene.uid.UidField;
 import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.metrics.MeanMetric;
@@ -65,6 +68,8 @@ public class ShardGetService extends AbstractIndexShardComponent {
 
     private final MeanMetric existsMetric = new MeanMetric();
     private final MeanMetric missingMetric = new MeanMetric();
+    private final CounterMetric existsTranslogMetric = new CounterMetric();
+    private final CounterMetric existsIndexMetric = new CounterMetric();
     private final CounterMetric currentMetric = new CounterMetric();
 
     @Inject
@@ -77,7 +82,8 @@ public class ShardGetService extends AbstractIndexShardComponent {
     }
 
     public GetStats stats() {
-        return new GetStats(existsMetric.count(), TimeUnit.NANOSECONDS.toMillis(existsMetric.sum()), missingMetric.count(), TimeUnit.NANOSECONDS.toMillis(missingMetric.sum()), currentMetric.count());
+        return new GetStats(existsMetric.count(), TimeUnit.NANOSECONDS.toMillis(existsMetric.sum()), missingMetric.count(), TimeUnit.NANOSECONDS.toMillis(missingMetric.sum()),
+                existsTranslogMetric.count(), existsIndexMetric.count(), currentMetric.count());
     }
 
     // sadly, to overcome cyclic dep, we need to do this and inject it ourselves...
@@ -87,14 +93,40 @@ public class ShardGetService extends AbstractIndexShardComponent {
     }
 
     public GetResult get(String type, String id, String[] gFields, boolean realtime) throws ElasticSearchException {
+        return load(lookup(type, id, gFields, realtime, null, null));
+    }
+
+    /**
+     * Looks up the doc of a get, without loading it. Unless it is served from the transaction log, the doc is
+     * resolved against the provided searcher, or against a newly acquired one if none is provided. A provided
+     * searcher is owned by the caller, and must not be released before the lookup is {@link #load(Lookup) loaded}.
+     * A uid lookup built over the sub readers of the provided searcher can be shared by lookups done in uid order.
+     */
+    public Lookup lookup(String type, String id, String[] gFields, boolean realtime, @Nullable Engine.Searcher searcher,
+                         @Nullable SegmentsUidLookup uidLookup) throws ElasticSearchException {
+        currentMetric.inc();
+        try {
+            long now = System.nanoTime();
+            Lookup lookup = innerLookup(type, id, gFields, realtime, searcher, uidLookup);
+            lookup.tookInNanos = System.nanoTime() - now;
+            return lookup;
+        } finally {
+            currentMetric.dec();
+        }
+    }
+
+    /**
+     * Loads the source and fields of a looked up doc, and releases the lookup.
+     */
+    public GetResult load(Lookup lookup) throws ElasticSearchException {
         currentMetric.inc();
         try {
             long now = System.nanoTime();
-            GetResult getResult = innerGet(type, id, gFields, realtime);
+            GetResult getResult = innerLoad(lookup);
             if (getResult.exists()) {
-                existsMetric.inc(System.nanoTime() - now);
+                existsMetric.inc(lookup.tookInNanos + System.nanoTime() - now);
             } else {
-                missingMetric.inc(System.nanoTime() - now);
+                missingMetric.inc(lookup.tookInNanos + System.nanoTime() - now);
             }
             return getResult;
         } finally {
@@ -103,11 +135,16 @@ public class ShardGetService extends AbstractIndexShardComponent {
     }
 
     public GetResult innerGet(String type, String id, String[] gFields, boolean realtime) throws ElasticSearchException {
+        return innerLoad(innerLookup(type, id, gFields, realtime, null, null));
+    }
+
+    private Lookup innerLookup(String type, String id, String[] gFields, boolean realtime, @Nullable Engine.Searcher searcher,
+                               @Nullable SegmentsUidLookup uidLookup) throws ElasticSearchException {
         boolean loadSource = gFields == null || gFields.length > 0;
         Engine.GetResult get = null;
         if (type == null || type.equals("_all")) {
             for (String typeX : mapperService.types()) {
-                get = indexShard.get(new Engine.Get(realtime, UidFieldMapper.TERM_FACTORY.createTerm(Uid.createUid(typeX, id))).loadSource(loadSource));
+                get = indexShard.get(new Engine.Get(realtime, UidFieldMapper.TERM_FACTORY.createTerm(Uid.createUid(typeX, id))).loadSource(loadSource).searcher(searcher).uidLookup(uidLookup));
                 if (get.exists()) {
                     type = typeX;
                     break;
@@ -115,20 +152,35 @@ public class ShardGetService extends AbstractIndexShardComponent {
                     get.release();
                 }
             }
-            if (get == null) {
-                return new GetResult(shardId.index().name(), type, id, -1, false, null, null);
-            }
-            if (!get.exists()) {
+            if (get == null || !get.exists()) {
                 // no need to release here as well..., we release in the for loop for non exists
-                return new GetResult(shardId.index().name(), type, id, -1, false, null, null);
+                return new Lookup(type, id, gFields, null);
             }
         } else {
-            get = indexShard.get(new Engine.Get(realtime, UidFieldMapper.TERM_FACTORY.createTerm(Uid.createUid(type, id))).loadSource(loadSource));
+            get = indexShard.get(new Engine.Get(realtime, UidFieldMapper.TERM_FACTORY.createTerm(Uid.createUid(type, id))).loadSource(loadSource).searcher(searcher).uidLookup(uidLookup));
             if (!get.exists()) {
                 get.release();
-                return new GetResult(shardId.index().name(), type, id, -1, false, null, null);
+                return new Lookup(type, id, gFields, null);
             }
         }
+        return new Lookup(type, id, gFields, get);
+    }
+
+    private GetResult innerLoad(Lookup lookup) throws ElasticSearchException {
+        String type = lookup.type;
+        String id = lookup.id;
+        String[] gFields = lookup.fields;
+        Engine.GetResult get = lookup.get;
+        if (get == null) {
+            return new GetResult(shardId.index().name(), type, id, -1, false, null, null);
+        }
+
+        // a get with no searcher was served from the version map and the transaction log
+        if (get.searcher() == null) {
+            existsTranslogMetric.inc();
+        } else {
+            existsIndexMetric.inc();
+        }
 
         DocumentMapper docMapper = mapperService.documentMapper(type);
         if (docMapper == null) {
@@ -329,6 +381,56 @@ public class ShardGetService extends AbstractIndexShardComponent {
         }
     }
 
+    /**
+     * A looked up, but not yet loaded, get. See {@link #lookup(String, String, String[], boolean, Engine.Searcher)}.
+     */
+    public static class Lookup {
+
+        private final String type;
+        private final String id;
+        private final String[] fields;
+        @Nullable
+        private final Engine.GetResult get;
+
+        private long tookInNanos;
+
+        Lookup(String type, String id, String[] fields, @Nullable Engine.GetResult get) {
+            this.type = type;
+            this.id = id;
+            this.fields = fields;
+            this.get = get;
+        }
+
+        public boolean exists() {
+            return get != null;
+        }
+
+        /**
+         * The segment reader the doc was found in, <tt>null</tt> if it does not exist or is served from the
+         * transaction log.
+         */
+        @Nullable
+        public IndexReader reader() {
+            return get == null || get.docIdAndVersion() == null ? null : get.docIdAndVersion().reader;
+        }
+
+        /**
+         * The doc id within {@link #reader()}, or <tt>-1</tt> if there is no reader.
+         */
+        public int docId() {
+            return reader() == null ? -1 : get.docIdAndVersion().docId;
+        }
+
+        /**
+         * Releases the lookup without loading it.
+         */
+        public void release() {
+            if (get != null) {
+                get.release();
+            }
+        }
+    }
+
     private static ResetFieldSelector buildFieldSelectors(DocumentMapper docMapper, String... fields) {
         if (fields == null) {
             return docMapper.sourceMapper().fieldSelector();
@@ -23,10 +23,12 @@ import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Streamable;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentBuilderString;
+import org.elasticsearch.index.analysis.AnalyzerStats;
 
 import java.io.IOException;
 import java.util.HashMap;
@@ -175,13 +177,26 @@ public class IndexingStats implements Streamable, ToXContent {
     @Nullable
     private Map<String, Stats> typeStats;
 
+    private long indexBufferSizeInBytes;
+
+    private long indexRateInBytesPerSec;
+
+    @Nullable
+    private Map<String, AnalyzerStats> analyzerStats;
+
     public IndexingStats() {
         totalStats = new Stats();
     }
 
     public IndexingStats(Stats totalStats, @Nullable Map<String, Stats> typeStats) {
+        this(totalStats, typeStats, 0, 0);
+    }
+
+    public IndexingStats(Stats totalStats, @Nullable Map<String, Stats> typeStats, long indexBufferSizeInBytes, long indexRateInBytesPerSec) {
         this.totalStats = totalStats;
         this.typeStats = typeStats;
+        this.indexBufferSizeInBytes = indexBufferSizeInBytes;
+        this.indexRateInBytesPerSec = indexRateInBytesPerSec;
     }
 
     public void add(IndexingStats indexingStats) {
@@ -193,6 +208,8 @@ public class IndexingStats implements Streamable, ToXContent {
             return;
         }
         totalStats.add(indexingStats.totalStats);
+        indexBufferSizeInBytes += indexingStats.indexBufferSizeInBytes;
+        indexRateInBytesPerSec += indexingStats.indexRateInBytesPerSec;
         if (includeTypes && indexingStats.typeStats != null && !indexingStats.typeStats.isEmpty()) {
             if (typeStats == null) {
                 typeStats = new HashMap<String, Stats>(indexingStats.typeStats.size());
@@ -206,6 +223,28 @@ public class IndexingStats implements Streamable, ToXContent {
                 }
             }
         }
+        addAnalyzerStats(indexingStats.analyzerStats);
+    }
+
+    /**
+     * Adds the stats of custom analyzers. Analyzers are shared by the shards of an index, so these are added
+     * per index and not per shard.
+     */
+    public void addAnalyzerStats(@Nullable Map<String, AnalyzerStats> analyzerStats) {
+        if (analyzerStats == null || analyzerStats.isEmpty()) {
+            return;
+        }
+        if (this.analyzerStats == null) {
+            this.analyzerStats = new HashMap<String, AnalyzerStats>(analyzerStats.size());
+        }
+        for (Map.Entry<String, AnalyzerStats> entry : analyzerStats.entrySet()) {
+            AnalyzerStats stats = this.analyzerStats.get(entry.getKey());
+            if (stats == null) {
+                this.analyzerStats.put(entry.getKey(), new AnalyzerStats(entry.getValue().analyzeCount(), entry.getValue().chainBuildCount(), entry.getValue().analyzeTimeInMillis()));
+            } else {
+                stats.add(entry.getValue());
+            }
+        }
     }
 
     public Stats total() {
@@ -217,10 +256,39 @@ public class IndexingStats implements Streamable, ToXContent {
         return this.typeStats;
     }
 
+    /**
+     * The stats of the custom analyzers, by analyzer name, only available on node level stats.
+     */
+    @Nullable
+    public Map<String, AnalyzerStats> analyzerStats() {
+        return this.analyzerStats;
+    }
+
+    /**
+     * The indexing (RAM) buffer size allocated to the shard(s).
+     */
+    public ByteSizeValue indexBufferSize() {
+        return new ByteSizeValue(indexBufferSizeInBytes);
+    }
+
+    public long indexBufferSizeInBytes() {
+        return this.indexBufferSizeInBytes;
+    }
+
+    /**
+     * The recent rate of bytes indexed into the shard(s), per second.
+     */
+    public long indexRateInBytesPerSec() {
+        return this.indexRateInBytesPerSec;
+    }
+
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, ToXContent.Params params) throws IOException {
         builder.startObject(Fields.INDEXING);
         totalStats.toXContent(builder, params);
+        builder.field(Fields.INDEX_BUFFER_SIZE, indexBufferSize().toString());
+        builder.field(Fields.INDEX_BUFFER_SIZE_IN_BYTES, indexBufferSizeInBytes);
+        builder.field(Fields.INDEX_RATE_IN_BYTES_PER_SEC, indexRateInBytesPerSec);
         if (typeStats != null && !typeStats.isEmpty()) {
             builder.startObject(Fields.TYPES);
             for (Map.Entry<String, Stats> entry : typeStats.entrySet()) {
@@ -230,6 +298,15 @@ public class IndexingStats implements Streamable, ToXContent {
             }
             builder.endObject();
         }
+        if (analyzerStats != null && !analyzerStats.isEmpty()) {
+            builder.startObject(Fields.ANALYZERS);
+            for (Map.Entry<String, AnalyzerStats> entry : analyzerStats.entrySet()) {
+                builder.startObject(entry.getKey(), XContentBuilder.FieldCaseConversion.NONE);
+                entry.getValue().toXContent(builder, params);
+                builder.endObject();
+            }
+            builder.endObject();
+        }
         builder.endObject();
         return builder;
     }
@@ -237,6 +314,7 @@ public class IndexingStats implements Streamable, ToXContent {
     static final class Fields {
         static final XContentBuilderString INDEXING = new XContentBuilderString("indexing");
         static final XContentBuilderString TYPES = new XContentBuilderString("types");
+        static final XContentBuilderString ANALYZERS = new XContentBuilderString("analyzers");
         static final XContentBuilderString INDEX_TOTAL = new XContentBuilderString("index_total");
         static final XContentBuilderString INDEX_TIME = new XContentBuilderString("index_time");
         static final XContentBuilderString INDEX_TIME_IN_MILLIS = new XContentBuilderString("index_time_in_millis");
@@ -245,6 +323,9 @@ public class IndexingStats implements Streamable, ToXContent {
         static final XContentBuilderString DELETE_TIME = new XContentBuilderString("delete_time");
         static final XContentBuilderString DELETE_TIME_IN_MILLIS = new XContentBuilderString("delete_time_in_millis");
         static final XContentBuilderString DELETE_CURRENT = new XContentBuilderString("delete_current");
+        static final XContentBuilderString INDEX_BUFFER_SIZE = new XContentBuilderString("index_buffer_size");
+        static final XContentBuilderString INDEX_BUFFER_SIZE_IN_BYTES = new XContentBuilderString("index_buffer_size_in_bytes");
+        static final XContentBuilderString INDEX_RATE_IN_BYTES_PER_SEC = new XContentBuilderString("index_rate_in_bytes_per_sec");
     }
 
     public static IndexingStats readIndexingStats(StreamInput in) throws IOException {
@@ -256,6 +337,8 @@ public class IndexingStats implements Streamable, ToXContent {
     @Override
     public void readFrom(StreamInput in) throws IOException {
         totalStats = Stats.readStats(in);
+        indexBufferSizeInBytes = in.readVLong();
+        indexRateInBytesPerSec = in.readVLong();
         if (in.readBoolean()) {
             int size = in.readVInt();
             typeStats = new HashMap<String, Stats>(size);
@@ -263,11 +346,20 @@ public class IndexingStats implements Streamable, ToXContent {
                 typeStats.put(in.readUTF(), Stats.readStats(in));
             }
         }
+        if (in.readBoolean()) {
+            int size = in.readVInt();
+            analyzerStats = new HashMap<String, AnalyzerStats>(size);
+            for (int i = 0; i < size; i++) {
+                analyzerStats.put(in.readUTF(), AnalyzerStats.readAnalyzerStats(in));
+            }
+        }
     }
 
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         totalStats.writeTo(out);
+        out.writeVLong(indexBufferSizeInBytes);
+        out.writeVLong(indexRateInBytesPerSec);
         if (typeStats == null || typeStats.isEmpty()) {
             out.writeBoolean(false);
         } else {
@@ -278,5 +370,15 @@ public class IndexingStats implements Streamable, ToXContent {
                 entry.getValue().writeTo(out);
             }
         }
+        if (analyzerStats == null || analyzerStats.isEmpty()) {
+            out.writeBoolean(false);
+        } else {
+            out.writeBoolean(true);
+            out.writeVInt(analyzerStats.size());
+            for (Map.Entry<String, AnalyzerStats> entry : analyzerStats.entrySet()) {
+                out.writeUTF(entry.getKey());
+                entry.getValue().writeTo(out);
+            }
+        }
     }
 }
@@ -45,6 +45,10 @@ public class ShardIndexingService extends AbstractIndexShardComponent {
 
     private CopyOnWriteArrayList<IndexingOperationListener> listeners = null;
 
+    private volatile long indexBufferSizeInBytes;
+
+    private volatile long indexRateInBytesPerSec;
+
     @Inject
     public ShardIndexingService(ShardId shardId, @IndexSettings Settings indexSettings) {
         super(shardId, indexSettings);
@@ -74,7 +78,15 @@ public class ShardIndexingService extends AbstractIndexShardComponent {
                 }
             }
         }
-        return new IndexingStats(total, typesSt);
+        return new IndexingStats(total, typesSt, indexBufferSizeInBytes, indexRateInBytesPerSec);
+    }
+
+    /**
+     * Records the indexing buffer size allocated to the shard, and the indexing rate it was based on.
+     */
+    public void updateIndexBuffer(long indexBufferSizeInBytes, long indexRateInBytesPerSec) {
+        this.indexBufferSizeInBytes = indexBufferSizeInBytes;
+        this.indexRateInBytesPerSec = indexRateInBytesPerSec;
     }
 
     public synchronized void addListener(IndexingOperationListener listener) {
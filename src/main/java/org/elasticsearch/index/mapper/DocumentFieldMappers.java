@@ -23,6 +23,7 @@ import com.google.common.collect.*;
 import org.apache.lucene.analysis.Analyzer;
 import org.elasticsearch.common.regex.Regex;
 import org.elasticsearch.index.analysis.FieldNameAnalyzer;
+import org.elasticsearch.index.mapper.core.StringFieldMapper;
 
 import java.util.Map;
 import java.util.Set;
@@ -43,6 +44,8 @@ public class DocumentFieldMappers implements Iterable<FieldMapper> {
     private final FieldNameAnalyzer indexAnalyzer;
     private final FieldNameAnalyzer searchAnalyzer;
 
+    private final ImmutableSet<String> indexOffsetsFields;
+
     public DocumentFieldMappers(DocumentMapper docMapper, Iterable<FieldMapper> fieldMappers) {
         final Map<String, FieldMappers> tempNameFieldMappers = newHashMap();
         final Map<String, FieldMappers> tempIndexNameFieldMappers = newHashMap();
@@ -50,6 +53,7 @@ public class DocumentFieldMappers implements Iterable<FieldMapper> {
 
         final Map<String, Analyzer> indexAnalyzers = newHashMap();
         final Map<String, Analyzer> searchAnalyzers = newHashMap();
+        final Set<String> tempIndexOffsetsFields = Sets.newHashSet();
 
         for (FieldMapper fieldMapper : fieldMappers) {
             FieldMappers mappers = tempNameFieldMappers.get(fieldMapper.names().name());
@@ -82,6 +86,9 @@ public class DocumentFieldMappers implements Iterable<FieldMapper> {
             if (fieldMapper.searchAnalyzer() != null) {
                 searchAnalyzers.put(fieldMapper.names().indexName(), fieldMapper.searchAnalyzer());
             }
+            if (fieldMapper instanceof StringFieldMapper && ((StringFieldMapper) fieldMapper).indexOffsets()) {
+                tempIndexOffsetsFields.add(fieldMapper.names().indexName());
+            }
         }
         this.fieldMappers = ImmutableList.copyOf(fieldMappers);
         this.nameFieldMappers = ImmutableMap.copyOf(tempNameFieldMappers);
@@ -90,6 +97,7 @@ public class DocumentFieldMappers implements Iterable<FieldMapper> {
 
         this.indexAnalyzer = new FieldNameAnalyzer(indexAnalyzers, docMapper.indexAnalyzer());
         this.searchAnalyzer = new FieldNameAnalyzer(searchAnalyzers, docMapper.searchAnalyzer());
+        this.indexOffsetsFields = ImmutableSet.copyOf(tempIndexOffsetsFields);
     }
 
     @Override
@@ -179,6 +187,13 @@ public class DocumentFieldMappers implements Iterable<FieldMapper> {
         return this.searchAnalyzer;
     }
 
+    /**
+     * The index names of the fields indexing the offsets of their tokens as payloads.
+     */
+    public ImmutableSet<String> indexOffsetsFields() {
+        return this.indexOffsetsFields;
+    }
+
     public DocumentFieldMappers concat(DocumentMapper docMapper, FieldMapper... fieldMappers) {
         return concat(docMapper, newArrayList(fieldMappers));
     }
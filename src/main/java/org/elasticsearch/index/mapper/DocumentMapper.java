@@ -31,6 +31,7 @@ import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Preconditions;
 import org.elasticsearch.common.collect.MapBuilder;
 import org.elasticsearch.common.compress.CompressedString;
+import org.elasticsearch.common.lucene.analysis.OffsetPayloadAnalyzer;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.xcontent.*;
 import org.elasticsearch.index.analysis.NamedAnalyzer;
@@ -428,7 +429,7 @@ public class DocumentMapper implements ToXContent {
         XContentParser parser = source.parser();
         try {
             if (parser == null) {
-                parser = XContentHelper.createParser(source.source(), source.sourceOffset(), source.sourceLength());
+                parser = XContentHelper.createCachedParser(source.source(), source.sourceOffset(), source.sourceLength());
             }
             context.reset(parser, new Document(), source, listener);
             // on a newly created instance of document mapper, we always consider it as new mappers that have been added
@@ -496,7 +497,14 @@ public class DocumentMapper implements ToXContent {
         if (context.docs().size() > 1) {
             Collections.reverse(context.docs());
         }
-        ParsedDocument doc = new ParsedDocument(context.uid(), context.id(), context.type(), source.routing(), source.timestamp(), source.ttl(), context.docs(), context.analyzer(),
+        Analyzer analyzer = context.analyzer();
+        if (!fieldMappers.indexOffsetsFields().isEmpty()) {
+            OffsetPayloadAnalyzer offsetPayloadAnalyzer = new OffsetPayloadAnalyzer(analyzer, fieldMappers.indexOffsetsFields(), context.docs());
+            if (offsetPayloadAnalyzer.hasValues()) {
+                analyzer = offsetPayloadAnalyzer;
+            }
+        }
+        ParsedDocument doc = new ParsedDocument(context.uid(), context.id(), context.type(), source.routing(), source.timestamp(), source.ttl(), context.docs(), analyzer,
                 context.source(), context.sourceOffset(), context.sourceLength(), context.mappersAdded()).parent(source.parent());
         // reset the context to free up memory
         context.reset(null, null, null, null);
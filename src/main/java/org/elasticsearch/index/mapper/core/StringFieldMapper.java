@@ -29,8 +29,11 @@ import org.elasticsearch.index.mapper.*;
 import org.elasticsearch.index.mapper.internal.AllFieldMapper;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
+import static org.elasticsearch.common.xcontent.support.XContentMapValues.nodeBooleanValue;
 import static org.elasticsearch.index.mapper.MapperBuilders.stringField;
 import static org.elasticsearch.index.mapper.core.TypeParsers.parseField;
 
@@ -44,12 +47,15 @@ public class StringFieldMapper extends AbstractFieldMapper<String> implements Al
     public static class Defaults extends AbstractFieldMapper.Defaults {
         // NOTE, when adding defaults here, make sure you add them in the builder
         public static final String NULL_VALUE = null;
+        public static final boolean INDEX_OFFSETS = false;
     }
 
     public static class Builder extends AbstractFieldMapper.OpenBuilder<Builder, StringFieldMapper> {
 
         protected String nullValue = Defaults.NULL_VALUE;
 
+        protected boolean indexOffsets = Defaults.INDEX_OFFSETS;
+
         public Builder(String name) {
             super(name);
             builder = this;
@@ -60,6 +66,11 @@ public class StringFieldMapper extends AbstractFieldMapper<String> implements Al
             return this;
         }
 
+        public Builder indexOffsets(boolean indexOffsets) {
+            this.indexOffsets = indexOffsets;
+            return this;
+        }
+
         @Override
         public Builder includeInAll(Boolean includeInAll) {
             this.includeInAll = includeInAll;
@@ -70,7 +81,7 @@ public class StringFieldMapper extends AbstractFieldMapper<String> implements Al
         public StringFieldMapper build(BuilderContext context) {
             StringFieldMapper fieldMapper = new StringFieldMapper(buildNames(context),
                     index, store, termVector, boost, omitNorms, omitTermFreqAndPositions, nullValue,
-                    indexAnalyzer, searchAnalyzer);
+                    indexAnalyzer, searchAnalyzer, indexOffsets);
             fieldMapper.includeInAll(includeInAll);
             return fieldMapper;
         }
@@ -86,6 +97,8 @@ public class StringFieldMapper extends AbstractFieldMapper<String> implements Al
                 Object propNode = entry.getValue();
                 if (propName.equals("null_value")) {
                     builder.nullValue(propNode.toString());
+                } else if (propName.equals("index_offsets")) {
+                    builder.indexOffsets(nodeBooleanValue(propNode));
                 }
             }
             return builder;
@@ -96,11 +109,28 @@ public class StringFieldMapper extends AbstractFieldMapper<String> implements Al
 
     private Boolean includeInAll;
 
+    private final boolean indexOffsets;
+
     protected StringFieldMapper(Names names, Field.Index index, Field.Store store, Field.TermVector termVector,
                                 float boost, boolean omitNorms, boolean omitTermFreqAndPositions,
                                 String nullValue, NamedAnalyzer indexAnalyzer, NamedAnalyzer searchAnalyzer) {
+        this(names, index, store, termVector, boost, omitNorms, omitTermFreqAndPositions, nullValue, indexAnalyzer, searchAnalyzer, Defaults.INDEX_OFFSETS);
+    }
+
+    protected StringFieldMapper(Names names, Field.Index index, Field.Store store, Field.TermVector termVector,
+                                float boost, boolean omitNorms, boolean omitTermFreqAndPositions,
+                                String nullValue, NamedAnalyzer indexAnalyzer, NamedAnalyzer searchAnalyzer, boolean indexOffsets) {
         super(names, index, store, termVector, boost, omitNorms, omitTermFreqAndPositions, indexAnalyzer, searchAnalyzer);
         this.nullValue = nullValue;
+        this.indexOffsets = indexOffsets;
+    }
+
+    /**
+     * Are the start and end offsets of each token indexed as payloads of the term positions, allowing
+     * to highlight the field without re-analyzing its text and without term vectors.
+     */
+    public boolean indexOffsets() {
+        return indexOffsets && analyzed() && !omitTermFreqAndPositions();
     }
 
     @Override
@@ -180,11 +210,56 @@ public class StringFieldMapper extends AbstractFieldMapper<String> implements Al
             context.ignoredValue(names.indexName(), value);
             return null;
         }
+        // with index_offsets, the offsets payloads are added when the doc is indexed, see OffsetPayloadAnalyzer
         Field field = new Field(names.indexName(), false, value, store, index, termVector);
         field.setBoost(boost);
         return field;
     }
 
+    /**
+     * The values of this field in the provided source, in the order they are indexed and following the same
+     * rules as when parsing the doc: <tt>null</tt> values are replaced with the <tt>null_value</tt> (or skipped
+     * if there is none), and values provided as an object (with a boost) are replaced with their value. The
+     * position of a value in the list is the value index of its indexed offsets (see {@link #indexOffsets()}).
+     */
+    public List<Object> sourceValues(Map<String, Object> source) {
+        List<Object> values = new ArrayList<Object>();
+        addSourceValues(values, source, Strings.splitStringToArray(names.fullName(), '.'), 0);
+        return values;
+    }
+
+    @SuppressWarnings({"unchecked"})
+    private void addSourceValues(List<Object> values, Object part, String[] path, int index) {
+        if (part instanceof List) {
+            for (Object value : (List) part) {
+                addSourceValues(values, value, path, index);
+            }
+            return;
+        }
+        if (index == path.length) {
+            Object value = part;
+            if (part instanceof Map) {
+                Map<String, Object> map = (Map<String, Object>) part;
+                value = map.containsKey("value") ? map.get("value") : map.get("_value");
+            }
+            if (value == null) {
+                value = nullValue;
+            }
+            if (value != null) {
+                values.add(value.toString());
+            }
+            return;
+        }
+        if (part instanceof Map) {
+            Map<String, Object> map = (Map<String, Object>) part;
+            Object child = map.get(path[index]);
+            // an explicit null leaf value is indexed as the null_value, a missing one is not indexed
+            if (child != null || (index == path.length - 1 && map.containsKey(path[index]))) {
+                addSourceValues(values, child, path, index + 1);
+            }
+        }
+    }
+
     @Override
     protected String contentType() {
         return CONTENT_TYPE;
@@ -196,6 +271,9 @@ public class StringFieldMapper extends AbstractFieldMapper<String> implements Al
         if (!this.getClass().equals(mergeWith.getClass())) {
             return;
         }
+        if (this.indexOffsets != ((StringFieldMapper) mergeWith).indexOffsets) {
+            mergeContext.addConflict("mapper [" + names.fullName() + "] has different index_offsets values");
+        }
         if (!mergeContext.mergeFlags().simulate()) {
             this.includeInAll = ((StringFieldMapper) mergeWith).includeInAll;
             this.nullValue = ((StringFieldMapper) mergeWith).nullValue;
@@ -223,6 +301,9 @@ public class StringFieldMapper extends AbstractFieldMapper<String> implements Al
         if (nullValue != null) {
             builder.field("null_value", nullValue);
         }
+        if (indexOffsets != Defaults.INDEX_OFFSETS) {
+            builder.field("index_offsets", indexOffsets);
+        }
         if (includeInAll != null) {
             builder.field("include_in_all", includeInAll);
         }
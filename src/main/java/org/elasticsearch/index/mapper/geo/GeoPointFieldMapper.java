@@ -67,6 +67,8 @@ public class GeoPointFieldMapper implements Mapper, ArrayValueMapperParser {
         public static final String LON_SUFFIX = "." + LON;
         public static final String GEOHASH = "geohash";
         public static final String GEOHASH_SUFFIX = "." + GEOHASH;
+        public static final String GEOHASH_PREFIX = "geohash_prefix";
+        public static final String GEOHASH_PREFIX_SUFFIX = "." + GEOHASH_PREFIX;
     }
 
     public static class Defaults {
@@ -74,6 +76,7 @@ public class GeoPointFieldMapper implements Mapper, ArrayValueMapperParser {
         public static final Field.Store STORE = Field.Store.NO;
         public static final boolean ENABLE_LATLON = false;
         public static final boolean ENABLE_GEOHASH = false;
+        public static final boolean ENABLE_GEOHASH_PREFIX = false;
         public static final int PRECISION = GeoHashUtils.PRECISION;
         public static final boolean NORMALIZE_LAT = true;
         public static final boolean NORMALIZE_LON = true;
@@ -87,6 +90,8 @@ public class GeoPointFieldMapper implements Mapper, ArrayValueMapperParser {
 
         private boolean enableGeoHash = Defaults.ENABLE_GEOHASH;
 
+        private boolean enableGeohashPrefix = Defaults.ENABLE_GEOHASH_PREFIX;
+
         private boolean enableLatLon = Defaults.ENABLE_LATLON;
 
         private Integer precisionStep;
@@ -115,6 +120,15 @@ public class GeoPointFieldMapper implements Mapper, ArrayValueMapperParser {
             return this;
         }
 
+        /**
+         * Index all the prefixes of the geohash, at the geohash precision, into a separate <tt>geohash_prefix</tt>
+         * field, allowing to filter on geohash cells. The <tt>geohash</tt> field itself is not affected.
+         */
+        public Builder enableGeohashPrefix(boolean enableGeohashPrefix) {
+            this.enableGeohashPrefix = enableGeohashPrefix;
+            return this;
+        }
+
         public Builder enableLatLon(boolean enableLatLon) {
             this.enableLatLon = enableLatLon;
             return this;
@@ -162,12 +176,16 @@ public class GeoPointFieldMapper implements Mapper, ArrayValueMapperParser {
             if (enableGeoHash) {
                 geohashMapper = stringField(Names.GEOHASH).index(Field.Index.NOT_ANALYZED).includeInAll(false).omitNorms(true).omitTermFreqAndPositions(true).build(context);
             }
+            StringFieldMapper geohashPrefixMapper = null;
+            if (enableGeohashPrefix) {
+                geohashPrefixMapper = stringField(Names.GEOHASH_PREFIX).index(Field.Index.NOT_ANALYZED).includeInAll(false).omitNorms(true).omitTermFreqAndPositions(true).build(context);
+            }
             context.path().remove();
 
             context.path().pathType(origPathType);
 
-            return new GeoPointFieldMapper(name, pathType, enableLatLon, enableGeoHash, precisionStep, precision,
-                    latMapper, lonMapper, geohashMapper, geoStringMapper,
+            return new GeoPointFieldMapper(name, pathType, enableLatLon, enableGeoHash, enableGeohashPrefix, precisionStep, precision,
+                    latMapper, lonMapper, geohashMapper, geohashPrefixMapper, geoStringMapper,
                     validateLon, validateLat, normalizeLon, normalizeLat);
         }
     }
@@ -188,6 +206,8 @@ public class GeoPointFieldMapper implements Mapper, ArrayValueMapperParser {
                     builder.enableLatLon(XContentMapValues.nodeBooleanValue(fieldNode));
                 } else if (fieldName.equals("geohash")) {
                     builder.enableGeoHash(XContentMapValues.nodeBooleanValue(fieldNode));
+                } else if (fieldName.equals("geohash_prefix")) {
+                    builder.enableGeohashPrefix(XContentMapValues.nodeBooleanValue(fieldNode));
                 } else if (fieldName.equals("precision_step")) {
                     builder.precisionStep(XContentMapValues.nodeIntegerValue(fieldNode));
                 } else if (fieldName.equals("geohash_precision")) {
@@ -220,6 +240,8 @@ public class GeoPointFieldMapper implements Mapper, ArrayValueMapperParser {
 
     private final boolean enableGeoHash;
 
+    private final boolean enableGeohashPrefix;
+
     private final Integer precisionStep;
 
     private final int precision;
@@ -230,6 +252,8 @@ public class GeoPointFieldMapper implements Mapper, ArrayValueMapperParser {
 
     private final StringFieldMapper geohashMapper;
 
+    private final StringFieldMapper geohashPrefixMapper;
+
     private final GeoStringFieldMapper geoStringMapper;
 
     private final boolean validateLon;
@@ -238,14 +262,16 @@ public class GeoPointFieldMapper implements Mapper, ArrayValueMapperParser {
     private final boolean normalizeLon;
     private final boolean normalizeLat;
 
-    public GeoPointFieldMapper(String name, ContentPath.Type pathType, boolean enableLatLon, boolean enableGeoHash, Integer precisionStep, int precision,
-                               DoubleFieldMapper latMapper, DoubleFieldMapper lonMapper, StringFieldMapper geohashMapper, GeoStringFieldMapper geoStringMapper,
+    public GeoPointFieldMapper(String name, ContentPath.Type pathType, boolean enableLatLon, boolean enableGeoHash, boolean enableGeohashPrefix, Integer precisionStep, int precision,
+                               DoubleFieldMapper latMapper, DoubleFieldMapper lonMapper, StringFieldMapper geohashMapper, StringFieldMapper geohashPrefixMapper,
+                               GeoStringFieldMapper geoStringMapper,
                                boolean validateLon, boolean validateLat,
                                boolean normalizeLon, boolean normalizeLat) {
         this.name = name;
         this.pathType = pathType;
         this.enableLatLon = enableLatLon;
         this.enableGeoHash = enableGeoHash;
+        this.enableGeohashPrefix = enableGeohashPrefix;
         this.precisionStep = precisionStep;
         this.precision = precision;
 
@@ -253,6 +279,7 @@ public class GeoPointFieldMapper implements Mapper, ArrayValueMapperParser {
         this.lonMapper = lonMapper;
         this.geoStringMapper = geoStringMapper;
         this.geohashMapper = geohashMapper;
+        this.geohashPrefixMapper = geohashPrefixMapper;
 
         this.geoStringMapper.geoMapper = this;
 
@@ -280,6 +307,29 @@ public class GeoPointFieldMapper implements Mapper, ArrayValueMapperParser {
         return enableLatLon;
     }
 
+    public StringFieldMapper geohashMapper() {
+        return geohashMapper;
+    }
+
+    /**
+     * The mapper of the field holding all the prefixes of the geohash, <tt>null</tt> if
+     * <tt>geohash_prefix</tt> is not enabled.
+     */
+    public StringFieldMapper geohashPrefixMapper() {
+        return geohashPrefixMapper;
+    }
+
+    public boolean isEnableGeohashPrefix() {
+        return enableGeohashPrefix;
+    }
+
+    /**
+     * The precision (length) of the indexed geohashes.
+     */
+    public int geohashPrecision() {
+        return precision;
+    }
+
     @Override
     public void parse(ParseContext context) throws IOException {
         ContentPath.Type origPathType = context.path().pathType();
@@ -396,6 +446,9 @@ public class GeoPointFieldMapper implements Mapper, ArrayValueMapperParser {
             context.externalValue(GeoHashUtils.encode(lat, lon, precision));
             geohashMapper.parse(context);
         }
+        if (enableGeohashPrefix) {
+            parseGeohashPrefixes(context, GeoHashUtils.encode(lat, lon, precision));
+        }
         if (enableLatLon) {
             context.externalValue(lat);
             latMapper.parse(context);
@@ -433,6 +486,10 @@ public class GeoPointFieldMapper implements Mapper, ArrayValueMapperParser {
             context.externalValue(geohash);
             geohashMapper.parse(context);
         }
+        if (enableGeohashPrefix) {
+            // prefix filtering relies on all geohashes being indexed with the same precision
+            parseGeohashPrefixes(context, GeoHashUtils.encode(lat, lon, precision));
+        }
         if (enableLatLon) {
             context.externalValue(lat);
             latMapper.parse(context);
@@ -441,6 +498,13 @@ public class GeoPointFieldMapper implements Mapper, ArrayValueMapperParser {
         }
     }
 
+    private void parseGeohashPrefixes(ParseContext context, String geohash) throws IOException {
+        for (int i = 1; i <= geohash.length(); i++) {
+            context.externalValue(geohash.substring(0, i));
+            geohashPrefixMapper.parse(context);
+        }
+    }
+
     @Override
     public void close() {
         if (latMapper != null) {
@@ -452,6 +516,9 @@ public class GeoPointFieldMapper implements Mapper, ArrayValueMapperParser {
         if (geohashMapper != null) {
             geohashMapper.close();
         }
+        if (geohashPrefixMapper != null) {
+            geohashPrefixMapper.close();
+        }
         if (geoStringMapper != null) {
             geoStringMapper.close();
         }
@@ -468,6 +535,9 @@ public class GeoPointFieldMapper implements Mapper, ArrayValueMapperParser {
         if (enableGeoHash) {
             geohashMapper.traverse(fieldMapperListener);
         }
+        if (enableGeohashPrefix) {
+            geohashPrefixMapper.traverse(fieldMapperListener);
+        }
         if (enableLatLon) {
             latMapper.traverse(fieldMapperListener);
             lonMapper.traverse(fieldMapperListener);
@@ -491,6 +561,9 @@ public class GeoPointFieldMapper implements Mapper, ArrayValueMapperParser {
         if (enableGeoHash != Defaults.ENABLE_GEOHASH) {
             builder.field("geohash", enableGeoHash);
         }
+        if (enableGeohashPrefix != Defaults.ENABLE_GEOHASH_PREFIX) {
+            builder.field("geohash_prefix", enableGeohashPrefix);
+        }
         if (geoStringMapper.store() != Defaults.STORE) {
             builder.field("store", geoStringMapper.store().name().toLowerCase());
         }
@@ -25,10 +25,10 @@ import org.apache.lucene.document.Fieldable;
 import org.elasticsearch.ElasticSearchParseException;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.collect.Tuple;
-import org.elasticsearch.common.compress.lzf.LZF;
-import org.elasticsearch.common.compress.lzf.LZFDecoder;
+import org.elasticsearch.common.compress.Compressor;
+import org.elasticsearch.common.compress.CompressorFactory;
 import org.elasticsearch.common.io.stream.CachedStreamOutput;
-import org.elasticsearch.common.io.stream.LZFStreamOutput;
+import org.elasticsearch.common.io.stream.CompressedStreamOutput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.lucene.document.ResetFieldSelector;
@@ -77,6 +77,8 @@ public class SourceFieldMapper extends AbstractFieldMapper<byte[]> implements In
 
         private Boolean compress = null;
 
+        private String compressType = null;
+
         private String[] includes = Defaults.INCLUDES;
         private String[] excludes = Defaults.EXCLUDES;
 
@@ -99,6 +101,11 @@ public class SourceFieldMapper extends AbstractFieldMapper<byte[]> implements In
             return this;
         }
 
+        public Builder compressType(String compressType) {
+            this.compressType = compressType;
+            return this;
+        }
+
         public Builder includes(String[] includes) {
             this.includes = includes;
             return this;
@@ -111,7 +118,7 @@ public class SourceFieldMapper extends AbstractFieldMapper<byte[]> implements In
 
         @Override
         public SourceFieldMapper build(BuilderContext context) {
-            return new SourceFieldMapper(name, enabled, compress, compressThreshold, includes, excludes);
+            return new SourceFieldMapper(name, enabled, compress, compressThreshold, compressType, includes, excludes);
         }
     }
 
@@ -135,6 +142,12 @@ public class SourceFieldMapper extends AbstractFieldMapper<byte[]> implements In
                         builder.compressThreshold(ByteSizeValue.parseBytesSizeValue(fieldNode.toString()).bytes());
                         builder.compress(true);
                     }
+                } else if (fieldName.equals("compress_type") && fieldNode != null) {
+                    String compressType = fieldNode.toString();
+                    if (CompressorFactory.compressor(compressType) == null) {
+                        throw new MapperParsingException("unknown compress_type [" + compressType + "] for [_source]");
+                    }
+                    builder.compressType(compressType);
                 } else if (fieldName.equals("includes")) {
                     List<Object> values = (List<Object>) fieldNode;
                     String[] includes = new String[values.size()];
@@ -162,20 +175,23 @@ public class SourceFieldMapper extends AbstractFieldMapper<byte[]> implements In
 
     private long compressThreshold;
 
+    private String compressType;
+
     private String[] includes;
 
     private String[] excludes;
 
     public SourceFieldMapper() {
-        this(Defaults.NAME, Defaults.ENABLED, null, -1, Defaults.INCLUDES, Defaults.EXCLUDES);
+        this(Defaults.NAME, Defaults.ENABLED, null, -1, null, Defaults.INCLUDES, Defaults.EXCLUDES);
     }
 
-    protected SourceFieldMapper(String name, boolean enabled, Boolean compress, long compressThreshold, String[] includes, String[] excludes) {
+    protected SourceFieldMapper(String name, boolean enabled, Boolean compress, long compressThreshold, String compressType, String[] includes, String[] excludes) {
         super(new Names(name, name, name, name), Defaults.INDEX, Defaults.STORE, Defaults.TERM_VECTOR, Defaults.BOOST,
                 Defaults.OMIT_NORMS, Defaults.OMIT_TERM_FREQ_AND_POSITIONS, Lucene.KEYWORD_ANALYZER, Lucene.KEYWORD_ANALYZER);
         this.enabled = enabled;
         this.compress = compress;
         this.compressThreshold = compressThreshold;
+        this.compressType = compressType;
         this.includes = includes;
         this.excludes = excludes;
     }
@@ -235,7 +251,7 @@ public class SourceFieldMapper extends AbstractFieldMapper<byte[]> implements In
             CachedStreamOutput.Entry cachedEntry = CachedStreamOutput.popEntry();
             StreamOutput streamOutput;
             if (compress != null && compress && (compressThreshold == -1 || dataLength > compressThreshold)) {
-                streamOutput = cachedEntry.cachedLZFBytes();
+                streamOutput = cachedEntry.cachedCompressedBytes(compressor());
             } else {
                 streamOutput = cachedEntry.cachedBytes();
             }
@@ -247,10 +263,10 @@ public class SourceFieldMapper extends AbstractFieldMapper<byte[]> implements In
             dataLength = data.length;
 
             CachedStreamOutput.pushEntry(cachedEntry);
-        } else if (compress != null && compress && !LZF.isCompressed(data, dataOffset, dataLength)) {
+        } else if (compress != null && compress && !CompressorFactory.isCompressed(data, dataOffset, dataLength)) {
             if (compressThreshold == -1 || dataLength > compressThreshold) {
                 CachedStreamOutput.Entry cachedEntry = CachedStreamOutput.popEntry();
-                LZFStreamOutput streamOutput = cachedEntry.cachedLZFBytes();
+                CompressedStreamOutput streamOutput = cachedEntry.cachedCompressedBytes(compressor());
                 streamOutput.writeBytes(data, dataOffset, dataLength);
                 streamOutput.flush();
                 // we copy over the byte array, since we need to push back the cached entry
@@ -266,6 +282,17 @@ public class SourceFieldMapper extends AbstractFieldMapper<byte[]> implements In
         return new Field(names().indexName(), data, dataOffset, dataLength);
     }
 
+    /**
+     * The compressor used for new sources, the mapping level <tt>compress_type</tt> if set, the node default otherwise.
+     * Reading always detects the compressor from the stored bytes, so changing it does not affect existing docs.
+     */
+    private Compressor compressor() {
+        if (compressType == null) {
+            return CompressorFactory.defaultCompressor();
+        }
+        return CompressorFactory.compressor(compressType, true);
+    }
+
     public byte[] value(Document document) {
         Fieldable field = document.getFieldable(names.indexName());
         return field == null ? null : value(field);
@@ -281,9 +308,10 @@ public class SourceFieldMapper extends AbstractFieldMapper<byte[]> implements In
         if (value == null) {
             return value;
         }
-        if (LZF.isCompressed(value)) {
+        Compressor compressor = CompressorFactory.compressor(value, 0, value.length);
+        if (compressor != null) {
             try {
-                return LZFDecoder.decode(value);
+                return compressor.uncompress(value, 0, value.length);
             } catch (IOException e) {
                 throw new ElasticSearchParseException("failed to decompress source", e);
             }
@@ -314,7 +342,7 @@ public class SourceFieldMapper extends AbstractFieldMapper<byte[]> implements In
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         // all are defaults, no need to write it at all
-        if (enabled == Defaults.ENABLED && compress == null && compressThreshold == -1 && includes.length == 0 && excludes.length == 0) {
+        if (enabled == Defaults.ENABLED && compress == null && compressThreshold == -1 && compressType == null && includes.length == 0 && excludes.length == 0) {
             return builder;
         }
         builder.startObject(contentType());
@@ -327,6 +355,9 @@ public class SourceFieldMapper extends AbstractFieldMapper<byte[]> implements In
         if (compressThreshold != -1) {
             builder.field("compress_threshold", new ByteSizeValue(compressThreshold).toString());
         }
+        if (compressType != null) {
+            builder.field("compress_type", compressType);
+        }
         if (includes.length > 0) {
             builder.field("includes", includes);
         }
@@ -347,6 +378,9 @@ public class SourceFieldMapper extends AbstractFieldMapper<byte[]> implements In
             if (sourceMergeWith.compressThreshold != -1) {
                 this.compressThreshold = sourceMergeWith.compressThreshold;
             }
+            if (sourceMergeWith.compressType != null) {
+                this.compressType = sourceMergeWith.compressType;
+            }
         }
     }
 }
@@ -157,7 +157,8 @@ public class ObjectMapper implements Mapper, AllFieldMapper.IncludeInAll {
             context.path().pathType(pathType);
             context.path().add(name);
 
-            Map<String, Mapper> mappers = new HashMap<String, Mapper>();
+            // keep the mappers in their definition order, used as the initial parse plan order
+            Map<String, Mapper> mappers = new LinkedHashMap<String, Mapper>();
             for (Mapper.Builder builder : mappersBuilders) {
                 Mapper mapper = builder.build(context);
                 mappers.put(mapper.name(), mapper);
@@ -286,6 +287,11 @@ public class ObjectMapper implements Mapper, AllFieldMapper.IncludeInAll {
 
     private volatile ImmutableMap<String, Mapper> mappers = ImmutableMap.of();
 
+    private volatile ParsePlan parsePlan = ParsePlan.EMPTY;
+
+    // if the parse plan order was already learned from a parsed document
+    private volatile boolean parsePlanLearned;
+
     private final Object mutex = new Object();
 
     ObjectMapper(String name, String fullPath, boolean enabled, Nested nested, Dynamic dynamic, ContentPath.Type pathType, Map<String, Mapper> mappers) {
@@ -297,6 +303,7 @@ public class ObjectMapper implements Mapper, AllFieldMapper.IncludeInAll {
         this.pathType = pathType;
         if (mappers != null) {
             this.mappers = copyOf(mappers);
+            this.parsePlan = ParsePlan.EMPTY.learn(Collections.<String>emptyList(), this.mappers);
         }
         this.nestedTypePath = "__" + fullPath;
         this.nestedTypeFilter = new TermFilter(TypeFieldMapper.TERM_FACTORY.createTerm(nestedTypePath));
@@ -348,6 +355,7 @@ public class ObjectMapper implements Mapper, AllFieldMapper.IncludeInAll {
         }
         synchronized (mutex) {
             mappers = newMapBuilder(mappers).put(mapper.name(), mapper).immutableMap();
+            parsePlan = parsePlan.put(mapper);
         }
         return this;
     }
@@ -429,22 +437,53 @@ public class ObjectMapper implements Mapper, AllFieldMapper.IncludeInAll {
             token = parser.nextToken();
         }
 
+        // resolve the field mappers using the parse plan, which expects the fields in the same order as
+        // previous documents, falling back to looking them up by name
+        ParsePlan plan = this.parsePlan;
+        int planPosition = 0;
+        List<String> docFieldNames = null;
+        Mapper currentMapper = currentFieldName == null ? null : mappers.get(currentFieldName);
         while (token != XContentParser.Token.END_OBJECT) {
             if (token == XContentParser.Token.START_OBJECT) {
-                serializeObject(context, currentFieldName);
+                serializeObject(context, currentFieldName, currentMapper);
             } else if (token == XContentParser.Token.START_ARRAY) {
-                serializeArray(context, currentFieldName);
+                serializeArray(context, currentFieldName, currentMapper);
             } else if (token == XContentParser.Token.FIELD_NAME) {
                 currentFieldName = parser.currentName();
+                if (plan.matches(planPosition, currentFieldName)) {
+                    currentMapper = plan.mappers[planPosition++];
+                } else if (plan.matches(planPosition + 1, currentFieldName)) {
+                    // the expected field is missing in this document
+                    currentMapper = plan.mappers[planPosition + 1];
+                    planPosition += 2;
+                } else {
+                    currentMapper = mappers.get(currentFieldName);
+                    if (docFieldNames == null && !parsePlanLearned) {
+                        docFieldNames = new ArrayList<String>();
+                        docFieldNames.addAll(Arrays.asList(plan.names).subList(0, Math.min(planPosition, plan.names.length)));
+                    }
+                }
+                if (docFieldNames != null) {
+                    docFieldNames.add(currentFieldName);
+                }
             } else if (token == XContentParser.Token.VALUE_NULL) {
-                serializeNullValue(context, currentFieldName);
+                serializeNullValue(context, currentFieldName, currentMapper);
             } else if (token == null) {
                 throw new MapperParsingException("object mapping for [" + name + "] tried to parse as object, but got EOF, has a concrete value been provided to it?");
             } else if (token.isValue()) {
-                serializeValue(context, currentFieldName, token);
+                serializeValue(context, currentFieldName, currentMapper, token);
             }
             token = parser.nextToken();
         }
+        if (docFieldNames != null) {
+            // the plan does not match the fields order of the documents, learn it (once) from this document
+            synchronized (mutex) {
+                if (!parsePlanLearned) {
+                    parsePlan = parsePlan.learn(docFieldNames, mappers);
+                    parsePlanLearned = true;
+                }
+            }
+        }
         // restore the enable path flag
         context.path().pathType(origPathType);
         if (nested.isNested()) {
@@ -473,21 +512,19 @@ public class ObjectMapper implements Mapper, AllFieldMapper.IncludeInAll {
         }
     }
 
-    private void serializeNullValue(ParseContext context, String lastFieldName) throws IOException {
+    private void serializeNullValue(ParseContext context, String lastFieldName, Mapper mapper) throws IOException {
         // we can only handle null values if we have mappings for them
-        Mapper mapper = mappers.get(lastFieldName);
         if (mapper != null) {
             mapper.parse(context);
         }
     }
 
-    private void serializeObject(final ParseContext context, String currentFieldName) throws IOException {
+    private void serializeObject(final ParseContext context, String currentFieldName, Mapper objectMapper) throws IOException {
         if (currentFieldName == null) {
             throw new MapperParsingException("object mapping [" + name + "] trying to serialize an object with no field associated with it, current value [" + context.parser().textOrNull() + "]");
         }
         context.path().add(currentFieldName);
 
-        Mapper objectMapper = mappers.get(currentFieldName);
         if (objectMapper != null) {
             objectMapper.parse(context);
         } else {
@@ -548,8 +585,7 @@ public class ObjectMapper implements Mapper, AllFieldMapper.IncludeInAll {
         context.path().remove();
     }
 
-    private void serializeArray(ParseContext context, String lastFieldName) throws IOException {
-        Mapper mapper = mappers.get(lastFieldName);
+    private void serializeArray(ParseContext context, String lastFieldName, Mapper mapper) throws IOException {
         if (mapper != null && mapper instanceof ArrayValueMapperParser) {
             mapper.parse(context);
         } else {
@@ -557,25 +593,26 @@ public class ObjectMapper implements Mapper, AllFieldMapper.IncludeInAll {
             XContentParser.Token token;
             while ((token = parser.nextToken()) != XContentParser.Token.END_ARRAY) {
                 if (token == XContentParser.Token.START_OBJECT) {
-                    serializeObject(context, lastFieldName);
+                    // the mapper might have been dynamically added by a previous element
+                    serializeObject(context, lastFieldName, mapper == null ? mappers.get(lastFieldName) : mapper);
                 } else if (token == XContentParser.Token.START_ARRAY) {
-                    serializeArray(context, lastFieldName);
+                    serializeArray(context, lastFieldName, mapper == null ? mappers.get(lastFieldName) : mapper);
                 } else if (token == XContentParser.Token.FIELD_NAME) {
                     lastFieldName = parser.currentName();
+                    mapper = mappers.get(lastFieldName);
                 } else if (token == XContentParser.Token.VALUE_NULL) {
-                    serializeNullValue(context, lastFieldName);
+                    serializeNullValue(context, lastFieldName, mapper == null ? mappers.get(lastFieldName) : mapper);
                 } else {
-                    serializeValue(context, lastFieldName, token);
+                    serializeValue(context, lastFieldName, mapper == null ? mappers.get(lastFieldName) : mapper, token);
                 }
             }
         }
     }
 
-    private void serializeValue(final ParseContext context, String currentFieldName, XContentParser.Token token) throws IOException {
+    private void serializeValue(final ParseContext context, String currentFieldName, Mapper mapper, XContentParser.Token token) throws IOException {
         if (currentFieldName == null) {
             throw new MapperParsingException("object mapping [" + name + "] trying to serialize a value with no field associated with it, current value [" + context.parser().textOrNull() + "]");
         }
-        Mapper mapper = mappers.get(currentFieldName);
         if (mapper != null) {
             mapper.parse(context);
             return;
@@ -906,4 +943,74 @@ public class ObjectMapper implements Mapper, AllFieldMapper.IncludeInAll {
     protected void doXContent(XContentBuilder builder, Params params) throws IOException {
 
     }
+
+    /**
+     * The mappers of the object fields, in the order the fields are expected to appear in documents, allowing
+     * to resolve the mapper of each field without looking it up by name when documents have a fixed structure.
+     */
+    static final class ParsePlan {
+
+        static final ParsePlan EMPTY = new ParsePlan(new String[0], new Mapper[0]);
+
+        final String[] names;
+
+        final Mapper[] mappers;
+
+        ParsePlan(String[] names, Mapper[] mappers) {
+            this.names = names;
+            this.mappers = mappers;
+        }
+
+        boolean matches(int position, String name) {
+            if (position >= names.length) {
+                return false;
+            }
+            // field names are usually interned by the parser, so check identity first
+            return names[position] == name || names[position].equals(name);
+        }
+
+        /**
+         * Returns a plan with the provided mapper replacing the one with the same name, or added last.
+         */
+        ParsePlan put(Mapper mapper) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equals(mapper.name())) {
+                    Mapper[] newMappers = mappers.clone();
+                    newMappers[i] = mapper;
+                    return new ParsePlan(names, newMappers);
+                }
+            }
+            String[] newNames = Arrays.copyOf(names, names.length + 1);
+            Mapper[] newMappers = Arrays.copyOf(mappers, mappers.length + 1);
+            newNames[names.length] = mapper.name();
+            newMappers[mappers.length] = mapper;
+            return new ParsePlan(newNames, newMappers);
+        }
+
+        /**
+         * Returns a plan expecting the fields in the order of the provided field names, followed by the
+         * rest of the mappers in their current plan order.
+         */
+        ParsePlan learn(List<String> fieldNames, Map<String, Mapper> mappers) {
+            Map<String, Mapper> ordered = new LinkedHashMap<String, Mapper>();
+            for (String fieldName : fieldNames) {
+                Mapper mapper = mappers.get(fieldName);
+                if (mapper != null && !ordered.containsKey(fieldName)) {
+                    ordered.put(fieldName, mapper);
+                }
+            }
+            for (String name : names) {
+                Mapper mapper = mappers.get(name);
+                if (mapper != null && !ordered.containsKey(name)) {
+                    ordered.put(name, mapper);
+                }
+            }
+            for (Mapper mapper : mappers.values()) {
+                if (!ordered.containsKey(mapper.name())) {
+                    ordered.put(mapper.name(), mapper);
+                }
+            }
+            return new ParsePlan(ordered.keySet().toArray(new String[ordered.size()]), ordered.values().toArray(new Mapper[ordered.size()]));
+        }
+    }
 }
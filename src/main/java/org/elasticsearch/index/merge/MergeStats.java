@@ -42,12 +42,19 @@ public class MergeStats implements Streamable, ToXContent {
     private long current;
     private long currentNumDocs;
     private long currentSizeInBytes;
+    private long queued;
+    private long totalThrottledTimeInMillis;
 
     public MergeStats() {
 
     }
 
     public void add(long totalMerges, long totalMergeTime, long totalNumDocs, long totalSizeInBytes, long currentMerges, long currentNumDocs, long currentSizeInBytes) {
+        add(totalMerges, totalMergeTime, totalNumDocs, totalSizeInBytes, currentMerges, currentNumDocs, currentSizeInBytes, 0, 0);
+    }
+
+    public void add(long totalMerges, long totalMergeTime, long totalNumDocs, long totalSizeInBytes, long currentMerges, long currentNumDocs, long currentSizeInBytes,
+                    long queuedMerges, long totalThrottledTimeInMillis) {
         this.total += totalMerges;
         this.totalTimeInMillis += totalMergeTime;
         this.totalNumDocs += totalNumDocs;
@@ -55,6 +62,8 @@ public class MergeStats implements Streamable, ToXContent {
         this.current += currentMerges;
         this.currentNumDocs += currentNumDocs;
         this.currentSizeInBytes += currentSizeInBytes;
+        this.queued += queuedMerges;
+        this.totalThrottledTimeInMillis += totalThrottledTimeInMillis;
     }
 
     public void add(MergeStats mergeStats) {
@@ -68,6 +77,8 @@ public class MergeStats implements Streamable, ToXContent {
         this.current += mergeStats.current;
         this.currentNumDocs += mergeStats.currentNumDocs;
         this.currentSizeInBytes += mergeStats.currentSizeInBytes;
+        this.queued += mergeStats.queued;
+        this.totalThrottledTimeInMillis += mergeStats.totalThrottledTimeInMillis;
     }
 
     /**
@@ -122,6 +133,27 @@ public class MergeStats implements Streamable, ToXContent {
         return new ByteSizeValue(currentSizeInBytes);
     }
 
+    /**
+     * The number of merges waiting to be executed.
+     */
+    public long queued() {
+        return this.queued;
+    }
+
+    /**
+     * The total time merges have been paused by merge throttling (in milliseconds).
+     */
+    public long totalThrottledTimeInMillis() {
+        return this.totalThrottledTimeInMillis;
+    }
+
+    /**
+     * The total time merges have been paused by merge throttling.
+     */
+    public TimeValue totalThrottledTime() {
+        return new TimeValue(totalThrottledTimeInMillis);
+    }
+
     public static MergeStats readMergeStats(StreamInput in) throws IOException {
         MergeStats stats = new MergeStats();
         stats.readFrom(in);
@@ -135,12 +167,15 @@ public class MergeStats implements Streamable, ToXContent {
         builder.field(Fields.CURRENT_DOCS, currentNumDocs);
         builder.field(Fields.CURRENT_SIZE, currentSize().toString());
         builder.field(Fields.CURRENT_SIZE_IN_BYTES, currentSizeInBytes);
+        builder.field(Fields.QUEUED, queued);
         builder.field(Fields.TOTAL, total);
         builder.field(Fields.TOTAL_TIME, totalTime().toString());
         builder.field(Fields.TOTAL_TIME_IN_MILLIS, totalTimeInMillis);
         builder.field(Fields.TOTAL_DOCS, totalNumDocs);
         builder.field(Fields.TOTAL_SIZE, totalSize().toString());
         builder.field(Fields.TOTAL_SIZE_IN_BYTES, totalSizeInBytes);
+        builder.field(Fields.TOTAL_THROTTLED_TIME, totalThrottledTime().toString());
+        builder.field(Fields.TOTAL_THROTTLED_TIME_IN_MILLIS, totalThrottledTimeInMillis);
         builder.endObject();
         return builder;
     }
@@ -157,6 +192,9 @@ public class MergeStats implements Streamable, ToXContent {
         static final XContentBuilderString TOTAL_DOCS = new XContentBuilderString("total_docs");
         static final XContentBuilderString TOTAL_SIZE = new XContentBuilderString("total_size");
         static final XContentBuilderString TOTAL_SIZE_IN_BYTES = new XContentBuilderString("total_size_in_bytes");
+        static final XContentBuilderString QUEUED = new XContentBuilderString("queued");
+        static final XContentBuilderString TOTAL_THROTTLED_TIME = new XContentBuilderString("total_throttled_time");
+        static final XContentBuilderString TOTAL_THROTTLED_TIME_IN_MILLIS = new XContentBuilderString("total_throttled_time_in_millis");
     }
 
     @Override
@@ -168,6 +206,8 @@ public class MergeStats implements Streamable, ToXContent {
         current = in.readVLong();
         currentNumDocs = in.readVLong();
         currentSizeInBytes = in.readVLong();
+        queued = in.readVLong();
+        totalThrottledTimeInMillis = in.readVLong();
     }
 
     @Override
@@ -179,5 +219,7 @@ public class MergeStats implements Streamable, ToXContent {
         out.writeVLong(current);
         out.writeVLong(currentNumDocs);
         out.writeVLong(currentSizeInBytes);
+        out.writeVLong(queued);
+        out.writeVLong(totalThrottledTimeInMillis);
     }
 }
\ No newline at end of file
@@ -0,0 +1,89 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.merge.scheduler;
+
+import org.apache.lucene.index.MergeScheduler;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.merge.MergeStats;
+import org.elasticsearch.index.settings.IndexSettings;
+import org.elasticsearch.index.shard.AbstractIndexShardComponent;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.indices.merge.IndicesMergeScheduler;
+import org.elasticsearch.indices.merge.ShardMergeScheduler;
+
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * A merge scheduler provider executing the shard merges on the node level {@link IndicesMergeScheduler},
+ * sharing its threads and merge write throttling with all the other shards allocated on the node.
+ */
+public class SharedMergeSchedulerProvider extends AbstractIndexShardComponent implements MergeSchedulerProvider {
+
+    private final IndicesMergeScheduler indicesMergeScheduler;
+
+    private final int maxMergeCount;
+
+    private Set<CustomShardMergeScheduler> schedulers = new CopyOnWriteArraySet<CustomShardMergeScheduler>();
+
+    @Inject
+    public SharedMergeSchedulerProvider(ShardId shardId, @IndexSettings Settings indexSettings, IndicesMergeScheduler indicesMergeScheduler) {
+        super(shardId, indexSettings);
+        this.indicesMergeScheduler = indicesMergeScheduler;
+        this.maxMergeCount = componentSettings.getAsInt("max_merge_count", indicesMergeScheduler.maxThreadCount() + 2);
+        logger.debug("using [shared] merge scheduler with max_merge_count[{}]", maxMergeCount);
+    }
+
+    @Override
+    public MergeScheduler newMergeScheduler() {
+        CustomShardMergeScheduler scheduler = new CustomShardMergeScheduler(logger, indicesMergeScheduler, maxMergeCount, this);
+        schedulers.add(scheduler);
+        return scheduler;
+    }
+
+    @Override
+    public MergeStats stats() {
+        MergeStats mergeStats = new MergeStats();
+        for (CustomShardMergeScheduler scheduler : schedulers) {
+            mergeStats.add(scheduler.totalMerges(), scheduler.totalMergeTime(), scheduler.totalMergeNumDocs(), scheduler.totalMergeSizeInBytes(),
+                    scheduler.currentMerges(), scheduler.currentMergesNumDocs(), scheduler.currentMergesSizeInBytes(),
+                    scheduler.queuedMerges(), scheduler.totalThrottledTimeInMillis());
+        }
+        return mergeStats;
+    }
+
+    public static class CustomShardMergeScheduler extends ShardMergeScheduler {
+
+        private final SharedMergeSchedulerProvider provider;
+
+        private CustomShardMergeScheduler(ESLogger logger, IndicesMergeScheduler indicesMergeScheduler, int maxMergeCount, SharedMergeSchedulerProvider provider) {
+            super(logger, indicesMergeScheduler, maxMergeCount);
+            this.provider = provider;
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            provider.schedulers.remove(this);
+        }
+    }
+}
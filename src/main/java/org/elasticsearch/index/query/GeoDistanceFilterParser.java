@@ -32,6 +32,7 @@ import org.elasticsearch.index.search.geo.GeoDistance;
 import org.elasticsearch.index.search.geo.GeoDistanceFilter;
 import org.elasticsearch.index.search.geo.GeoHashUtils;
 import org.elasticsearch.index.search.geo.GeoUtils;
+import org.elasticsearch.index.search.geo.IndexedGeoHashCellsFilter;
 
 import java.io.IOException;
 
@@ -166,6 +167,7 @@ public class GeoDistanceFilterParser implements FilterParser {
         } else {
             distance = DistanceUnit.parse((String) vDistance, unit, DistanceUnit.MILES);
         }
+        double distanceInMiles = distance;
         distance = geoDistance.normalize(distance, DistanceUnit.MILES);
 
         if (normalizeLat) {
@@ -186,7 +188,13 @@ public class GeoDistanceFilterParser implements FilterParser {
         GeoPointFieldMapper geoMapper = ((GeoPointFieldMapper.GeoStringFieldMapper) mapper).geoMapper();
         fieldName = mapper.names().indexName();
 
-        Filter filter = new GeoDistanceFilter(lat, lon, distance, geoDistance, fieldName, geoMapper, parseContext.indexCache().fieldData(), optimizeBbox);
+        Filter filter;
+        if (geoMapper.isEnableGeohashPrefix()) {
+            // filter on the indexed geohash cells, no need to load the field data
+            filter = IndexedGeoHashCellsFilter.distance(lat, lon, distanceInMiles, distance, geoDistance, geoMapper);
+        } else {
+            filter = new GeoDistanceFilter(lat, lon, distance, geoDistance, fieldName, geoMapper, parseContext.indexCache().fieldData(), optimizeBbox);
+        }
         if (cache) {
             filter = parseContext.cacheFilter(filter, cacheKey);
         }
@@ -31,6 +31,7 @@ import org.elasticsearch.index.mapper.geo.GeoPointFieldMapper;
 import org.elasticsearch.index.search.geo.GeoHashUtils;
 import org.elasticsearch.index.search.geo.GeoPolygonFilter;
 import org.elasticsearch.index.search.geo.GeoUtils;
+import org.elasticsearch.index.search.geo.IndexedGeoHashCellsFilter;
 import org.elasticsearch.index.search.geo.Point;
 
 import java.io.IOException;
@@ -176,9 +177,16 @@ public class GeoPolygonFilterParser implements FilterParser {
         if (mapper.fieldDataType() != GeoPointFieldDataType.TYPE) {
             throw new QueryParsingException(parseContext.index(), "field [" + fieldName + "] is not a geo_point field");
         }
+        GeoPointFieldMapper geoMapper = ((GeoPointFieldMapper.GeoStringFieldMapper) mapper).geoMapper();
         fieldName = mapper.names().indexName();
 
-        Filter filter = new GeoPolygonFilter(points.toArray(new Point[points.size()]), fieldName, parseContext.indexCache().fieldData());
+        Filter filter;
+        if (geoMapper.isEnableGeohashPrefix()) {
+            // filter on the indexed geohash cells, no need to load the field data
+            filter = IndexedGeoHashCellsFilter.polygon(points.toArray(new Point[points.size()]), geoMapper);
+        } else {
+            filter = new GeoPolygonFilter(points.toArray(new Point[points.size()]), fieldName, parseContext.indexCache().fieldData());
+        }
         if (cache) {
             filter = parseContext.cacheFilter(filter, cacheKey);
         }
@@ -25,7 +25,6 @@ import org.apache.lucene.index.TermDocs;
 import org.apache.lucene.search.DocIdSet;
 import org.apache.lucene.search.Filter;
 import org.apache.lucene.util.FixedBitSet;
-import org.apache.lucene.util.UnicodeUtil;
 import org.elasticsearch.common.Unicode;
 import org.elasticsearch.common.bloom.BloomFilter;
 import org.elasticsearch.index.cache.bloom.BloomCache;
@@ -42,6 +41,10 @@ public class UidFilter extends Filter {
 
     private final Set<Term> uids;
 
+    // the uids in (term) order, and their utf8 bytes to probe the bloom filters with, encoded once
+    private final Term[] sortedUids;
+    private final byte[][] sortedUidsBytes;
+
     private final BloomCache bloomCache;
 
     public UidFilter(Collection<String> types, List<String> ids, BloomCache bloomCache) {
@@ -52,6 +55,11 @@ public class UidFilter extends Filter {
                 uids.add(UidFieldMapper.TERM_FACTORY.createTerm(Uid.createUid(type, id)));
             }
         }
+        this.sortedUids = uids.toArray(new Term[uids.size()]);
+        this.sortedUidsBytes = new byte[sortedUids.length][];
+        for (int i = 0; i < sortedUids.length; i++) {
+            sortedUidsBytes[i] = Unicode.fromStringAsBytes(sortedUids[i].text());
+        }
     }
 
     // TODO Optimizations
@@ -63,15 +71,14 @@ public class UidFilter extends Filter {
         FixedBitSet set = null;
         TermDocs td = null;
         try {
-            for (Term uid : uids) {
-                UnicodeUtil.UTF8Result utf8 = Unicode.fromStringAsUtf8(uid.text());
-                if (!filter.isPresent(utf8.result, 0, utf8.length)) {
+            for (int i = 0; i < sortedUids.length; i++) {
+                if (!filter.isPresent(sortedUidsBytes[i], 0, sortedUidsBytes[i].length)) {
                     continue;
                 }
                 if (td == null) {
                     td = reader.termDocs();
                 }
-                td.seek(uid);
+                td.seek(sortedUids[i]);
                 while (td.next()) {
                     if (set == null) {
                         set = new FixedBitSet(reader.maxDoc());
@@ -27,7 +27,7 @@ import gnu.trove.map.hash.TIntIntHashMap;
 // replaced with native DECODE_MAP
 public class GeoHashUtils {
 
-    private static final char[] BASE_32 = {'0', '1', '2', '3', '4', '5', '6',
+    static final char[] BASE_32 = {'0', '1', '2', '3', '4', '5', '6',
             '7', '8', '9', 'b', 'c', 'd', 'e', 'f', 'g', 'h', 'j', 'k', 'm', 'n',
             'p', 'q', 'r', 's', 't', 'u', 'v', 'w', 'x', 'y', 'z'};
 
@@ -166,4 +166,44 @@ public class GeoHashUtils {
 
 //        return ret;
     }
-}
\ No newline at end of file
+
+    /**
+     * Decodes the bounds of the cell the given geohash represents.
+     *
+     * @param geohash Geohash to decode
+     * @param ret     Array filled with the min latitude, max latitude, min longitude and max longitude of the cell
+     */
+    public static void decodeCell(String geohash, double[] ret) {
+        double latInterval0 = -90.0;
+        double latInterval1 = 90.0;
+        double lngInterval0 = -180.0;
+        double lngInterval1 = 180.0;
+
+        boolean isEven = true;
+
+        for (int i = 0; i < geohash.length(); i++) {
+            final int cd = DECODE_MAP.get(geohash.charAt(i));
+
+            for (int mask : BITS) {
+                if (isEven) {
+                    if ((cd & mask) != 0) {
+                        lngInterval0 = (lngInterval0 + lngInterval1) / 2D;
+                    } else {
+                        lngInterval1 = (lngInterval0 + lngInterval1) / 2D;
+                    }
+                } else {
+                    if ((cd & mask) != 0) {
+                        latInterval0 = (latInterval0 + latInterval1) / 2D;
+                    } else {
+                        latInterval1 = (latInterval0 + latInterval1) / 2D;
+                    }
+                }
+                isEven = !isEven;
+            }
+        }
+        ret[0] = latInterval0;
+        ret[1] = latInterval1;
+        ret[2] = lngInterval0;
+        ret[3] = lngInterval1;
+    }
+}
@@ -100,7 +100,7 @@ public class GeoPolygonFilter extends Filter {
             return false;
         }
 
-        private static boolean pointInPolygon(Point[] points, double lat, double lon) {
+        static boolean pointInPolygon(Point[] points, double lat, double lon) {
             int i;
             int j = points.length - 1;
             boolean inPoly = false;
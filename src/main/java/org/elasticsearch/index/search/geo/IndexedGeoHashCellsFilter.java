@@ -0,0 +1,390 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.search.geo;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.TermDocs;
+import org.apache.lucene.index.TermEnum;
+import org.apache.lucene.search.DocIdSet;
+import org.apache.lucene.search.Filter;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.StringHelper;
+import org.elasticsearch.ElasticSearchIllegalArgumentException;
+import org.elasticsearch.common.unit.DistanceUnit;
+import org.elasticsearch.index.mapper.geo.GeoPointFieldMapper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A geo filter working on the geohash prefixes indexed by a {@link GeoPointFieldMapper} with <tt>geohash_prefix</tt>
+ * enabled, without loading the geo point field data.
+ * <p/>
+ * The shape is covered with geohash cells. Docs in cells fully inside the shape match directly by their prefix term,
+ * while for cells on the boundary of the shape the full precision geohash terms are decoded and checked against the
+ * shape.
+ * <p/>
+ * The results are only as exact as the <tt>geohash_precision</tt> of the field: a doc is checked using the center
+ * of its full precision geohash cell, not its actual lat/lon, so a doc within half a cell of the edge of the shape
+ * (a few centimeters with the default precision of 12, a few kilometers with a precision of 5) can be matched
+ * differently than by the field data based filters.
+ */
+public class IndexedGeoHashCellsFilter extends Filter {
+
+    /**
+     * The maximum number of cells used to cover a shape.
+     */
+    static final int MAX_CELLS = 512;
+
+    public static Filter distance(double lat, double lon, double distanceInMiles, double normalizedDistance, GeoDistance geoDistance, GeoPointFieldMapper fieldMapper) {
+        return create(new DistanceShape(lat, lon, distanceInMiles, normalizedDistance, geoDistance), fieldMapper);
+    }
+
+    public static Filter polygon(Point[] points, GeoPointFieldMapper fieldMapper) {
+        return create(new PolygonShape(points), fieldMapper);
+    }
+
+    private static Filter create(Shape shape, GeoPointFieldMapper fieldMapper) {
+        if (!fieldMapper.isEnableGeohashPrefix()) {
+            throw new ElasticSearchIllegalArgumentException("geohash_prefix is not enabled (indexed) for field [" + fieldMapper.name() + "], can't use indexed geohash filter on it");
+        }
+        return new IndexedGeoHashCellsFilter(shape, fieldMapper.geohashPrefixMapper().names().indexName(), fieldMapper.geohashPrecision());
+    }
+
+    static enum Relation {
+        OUTSIDE,
+        INSIDE,
+        BOUNDARY
+    }
+
+    static interface Shape {
+
+        /**
+         * The relation of the cell with the provided bounds to the shape.
+         */
+        Relation relate(double minLat, double maxLat, double minLon, double maxLon);
+
+        boolean contains(double lat, double lon);
+    }
+
+    private final Shape shape;
+
+    private final String fieldName;
+
+    private final int precision;
+
+    private final String[] insideCells;
+
+    private final String[] boundaryCells;
+
+    IndexedGeoHashCellsFilter(Shape shape, String fieldName, int precision) {
+        this.shape = shape;
+        this.fieldName = StringHelper.intern(fieldName);
+        this.precision = precision;
+
+        List<String> inside = new ArrayList<String>();
+        List<String> boundary = new ArrayList<String>();
+        cover(shape, precision, inside, boundary);
+        this.insideCells = inside.toArray(new String[inside.size()]);
+        this.boundaryCells = boundary.toArray(new String[boundary.size()]);
+    }
+
+    /**
+     * Covers the shape with geohash cells, refining the cells on the boundary of the shape level by level
+     * as long as the total number of cells stays within {@link #MAX_CELLS}.
+     */
+    static void cover(Shape shape, int maxLevel, List<String> inside, List<String> boundary) {
+        double[] bounds = new double[4];
+        List<String> current = new ArrayList<String>();
+        classifyChildren(shape, "", bounds, inside, current);
+        for (int level = 1; level < maxLevel; level++) {
+            List<String> nextInside = new ArrayList<String>();
+            List<String> nextBoundary = new ArrayList<String>();
+            for (String cell : current) {
+                classifyChildren(shape, cell, bounds, nextInside, nextBoundary);
+            }
+            if (inside.size() + nextInside.size() + nextBoundary.size() > MAX_CELLS) {
+                break;
+            }
+            inside.addAll(nextInside);
+            current = nextBoundary;
+        }
+        boundary.addAll(current);
+    }
+
+    private static void classifyChildren(Shape shape, String cell, double[] bounds, List<String> inside, List<String> boundary) {
+        for (char c : GeoHashUtils.BASE_32) {
+            String child = cell + c;
+            GeoHashUtils.decodeCell(child, bounds);
+            Relation relation = shape.relate(bounds[0], bounds[1], bounds[2], bounds[3]);
+            if (relation == Relation.INSIDE) {
+                inside.add(child);
+            } else if (relation == Relation.BOUNDARY) {
+                boundary.add(child);
+            }
+        }
+    }
+
+    @Override
+    public DocIdSet getDocIdSet(IndexReader reader) throws IOException {
+        FixedBitSet result = null;
+        TermDocs termDocs = reader.termDocs();
+        try {
+            for (String cell : insideCells) {
+                termDocs.seek(new Term(fieldName, cell));
+                while (termDocs.next()) {
+                    if (result == null) {
+                        result = new FixedBitSet(reader.maxDoc());
+                    }
+                    result.set(termDocs.doc());
+                }
+            }
+            double[] point = new double[2];
+            for (String cell : boundaryCells) {
+                TermEnum termEnum = reader.terms(new Term(fieldName, cell));
+                try {
+                    do {
+                        Term term = termEnum.term();
+                        if (term == null || term.field() != fieldName || !term.text().startsWith(cell)) {
+                            break;
+                        }
+                        // only check the full precision geohashes, the shorter ones are the prefixes of those
+                        if (term.text().length() != precision) {
+                            continue;
+                        }
+                        GeoHashUtils.decode(term.text(), point);
+                        if (!shape.contains(point[0], point[1])) {
+                            continue;
+                        }
+                        termDocs.seek(termEnum);
+                        while (termDocs.next()) {
+                            if (result == null) {
+                                result = new FixedBitSet(reader.maxDoc());
+                            }
+                            result.set(termDocs.doc());
+                        }
+                    } while (termEnum.next());
+                } finally {
+                    termEnum.close();
+                }
+            }
+        } finally {
+            termDocs.close();
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        IndexedGeoHashCellsFilter that = (IndexedGeoHashCellsFilter) o;
+
+        if (precision != that.precision) return false;
+        if (!fieldName.equals(that.fieldName)) return false;
+        if (!shape.equals(that.shape)) return false;
+
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = shape.hashCode();
+        result = 31 * result + fieldName.hashCode();
+        result = 31 * result + precision;
+        return result;
+    }
+
+    static class DistanceShape implements Shape {
+
+        private final double lat;
+        private final double lon;
+        private final double distance;
+        private final GeoDistance geoDistance;
+        private final GeoDistance.FixedSourceDistance fixedSourceDistance;
+        private final Point topLeft;
+        private final Point bottomRight;
+
+        DistanceShape(double lat, double lon, double distanceInMiles, double normalizedDistance, GeoDistance geoDistance) {
+            this.lat = lat;
+            this.lon = lon;
+            this.distance = normalizedDistance;
+            this.geoDistance = geoDistance;
+            this.fixedSourceDistance = geoDistance.fixedSourceDistance(lat, lon, DistanceUnit.MILES);
+            GeoDistance.DistanceBoundingCheck boundingCheck = GeoDistance.distanceBoundingCheck(lat, lon, distanceInMiles, DistanceUnit.MILES);
+            this.topLeft = boundingCheck.topLeft();
+            this.bottomRight = boundingCheck.bottomRight();
+        }
+
+        @Override
+        public Relation relate(double minLat, double maxLat, double minLon, double maxLon) {
+            if (maxLat < bottomRight.lat || minLat > topLeft.lat) {
+                return Relation.OUTSIDE;
+            }
+            if (topLeft.lon <= bottomRight.lon) {
+                if (maxLon < topLeft.lon || minLon > bottomRight.lon) {
+                    return Relation.OUTSIDE;
+                }
+            } else if (maxLon < topLeft.lon && minLon > bottomRight.lon) {
+                // the bounding box crosses the 180 meridian
+                return Relation.OUTSIDE;
+            }
+            double midLat = (minLat + maxLat) / 2;
+            double midLon = (minLon + maxLon) / 2;
+            if (contains(minLat, minLon) && contains(minLat, maxLon) && contains(maxLat, minLon) && contains(maxLat, maxLon)
+                    && contains(minLat, midLon) && contains(maxLat, midLon) && contains(midLat, minLon) && contains(midLat, maxLon)) {
+                return Relation.INSIDE;
+            }
+            return Relation.BOUNDARY;
+        }
+
+        @Override
+        public boolean contains(double lat, double lon) {
+            return fixedSourceDistance.calculate(lat, lon) < distance;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            DistanceShape that = (DistanceShape) o;
+
+            if (Double.compare(that.distance, distance) != 0) return false;
+            if (Double.compare(that.lat, lat) != 0) return false;
+            if (Double.compare(that.lon, lon) != 0) return false;
+            if (geoDistance != that.geoDistance) return false;
+
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            int result;
+            long temp;
+            temp = lat != +0.0d ? Double.doubleToLongBits(lat) : 0L;
+            result = (int) (temp ^ (temp >>> 32));
+            temp = lon != +0.0d ? Double.doubleToLongBits(lon) : 0L;
+            result = 31 * result + (int) (temp ^ (temp >>> 32));
+            temp = distance != +0.0d ? Double.doubleToLongBits(distance) : 0L;
+            result = 31 * result + (int) (temp ^ (temp >>> 32));
+            result = 31 * result + geoDistance.hashCode();
+            return result;
+        }
+    }
+
+    static class PolygonShape implements Shape {
+
+        private final Point[] points;
+        private final double minLat;
+        private final double maxLat;
+        private final double minLon;
+        private final double maxLon;
+
+        PolygonShape(Point[] points) {
+            this.points = points;
+            double minLat = Double.POSITIVE_INFINITY;
+            double maxLat = Double.NEGATIVE_INFINITY;
+            double minLon = Double.POSITIVE_INFINITY;
+            double maxLon = Double.NEGATIVE_INFINITY;
+            for (Point point : points) {
+                minLat = Math.min(minLat, point.lat);
+                maxLat = Math.max(maxLat, point.lat);
+                minLon = Math.min(minLon, point.lon);
+                maxLon = Math.max(maxLon, point.lon);
+            }
+            this.minLat = minLat;
+            this.maxLat = maxLat;
+            this.minLon = minLon;
+            this.maxLon = maxLon;
+        }
+
+        @Override
+        public Relation relate(double cellMinLat, double cellMaxLat, double cellMinLon, double cellMaxLon) {
+            if (cellMaxLat < minLat || cellMinLat > maxLat || cellMaxLon < minLon || cellMinLon > maxLon) {
+                return Relation.OUTSIDE;
+            }
+            if (!contains(cellMinLat, cellMinLon) || !contains(cellMinLat, cellMaxLon) || !contains(cellMaxLat, cellMinLon) || !contains(cellMaxLat, cellMaxLon)) {
+                return Relation.BOUNDARY;
+            }
+            // all corners are inside, the cell is inside unless one of the polygon edges crosses it
+            int j = points.length - 1;
+            for (int i = 0; i < points.length; i++) {
+                Point p1 = points[j];
+                Point p2 = points[i];
+                if (intersects(p1, p2, cellMinLat, cellMinLon, cellMinLat, cellMaxLon)
+                        || intersects(p1, p2, cellMaxLat, cellMinLon, cellMaxLat, cellMaxLon)
+                        || intersects(p1, p2, cellMinLat, cellMinLon, cellMaxLat, cellMinLon)
+                        || intersects(p1, p2, cellMinLat, cellMaxLon, cellMaxLat, cellMaxLon)) {
+                    return Relation.BOUNDARY;
+                }
+                j = i;
+            }
+            return Relation.INSIDE;
+        }
+
+        @Override
+        public boolean contains(double lat, double lon) {
+            return GeoPolygonFilter.GeoPolygonDocSet.pointInPolygon(points, lat, lon);
+        }
+
+        /**
+         * Does the segment p1-p2 intersect (or touch) the segment (lat1, lon1)-(lat2, lon2), treating lat/lon as
+         * planar coordinates, same as the point in polygon check.
+         */
+        private static boolean intersects(Point p1, Point p2, double lat1, double lon1, double lat2, double lon2) {
+            double d1 = orientation(lat1, lon1, lat2, lon2, p1.lat, p1.lon);
+            double d2 = orientation(lat1, lon1, lat2, lon2, p2.lat, p2.lon);
+            double d3 = orientation(p1.lat, p1.lon, p2.lat, p2.lon, lat1, lon1);
+            double d4 = orientation(p1.lat, p1.lon, p2.lat, p2.lon, lat2, lon2);
+            if (((d1 > 0 && d2 < 0) || (d1 < 0 && d2 > 0)) && ((d3 > 0 && d4 < 0) || (d3 < 0 && d4 > 0))) {
+                return true;
+            }
+            return (d1 == 0 && onSegment(lat1, lon1, lat2, lon2, p1.lat, p1.lon))
+                    || (d2 == 0 && onSegment(lat1, lon1, lat2, lon2, p2.lat, p2.lon))
+                    || (d3 == 0 && onSegment(p1.lat, p1.lon, p2.lat, p2.lon, lat1, lon1))
+                    || (d4 == 0 && onSegment(p1.lat, p1.lon, p2.lat, p2.lon, lat2, lon2));
+        }
+
+        private static double orientation(double lat1, double lon1, double lat2, double lon2, double lat3, double lon3) {
+            return (lon2 - lon1) * (lat3 - lat1) - (lat2 - lat1) * (lon3 - lon1);
+        }
+
+        private static boolean onSegment(double lat1, double lon1, double lat2, double lon2, double lat, double lon) {
+            return Math.min(lat1, lat2) <= lat && lat <= Math.max(lat1, lat2) && Math.min(lon1, lon2) <= lon && lon <= Math.max(lon1, lon2);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            return Arrays.equals(points, ((PolygonShape) o).points);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(points);
+        }
+    }
+}
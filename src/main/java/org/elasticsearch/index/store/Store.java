@@ -34,6 +34,7 @@ import org.elasticsearch.index.settings.IndexSettings;
 import org.elasticsearch.index.shard.AbstractIndexShardComponent;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.store.support.ForceSyncDirectory;
+import org.elasticsearch.indices.merge.IndicesMergeScheduler;
 
 import java.io.File;
 import java.io.FileNotFoundException;
@@ -415,7 +416,7 @@ public class Store extends AbstractIndexShardComponent {
                     }
                 }
             }
-            IndexOutput out = directory.createOutput(name);
+            IndexOutput out = IndicesMergeScheduler.rateLimitIfMerging(directory.createOutput(name));
             synchronized (mutex) {
                 StoreFileMetaData metaData = new StoreFileMetaData(name, -1, -1, null, directory);
                 filesMetadata = MapBuilder.newMapBuilder(filesMetadata).put(name, metaData).immutableMap();
@@ -62,6 +62,12 @@ public interface Translog extends IndexShardComponent {
      */
     long translogSizeInBytes();
 
+    /**
+     * Returns the size in bytes of all the operations added since this translog got created, including the ones
+     * of the transaction logs replaced by a new one since (on flush).
+     */
+    long totalTranslogSizeInBytes();
+
     /**
      * Creates a new transaction log internally.
      * <p/>
@@ -50,6 +50,9 @@ public class FsTranslog extends AbstractIndexShardComponent implements Translog
     private volatile FsTranslogFile current;
     private volatile FsTranslogFile trans;
 
+    // the size of the operations of the translog files replaced by a new one, updated under the write lock
+    private volatile long replacedTranslogsSizeInBytes;
+
     private boolean syncOnEachOperation = false;
 
     @Inject
@@ -105,6 +108,11 @@ public class FsTranslog extends AbstractIndexShardComponent implements Translog
         return current1.translogSizeInBytes();
     }
 
+    @Override
+    public long totalTranslogSizeInBytes() {
+        return replacedTranslogsSizeInBytes + translogSizeInBytes();
+    }
+
     @Override
     public void clearUnreferenced() {
         rwl.writeLock().lock();
@@ -154,6 +162,9 @@ public class FsTranslog extends AbstractIndexShardComponent implements Translog
                 throw new TranslogException(shardId, "failed to create new translog file", e);
             }
             FsTranslogFile old = current;
+            if (old != null) {
+                replacedTranslogsSizeInBytes += old.translogSizeInBytes();
+            }
             current = newFile;
             if (old != null) {
                 // we might create a new translog overriding the current translog id
@@ -199,6 +210,8 @@ public class FsTranslog extends AbstractIndexShardComponent implements Translog
         try {
             assert this.trans != null;
             old = current;
+            // the operations added since the transient translog got created are in both
+            replacedTranslogsSizeInBytes += old.translogSizeInBytes() - this.trans.translogSizeInBytes();
             this.current = this.trans;
             this.trans = null;
         } finally {
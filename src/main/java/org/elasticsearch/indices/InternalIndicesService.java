@@ -207,6 +207,7 @@ public class InternalIndicesService extends AbstractLifecycleComponent<IndicesSe
                 flushStats.add(indexShard.flushStats());
             }
             cacheStats.add(indexService.cache().stats());
+            indexingStats.addAnalyzerStats(indexService.analysisService().analyzerStats());
         }
         return new NodeIndicesStats(storeStats, docsStats, indexingStats, getStats, searchStats, cacheStats, mergeStats, refreshStats, flushStats);
     }
@@ -19,6 +19,7 @@
 
 package org.elasticsearch.indices.memory;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import org.elasticsearch.ElasticSearchException;
 import org.elasticsearch.common.component.AbstractLifecycleComponent;
@@ -40,11 +41,16 @@ import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.monitor.jvm.JvmInfo;
 import org.elasticsearch.threadpool.ThreadPool;
 
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ScheduledFuture;
 
 /**
- *
+ * Splits the node indexing buffer (<tt>indices.memory.index_buffer_size</tt>) between the shards actively
+ * indexing. Each active shard gets at least <tt>min_shard_index_buffer_size</tt>, and the rest is split in
+ * proportion to the rate of bytes each shard recently indexed (sampled from its translog every
+ * <tt>rate_interval</tt>), so shards taking most of the writes get most of the buffer. Shards are checked for
+ * becoming active or inactive every <tt>interval</tt>.
  */
 public class IndexingMemoryBufferController extends AbstractLifecycleComponent<IndexingMemoryBufferController> {
 
@@ -60,6 +66,7 @@ public class IndexingMemoryBufferController extends AbstractLifecycleComponent<I
 
     private final TimeValue inactiveTime;
     private final TimeValue interval;
+    private final TimeValue rateInterval;
 
     private final Listener listener = new Listener();
 
@@ -67,8 +74,14 @@ public class IndexingMemoryBufferController extends AbstractLifecycleComponent<I
 
     private volatile ScheduledFuture scheduler;
 
+    private volatile ScheduledFuture rateScheduler;
+
     private final Object mutex = new Object();
 
+    // the time it takes for a sample to weigh half of the indexing rate, short enough to follow load shifts within
+    // a couple of seconds, the weight depends on the time since the last sample and not on how many samples were taken
+    private static final double RATE_HALF_LIFE_MILLIS = 1000;
+
     @Inject
     public IndexingMemoryBufferController(Settings settings, ThreadPool threadPool, IndicesService indicesService) {
         super(settings);
@@ -101,8 +114,10 @@ public class IndexingMemoryBufferController extends AbstractLifecycleComponent<I
         this.inactiveTime = componentSettings.getAsTime("shard_inactive_time", TimeValue.timeValueMinutes(30));
         // we need to have this relatively small to move a shard from inactive to active fast (enough)
         this.interval = componentSettings.getAsTime("interval", TimeValue.timeValueSeconds(30));
+        // sampling the rates only reads the translog sizes, so it can run often for the split to follow load shifts
+        this.rateInterval = componentSettings.getAsTime("rate_interval", TimeValue.timeValueSeconds(1));
 
-        logger.debug("using index_buffer_size [{}], with min_shard_index_buffer_size [{}], max_shard_index_buffer_size [{}], shard_inactive_time [{}]", this.indexingBuffer, this.minShardIndexBufferSize, this.maxShardIndexBufferSize, this.inactiveTime);
+        logger.debug("using index_buffer_size [{}], with min_shard_index_buffer_size [{}], max_shard_index_buffer_size [{}], shard_inactive_time [{}], rate_interval [{}]", this.indexingBuffer, this.minShardIndexBufferSize, this.maxShardIndexBufferSize, this.inactiveTime, this.rateInterval);
 
     }
 
@@ -111,6 +126,7 @@ public class IndexingMemoryBufferController extends AbstractLifecycleComponent<I
         indicesService.indicesLifecycle().addListener(listener);
         // its fine to run it on the scheduler thread, no busy work
         this.scheduler = threadPool.scheduleWithFixedDelay(new ShardsIndicesStatusChecker(), interval);
+        this.rateScheduler = threadPool.scheduleWithFixedDelay(new ShardsIndexingRateSampler(), rateInterval);
     }
 
     @Override
@@ -120,6 +136,10 @@ public class IndexingMemoryBufferController extends AbstractLifecycleComponent<I
             scheduler.cancel(false);
             scheduler = null;
         }
+        if (rateScheduler != null) {
+            rateScheduler.cancel(false);
+            rateScheduler = null;
+        }
     }
 
     @Override
@@ -159,6 +179,8 @@ public class IndexingMemoryBufferController extends AbstractLifecycleComponent<I
                                     }
                                     // inactive for this amount of time, mark it
                                     status.inactive = true;
+                                    status.indexBufferSizeInBytes = Engine.INACTIVE_SHARD_INDEXING_BUFFER.bytes();
+                                    indexShard.indexingService().updateIndexBuffer(status.indexBufferSizeInBytes, 0);
                                     activeInactiveStatusChanges = true;
                                     logger.debug("marking shard [{}][{}] as inactive (inactive_time[{}]) indexing wise, setting size to [{}]", indexShard.shardId().index().name(), indexShard.shardId().id(), inactiveTime, Engine.INACTIVE_SHARD_INDEXING_BUFFER);
                                 }
@@ -176,18 +198,37 @@ public class IndexingMemoryBufferController extends AbstractLifecycleComponent<I
                     }
                 }
                 if (activeInactiveStatusChanges) {
-                    calcAndSetShardIndexingBuffer("shards became active/inactive (indexing wise)");
+                    calcAndSetShardIndexingBuffer("shards became active/inactive (indexing wise)", true);
                 }
             }
         }
     }
 
+    class ShardsIndexingRateSampler implements Runnable {
+        @Override
+        public void run() {
+            synchronized (mutex) {
+                long time = threadPool.estimatedTimeInMillis();
+                for (IndexService indexService : indicesService) {
+                    for (IndexShard indexShard : indexService) {
+                        ShardIndexingStatus status = shardsIndicesStatus.get(indexShard.shardId());
+                        if (status == null) { // not added yet
+                            continue;
+                        }
+                        sampleIndexingRate(status, ((InternalIndexShard) indexShard).translog(), time);
+                    }
+                }
+                calcAndSetShardIndexingBuffer("indexing rates changed", false);
+            }
+        }
+    }
+
     class Listener extends IndicesLifecycle.Listener {
 
         @Override
         public void afterIndexShardCreated(IndexShard indexShard) {
             synchronized (mutex) {
-                calcAndSetShardIndexingBuffer("created_shard[" + indexShard.shardId().index().name() + "][" + indexShard.shardId().id() + "]");
+                calcAndSetShardIndexingBuffer("created_shard[" + indexShard.shardId().index().name() + "][" + indexShard.shardId().id() + "]", true);
                 shardsIndicesStatus.put(indexShard.shardId(), new ShardIndexingStatus());
             }
         }
@@ -195,64 +236,122 @@ public class IndexingMemoryBufferController extends AbstractLifecycleComponent<I
         @Override
         public void afterIndexShardClosed(ShardId shardId, boolean delete) {
             synchronized (mutex) {
-                calcAndSetShardIndexingBuffer("removed_shard[" + shardId.index().name() + "][" + shardId.id() + "]");
+                calcAndSetShardIndexingBuffer("removed_shard[" + shardId.index().name() + "][" + shardId.id() + "]", true);
                 shardsIndicesStatus.remove(shardId);
             }
         }
     }
 
 
-    private void calcAndSetShardIndexingBuffer(String reason) {
-        int shardsCount = countShards();
-        if (shardsCount == 0) {
+    /**
+     * Updates the (exponentially decaying) rate of bytes indexed into the shard based on its translog growth
+     * since the last sample. The total translog size carries over flushes, so what got written to the flushed
+     * translog since the last sample is counted as well.
+     */
+    private void sampleIndexingRate(ShardIndexingStatus status, Translog translog, long time) {
+        long totalTranslogSizeInBytes = translog.totalTranslogSizeInBytes();
+        if (status.rateTime == -1) {
+            // first sample
+            status.rateTime = time;
+            status.totalTranslogSizeInBytes = totalTranslogSizeInBytes;
             return;
         }
-        ByteSizeValue shardIndexingBufferSize = calcShardIndexingBuffer(shardsCount);
-        if (shardIndexingBufferSize == null) {
+        if (time <= status.rateTime) {
             return;
         }
-        if (shardIndexingBufferSize.bytes() < minShardIndexBufferSize.bytes()) {
+        long written = Math.max(0, totalTranslogSizeInBytes - status.totalTranslogSizeInBytes);
+        status.bytesPerSec = decayedRate(status.bytesPerSec, written, time - status.rateTime);
+        status.rateTime = time;
+        status.totalTranslogSizeInBytes = totalTranslogSizeInBytes;
+    }
+
+    /**
+     * The indexing rate (bytes/sec) after <tt>written</tt> bytes got indexed in the last <tt>tookInMillis</tt>.
+     * The weight of the sample grows with the time it covers, a sample of one second gets half of the weight.
+     */
+    public static double decayedRate(double bytesPerSec, long written, long tookInMillis) {
+        double sampleBytesPerSec = written * 1000.0 / tookInMillis;
+        double weight = 1 - Math.pow(0.5, tookInMillis / RATE_HALF_LIFE_MILLIS);
+        return bytesPerSec * (1 - weight) + sampleBytesPerSec * weight;
+    }
+
+    /**
+     * The indexing buffer of a shard indexing at <tt>rate</tt> out of the <tt>totalRate</tt> of the
+     * <tt>activeShards</tt>: the min shard buffer plus its share of what is left, or an equal split when there
+     * is no measured rate (or nothing left), bounded by the min and max shard buffer sizes.
+     */
+    public static long shardIndexingBufferSize(long indexingBuffer, long minShardIndexBufferSize, long maxShardIndexBufferSize,
+                                               int activeShards, double rate, double totalRate) {
+        long spare = indexingBuffer - minShardIndexBufferSize * activeShards;
+        long shardIndexingBufferSize;
+        if (totalRate <= 0 || spare <= 0) {
+            shardIndexingBufferSize = indexingBuffer / activeShards;
+        } else {
+            shardIndexingBufferSize = minShardIndexBufferSize + (long) (spare * (rate / totalRate));
+        }
+        if (shardIndexingBufferSize < minShardIndexBufferSize) {
             shardIndexingBufferSize = minShardIndexBufferSize;
         }
-        if (shardIndexingBufferSize.bytes() > maxShardIndexBufferSize.bytes()) {
+        if (shardIndexingBufferSize > maxShardIndexBufferSize) {
             shardIndexingBufferSize = maxShardIndexBufferSize;
         }
-        logger.debug("recalculating shard indexing buffer (reason={}), total is [{}] with [{}] active shards, each shard set to [{}]", reason, indexingBuffer, shardsCount, shardIndexingBufferSize);
+        return shardIndexingBufferSize;
+    }
+
+    /**
+     * Allocates the indexing buffer between the active shards. Unless forced, a shard buffer is only updated
+     * when its allocation moved by more than 10%, to not keep on resizing buffers for small rate changes.
+     */
+    private void calcAndSetShardIndexingBuffer(String reason, boolean force) {
+        List<IndexShard> activeShards = Lists.newArrayList();
+        double totalRate = 0;
         for (IndexService indexService : indicesService) {
             for (IndexShard indexShard : indexService) {
                 ShardIndexingStatus status = shardsIndicesStatus.get(indexShard.shardId());
                 if (status == null || !status.inactive) {
-                    try {
-                        ((InternalIndexShard) indexShard).engine().updateIndexingBufferSize(shardIndexingBufferSize);
-                    } catch (EngineClosedException e) {
-                        // ignore
-                        continue;
-                    } catch (FlushNotAllowedEngineException e) {
-                        // ignore
-                        continue;
-                    } catch (Exception e) {
-                        logger.warn("failed to set shard [{}][{}] index buffer to [{}]", indexShard.shardId().index().name(), indexShard.shardId().id(), shardIndexingBufferSize);
+                    activeShards.add(indexShard);
+                    if (status != null) {
+                        totalRate += status.bytesPerSec;
                     }
                 }
             }
         }
-    }
-
-    private ByteSizeValue calcShardIndexingBuffer(int shardsCount) {
-        return new ByteSizeValue(indexingBuffer.bytes() / shardsCount);
-    }
-
-    private int countShards() {
-        int shardsCount = 0;
-        for (IndexService indexService : indicesService) {
-            for (IndexShard indexShard : indexService) {
-                ShardIndexingStatus status = shardsIndicesStatus.get(indexShard.shardId());
-                if (status == null || !status.inactive) {
-                    shardsCount++;
-                }
+        if (activeShards.isEmpty()) {
+            return;
+        }
+        boolean logged = false;
+        for (IndexShard indexShard : activeShards) {
+            ShardIndexingStatus status = shardsIndicesStatus.get(indexShard.shardId());
+            double rate = status == null ? 0 : status.bytesPerSec;
+            long shardIndexingBufferSize = shardIndexingBufferSize(indexingBuffer.bytes(), minShardIndexBufferSize.bytes(), maxShardIndexBufferSize.bytes(),
+                    activeShards.size(), rate, totalRate);
+            if (status != null && !force && Math.abs(shardIndexingBufferSize - status.indexBufferSizeInBytes) <= status.indexBufferSizeInBytes / 10) {
+                // keep the buffer size, only the rate changed
+                indexShard.indexingService().updateIndexBuffer(status.indexBufferSizeInBytes, (long) rate);
+                continue;
+            }
+            if (!logged) {
+                logger.debug("recalculating shard indexing buffer (reason={}), total is [{}] with [{}] active shards", reason, indexingBuffer, activeShards.size());
+                logged = true;
+            }
+            logger.trace("setting shard [{}][{}] index buffer to [{}] (indexing [{}]/sec)", indexShard.shardId().index().name(), indexShard.shardId().id(), new ByteSizeValue(shardIndexingBufferSize), new ByteSizeValue((long) rate));
+            try {
+                ((InternalIndexShard) indexShard).engine().updateIndexingBufferSize(new ByteSizeValue(shardIndexingBufferSize));
+            } catch (EngineClosedException e) {
+                // ignore
+                continue;
+            } catch (FlushNotAllowedEngineException e) {
+                // ignore
+                continue;
+            } catch (Exception e) {
+                logger.warn("failed to set shard [{}][{}] index buffer to [{}]", indexShard.shardId().index().name(), indexShard.shardId().id(), new ByteSizeValue(shardIndexingBufferSize));
+                continue;
+            }
+            if (status != null) {
+                status.indexBufferSizeInBytes = shardIndexingBufferSize;
+                indexShard.indexingService().updateIndexBuffer(shardIndexingBufferSize, (long) rate);
             }
         }
-        return shardsCount;
     }
 
     static class ShardIndexingStatus {
@@ -260,5 +359,9 @@ public class IndexingMemoryBufferController extends AbstractLifecycleComponent<I
         int translogNumberOfOperations = -1;
         boolean inactive = false;
         long time = -1; // contains the first time we saw this shard with no operations done on it
+        long totalTranslogSizeInBytes = 0;
+        long rateTime = -1; // the last time the indexing rate was sampled
+        double bytesPerSec = 0;
+        long indexBufferSizeInBytes = 0;
     }
 }
@@ -0,0 +1,364 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices.merge;
+
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.MergePolicy;
+import org.apache.lucene.store.IndexOutput;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.common.RateLimiter;
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.node.settings.NodeSettingsService;
+
+import java.io.IOException;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A node level merge scheduler all the shards allocated on the node submit their merges to (see
+ * {@link ShardMergeScheduler}). Merges are executed by a bounded number of threads
+ * (<tt>indices.merge.max_thread_count</tt>), smaller merges and merges of shards with a larger backlog
+ * first, and the bytes they write are throttled by a node wide rate limiter.
+ * <p/>
+ * Merges age while they wait: each doubling in size delays a merge by <tt>indices.merge.age_step</tt>
+ * (defaults to <tt>5s</tt>) compared to the merges submitted at the same time, so a large merge runs
+ * at the latest once it waited that long per doubling, instead of starving behind a steady stream of
+ * small ones (and stalling its shard indexing on <tt>max_merge_count</tt>).
+ * <p/>
+ * The rate starts at <tt>indices.merge.min_bytes_per_sec</tt>, and is increased while merges are
+ * queuing up (heavy indexing) up to <tt>indices.merge.max_bytes_per_sec</tt>, decreasing back once
+ * merges keep up. Setting <tt>max_bytes_per_sec</tt> to <tt>0</tt> disables throttling.
+ */
+public class IndicesMergeScheduler extends AbstractComponent {
+
+    static {
+        MetaData.addDynamicSettings("indices.merge.min_bytes_per_sec");
+        MetaData.addDynamicSettings("indices.merge.max_bytes_per_sec");
+    }
+
+    private final int maxThreadCount;
+
+    private final TimeValue ageStep;
+
+    private final ThreadPoolExecutor executor;
+
+    private final AtomicLong mergeSequence = new AtomicLong();
+
+    private volatile ByteSizeValue minBytesPerSec;
+
+    private volatile ByteSizeValue maxBytesPerSec;
+
+    private volatile RateLimiter rateLimiter;
+
+    private volatile double currentMbPerSec;
+
+    @Inject
+    public IndicesMergeScheduler(Settings settings, NodeSettingsService nodeSettingsService) {
+        super(settings);
+        this.maxThreadCount = componentSettings.getAsInt("max_thread_count", Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2)));
+        this.minBytesPerSec = componentSettings.getAsBytesSize("min_bytes_per_sec", new ByteSizeValue(5, ByteSizeUnit.MB));
+        this.maxBytesPerSec = componentSettings.getAsBytesSize("max_bytes_per_sec", new ByteSizeValue(100, ByteSizeUnit.MB));
+        this.ageStep = componentSettings.getAsTime("age_step", TimeValue.timeValueSeconds(5));
+        applyRate(minBytesPerSec.mbFrac());
+
+        this.executor = new ThreadPoolExecutor(maxThreadCount, maxThreadCount, 0, TimeUnit.MILLISECONDS, new PriorityBlockingQueue<Runnable>(),
+                new MergeThreadFactory(EsExecutors.threadName(settings, "[merge]")));
+
+        logger.debug("using max_thread_count [{}], min_bytes_per_sec [{}], max_bytes_per_sec [{}], age_step [{}]", maxThreadCount, minBytesPerSec, maxBytesPerSec, ageStep);
+
+        nodeSettingsService.addListener(new ApplySettings());
+    }
+
+    public void close() {
+        executor.shutdown();
+    }
+
+    public int maxThreadCount() {
+        return this.maxThreadCount;
+    }
+
+    /**
+     * The current merge write rate in MB/sec, or <tt>0</tt> if merges are not throttled.
+     */
+    public double currentMbPerSec() {
+        return rateLimiter == null ? 0 : currentMbPerSec;
+    }
+
+    /**
+     * The priority of a merge submitted at <tt>submitTimeMillis</tt>, lower runs first. Each doubling of
+     * the merge size pushes it back by <tt>ageStepMillis</tt>, so merges of the same size run in submission
+     * order, and a larger merge overtakes the smaller merges submitted after it waited long enough.
+     */
+    public static long mergePriority(long submitTimeMillis, long sizeInBytes, long ageStepMillis) {
+        int sizeBucket = 64 - Long.numberOfLeadingZeros(Math.max(0, sizeInBytes));
+        return submitTimeMillis + sizeBucket * ageStepMillis;
+    }
+
+    /**
+     * Wraps the output with the node merge rate limiter if it is created by a merge thread.
+     */
+    public static IndexOutput rateLimitIfMerging(IndexOutput output) {
+        Thread thread = Thread.currentThread();
+        if (thread instanceof MergeThread) {
+            return new RateLimitedIndexOutput(output, (MergeThread) thread);
+        }
+        return output;
+    }
+
+    void execute(ShardMergeScheduler shardScheduler, IndexWriter writer, MergePolicy.OneMerge merge, int shardQueued) {
+        long sizeInBytes;
+        try {
+            sizeInBytes = merge.totalBytesSize();
+        } catch (IOException e) {
+            sizeInBytes = Long.MAX_VALUE;
+        }
+        long priority = mergePriority(System.currentTimeMillis(), sizeInBytes, ageStep.millis());
+        MergeTask task = new MergeTask(shardScheduler, writer, merge, priority, shardQueued, mergeSequence.incrementAndGet());
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // we are closing, the index writer still expects the merge to be done, so do it on this thread
+            task.run();
+        }
+    }
+
+    /**
+     * Speeds merges up while they back up, and slows them down again once they keep up.
+     */
+    private void adjustRate() {
+        if (rateLimiter == null) {
+            return;
+        }
+        double mbPerSec = currentMbPerSec;
+        if (executor.getQueue().size() > 0) {
+            mbPerSec *= 1.2;
+        } else {
+            mbPerSec /= 1.1;
+        }
+        applyRate(mbPerSec);
+    }
+
+    private void applyRate(double mbPerSec) {
+        double max = maxBytesPerSec.mbFrac();
+        if (max <= 0) {
+            rateLimiter = null;
+            return;
+        }
+        mbPerSec = Math.max(Math.min(mbPerSec, max), Math.min(minBytesPerSec.mbFrac(), max));
+        currentMbPerSec = mbPerSec;
+        RateLimiter rateLimiter = this.rateLimiter;
+        if (rateLimiter == null) {
+            this.rateLimiter = new RateLimiter(mbPerSec);
+        } else {
+            rateLimiter.setMaxRate(mbPerSec);
+        }
+    }
+
+    /**
+     * Orders merges by their {@link #mergePriority(long, long, long)}, then the ones of the shards with more
+     * merges waiting first, and finally by submission order. The priority is computed once on submission,
+     * so the queue order stays stable while merges age.
+     */
+    class MergeTask implements Runnable, Comparable<MergeTask> {
+
+        final ShardMergeScheduler shardScheduler;
+
+        final IndexWriter writer;
+
+        final MergePolicy.OneMerge merge;
+
+        final long priority;
+
+        final int shardQueued;
+
+        final long sequence;
+
+        MergeTask(ShardMergeScheduler shardScheduler, IndexWriter writer, MergePolicy.OneMerge merge, long priority, int shardQueued, long sequence) {
+            this.shardScheduler = shardScheduler;
+            this.writer = writer;
+            this.merge = merge;
+            this.priority = priority;
+            this.shardQueued = shardQueued;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(MergeTask o) {
+            if (priority != o.priority) {
+                return priority < o.priority ? -1 : 1;
+            }
+            if (shardQueued != o.shardQueued) {
+                return shardQueued > o.shardQueued ? -1 : 1;
+            }
+            return sequence < o.sequence ? -1 : (sequence == o.sequence ? 0 : 1);
+        }
+
+        @Override
+        public void run() {
+            adjustRate();
+            MergeThread mergeThread = Thread.currentThread() instanceof MergeThread ? (MergeThread) Thread.currentThread() : null;
+            if (mergeThread != null) {
+                mergeThread.shardScheduler = shardScheduler;
+            }
+            try {
+                shardScheduler.doMerge(writer, merge);
+            } finally {
+                if (mergeThread != null) {
+                    mergeThread.shardScheduler = null;
+                }
+            }
+        }
+    }
+
+    static class MergeThread extends Thread {
+
+        final IndicesMergeScheduler indicesMergeScheduler;
+
+        volatile ShardMergeScheduler shardScheduler;
+
+        MergeThread(IndicesMergeScheduler indicesMergeScheduler, Runnable r, String name) {
+            super(r, name);
+            this.indicesMergeScheduler = indicesMergeScheduler;
+        }
+    }
+
+    class MergeThreadFactory implements ThreadFactory {
+
+        private final String namePrefix;
+
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        MergeThreadFactory(String namePrefix) {
+            this.namePrefix = namePrefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new MergeThread(IndicesMergeScheduler.this, r, namePrefix + "-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    /**
+     * Pauses the merge thread writing to it in chunks, so the node merge write rate stays under the
+     * current limit, and accounts the time spent paused to the shard the merge belongs to.
+     */
+    static class RateLimitedIndexOutput extends IndexOutput {
+
+        private static final int PAUSE_CHUNK = 8 * 1024;
+
+        private final IndexOutput delegate;
+
+        private final MergeThread mergeThread;
+
+        private long pendingBytes;
+
+        RateLimitedIndexOutput(IndexOutput delegate, MergeThread mergeThread) {
+            this.delegate = delegate;
+            this.mergeThread = mergeThread;
+        }
+
+        private void maybePause(int bytes) {
+            pendingBytes += bytes;
+            if (pendingBytes < PAUSE_CHUNK) {
+                return;
+            }
+            RateLimiter rateLimiter = mergeThread.indicesMergeScheduler.rateLimiter;
+            if (rateLimiter != null) {
+                long start = System.nanoTime();
+                rateLimiter.pause(pendingBytes);
+                ShardMergeScheduler shardScheduler = mergeThread.shardScheduler;
+                if (shardScheduler != null) {
+                    shardScheduler.onThrottled(pendingBytes, System.nanoTime() - start);
+                }
+            }
+            pendingBytes = 0;
+        }
+
+        @Override
+        public void writeByte(byte b) throws IOException {
+            delegate.writeByte(b);
+            maybePause(1);
+        }
+
+        @Override
+        public void writeBytes(byte[] b, int offset, int length) throws IOException {
+            delegate.writeBytes(b, offset, length);
+            maybePause(length);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public long getFilePointer() {
+            return delegate.getFilePointer();
+        }
+
+        @Override
+        public void seek(long pos) throws IOException {
+            delegate.seek(pos);
+        }
+
+        @Override
+        public long length() throws IOException {
+            return delegate.length();
+        }
+
+        @Override
+        public void setLength(long length) throws IOException {
+            delegate.setLength(length);
+        }
+    }
+
+    class ApplySettings implements NodeSettingsService.Listener {
+        @Override
+        public void onRefreshSettings(Settings settings) {
+            ByteSizeValue minBytesPerSec = settings.getAsBytesSize("indices.merge.min_bytes_per_sec", IndicesMergeScheduler.this.minBytesPerSec);
+            ByteSizeValue maxBytesPerSec = settings.getAsBytesSize("indices.merge.max_bytes_per_sec", IndicesMergeScheduler.this.maxBytesPerSec);
+            if (!minBytesPerSec.equals(IndicesMergeScheduler.this.minBytesPerSec) || !maxBytesPerSec.equals(IndicesMergeScheduler.this.maxBytesPerSec)) {
+                logger.info("updating min_bytes_per_sec from [{}] to [{}], max_bytes_per_sec from [{}] to [{}]",
+                        IndicesMergeScheduler.this.minBytesPerSec, minBytesPerSec, IndicesMergeScheduler.this.maxBytesPerSec, maxBytesPerSec);
+                IndicesMergeScheduler.this.minBytesPerSec = minBytesPerSec;
+                IndicesMergeScheduler.this.maxBytesPerSec = maxBytesPerSec;
+                applyRate(currentMbPerSec == 0 ? minBytesPerSec.mbFrac() : currentMbPerSec);
+            }
+        }
+    }
+}
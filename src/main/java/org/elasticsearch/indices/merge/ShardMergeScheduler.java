@@ -0,0 +1,235 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices.merge;
+
+import org.apache.lucene.index.CorruptIndexException;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.MergePolicy;
+import org.apache.lucene.index.MergeScheduler;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.util.ThreadInterruptedException;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.metrics.MeanMetric;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.index.merge.policy.EnableMergePolicy;
+
+import java.io.IOException;
+
+/**
+ * The merge scheduler of a single shard, handing its merges over to the node level
+ * {@link IndicesMergeScheduler}. Indexing threads are stalled while the shard has more than
+ * <tt>maxMergeCount</tt> merges queued or running, same as the Lucene concurrent merge scheduler does.
+ */
+public class ShardMergeScheduler extends MergeScheduler {
+
+    protected final ESLogger logger;
+
+    private final IndicesMergeScheduler indicesMergeScheduler;
+
+    private final int maxMergeCount;
+
+    private final MeanMetric totalMerges = new MeanMetric();
+    private final CounterMetric totalMergesNumDocs = new CounterMetric();
+    private final CounterMetric totalMergesSizeInBytes = new CounterMetric();
+    private final CounterMetric currentMergesNumDocs = new CounterMetric();
+    private final CounterMetric currentMergesSizeInBytes = new CounterMetric();
+    private final CounterMetric throttledTimeInNanos = new CounterMetric();
+    private final CounterMetric throttledSizeInBytes = new CounterMetric();
+
+    // guarded by this
+    private int queued;
+    private int running;
+    private boolean closed;
+
+    public ShardMergeScheduler(ESLogger logger, IndicesMergeScheduler indicesMergeScheduler, int maxMergeCount) {
+        this.logger = logger;
+        this.indicesMergeScheduler = indicesMergeScheduler;
+        this.maxMergeCount = maxMergeCount;
+    }
+
+    public long totalMerges() {
+        return totalMerges.count();
+    }
+
+    public long totalMergeTime() {
+        return totalMerges.sum();
+    }
+
+    public long totalMergeNumDocs() {
+        return totalMergesNumDocs.count();
+    }
+
+    public long totalMergeSizeInBytes() {
+        return totalMergesSizeInBytes.count();
+    }
+
+    public synchronized long currentMerges() {
+        return running;
+    }
+
+    public long currentMergesNumDocs() {
+        return currentMergesNumDocs.count();
+    }
+
+    public long currentMergesSizeInBytes() {
+        return currentMergesSizeInBytes.count();
+    }
+
+    /**
+     * The number of merges waiting for a node merge thread.
+     */
+    public synchronized long queuedMerges() {
+        return queued;
+    }
+
+    public long totalThrottledTimeInMillis() {
+        return TimeValue.timeValueNanos(throttledTimeInNanos.count()).millis();
+    }
+
+    public long totalThrottledSizeInBytes() {
+        return throttledSizeInBytes.count();
+    }
+
+    @Override
+    public void merge(IndexWriter writer) throws CorruptIndexException, IOException {
+        try {
+            // if merge is not enabled, don't do any merging...
+            if (writer.getConfig().getMergePolicy() instanceof EnableMergePolicy) {
+                if (!((EnableMergePolicy) writer.getConfig().getMergePolicy()).isMergeEnabled()) {
+                    return;
+                }
+            }
+        } catch (AlreadyClosedException e) {
+            // called writer#getMergePolicy can cause an AlreadyClosed failure, so ignore it
+            // since we are doing it on close, return here and don't do the actual merge
+            // since we do it outside of a lock in the RobinEngine
+            return;
+        }
+        while (true) {
+            int shardQueued;
+            synchronized (this) {
+                while (!closed && queued + running >= maxMergeCount) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        throw new ThreadInterruptedException(e);
+                    }
+                }
+                if (closed) {
+                    return;
+                }
+            }
+            MergePolicy.OneMerge merge = writer.getNextMerge();
+            if (merge == null) {
+                return;
+            }
+            synchronized (this) {
+                shardQueued = ++queued;
+            }
+            indicesMergeScheduler.execute(this, writer, merge, shardQueued);
+        }
+    }
+
+    /**
+     * Executes the merge on a node merge thread, and submits the merges it cascaded into (when optimizing).
+     */
+    void doMerge(IndexWriter writer, MergePolicy.OneMerge merge) {
+        int totalNumDocs = 0;
+        long totalSizeInBytes = 0;
+        try {
+            totalNumDocs = merge.totalNumDocs();
+            totalSizeInBytes = merge.totalBytesSize();
+        } catch (IOException e) {
+            // only used for stats
+        }
+        synchronized (this) {
+            queued--;
+            running++;
+        }
+        currentMergesNumDocs.inc(totalNumDocs);
+        currentMergesSizeInBytes.inc(totalSizeInBytes);
+        long time = System.currentTimeMillis();
+        try {
+            writer.merge(merge);
+        } catch (AlreadyClosedException e) {
+            // the writer got closed while the merge was waiting, nothing to do
+        } catch (Throwable e) {
+            logger.warn("failed to merge", e);
+        } finally {
+            long took = System.currentTimeMillis() - time;
+            currentMergesNumDocs.dec(totalNumDocs);
+            currentMergesSizeInBytes.dec(totalSizeInBytes);
+            totalMergesNumDocs.inc(totalNumDocs);
+            totalMergesSizeInBytes.inc(totalSizeInBytes);
+            totalMerges.inc(took);
+            if (took > 20000) { // if more than 20 seconds, DEBUG log it
+                logger.debug("merge [{}] done, took [{}]", merge.segString(writer.getDirectory()), TimeValue.timeValueMillis(took));
+            }
+            synchronized (this) {
+                running--;
+                notifyAll();
+            }
+        }
+
+        while (true) {
+            int shardQueued;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+            }
+            MergePolicy.OneMerge next;
+            try {
+                next = writer.getNextMerge();
+            } catch (AlreadyClosedException e) {
+                return;
+            }
+            if (next == null) {
+                return;
+            }
+            synchronized (this) {
+                shardQueued = ++queued;
+            }
+            indicesMergeScheduler.execute(this, writer, next, shardQueued);
+        }
+    }
+
+    void onThrottled(long bytes, long nanos) {
+        throttledSizeInBytes.inc(bytes);
+        throttledTimeInNanos.inc(nanos);
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+            // queued merges still run (aborted ones return right away), wait for them
+            while (queued + running > 0) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    throw new ThreadInterruptedException(e);
+                }
+            }
+        }
+    }
+}
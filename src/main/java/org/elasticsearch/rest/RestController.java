@@ -100,6 +100,41 @@ public class RestController extends AbstractLifecycleComponent<RestController> {
         return true;
     }
 
+    /**
+     * Dispatches a request which content can be streamed, returning the consumer of its content, or
+     * <tt>null</tt> if the handler of the request does not support streaming (and the content should be
+     * aggregated and the request dispatched using {@link #dispatchRequest(RestRequest, RestChannel)}).
+     */
+    public StreamingRestHandler.ContentConsumer dispatchStreamingRequest(final RestRequest request, final RestChannel channel, StreamingRestHandler.FlowControl flowControl) {
+        final RestHandler handler = getHandler(request);
+        if (!(handler instanceof StreamingRestHandler) || !((StreamingRestHandler) handler).supportsStreaming(request)) {
+            return null;
+        }
+        try {
+            return ((StreamingRestHandler) handler).handleStreamingRequest(request, channel, flowControl);
+        } catch (Exception e) {
+            try {
+                channel.sendResponse(new XContentThrowableRestResponse(request, e));
+            } catch (IOException e1) {
+                logger.error("Failed to send failure response for uri [" + request.uri() + "]", e1);
+            }
+            return IgnoreContentConsumer.INSTANCE;
+        }
+    }
+
+    static class IgnoreContentConsumer implements StreamingRestHandler.ContentConsumer {
+
+        static final IgnoreContentConsumer INSTANCE = new IgnoreContentConsumer();
+
+        @Override
+        public void onContent(byte[] data, int offset, int length) {
+        }
+
+        @Override
+        public void onContentEnd() {
+        }
+    }
+
     private RestHandler getHandler(RestRequest request) {
         String path = getPath(request);
         RestRequest.Method method = request.method();
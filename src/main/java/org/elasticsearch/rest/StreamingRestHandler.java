@@ -0,0 +1,67 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.rest;
+
+/**
+ * A rest handler that can consume the content of a request as it arrives, instead of once it has been fully
+ * aggregated in memory.
+ */
+public interface StreamingRestHandler extends RestHandler {
+
+    /**
+     * Returns <tt>true</tt> if the request content should be streamed to this handler.
+     */
+    boolean supportsStreaming(RestRequest request);
+
+    /**
+     * Starts handling a request with streamed content, returning the consumer its content will be passed to.
+     * The provided flow control allows to pause and resume reading more content.
+     */
+    ContentConsumer handleStreamingRequest(RestRequest request, RestChannel channel, FlowControl flowControl);
+
+    /**
+     * Consumes the content of a request as it arrives.
+     */
+    static interface ContentConsumer {
+
+        /**
+         * Called with the next part of the content. The data might be reused once the method returns.
+         */
+        void onContent(byte[] data, int offset, int length);
+
+        /**
+         * Called once all the content has been passed.
+         */
+        void onContentEnd();
+    }
+
+    /**
+     * Controls reading of a request content.
+     */
+    static interface FlowControl {
+
+        /**
+         * Stops reading more content until {@link #resume()} is called.
+         */
+        void pause();
+
+        void resume();
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.rest;
+
+import org.apache.lucene.util.UnicodeUtil;
+import org.elasticsearch.ElasticSearchException;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static org.elasticsearch.rest.action.support.RestXContentBuilder.restContentBuilder;
+import static org.elasticsearch.rest.action.support.RestXContentBuilder.restContentType;
+
+/**
+ * An xcontent response that is built while it is written, allowing channels that support it to stream
+ * the response (for example, using http chunking) instead of building it fully in memory first. Channels
+ * that don't stream it use {@link #content()}, which builds it in memory.
+ */
+public class StreamingXContentRestResponse extends AbstractRestResponse {
+
+    private static final byte[] END_JSONP = new byte[]{')', ';'};
+
+    private final RestRequest request;
+
+    private final RestStatus status;
+
+    private final ToXContent content;
+
+    private XContentRestResponse builtResponse;
+
+    /**
+     * Creates a response which content is the provided xcontent, written within an object.
+     */
+    public StreamingXContentRestResponse(RestRequest request, RestStatus status, ToXContent content) {
+        this.request = request;
+        this.status = status;
+        this.content = content;
+    }
+
+    /**
+     * Writes the response content (including the jsonp prefix and suffix, if needed) to the stream.
+     */
+    public void writeTo(OutputStream os) throws IOException {
+        String callback = request.param("callback");
+        if (callback != null) {
+            UnicodeUtil.UTF8Result prefix = new UnicodeUtil.UTF8Result();
+            UnicodeUtil.UTF16toUTF8(callback, 0, callback.length(), prefix);
+            os.write(prefix.result, 0, prefix.length);
+            os.write('(');
+        }
+        XContentBuilder builder = restContentBuilder(request, os);
+        builder.startObject();
+        content.toXContent(builder, request);
+        builder.endObject();
+        // closing the builder flushes it and returns its buffers, the stream is not completed by closing it
+        builder.close();
+        if (callback != null) {
+            os.write(END_JSONP);
+        }
+    }
+
+    /**
+     * Builds the response fully in memory, to be sent by channels that don't stream responses.
+     */
+    public XContentRestResponse build() throws IOException {
+        if (builtResponse == null) {
+            XContentBuilder builder = restContentBuilder(request);
+            builder.startObject();
+            content.toXContent(builder, request);
+            builder.endObject();
+            builtResponse = new XContentRestResponse(request, status, builder);
+        }
+        return builtResponse;
+    }
+
+    @Override
+    public boolean contentThreadSafe() {
+        return false;
+    }
+
+    @Override
+    public String contentType() {
+        return restContentType(request).restContentType();
+    }
+
+    @Override
+    public byte[] content() throws IOException {
+        return build().content();
+    }
+
+    @Override
+    public int contentLength() throws IOException {
+        return build().contentLength();
+    }
+
+    @Override
+    public byte[] prefixContent() {
+        return safeBuild().prefixContent();
+    }
+
+    @Override
+    public int prefixContentLength() {
+        return safeBuild().prefixContentLength();
+    }
+
+    @Override
+    public byte[] suffixContent() {
+        return safeBuild().suffixContent();
+    }
+
+    @Override
+    public int suffixContentLength() {
+        return safeBuild().suffixContentLength();
+    }
+
+    @Override
+    public RestStatus status() {
+        return this.status;
+    }
+
+    private XContentRestResponse safeBuild() {
+        try {
+            return build();
+        } catch (IOException e) {
+            throw new ElasticSearchException("Failed to build response", e);
+        }
+    }
+}
@@ -28,8 +28,11 @@ import org.elasticsearch.action.index.IndexResponse;
 import org.elasticsearch.action.support.replication.ReplicationType;
 import org.elasticsearch.client.Client;
 import org.elasticsearch.client.Requests;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentBuilderString;
 import org.elasticsearch.rest.*;
@@ -53,11 +56,24 @@ import static org.elasticsearch.rest.action.support.RestXContentBuilder.restCont
  *
  *
  */
-public class RestBulkAction extends BaseRestHandler {
+public class RestBulkAction extends BaseRestHandler implements StreamingRestHandler {
+
+    private final boolean streaming;
+
+    private final ByteSizeValue streamingBatchSize;
+
+    private final int streamingMaxInFlight;
+
+    private final ByteSizeValue streamingMaxActionSize;
 
     @Inject
     public RestBulkAction(Settings settings, Client client, RestController controller) {
         super(settings, client);
+        this.streaming = componentSettings.getAsBoolean("streaming", false);
+        this.streamingBatchSize = componentSettings.getAsBytesSize("streaming_batch_size", new ByteSizeValue(5, ByteSizeUnit.MB));
+        this.streamingMaxInFlight = componentSettings.getAsInt("streaming_max_in_flight", Runtime.getRuntime().availableProcessors());
+        // a single action is still buffered in memory, don't buffer more than a non streamed request could hold
+        this.streamingMaxActionSize = componentSettings.getAsBytesSize("streaming_max_action_size", settings.getAsBytesSize("http.max_content_length", new ByteSizeValue(100, ByteSizeUnit.MB)));
 
         controller.registerHandler(POST, "/_bulk", this);
         controller.registerHandler(PUT, "/_bulk", this);
@@ -68,22 +84,21 @@ public class RestBulkAction extends BaseRestHandler {
     }
 
     @Override
-    public void handleRequest(final RestRequest request, final RestChannel channel) {
-        BulkRequest bulkRequest = Requests.bulkRequest();
-        String defaultIndex = request.param("index");
-        String defaultType = request.param("type");
+    public boolean supportsStreaming(RestRequest request) {
+        return request.paramAsBoolean("stream", streaming);
+    }
 
-        String replicationType = request.param("replication");
-        if (replicationType != null) {
-            bulkRequest.replicationType(ReplicationType.fromString(replicationType));
-        }
-        String consistencyLevel = request.param("consistency");
-        if (consistencyLevel != null) {
-            bulkRequest.consistencyLevel(WriteConsistencyLevel.fromString(consistencyLevel));
-        }
-        bulkRequest.refresh(request.paramAsBoolean("refresh", bulkRequest.refresh()));
+    @Override
+    public ContentConsumer handleStreamingRequest(RestRequest request, RestChannel channel, FlowControl flowControl) {
+        return new StreamingBulkConsumer(client, logger, request, channel, flowControl, (int) streamingBatchSize.bytes(), streamingMaxInFlight,
+                (int) Math.min(Integer.MAX_VALUE - 1, streamingMaxActionSize.bytes()));
+    }
+
+    @Override
+    public void handleRequest(final RestRequest request, final RestChannel channel) {
+        BulkRequest bulkRequest = newBulkRequest(request);
         try {
-            bulkRequest.add(request.contentByteArray(), request.contentByteArrayOffset(), request.contentLength(), request.contentUnsafe(), defaultIndex, defaultType);
+            bulkRequest.add(request.contentByteArray(), request.contentByteArrayOffset(), request.contentLength(), request.contentUnsafe(), request.param("index"), request.param("type"));
         } catch (Exception e) {
             try {
                 XContentBuilder builder = restContentBuilder(request);
@@ -99,40 +114,7 @@ public class RestBulkAction extends BaseRestHandler {
             public void onResponse(BulkResponse response) {
                 try {
                     XContentBuilder builder = restContentBuilder(request);
-                    builder.startObject();
-                    builder.field(Fields.TOOK, response.tookInMillis());
-                    builder.startArray(Fields.ITEMS);
-                    for (BulkItemResponse itemResponse : response) {
-                        builder.startObject();
-                        builder.startObject(itemResponse.opType());
-                        builder.field(Fields._INDEX, itemResponse.index());
-                        builder.field(Fields._TYPE, itemResponse.type());
-                        builder.field(Fields._ID, itemResponse.id());
-                        long version = itemResponse.version();
-                        if (version != -1) {
-                            builder.field(Fields._VERSION, itemResponse.version());
-                        }
-                        if (itemResponse.failed()) {
-                            builder.field(Fields.ERROR, itemResponse.failure().message());
-                        } else {
-                            builder.field(Fields.OK, true);
-                        }
-                        if (itemResponse.response() instanceof IndexResponse) {
-                            IndexResponse indexResponse = itemResponse.response();
-                            if (indexResponse.matches() != null) {
-                                builder.startArray(Fields.MATCHES);
-                                for (String match : indexResponse.matches()) {
-                                    builder.value(match);
-                                }
-                                builder.endArray();
-                            }
-                        }
-                        builder.endObject();
-                        builder.endObject();
-                    }
-                    builder.endArray();
-
-                    builder.endObject();
+                    buildResponse(builder, response.tookInMillis(), response, null);
                     channel.sendResponse(new XContentRestResponse(request, OK, builder));
                 } catch (Exception e) {
                     onFailure(e);
@@ -150,6 +132,63 @@ public class RestBulkAction extends BaseRestHandler {
         });
     }
 
+    static BulkRequest newBulkRequest(RestRequest request) {
+        BulkRequest bulkRequest = Requests.bulkRequest();
+        String replicationType = request.param("replication");
+        if (replicationType != null) {
+            bulkRequest.replicationType(ReplicationType.fromString(replicationType));
+        }
+        String consistencyLevel = request.param("consistency");
+        if (consistencyLevel != null) {
+            bulkRequest.consistencyLevel(WriteConsistencyLevel.fromString(consistencyLevel));
+        }
+        bulkRequest.refresh(request.paramAsBoolean("refresh", bulkRequest.refresh()));
+        return bulkRequest;
+    }
+
+    /**
+     * Builds the bulk response, with a top level <tt>error</tt> if provided (when not all the actions of the
+     * request got executed).
+     */
+    static void buildResponse(XContentBuilder builder, long tookInMillis, Iterable<BulkItemResponse> itemResponses, @Nullable String error) throws IOException {
+        builder.startObject();
+        builder.field(Fields.TOOK, tookInMillis);
+        builder.startArray(Fields.ITEMS);
+        for (BulkItemResponse itemResponse : itemResponses) {
+            builder.startObject();
+            builder.startObject(itemResponse.opType());
+            builder.field(Fields._INDEX, itemResponse.index());
+            builder.field(Fields._TYPE, itemResponse.type());
+            builder.field(Fields._ID, itemResponse.id());
+            long version = itemResponse.version();
+            if (version != -1) {
+                builder.field(Fields._VERSION, itemResponse.version());
+            }
+            if (itemResponse.failed()) {
+                builder.field(Fields.ERROR, itemResponse.failure().message());
+            } else {
+                builder.field(Fields.OK, true);
+            }
+            if (itemResponse.response() instanceof IndexResponse) {
+                IndexResponse indexResponse = itemResponse.response();
+                if (indexResponse.matches() != null) {
+                    builder.startArray(Fields.MATCHES);
+                    for (String match : indexResponse.matches()) {
+                        builder.value(match);
+                    }
+                    builder.endArray();
+                }
+            }
+            builder.endObject();
+            builder.endObject();
+        }
+        builder.endArray();
+        if (error != null) {
+            builder.field(Fields.ERROR, error);
+        }
+        builder.endObject();
+    }
+
     static final class Fields {
         static final XContentBuilderString ITEMS = new XContentBuilderString("items");
         static final XContentBuilderString _INDEX = new XContentBuilderString("_index");
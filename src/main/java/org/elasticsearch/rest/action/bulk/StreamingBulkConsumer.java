@@ -0,0 +1,265 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.rest.action.bulk;
+
+import com.google.common.collect.Iterables;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.rest.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.elasticsearch.rest.RestStatus.BAD_REQUEST;
+import static org.elasticsearch.rest.RestStatus.OK;
+import static org.elasticsearch.rest.action.support.RestXContentBuilder.restContentBuilder;
+
+/**
+ * Consumes a bulk request content as it arrives, executing it in bulk batches of (roughly) the batch size
+ * as soon as they are complete, each one being routed to the relevant shards by the bulk action. Reading
+ * the content is paused while the maximum number of batches are in flight, so memory usage is bounded by
+ * the in flight batches and not by the size of the request.
+ * <p/>
+ * A single action bigger than the max action size fails the request. If the content can't be parsed or a
+ * batch fails, the rest of the content is not executed, and the response holds the items of the batches
+ * already sent (the ones of a failed batch failing with its failure) along with the top level error.
+ */
+class StreamingBulkConsumer implements StreamingRestHandler.ContentConsumer {
+
+    private final Client client;
+
+    private final ESLogger logger;
+
+    private final RestRequest request;
+
+    private final RestChannel channel;
+
+    private final StreamingRestHandler.FlowControl flowControl;
+
+    private final int batchSize;
+
+    private final int maxInFlight;
+
+    private final int maxActionSize;
+
+    private final long startTime = System.currentTimeMillis();
+
+    // the content not consumed by a batch yet
+    private byte[] buffer;
+
+    private int bufferLength;
+
+    // the buffered length at which the next batch is sent
+    private int nextBatchLength;
+
+    // the items responses of each batch, in the order the batches were sent
+    private final List<BulkItemResponse[]> responses = new ArrayList<BulkItemResponse[]>();
+
+    private int inFlight;
+
+    private boolean paused;
+
+    private boolean contentEnded;
+
+    private boolean done;
+
+    private boolean responded;
+
+    private Throwable failure;
+
+    StreamingBulkConsumer(Client client, ESLogger logger, RestRequest request, RestChannel channel, StreamingRestHandler.FlowControl flowControl,
+                          int batchSize, int maxInFlight, int maxActionSize) {
+        this.client = client;
+        this.logger = logger;
+        this.request = request;
+        this.channel = channel;
+        this.flowControl = flowControl;
+        this.batchSize = batchSize;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.maxActionSize = maxActionSize;
+        this.nextBatchLength = batchSize;
+        this.buffer = new byte[Math.min(batchSize, 64 * 1024)];
+    }
+
+    @Override
+    public synchronized void onContent(byte[] data, int offset, int length) {
+        if (done) {
+            return;
+        }
+        if (bufferLength + length > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, bufferLength + length));
+        }
+        System.arraycopy(data, offset, buffer, bufferLength, length);
+        bufferLength += length;
+        if (bufferLength >= nextBatchLength) {
+            sendBatch();
+        }
+    }
+
+    @Override
+    public synchronized void onContentEnd() {
+        if (done) {
+            return;
+        }
+        contentEnded = true;
+        if (bufferLength > 0) {
+            sendBatch();
+        }
+        maybeRespond();
+    }
+
+    private void sendBatch() {
+        // the batch gets its own copy of the buffered content, as the index requests point into it
+        byte[] batch = Arrays.copyOf(buffer, bufferLength);
+        BulkRequest bulkRequest = RestBulkAction.newBulkRequest(request);
+        int consumed;
+        try {
+            consumed = bulkRequest.addComplete(batch, 0, batch.length, false, request.param("index"), request.param("type"));
+        } catch (Exception e) {
+            fail(e);
+            return;
+        }
+        // keep the content of the incomplete trailing action for the next batch
+        System.arraycopy(buffer, consumed, buffer, 0, bufferLength - consumed);
+        bufferLength -= consumed;
+        if (bufferLength > maxActionSize) {
+            fail(new IllegalArgumentException("bulk action is larger than the max action size of [" + maxActionSize + "] bytes"));
+            return;
+        }
+        // a single action bigger than the batch size, wait for more of it before trying again (up to the max action size)
+        nextBatchLength = Math.max(batchSize, (int) Math.min(((long) bufferLength) << 1, maxActionSize + 1l));
+        if (bulkRequest.numberOfActions() == 0) {
+            return;
+        }
+
+        final List<ActionRequest> batchRequests = bulkRequest.requests();
+        final int batchIndex = responses.size();
+        responses.add(null);
+        inFlight++;
+        if (inFlight >= maxInFlight && !paused) {
+            paused = true;
+            flowControl.pause();
+        }
+        client.bulk(bulkRequest, new ActionListener<BulkResponse>() {
+            @Override
+            public void onResponse(BulkResponse response) {
+                onBatchDone(batchIndex, response.items(), null);
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+                onBatchDone(batchIndex, failedItems(batchRequests, e), e);
+            }
+        });
+    }
+
+    private synchronized void onBatchDone(int batchIndex, BulkItemResponse[] items, Throwable e) {
+        inFlight--;
+        responses.set(batchIndex, items);
+        if (e != null) {
+            fail(e);
+            return;
+        }
+        if (paused && inFlight < maxInFlight) {
+            resume();
+        }
+        maybeRespond();
+    }
+
+    /**
+     * Stops executing the content (the rest of it is drained), and responds once the in flight batches are done.
+     */
+    private void fail(Throwable e) {
+        if (failure == null) {
+            failure = e;
+        }
+        done = true;
+        resume();
+        maybeRespond();
+    }
+
+    private static BulkItemResponse[] failedItems(List<ActionRequest> requests, Throwable e) {
+        String message = ExceptionsHelper.detailedMessage(e);
+        BulkItemResponse[] items = new BulkItemResponse[requests.size()];
+        for (int i = 0; i < items.length; i++) {
+            ActionRequest request = requests.get(i);
+            if (request instanceof IndexRequest) {
+                IndexRequest indexRequest = (IndexRequest) request;
+                items[i] = new BulkItemResponse(i, indexRequest.opType().toString().toLowerCase(),
+                        new BulkItemResponse.Failure(indexRequest.index(), indexRequest.type(), indexRequest.id(), message));
+            } else if (request instanceof DeleteRequest) {
+                DeleteRequest deleteRequest = (DeleteRequest) request;
+                items[i] = new BulkItemResponse(i, "delete",
+                        new BulkItemResponse.Failure(deleteRequest.index(), deleteRequest.type(), deleteRequest.id(), message));
+            }
+        }
+        return items;
+    }
+
+    private void resume() {
+        if (paused) {
+            paused = false;
+            flowControl.resume();
+        }
+    }
+
+    private void maybeRespond() {
+        if (responded || inFlight > 0) {
+            return;
+        }
+        if (failure == null && !contentEnded) {
+            return;
+        }
+        responded = true;
+        done = true;
+        List<Iterable<BulkItemResponse>> items = new ArrayList<Iterable<BulkItemResponse>>(responses.size());
+        for (BulkItemResponse[] batchItems : responses) {
+            items.add(Arrays.asList(batchItems));
+        }
+        try {
+            XContentBuilder builder = restContentBuilder(request);
+            if (failure != null && responses.isEmpty()) {
+                // nothing got executed, same as a non streamed bulk request failing to parse
+                channel.sendResponse(new XContentRestResponse(request, BAD_REQUEST, builder.startObject().field("error", failure.getMessage()).endObject()));
+                return;
+            }
+            String error = failure == null ? null : ExceptionsHelper.detailedMessage(failure);
+            RestBulkAction.buildResponse(builder, System.currentTimeMillis() - startTime, Iterables.concat(items), error);
+            channel.sendResponse(new XContentRestResponse(request, OK, builder));
+        } catch (Exception e) {
+            try {
+                channel.sendResponse(new XContentThrowableRestResponse(request, e));
+            } catch (IOException e1) {
+                logger.error("Failed to send failure response", e1);
+            }
+        }
+    }
+}
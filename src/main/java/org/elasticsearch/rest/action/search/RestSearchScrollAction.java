@@ -88,11 +88,8 @@ public class RestSearchScrollAction extends BaseRestHandler {
             @Override
             public void onResponse(SearchResponse response) {
                 try {
-                    XContentBuilder builder = restContentBuilder(request);
-                    builder.startObject();
-                    response.toXContent(builder, request);
-                    builder.endObject();
-                    channel.sendResponse(new XContentRestResponse(request, response.status(), builder));
+                    // stream the response, so big responses are not built fully in memory before being sent
+                    channel.sendResponse(new StreamingXContentRestResponse(request, response.status(), response));
                 } catch (Exception e) {
                     onFailure(e);
                 }
@@ -19,22 +19,24 @@
 
 package org.elasticsearch.rest.action.support;
 
-import org.elasticsearch.common.compress.lzf.LZF;
+import org.elasticsearch.common.compress.Compressor;
+import org.elasticsearch.common.compress.CompressorFactory;
 import org.elasticsearch.common.io.stream.BytesStreamInput;
 import org.elasticsearch.common.io.stream.CachedStreamInput;
 import org.elasticsearch.common.io.stream.CachedStreamOutput;
-import org.elasticsearch.common.io.stream.LZFStreamInput;
+import org.elasticsearch.common.io.stream.CompressedStreamInput;
 import org.elasticsearch.common.xcontent.*;
 import org.elasticsearch.rest.RestRequest;
 
 import java.io.IOException;
+import java.io.OutputStream;
 
 /**
  *
  */
 public class RestXContentBuilder {
 
-    public static XContentBuilder restContentBuilder(RestRequest request) throws IOException {
+    public static XContentType restContentType(RestRequest request) {
         XContentType contentType = XContentType.fromRestContentType(request.header("Content-Type"));
         if (contentType == null) {
             // try and guess it from the body, if exists
@@ -46,8 +48,23 @@ public class RestXContentBuilder {
             // default to JSON
             contentType = XContentType.JSON;
         }
+        return contentType;
+    }
+
+    public static XContentBuilder restContentBuilder(RestRequest request) throws IOException {
         CachedStreamOutput.Entry cachedEntry = CachedStreamOutput.popEntry();
-        XContentBuilder builder = new XContentBuilder(XContentFactory.xContent(contentType), cachedEntry.cachedBytes(), cachedEntry);
+        XContentBuilder builder = new XContentBuilder(XContentFactory.xContent(restContentType(request)), cachedEntry.cachedBytes(), cachedEntry);
+        return configure(request, builder);
+    }
+
+    /**
+     * A builder writing directly into the provided stream, used when streaming the response.
+     */
+    public static XContentBuilder restContentBuilder(RestRequest request, OutputStream os) throws IOException {
+        return configure(request, new XContentBuilder(XContentFactory.xContent(restContentType(request)), os));
+    }
+
+    private static XContentBuilder configure(RestRequest request, XContentBuilder builder) {
         if (request.paramAsBoolean("pretty", false)) {
             builder.prettyPrint();
         }
@@ -67,15 +84,16 @@ public class RestXContentBuilder {
     }
 
     public static void restDocumentSource(byte[] source, int offset, int length, XContentBuilder builder, ToXContent.Params params) throws IOException {
-        if (LZF.isCompressed(source, offset, length)) {
+        Compressor compressor = CompressorFactory.compressor(source, offset, length);
+        if (compressor != null) {
             BytesStreamInput siBytes = new BytesStreamInput(source, offset, length);
-            LZFStreamInput siLzf = CachedStreamInput.cachedLzf(siBytes);
-            XContentType contentType = XContentFactory.xContentType(siLzf);
-            siLzf.resetToBufferStart();
+            CompressedStreamInput siCompressed = CachedStreamInput.cachedCompressed(compressor, siBytes);
+            XContentType contentType = XContentFactory.xContentType(siCompressed);
+            siCompressed.resetToBufferStart();
             if (contentType == builder.contentType()) {
-                builder.rawField("_source", siLzf);
+                builder.rawField("_source", siCompressed);
             } else {
-                XContentParser parser = XContentFactory.xContent(contentType).createParser(siLzf);
+                XContentParser parser = XContentFactory.xContent(contentType).createParser(siCompressed);
                 try {
                     parser.nextToken();
                     builder.field("_source");
@@ -89,7 +107,7 @@ public class RestXContentBuilder {
             if (contentType == builder.contentType()) {
                 builder.rawField("_source", source, offset, length);
             } else {
-                XContentParser parser = XContentFactory.xContent(contentType).createParser(source);
+                XContentParser parser = XContentFactory.xContent(contentType).createCachedParser(source, offset, length);
                 try {
                     parser.nextToken();
                     builder.field("_source");
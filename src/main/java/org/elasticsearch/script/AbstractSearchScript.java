@@ -59,6 +59,35 @@ public abstract class AbstractSearchScript extends AbstractExecutableScript impl
         return lookup.doc();
     }
 
+    /**
+     * Returns the (first) long value of the provided numeric field for the current doc, reading it directly
+     * from the field data without boxing.
+     */
+    protected final long docFieldLong(String field) {
+        return lookup.doc().longValue(field);
+    }
+
+    /**
+     * Returns the (first) int value of the provided numeric field for the current doc without boxing.
+     */
+    protected final int docFieldInt(String field) {
+        return lookup.doc().intValue(field);
+    }
+
+    /**
+     * Returns the (first) double value of the provided numeric field for the current doc without boxing.
+     */
+    protected final double docFieldDouble(String field) {
+        return lookup.doc().doubleValue(field);
+    }
+
+    /**
+     * Returns the (first) float value of the provided numeric field for the current doc without boxing.
+     */
+    protected final float docFieldFloat(String field) {
+        return lookup.doc().floatValue(field);
+    }
+
     /**
      * Allows to access the actual source (loaded and parsed).
      */
@@ -91,6 +91,8 @@ public class SearchSourceBuilder implements ToXContent {
 
     private boolean trackScores = false;
 
+    private Object[] searchAfter;
+
     private Float minScore;
 
     private List<String> fieldNames;
@@ -315,6 +317,16 @@ public class SearchSourceBuilder implements ToXContent {
         return this;
     }
 
+    /**
+     * Only returns hits sorting after the provided sort values, which are usually the sort values of the
+     * last hit of the previous page. A unique sort field should be used last, as hits with the exact same
+     * sort values are not returned.
+     */
+    public SearchSourceBuilder searchAfter(Object... values) {
+        this.searchAfter = values;
+        return this;
+    }
+
     /**
      * Add a facet to perform as part of the search.
      */
@@ -612,6 +624,14 @@ public class SearchSourceBuilder implements ToXContent {
             }
         }
 
+        if (searchAfter != null) {
+            builder.startArray("search_after");
+            for (Object value : searchAfter) {
+                builder.value(value);
+            }
+            builder.endArray();
+        }
+
         if (indexBoost != null) {
             builder.startObject("indices_boost");
             for (TObjectFloatIterator<String> it = indexBoost.iterator(); it.hasNext(); ) {
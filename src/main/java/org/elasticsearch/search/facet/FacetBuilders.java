@@ -21,6 +21,7 @@ package org.elasticsearch.search.facet;
 
 import org.elasticsearch.index.query.FilterBuilder;
 import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.search.facet.cardinality.CardinalityFacetBuilder;
 import org.elasticsearch.search.facet.datehistogram.DateHistogramFacetBuilder;
 import org.elasticsearch.search.facet.filter.FilterFacetBuilder;
 import org.elasticsearch.search.facet.geodistance.GeoDistanceFacetBuilder;
@@ -71,6 +72,10 @@ public class FacetBuilders {
         return new StatisticalScriptFacetBuilder(facetName);
     }
 
+    public static CardinalityFacetBuilder cardinalityFacet(String facetName) {
+        return new CardinalityFacetBuilder(facetName);
+    }
+
     public static HistogramFacetBuilder histogramFacet(String facetName) {
         return new HistogramFacetBuilder(facetName);
     }
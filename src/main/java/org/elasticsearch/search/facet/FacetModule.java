@@ -22,6 +22,7 @@ package org.elasticsearch.search.facet;
 import com.google.common.collect.Lists;
 import org.elasticsearch.common.inject.AbstractModule;
 import org.elasticsearch.common.inject.multibindings.Multibinder;
+import org.elasticsearch.search.facet.cardinality.CardinalityFacetProcessor;
 import org.elasticsearch.search.facet.datehistogram.DateHistogramFacetProcessor;
 import org.elasticsearch.search.facet.filter.FilterFacetProcessor;
 import org.elasticsearch.search.facet.geodistance.GeoDistanceFacetProcessor;
@@ -51,6 +52,7 @@ public class FacetModule extends AbstractModule {
         processors.add(StatisticalFacetProcessor.class);
         processors.add(TermsFacetProcessor.class);
         processors.add(TermsStatsFacetProcessor.class);
+        processors.add(CardinalityFacetProcessor.class);
     }
 
     public void addFacetProcessor(Class<? extends FacetProcessor> facetProcessor) {
@@ -20,6 +20,7 @@
 package org.elasticsearch.search.facet;
 
 import org.elasticsearch.common.inject.AbstractModule;
+import org.elasticsearch.search.facet.cardinality.InternalCardinalityFacet;
 import org.elasticsearch.search.facet.datehistogram.InternalDateHistogramFacet;
 import org.elasticsearch.search.facet.filter.InternalFilterFacet;
 import org.elasticsearch.search.facet.geodistance.InternalGeoDistanceFacet;
@@ -46,5 +47,6 @@ public class TransportFacetModule extends AbstractModule {
         InternalStatisticalFacet.registerStreams();
         InternalTermsFacet.registerStreams();
         InternalTermsStatsFacet.registerStreams();
+        InternalCardinalityFacet.registerStreams();
     }
 }
@@ -0,0 +1,175 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.facet.cardinality;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.util.FixedBitSet;
+import org.elasticsearch.index.cache.field.data.FieldDataCache;
+import org.elasticsearch.index.field.data.FieldData;
+import org.elasticsearch.index.field.data.FieldDataType;
+import org.elasticsearch.index.field.data.bytes.ByteFieldData;
+import org.elasticsearch.index.field.data.doubles.DoubleFieldData;
+import org.elasticsearch.index.field.data.floats.FloatFieldData;
+import org.elasticsearch.index.field.data.ints.IntFieldData;
+import org.elasticsearch.index.field.data.longs.LongFieldData;
+import org.elasticsearch.index.field.data.shorts.ShortFieldData;
+import org.elasticsearch.index.field.data.strings.StringFieldData;
+import org.elasticsearch.index.mapper.MapperService;
+import org.elasticsearch.search.facet.AbstractFacetCollector;
+import org.elasticsearch.search.facet.Facet;
+import org.elasticsearch.search.facet.FacetPhaseExecutionException;
+import org.elasticsearch.search.internal.SearchContext;
+
+import java.io.IOException;
+
+/**
+ * Collects the field data ordinals matched in each segment, and offers the hash of each distinct value
+ * to the sketch once the segment is done, so every value is hashed at most once per segment.
+ */
+public class CardinalityFacetCollector extends AbstractFacetCollector {
+
+    private final String indexFieldName;
+
+    private final FieldDataCache fieldDataCache;
+
+    private final FieldDataType fieldDataType;
+
+    private final HyperLogLog sketch;
+
+    private FieldData fieldData;
+
+    private final OrdinalsProc ordinalsProc = new OrdinalsProc();
+
+    public CardinalityFacetCollector(String facetName, String fieldName, int precision, SearchContext context) {
+        super(facetName);
+        this.fieldDataCache = context.fieldDataCache();
+        this.sketch = new HyperLogLog(precision);
+
+        MapperService.SmartNameFieldMappers smartMappers = context.smartFieldMappers(fieldName);
+        if (smartMappers == null || !smartMappers.hasMapper()) {
+            throw new FacetPhaseExecutionException(facetName, "No mapping found for field [" + fieldName + "]");
+        }
+
+        // add type filter if there is exact doc mapper associated with it
+        if (smartMappers.hasDocMapper() && smartMappers.explicitTypeInName()) {
+            setFilter(context.filterCache().cache(smartMappers.docMapper().typeFilter()));
+        }
+
+        indexFieldName = smartMappers.mapper().names().indexName();
+        fieldDataType = smartMappers.mapper().fieldDataType();
+    }
+
+    @Override
+    protected void doCollect(int doc) throws IOException {
+        fieldData.forEachOrdinalInDoc(doc, ordinalsProc);
+    }
+
+    @Override
+    protected void doSetNextReader(IndexReader reader, int docBase) throws IOException {
+        offerSeenValues();
+        fieldData = fieldDataCache.cache(fieldDataType, reader, indexFieldName);
+        ordinalsProc.reset(numberOfValues(fieldData));
+    }
+
+    @Override
+    public Facet facet() {
+        offerSeenValues();
+        fieldData = null;
+        return new InternalCardinalityFacet(facetName, sketch);
+    }
+
+    private void offerSeenValues() {
+        if (fieldData == null) {
+            return;
+        }
+        FixedBitSet seen = ordinalsProc.seen;
+        int numberOfValues = ordinalsProc.numberOfValues;
+        // ordinal 0 is used for documents without a value
+        for (int ordinal = nextSeen(seen, 1, numberOfValues); ordinal != -1; ordinal = nextSeen(seen, ordinal + 1, numberOfValues)) {
+            sketch.offer(hash(fieldData, ordinal));
+        }
+    }
+
+    private static int nextSeen(FixedBitSet seen, int from, int numberOfValues) {
+        if (from >= numberOfValues) {
+            return -1;
+        }
+        int next = seen.nextSetBit(from);
+        return next >= numberOfValues ? -1 : next;
+    }
+
+    private static int numberOfValues(FieldData fieldData) {
+        if (fieldData instanceof StringFieldData) {
+            return ((StringFieldData) fieldData).values().length;
+        } else if (fieldData instanceof LongFieldData) {
+            return ((LongFieldData) fieldData).values().length;
+        } else if (fieldData instanceof IntFieldData) {
+            return ((IntFieldData) fieldData).values().length;
+        } else if (fieldData instanceof ShortFieldData) {
+            return ((ShortFieldData) fieldData).values().length;
+        } else if (fieldData instanceof ByteFieldData) {
+            return ((ByteFieldData) fieldData).values().length;
+        } else if (fieldData instanceof DoubleFieldData) {
+            return ((DoubleFieldData) fieldData).values().length;
+        } else if (fieldData instanceof FloatFieldData) {
+            return ((FloatFieldData) fieldData).values().length;
+        }
+        throw new FacetPhaseExecutionException(fieldData.fieldName(), "unsupported field data type [" + fieldData.type() + "] for cardinality facet");
+    }
+
+    private static long hash(FieldData fieldData, int ordinal) {
+        if (fieldData instanceof StringFieldData) {
+            return HyperLogLog.hash(((StringFieldData) fieldData).values()[ordinal]);
+        } else if (fieldData instanceof LongFieldData) {
+            return HyperLogLog.hash(((LongFieldData) fieldData).values()[ordinal]);
+        } else if (fieldData instanceof IntFieldData) {
+            return HyperLogLog.hash(((IntFieldData) fieldData).values()[ordinal]);
+        } else if (fieldData instanceof ShortFieldData) {
+            return HyperLogLog.hash(((ShortFieldData) fieldData).values()[ordinal]);
+        } else if (fieldData instanceof ByteFieldData) {
+            return HyperLogLog.hash(((ByteFieldData) fieldData).values()[ordinal]);
+        } else if (fieldData instanceof DoubleFieldData) {
+            return HyperLogLog.hash(Double.doubleToLongBits(((DoubleFieldData) fieldData).values()[ordinal]));
+        } else {
+            return HyperLogLog.hash(Double.doubleToLongBits(((FloatFieldData) fieldData).values()[ordinal]));
+        }
+    }
+
+    static class OrdinalsProc implements FieldData.OrdinalInDocProc {
+
+        FixedBitSet seen;
+
+        int numberOfValues;
+
+        void reset(int numberOfValues) {
+            this.numberOfValues = numberOfValues;
+            if (seen == null || seen.length() < numberOfValues) {
+                seen = new FixedBitSet(numberOfValues);
+            } else {
+                seen.clear(0, seen.length());
+            }
+        }
+
+        @Override
+        public void onOrdinal(int docId, int ordinal) {
+            seen.set(ordinal);
+        }
+    }
+}
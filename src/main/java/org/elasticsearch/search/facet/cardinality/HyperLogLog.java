@@ -0,0 +1,182 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.facet.cardinality;
+
+import org.apache.lucene.util.UnicodeUtil;
+import org.elasticsearch.ElasticSearchIllegalArgumentException;
+import org.elasticsearch.common.Unicode;
+import org.elasticsearch.common.bloom.MurmurHash;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.IOException;
+
+/**
+ * A HyperLogLog sketch estimating the number of distinct hashes offered to it using a fixed
+ * <tt>2^precision</tt> bytes, no matter how many distinct values there are. Small cardinalities are
+ * estimated using linear counting, with the switch over thresholds taken from the HyperLogLog++ paper.
+ * <p/>
+ * Sketches of the same precision can be merged, the result being the same as if all the hashes were
+ * offered to a single sketch.
+ */
+public class HyperLogLog {
+
+    public static final int MIN_PRECISION = 4;
+
+    public static final int MAX_PRECISION = 18;
+
+    public static final int DEFAULT_PRECISION = 14;
+
+    // empirical thresholds below which linear counting is more accurate, indexed by precision - MIN_PRECISION
+    private static final int[] LINEAR_COUNTING_THRESHOLDS = new int[]{
+            10, 20, 40, 80, 220, 400, 900, 1800, 3100, 6500, 11500, 20000, 50000, 120000, 350000
+    };
+
+    private final int precision;
+
+    private final byte[] registers;
+
+    public HyperLogLog(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new ElasticSearchIllegalArgumentException("precision must be between [" + MIN_PRECISION + "] and [" + MAX_PRECISION + "], got [" + precision + "]");
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    public int precision() {
+        return precision;
+    }
+
+    /**
+     * Offers a 64 bit hash of a value, see {@link #hash(long)} and {@link #hash(String)}.
+     */
+    public void offer(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        // the sentinel bit bounds the rank when all the remaining bits are 0
+        long w = (hash << precision) | (1L << (precision - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(w) + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+        }
+    }
+
+    /**
+     * Merges the other sketch into this one.
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new ElasticSearchIllegalArgumentException("can't merge sketches with different precisions [" + precision + "] and [" + other.precision + "]");
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    public long cardinality() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        if (zeros > 0) {
+            double linearCount = m * Math.log((double) m / zeros);
+            if (linearCount <= LINEAR_COUNTING_THRESHOLDS[precision - MIN_PRECISION]) {
+                return Math.round(linearCount);
+            }
+        }
+        return Math.round(alpha(m) * m * m / sum);
+    }
+
+    private static double alpha(int m) {
+        switch (m) {
+            case 16:
+                return 0.673;
+            case 32:
+                return 0.697;
+            case 64:
+                return 0.709;
+            default:
+                return 0.7213 / (1 + 1.079 / m);
+        }
+    }
+
+    /**
+     * Hashes a numeric value, floating point values should be passed as {@link Double#doubleToLongBits(double)}.
+     */
+    public static long hash(long value) {
+        // murmur3 64 bit finalizer
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    public static long hash(String value) {
+        UnicodeUtil.UTF8Result utf8 = Unicode.unsafeFromStringAsUtf8(value);
+        return MurmurHash.hash64(utf8.result, 0, utf8.length, 0);
+    }
+
+    public static HyperLogLog readFrom(StreamInput in) throws IOException {
+        HyperLogLog sketch = new HyperLogLog(in.readByte());
+        if (in.readBoolean()) {
+            // sparse, only the non empty registers
+            int size = in.readVInt();
+            for (int i = 0; i < size; i++) {
+                sketch.registers[in.readVInt()] = in.readByte();
+            }
+        } else {
+            in.readFully(sketch.registers);
+        }
+        return sketch;
+    }
+
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeByte((byte) precision);
+        int nonEmpty = 0;
+        for (byte register : registers) {
+            if (register != 0) {
+                nonEmpty++;
+            }
+        }
+        // an index and a register take at most 4 bytes, use the dense form once it gets smaller
+        if (nonEmpty * 4 < registers.length) {
+            out.writeBoolean(true);
+            out.writeVInt(nonEmpty);
+            for (int i = 0; i < registers.length; i++) {
+                if (registers[i] != 0) {
+                    out.writeVInt(i);
+                    out.writeByte(registers[i]);
+                }
+            }
+        } else {
+            out.writeBoolean(false);
+            out.writeBytes(registers);
+        }
+    }
+}
@@ -23,6 +23,7 @@ import gnu.trove.map.hash.TLongLongHashMap;
 import org.apache.lucene.index.IndexReader;
 import org.elasticsearch.common.CacheRecycler;
 import org.elasticsearch.index.cache.field.data.FieldDataCache;
+import org.elasticsearch.index.field.data.FieldData;
 import org.elasticsearch.index.field.data.FieldDataType;
 import org.elasticsearch.index.field.data.longs.LongFieldData;
 import org.elasticsearch.index.mapper.FieldMapper;
@@ -45,8 +46,6 @@ public class CountDateHistogramFacetCollector extends AbstractFacetCollector {
 
     private final String indexFieldName;
 
-    private final MutableDateTime dateTime;
-
     private final DateHistogramFacet.ComparatorType comparatorType;
 
     private final FieldDataCache fieldDataCache;
@@ -59,7 +58,6 @@ public class CountDateHistogramFacetCollector extends AbstractFacetCollector {
 
     public CountDateHistogramFacetCollector(String facetName, String fieldName, MutableDateTime dateTime, long interval, DateHistogramFacet.ComparatorType comparatorType, SearchContext context) {
         super(facetName);
-        this.dateTime = dateTime;
         this.comparatorType = comparatorType;
         this.fieldDataCache = context.fieldDataCache();
 
@@ -78,21 +76,18 @@ public class CountDateHistogramFacetCollector extends AbstractFacetCollector {
         indexFieldName = mapper.names().indexName();
         fieldDataType = mapper.fieldDataType();
 
-        if (interval == 1) {
-            histoProc = new DateHistogramProc();
-        } else {
-            histoProc = new IntervalDateHistogramProc(interval);
-        }
+        histoProc = new DateHistogramProc(new OrdinalDateBuckets(dateTime, interval));
     }
 
     @Override
     protected void doCollect(int doc) throws IOException {
-        fieldData.forEachValueInDoc(doc, dateTime, histoProc);
+        fieldData.forEachOrdinalInDoc(doc, histoProc);
     }
 
     @Override
     protected void doSetNextReader(IndexReader reader, int docBase) throws IOException {
         fieldData = (LongFieldData) fieldDataCache.cache(fieldDataType, reader, indexFieldName);
+        histoProc.buckets.reset(fieldData);
     }
 
     @Override
@@ -104,32 +99,25 @@ public class CountDateHistogramFacetCollector extends AbstractFacetCollector {
         return ((value / interval) * interval);
     }
 
-    public static class DateHistogramProc implements LongFieldData.DateValueInDocProc {
+    public static class DateHistogramProc implements FieldData.OrdinalInDocProc {
 
         protected final TLongLongHashMap counts = CacheRecycler.popLongLongMap();
 
-        @Override
-        public void onValue(int docId, MutableDateTime dateTime) {
-            counts.adjustOrPutValue(dateTime.getMillis(), 1, 1);
-        }
+        final OrdinalDateBuckets buckets;
 
-        public TLongLongHashMap counts() {
-            return counts;
+        public DateHistogramProc(OrdinalDateBuckets buckets) {
+            this.buckets = buckets;
         }
-    }
 
-    public static class IntervalDateHistogramProc extends DateHistogramProc {
-
-        private final long interval;
-
-        public IntervalDateHistogramProc(long interval) {
-            this.interval = interval;
+        @Override
+        public void onOrdinal(int docId, int ordinal) {
+            if (ordinal != 0) {
+                counts.adjustOrPutValue(buckets.bucket(ordinal), 1, 1);
+            }
         }
 
-        @Override
-        public void onValue(int docId, MutableDateTime dateTime) {
-            long bucket = bucket(dateTime.getMillis(), interval);
-            counts.adjustOrPutValue(bucket, 1, 1);
+        public TLongLongHashMap counts() {
+            return counts;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.facet.datehistogram;
+
+import org.elasticsearch.index.field.data.longs.LongFieldData;
+import org.joda.time.MutableDateTime;
+
+import java.util.Arrays;
+
+/**
+ * Maps the ordinals of a segment's date field data to their histogram bucket. Rounding (and the
+ * interval) is monotone and the values are sorted by ordinal, so each bucket covers a contiguous
+ * range of ordinals. The boundaries of those ranges are computed once per segment, over the whole
+ * <tt>[min, max]</tt> range of its values, with a galloping search that rounds a handful of values per
+ * bucket instead of each value. An ordinal is then mapped to its bucket with a binary search over the
+ * boundaries, which only takes memory per bucket, not per value.
+ */
+public class OrdinalDateBuckets {
+
+    private final MutableDateTime dateTime;
+
+    private final long interval;
+
+    // the first ordinal of each bucket, and its key
+    private int[] starts = new int[16];
+
+    private long[] keys = new long[16];
+
+    private int size;
+
+    public OrdinalDateBuckets(MutableDateTime dateTime, long interval) {
+        this.dateTime = dateTime;
+        this.interval = interval;
+    }
+
+    /**
+     * Computes the bucket boundaries for the (per segment) field data.
+     */
+    public void reset(LongFieldData fieldData) {
+        long[] values = fieldData.values();
+        size = 0;
+        int last = values.length - 1;
+        int ordinal = 1;
+        while (ordinal <= last) {
+            long key = round(values[ordinal]);
+            // gallop until an ordinal past the bucket (or the end), then binary search the bucket end in between
+            int lo = ordinal;
+            int hi = ordinal + 1;
+            int step = 1;
+            while (hi <= last && round(values[hi]) == key) {
+                lo = hi;
+                step <<= 1;
+                hi = ordinal + step;
+            }
+            if (hi > last + 1) {
+                hi = last + 1;
+            }
+            while (hi - lo > 1) {
+                int mid = (lo + hi) >>> 1;
+                if (round(values[mid]) == key) {
+                    lo = mid;
+                } else {
+                    hi = mid;
+                }
+            }
+            add(ordinal, key);
+            ordinal = hi;
+        }
+    }
+
+    /**
+     * The number of buckets the values of the current segment fall in.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * The bucket of the provided (non <tt>0</tt>) ordinal.
+     */
+    public long bucket(int ordinal) {
+        int index = Arrays.binarySearch(starts, 0, size, ordinal);
+        if (index < 0) {
+            // the insertion point is the bucket after the one holding the ordinal
+            index = -index - 2;
+        }
+        return keys[index];
+    }
+
+    private long round(long value) {
+        dateTime.setMillis(value);
+        long bucket = dateTime.getMillis();
+        if (interval != 1) {
+            bucket = CountDateHistogramFacetCollector.bucket(bucket, interval);
+        }
+        return bucket;
+    }
+
+    private void add(int start, long key) {
+        if (size == starts.length) {
+            starts = Arrays.copyOf(starts, size << 1);
+            keys = Arrays.copyOf(keys, size << 1);
+        }
+        starts[size] = start;
+        keys[size] = key;
+        size++;
+    }
+}
@@ -23,6 +23,7 @@ import org.apache.lucene.index.IndexReader;
 import org.elasticsearch.common.CacheRecycler;
 import org.elasticsearch.common.trove.ExtTLongObjectHashMap;
 import org.elasticsearch.index.cache.field.data.FieldDataCache;
+import org.elasticsearch.index.field.data.FieldData;
 import org.elasticsearch.index.field.data.FieldDataType;
 import org.elasticsearch.index.field.data.NumericFieldData;
 import org.elasticsearch.index.field.data.longs.LongFieldData;
@@ -44,9 +45,6 @@ public class ValueDateHistogramFacetCollector extends AbstractFacetCollector {
     private final String keyIndexFieldName;
     private final String valueIndexFieldName;
 
-    private MutableDateTime dateTime;
-    private final long interval;
-
     private final DateHistogramFacet.ComparatorType comparatorType;
 
     private final FieldDataCache fieldDataCache;
@@ -60,8 +58,6 @@ public class ValueDateHistogramFacetCollector extends AbstractFacetCollector {
 
     public ValueDateHistogramFacetCollector(String facetName, String keyFieldName, String valueFieldName, MutableDateTime dateTime, long interval, DateHistogramFacet.ComparatorType comparatorType, SearchContext context) {
         super(facetName);
-        this.dateTime = dateTime;
-        this.interval = interval;
         this.comparatorType = comparatorType;
         this.fieldDataCache = context.fieldDataCache();
 
@@ -85,17 +81,18 @@ public class ValueDateHistogramFacetCollector extends AbstractFacetCollector {
         valueIndexFieldName = mapper.names().indexName();
         valueFieldDataType = mapper.fieldDataType();
 
-        this.histoProc = new DateHistogramProc(interval);
+        this.histoProc = new DateHistogramProc(new OrdinalDateBuckets(dateTime, interval));
     }
 
     @Override
     protected void doCollect(int doc) throws IOException {
-        keyFieldData.forEachValueInDoc(doc, dateTime, histoProc);
+        keyFieldData.forEachOrdinalInDoc(doc, histoProc);
     }
 
     @Override
     protected void doSetNextReader(IndexReader reader, int docBase) throws IOException {
         keyFieldData = (LongFieldData) fieldDataCache.cache(keyFieldDataType, reader, keyIndexFieldName);
+        histoProc.buckets.reset(keyFieldData);
         histoProc.valueFieldData = (NumericFieldData) fieldDataCache.cache(valueFieldDataType, reader, valueIndexFieldName);
     }
 
@@ -104,26 +101,26 @@ public class ValueDateHistogramFacetCollector extends AbstractFacetCollector {
         return new InternalFullDateHistogramFacet(facetName, comparatorType, histoProc.entries, true);
     }
 
-    public static class DateHistogramProc implements LongFieldData.DateValueInDocProc {
+    public static class DateHistogramProc implements FieldData.OrdinalInDocProc {
 
         final ExtTLongObjectHashMap<InternalFullDateHistogramFacet.FullEntry> entries = CacheRecycler.popLongObjectMap();
 
-        private final long interval;
+        final OrdinalDateBuckets buckets;
 
         NumericFieldData valueFieldData;
 
         final ValueAggregator valueAggregator = new ValueAggregator();
 
-        public DateHistogramProc(long interval) {
-            this.interval = interval;
+        public DateHistogramProc(OrdinalDateBuckets buckets) {
+            this.buckets = buckets;
         }
 
         @Override
-        public void onValue(int docId, MutableDateTime dateTime) {
-            long time = dateTime.getMillis();
-            if (interval != 1) {
-                time = CountDateHistogramFacetCollector.bucket(time, interval);
+        public void onOrdinal(int docId, int ordinal) {
+            if (ordinal == 0) {
+                return;
             }
+            long time = buckets.bucket(ordinal);
 
             InternalFullDateHistogramFacet.FullEntry entry = entries.get(time);
             if (entry == null) {
@@ -25,7 +25,6 @@ import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.util.PriorityQueue;
 import org.elasticsearch.ElasticSearchIllegalArgumentException;
 import org.elasticsearch.common.CacheRecycler;
-import org.elasticsearch.common.collect.BoundedTreeSet;
 import org.elasticsearch.index.cache.field.data.FieldDataCache;
 import org.elasticsearch.index.field.data.FieldData;
 import org.elasticsearch.index.field.data.FieldDataType;
@@ -34,7 +33,7 @@ import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.search.facet.AbstractFacetCollector;
 import org.elasticsearch.search.facet.Facet;
 import org.elasticsearch.search.facet.terms.TermsFacet;
-import org.elasticsearch.search.facet.terms.support.EntryPriorityQueue;
+import org.elasticsearch.search.facet.terms.support.PrimitiveEntryPriorityQueue;
 import org.elasticsearch.search.internal.SearchContext;
 
 import java.io.IOException;
@@ -153,46 +152,12 @@ public class TermsByteOrdinalsFacetCollector extends AbstractFacetCollector {
             }
         }
 
-        // YACK, we repeat the same logic, but once with an optimizer priority queue for smaller sizes
-        if (size < EntryPriorityQueue.LIMIT) {
-            // optimize to use priority size
-            EntryPriorityQueue ordered = new EntryPriorityQueue(size, comparatorType.comparator());
-
-            while (queue.size() > 0) {
-                ReaderAggregator agg = queue.top();
-                byte value = agg.current;
-                int count = 0;
-                do {
-                    count += agg.counts[agg.position];
-                    if (agg.nextPosition()) {
-                        agg = queue.updateTop();
-                    } else {
-                        // we are done with this reader
-                        queue.pop();
-                        agg = queue.top();
-                    }
-                } while (agg != null && value == agg.current);
-
-                if (count > minCount) {
-                    if (excluded == null || !excluded.contains(value)) {
-                        InternalByteTermsFacet.ByteEntry entry = new InternalByteTermsFacet.ByteEntry(value, count);
-                        ordered.insertWithOverflow(entry);
-                    }
-                }
-            }
-            InternalByteTermsFacet.ByteEntry[] list = new InternalByteTermsFacet.ByteEntry[ordered.size()];
-            for (int i = ordered.size() - 1; i >= 0; i--) {
-                list[i] = (InternalByteTermsFacet.ByteEntry) ordered.pop();
-            }
-
-            for (ReaderAggregator aggregator : aggregators) {
-                CacheRecycler.pushIntArray(aggregator.counts);
-            }
-
-            return new InternalByteTermsFacet(facetName, comparatorType, size, Arrays.asList(list), missing, total);
+        // bound the queue by the number of distinct terms, so large sizes don't allocate more than needed
+        int maxTerms = 0;
+        for (ReaderAggregator aggregator : aggregators) {
+            maxTerms += aggregator.values.length - 1;
         }
-
-        BoundedTreeSet<InternalByteTermsFacet.ByteEntry> ordered = new BoundedTreeSet<InternalByteTermsFacet.ByteEntry>(comparatorType.comparator(), size);
+        PrimitiveEntryPriorityQueue ordered = new PrimitiveEntryPriorityQueue(Math.min(size, maxTerms), comparatorType);
 
         while (queue.size() > 0) {
             ReaderAggregator agg = queue.top();
@@ -211,17 +176,22 @@ public class TermsByteOrdinalsFacetCollector extends AbstractFacetCollector {
 
             if (count > minCount) {
                 if (excluded == null || !excluded.contains(value)) {
-                    InternalByteTermsFacet.ByteEntry entry = new InternalByteTermsFacet.ByteEntry(value, count);
-                    ordered.add(entry);
+                    ordered.insert(value, count);
                 }
             }
         }
 
+        InternalByteTermsFacet.ByteEntry[] list = new InternalByteTermsFacet.ByteEntry[ordered.size()];
+        for (int i = ordered.size() - 1; i >= 0; i--) {
+            ordered.pop();
+            list[i] = new InternalByteTermsFacet.ByteEntry((byte) ordered.poppedTerm(), ordered.poppedCount());
+        }
+
         for (ReaderAggregator aggregator : aggregators) {
             CacheRecycler.pushIntArray(aggregator.counts);
         }
 
-        return new InternalByteTermsFacet(facetName, comparatorType, size, ordered, missing, total);
+        return new InternalByteTermsFacet(facetName, comparatorType, size, Arrays.asList(list), missing, total);
     }
 
     public static class ReaderAggregator implements FieldData.OrdinalInDocProc {
@@ -22,10 +22,10 @@ package org.elasticsearch.search.facet.terms.floats;
 import com.google.common.collect.ImmutableSet;
 import gnu.trove.set.hash.TFloatHashSet;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.util.NumericUtils;
 import org.apache.lucene.util.PriorityQueue;
 import org.elasticsearch.ElasticSearchIllegalArgumentException;
 import org.elasticsearch.common.CacheRecycler;
-import org.elasticsearch.common.collect.BoundedTreeSet;
 import org.elasticsearch.index.cache.field.data.FieldDataCache;
 import org.elasticsearch.index.field.data.FieldData;
 import org.elasticsearch.index.field.data.FieldDataType;
@@ -34,7 +34,7 @@ import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.search.facet.AbstractFacetCollector;
 import org.elasticsearch.search.facet.Facet;
 import org.elasticsearch.search.facet.terms.TermsFacet;
-import org.elasticsearch.search.facet.terms.support.EntryPriorityQueue;
+import org.elasticsearch.search.facet.terms.support.PrimitiveEntryPriorityQueue;
 import org.elasticsearch.search.internal.SearchContext;
 
 import java.io.IOException;
@@ -152,46 +152,12 @@ public class TermsFloatOrdinalsFacetCollector extends AbstractFacetCollector {
             }
         }
 
-        // YACK, we repeat the same logic, but once with an optimizer priority queue for smaller sizes
-        if (size < EntryPriorityQueue.LIMIT) {
-            // optimize to use priority size
-            EntryPriorityQueue ordered = new EntryPriorityQueue(size, comparatorType.comparator());
-
-            while (queue.size() > 0) {
-                ReaderAggregator agg = queue.top();
-                float value = agg.current;
-                int count = 0;
-                do {
-                    count += agg.counts[agg.position];
-                    if (agg.nextPosition()) {
-                        agg = queue.updateTop();
-                    } else {
-                        // we are done with this reader
-                        queue.pop();
-                        agg = queue.top();
-                    }
-                } while (agg != null && value == agg.current);
-
-                if (count > minCount) {
-                    if (excluded == null || !excluded.contains(value)) {
-                        InternalFloatTermsFacet.FloatEntry entry = new InternalFloatTermsFacet.FloatEntry(value, count);
-                        ordered.insertWithOverflow(entry);
-                    }
-                }
-            }
-            InternalFloatTermsFacet.FloatEntry[] list = new InternalFloatTermsFacet.FloatEntry[ordered.size()];
-            for (int i = ordered.size() - 1; i >= 0; i--) {
-                list[i] = (InternalFloatTermsFacet.FloatEntry) ordered.pop();
-            }
-
-            for (ReaderAggregator aggregator : aggregators) {
-                CacheRecycler.pushIntArray(aggregator.counts);
-            }
-
-            return new InternalFloatTermsFacet(facetName, comparatorType, size, Arrays.asList(list), missing, total);
+        // bound the queue by the number of distinct terms, so large sizes don't allocate more than needed
+        int maxTerms = 0;
+        for (ReaderAggregator aggregator : aggregators) {
+            maxTerms += aggregator.values.length - 1;
         }
-
-        BoundedTreeSet<InternalFloatTermsFacet.FloatEntry> ordered = new BoundedTreeSet<InternalFloatTermsFacet.FloatEntry>(comparatorType.comparator(), size);
+        PrimitiveEntryPriorityQueue ordered = new PrimitiveEntryPriorityQueue(Math.min(size, maxTerms), comparatorType);
 
         while (queue.size() > 0) {
             ReaderAggregator agg = queue.top();
@@ -210,17 +176,22 @@ public class TermsFloatOrdinalsFacetCollector extends AbstractFacetCollector {
 
             if (count > minCount) {
                 if (excluded == null || !excluded.contains(value)) {
-                    InternalFloatTermsFacet.FloatEntry entry = new InternalFloatTermsFacet.FloatEntry(value, count);
-                    ordered.add(entry);
+                    ordered.insert(NumericUtils.doubleToSortableLong(value), count);
                 }
             }
         }
 
+        InternalFloatTermsFacet.FloatEntry[] list = new InternalFloatTermsFacet.FloatEntry[ordered.size()];
+        for (int i = ordered.size() - 1; i >= 0; i--) {
+            ordered.pop();
+            list[i] = new InternalFloatTermsFacet.FloatEntry((float) NumericUtils.sortableLongToDouble(ordered.poppedTerm()), ordered.poppedCount());
+        }
+
         for (ReaderAggregator aggregator : aggregators) {
             CacheRecycler.pushIntArray(aggregator.counts);
         }
 
-        return new InternalFloatTermsFacet(facetName, comparatorType, size, ordered, missing, total);
+        return new InternalFloatTermsFacet(facetName, comparatorType, size, Arrays.asList(list), missing, total);
     }
 
     public static class ReaderAggregator implements FieldData.OrdinalInDocProc {
@@ -0,0 +1,152 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.facet.terms.support;
+
+import org.elasticsearch.search.facet.terms.TermsFacet;
+
+/**
+ * A bounded priority queue of primitive <tt>(term, count)</tt> pairs, keeping the top entries according to
+ * a {@link TermsFacet.ComparatorType} without allocating an entry object per candidate term. Terms are
+ * longs, floating point terms can be used by encoding them with
+ * {@link org.apache.lucene.util.NumericUtils#doubleToSortableLong(double)}, which preserves their order.
+ */
+public class PrimitiveEntryPriorityQueue {
+
+    private final TermsFacet.ComparatorType comparatorType;
+
+    private final int maxSize;
+
+    // 1 based heap, the least competitive entry is kept on top
+    private final long[] terms;
+
+    private final int[] counts;
+
+    private int size;
+
+    private long poppedTerm;
+
+    private int poppedCount;
+
+    public PrimitiveEntryPriorityQueue(int maxSize, TermsFacet.ComparatorType comparatorType) {
+        this.maxSize = maxSize;
+        this.comparatorType = comparatorType;
+        this.terms = new long[maxSize + 1];
+        this.counts = new int[maxSize + 1];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds the entry if there is still room, or if it is more competitive than the current least
+     * competitive entry, which is then dropped.
+     */
+    public void insert(long term, int count) {
+        if (size < maxSize) {
+            size++;
+            terms[size] = term;
+            counts[size] = count;
+            upHeap();
+        } else if (size > 0 && before(term, count, terms[1], counts[1])) {
+            terms[1] = term;
+            counts[1] = count;
+            downHeap();
+        }
+    }
+
+    /**
+     * Removes the least competitive entry, its term and count are then available through
+     * {@link #poppedTerm()} and {@link #poppedCount()}.
+     */
+    public void pop() {
+        poppedTerm = terms[1];
+        poppedCount = counts[1];
+        terms[1] = terms[size];
+        counts[1] = counts[size];
+        size--;
+        downHeap();
+    }
+
+    public long poppedTerm() {
+        return poppedTerm;
+    }
+
+    public int poppedCount() {
+        return poppedCount;
+    }
+
+    /**
+     * Returns <tt>true</tt> if the first entry sorts before the second one, mirroring
+     * {@link TermsFacet.ComparatorType#comparator()}.
+     */
+    private boolean before(long term1, int count1, long term2, int count2) {
+        switch (comparatorType) {
+            case COUNT:
+                return count1 > count2 || (count1 == count2 && term1 > term2);
+            case REVERSE_COUNT:
+                return count1 < count2 || (count1 == count2 && term1 < term2);
+            case TERM:
+                return term1 < term2 || (term1 == term2 && count1 < count2);
+            case REVERSE_TERM:
+                return term1 > term2 || (term1 == term2 && count1 > count2);
+            default:
+                throw new IllegalStateException("unknown comparator type [" + comparatorType + "]");
+        }
+    }
+
+    private void upHeap() {
+        int i = size;
+        long term = terms[i];
+        int count = counts[i];
+        int j = i >>> 1;
+        while (j > 0 && before(terms[j], counts[j], term, count)) {
+            terms[i] = terms[j];
+            counts[i] = counts[j];
+            i = j;
+            j = j >>> 1;
+        }
+        terms[i] = term;
+        counts[i] = count;
+    }
+
+    private void downHeap() {
+        int i = 1;
+        long term = terms[i];
+        int count = counts[i];
+        int j = i << 1;
+        int k = j + 1;
+        if (k <= size && before(terms[j], counts[j], terms[k], counts[k])) {
+            j = k;
+        }
+        while (j <= size && before(term, count, terms[j], counts[j])) {
+            terms[i] = terms[j];
+            counts[i] = counts[j];
+            i = j;
+            j = i << 1;
+            k = j + 1;
+            if (k <= size && before(terms[j], counts[j], terms[k], counts[k])) {
+                j = k;
+            }
+        }
+        terms[i] = term;
+        counts[i] = count;
+    }
+}
@@ -54,6 +54,7 @@ import org.elasticsearch.search.internal.SearchContext;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -146,9 +147,26 @@ public class FetchPhase implements SearchPhase {
         }
 
         InternalSearchHit[] hits = new InternalSearchHit[context.docIdsToLoadSize()];
-        for (int index = 0; index < context.docIdsToLoadSize(); index++) {
-            int docId = context.docIdsToLoad()[context.docIdsToLoadFrom() + index];
-            Document doc = loadDocument(context, fieldSelector, docId);
+        // load the docs in doc id order, so stored fields are read with a forward pass over each segment, and
+        // place each hit back in its rank position
+        long[] docIdsAndIndices = new long[context.docIdsToLoadSize()];
+        for (int index = 0; index < docIdsAndIndices.length; index++) {
+            docIdsAndIndices[index] = (((long) context.docIdsToLoad()[context.docIdsToLoadFrom() + index]) << 32) | index;
+        }
+        Arrays.sort(docIdsAndIndices);
+        IndexReader[] subReaders = context.searcher().subReaders();
+        int[] docStarts = context.searcher().docStarts();
+        int readerIndex = 0;
+        for (long docIdAndIndex : docIdsAndIndices) {
+            int docId = (int) (docIdAndIndex >>> 32);
+            int index = (int) docIdAndIndex;
+            // doc ids are sorted, so the segment of the doc is either the current one or a later one
+            while (readerIndex + 1 < docStarts.length && docId >= docStarts[readerIndex + 1]) {
+                readerIndex++;
+            }
+            IndexReader subReader = subReaders[readerIndex];
+            int subDoc = docId - docStarts[readerIndex];
+            Document doc = loadDocument(context, fieldSelector, subReader, subDoc, docId);
             Uid uid = extractUid(context, doc);
 
             DocumentMapper documentMapper = context.mapperService().documentMapper(uid.type());
@@ -207,10 +225,6 @@ public class FetchPhase implements SearchPhase {
                 hitField.values().add(value);
             }
 
-            int readerIndex = context.searcher().readerIndex(docId);
-            IndexReader subReader = context.searcher().subReaders()[readerIndex];
-            int subDoc = docId - context.searcher().docStarts()[readerIndex];
-
             // go over and extract fields that are not mapped / stored
             context.lookup().setNextReader(subReader);
             context.lookup().setNextDocId(subDoc);
@@ -275,10 +289,10 @@ public class FetchPhase implements SearchPhase {
         throw new FetchPhaseExecutionException(context, "Failed to load uid from the index, missing internal _uid field, current fields in the doc [" + fieldNames + "]");
     }
 
-    private Document loadDocument(SearchContext context, @Nullable ResetFieldSelector fieldSelector, int docId) {
+    private Document loadDocument(SearchContext context, @Nullable ResetFieldSelector fieldSelector, IndexReader subReader, int subDoc, int docId) {
         try {
             if (fieldSelector != null) fieldSelector.reset();
-            return context.searcher().doc(docId, fieldSelector);
+            return subReader.document(subDoc, fieldSelector);
         } catch (IOException e) {
             throw new FetchPhaseExecutionException(context, "Failed to fetch doc id [" + docId + "]", e);
         }
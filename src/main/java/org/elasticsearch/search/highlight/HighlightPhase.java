@@ -26,6 +26,7 @@ import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.Fieldable;
+import org.apache.lucene.index.Term;
 import org.apache.lucene.search.ConstantScoreQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.highlight.*;
@@ -39,9 +40,11 @@ import org.elasticsearch.common.lucene.search.function.FunctionScoreQuery;
 import org.elasticsearch.index.mapper.DocumentMapper;
 import org.elasticsearch.index.mapper.FieldMapper;
 import org.elasticsearch.index.mapper.MapperService;
+import org.elasticsearch.index.mapper.core.StringFieldMapper;
 import org.elasticsearch.search.SearchParseElement;
 import org.elasticsearch.search.fetch.FetchPhaseExecutionException;
 import org.elasticsearch.search.fetch.FetchSubPhase;
+import org.elasticsearch.search.highlight.postings.PostingsHighlighter;
 import org.elasticsearch.search.highlight.vectorhighlight.SourceScoreOrderFragmentsBuilder;
 import org.elasticsearch.search.highlight.vectorhighlight.SourceSimpleFragmentsBuilder;
 import org.elasticsearch.search.internal.InternalSearchHit;
@@ -116,9 +119,43 @@ public class HighlightPhase implements FetchSubPhase {
                 }
             }
 
-            // if we can do highlighting using Term Vectors, use FastVectorHighlighter, otherwise, use the
-            // slower plain highlighter
-            if (mapper.termVector() != Field.TermVector.WITH_POSITIONS_OFFSETS) {
+            // if the offsets are indexed in the postings, use them directly to highlight, otherwise if we can do highlighting
+            // using Term Vectors, use FastVectorHighlighter, otherwise, use the slower plain highlighter
+            if (mapper instanceof StringFieldMapper && ((StringFieldMapper) mapper).indexOffsets()) {
+                HighlightEntry entry = cache.get(mapper);
+                if (entry == null) {
+                    // flatten the non rewritten query, expanding multi term queries against the top level reader, since the
+                    // terms of their (constant score) rewritten form can't be extracted
+                    Set<String> termSet;
+                    try {
+                        CustomFieldQuery.highlightFilters.set(field.highlightFilter());
+                        termSet = new CustomFieldQuery(context.parsedQuery().query(), hitContext.topLevelReader(), false, true).termSet(mapper.names().indexName());
+                    } catch (Exception e) {
+                        throw new FetchPhaseExecutionException(context, "Failed to extract query terms to highlight field [" + field.field() + "]", e);
+                    }
+                    List<Term> fieldTerms = new ArrayList<Term>();
+                    if (termSet != null) {
+                        for (String text : termSet) {
+                            fieldTerms.add(new Term(mapper.names().indexName(), text));
+                        }
+                    }
+                    entry = new HighlightEntry();
+                    entry.postingsHighlighter = new PostingsHighlighter(fieldTerms.toArray(new Term[fieldTerms.size()]), field.preTags()[0], field.postTags()[0],
+                            encoder, field.fragmentCharSize(), field.numberOfFragments(), field.scoreOrdered());
+                    cache.put(mapper, entry);
+                }
+
+                try {
+                    List<Object> textsToHighlight = textsToHighlight(context, hitContext, mapper);
+                    String[] fragments = entry.postingsHighlighter.highlight(hitContext.reader(), hitContext.docId(), textsToHighlight);
+                    if (fragments != null && fragments.length > 0) {
+                        HighlightField highlightField = new HighlightField(field.field(), fragments);
+                        highlightFields.put(highlightField.name(), highlightField);
+                    }
+                } catch (Exception e) {
+                    throw new FetchPhaseExecutionException(context, "Failed to highlight field [" + field.field() + "]", e);
+                }
+            } else if (mapper.termVector() != Field.TermVector.WITH_POSITIONS_OFFSETS) {
                 HighlightEntry entry = cache.get(mapper);
                 if (entry == null) {
                     // Don't use the context.query() since it might be rewritten, and we need to pass the non rewritten queries to
@@ -156,23 +193,10 @@ public class HighlightPhase implements FetchSubPhase {
                 }
 
                 List<Object> textsToHighlight;
-                if (mapper.stored()) {
-                    try {
-                        Document doc = hitContext.reader().document(hitContext.docId(), new SingleFieldSelector(mapper.names().indexName()));
-                        textsToHighlight = new ArrayList<Object>(doc.getFields().size());
-                        for (Fieldable docField : doc.getFields()) {
-                            if (docField.stringValue() != null) {
-                                textsToHighlight.add(docField.stringValue());
-                            }
-                        }
-                    } catch (Exception e) {
-                        throw new FetchPhaseExecutionException(context, "Failed to highlight field [" + field.field() + "]", e);
-                    }
-                } else {
-                    SearchLookup lookup = context.lookup();
-                    lookup.setNextReader(hitContext.reader());
-                    lookup.setNextDocId(hitContext.docId());
-                    textsToHighlight = lookup.source().extractRawValues(mapper.names().fullName());
+                try {
+                    textsToHighlight = textsToHighlight(context, hitContext, mapper);
+                } catch (Exception e) {
+                    throw new FetchPhaseExecutionException(context, "Failed to highlight field [" + field.field() + "]", e);
                 }
 
                 // a HACK to make highlighter do highlighting, even though its using the single frag list builder
@@ -286,6 +310,31 @@ public class HighlightPhase implements FetchSubPhase {
         hitContext.hit().highlightFields(highlightFields);
     }
 
+    /**
+     * Loads the values of the field to highlight, either from the stored field, or from the source.
+     */
+    @SuppressWarnings({"unchecked"})
+    private List<Object> textsToHighlight(SearchContext context, HitContext hitContext, FieldMapper mapper) throws Exception {
+        if (mapper.stored()) {
+            Document doc = hitContext.reader().document(hitContext.docId(), new SingleFieldSelector(mapper.names().indexName()));
+            List<Object> textsToHighlight = new ArrayList<Object>(doc.getFields().size());
+            for (Fieldable docField : doc.getFields()) {
+                if (docField.stringValue() != null) {
+                    textsToHighlight.add(docField.stringValue());
+                }
+            }
+            return textsToHighlight;
+        }
+        SearchLookup lookup = context.lookup();
+        lookup.setNextReader(hitContext.reader());
+        lookup.setNextDocId(hitContext.docId());
+        if (mapper instanceof StringFieldMapper && ((StringFieldMapper) mapper).indexOffsets()) {
+            // the values must be in the same positions as the value indices of the indexed offsets
+            return ((StringFieldMapper) mapper).sourceValues(lookup.source());
+        }
+        return lookup.source().extractRawValues(mapper.names().fullName());
+    }
+
     static class HighlightEntry {
         public FastVectorHighlighter fvh;
         public FieldQuery fieldQuery;
@@ -293,5 +342,7 @@ public class HighlightPhase implements FetchSubPhase {
         public FragmentsBuilder fragmentsBuilder;
 
         public Highlighter highlighter;
+
+        public PostingsHighlighter postingsHighlighter;
     }
 }
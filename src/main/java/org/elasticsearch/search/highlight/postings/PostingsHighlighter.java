@@ -0,0 +1,274 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.highlight.postings;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.TermPositions;
+import org.apache.lucene.search.highlight.Encoder;
+import org.elasticsearch.common.lucene.analysis.OffsetPayloadTokenFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A highlighter that reads the offsets of the matching terms directly from the term positions payloads
+ * (indexed using {@link OffsetPayloadTokenFilter}) and builds the fragments from the text without
+ * re-analyzing it and without term vectors.
+ */
+public class PostingsHighlighter {
+
+    private final Term[] terms;
+
+    private final String preTag;
+
+    private final String postTag;
+
+    private final Encoder encoder;
+
+    private final int fragmentCharSize;
+
+    private final int numberOfFragments;
+
+    private final boolean scoreOrdered;
+
+    private final int[] decoded = new int[3];
+
+    private byte[] payloadBuffer = new byte[16];
+
+    /**
+     * @param terms             The query terms of the highlighted field.
+     * @param numberOfFragments The number of fragments to return, <tt>0</tt> to highlight the whole text.
+     */
+    public PostingsHighlighter(Term[] terms, String preTag, String postTag, Encoder encoder,
+                               int fragmentCharSize, int numberOfFragments, boolean scoreOrdered) {
+        this.terms = terms;
+        this.preTag = preTag;
+        this.postTag = postTag;
+        this.encoder = encoder;
+        this.fragmentCharSize = fragmentCharSize;
+        this.numberOfFragments = numberOfFragments;
+        this.scoreOrdered = scoreOrdered;
+    }
+
+    /**
+     * Highlights the provided doc (of the provided segment reader), the texts are the values of the field
+     * in the order they were indexed. Returns <tt>null</tt> if there is nothing to highlight.
+     */
+    public String[] highlight(IndexReader reader, int docId, List<Object> texts) throws IOException {
+        List<Match> matches = matches(reader, docId, texts);
+        if (matches.isEmpty()) {
+            return null;
+        }
+        Collections.sort(matches, MATCH_ORDER);
+
+        if (numberOfFragments == 0) {
+            // highlight the whole text, multiple values are concatenated into a single fragment
+            StringBuilder sb = new StringBuilder();
+            int matchIndex = 0;
+            while (matchIndex < matches.size()) {
+                int valueIndex = matches.get(matchIndex).valueIndex;
+                String text = texts.get(valueIndex).toString();
+                int next = nextValue(matches, matchIndex);
+                if (sb.length() > 0) {
+                    sb.append(' ');
+                }
+                append(sb, text, 0, text.length(), matches, matchIndex, next);
+                matchIndex = next;
+            }
+            return new String[]{sb.toString()};
+        }
+
+        List<Fragment> fragments = new ArrayList<Fragment>();
+        int matchIndex = 0;
+        while (matchIndex < matches.size()) {
+            Match first = matches.get(matchIndex);
+            String text = texts.get(first.valueIndex).toString();
+            int valueEnd = nextValue(matches, matchIndex);
+
+            Fragment fragment = new Fragment();
+            fragment.valueIndex = first.valueIndex;
+            fragment.start = fragmentStart(text, first.start);
+            fragment.end = Math.min(text.length(), Math.max(fragment.start + fragmentCharSize, first.end));
+            fragment.firstMatch = matchIndex;
+            int distinctTerms = 0;
+            long seenTerms = 0;
+            int i = matchIndex;
+            for (; i < valueEnd && matches.get(i).end <= fragment.end; i++) {
+                long termBit = 1L << (matches.get(i).termIndex & 63);
+                if ((seenTerms & termBit) == 0) {
+                    seenTerms |= termBit;
+                    distinctTerms++;
+                }
+            }
+            fragment.lastMatch = i;
+            // favor fragments matching more of the query terms, then the ones with more matches
+            fragment.score = distinctTerms * 1000 + (i - matchIndex);
+            fragments.add(fragment);
+            matchIndex = i;
+        }
+
+        Collections.sort(fragments, FRAGMENT_SCORE_ORDER);
+        int size = Math.min(numberOfFragments, fragments.size());
+        List<Fragment> bestFragments = fragments.subList(0, size);
+        if (!scoreOrdered) {
+            Collections.sort(bestFragments, FRAGMENT_DOC_ORDER);
+        }
+        String[] result = new String[size];
+        for (int i = 0; i < size; i++) {
+            Fragment fragment = bestFragments.get(i);
+            String text = texts.get(fragment.valueIndex).toString();
+            StringBuilder sb = new StringBuilder(fragment.end - fragment.start + 16);
+            append(sb, text, fragment.start, fragment.end, matches, fragment.firstMatch, fragment.lastMatch);
+            result[i] = sb.toString();
+        }
+        return result;
+    }
+
+    private List<Match> matches(IndexReader reader, int docId, List<Object> texts) throws IOException {
+        List<Match> matches = new ArrayList<Match>();
+        for (int termIndex = 0; termIndex < terms.length; termIndex++) {
+            TermPositions termPositions = reader.termPositions(terms[termIndex]);
+            try {
+                if (!termPositions.skipTo(docId) || termPositions.doc() != docId) {
+                    continue;
+                }
+                int freq = termPositions.freq();
+                for (int i = 0; i < freq; i++) {
+                    termPositions.nextPosition();
+                    if (!termPositions.isPayloadAvailable()) {
+                        continue;
+                    }
+                    int payloadLength = termPositions.getPayloadLength();
+                    if (payloadBuffer.length < payloadLength) {
+                        payloadBuffer = new byte[payloadLength];
+                    }
+                    termPositions.getPayload(payloadBuffer, 0);
+                    OffsetPayloadTokenFilter.decode(payloadBuffer, 0, decoded);
+                    // ignore offsets that do not match the text (for example, if the source changed)
+                    if (decoded[0] >= texts.size() || decoded[2] > texts.get(decoded[0]).toString().length()) {
+                        continue;
+                    }
+                    matches.add(new Match(decoded[0], decoded[1], decoded[2], termIndex));
+                }
+            } finally {
+                termPositions.close();
+            }
+        }
+        return matches;
+    }
+
+    private int fragmentStart(String text, int matchStart) {
+        // start the fragment on the first word boundary up to a quarter of the fragment size before the match
+        int start = Math.max(0, matchStart - fragmentCharSize / 4);
+        if (start == 0) {
+            return 0;
+        }
+        for (int i = start; i < matchStart; i++) {
+            if (Character.isWhitespace(text.charAt(i))) {
+                return i + 1;
+            }
+        }
+        return matchStart;
+    }
+
+    private static int nextValue(List<Match> matches, int matchIndex) {
+        int valueIndex = matches.get(matchIndex).valueIndex;
+        int i = matchIndex + 1;
+        while (i < matches.size() && matches.get(i).valueIndex == valueIndex) {
+            i++;
+        }
+        return i;
+    }
+
+    private void append(StringBuilder sb, String text, int start, int end, List<Match> matches, int fromMatch, int toMatch) {
+        int position = start;
+        for (int i = fromMatch; i < toMatch; i++) {
+            Match match = matches.get(i);
+            if (match.start < position || match.end > end) {
+                // overlapping (for example, synonyms) or outside of the fragment
+                continue;
+            }
+            sb.append(encoder.encodeText(text.substring(position, match.start)));
+            sb.append(preTag).append(encoder.encodeText(text.substring(match.start, match.end))).append(postTag);
+            position = match.end;
+        }
+        sb.append(encoder.encodeText(text.substring(position, end)));
+    }
+
+    static class Match {
+        final int valueIndex;
+        final int start;
+        final int end;
+        final int termIndex;
+
+        Match(int valueIndex, int start, int end, int termIndex) {
+            this.valueIndex = valueIndex;
+            this.start = start;
+            this.end = end;
+            this.termIndex = termIndex;
+        }
+    }
+
+    static class Fragment {
+        int valueIndex;
+        int start;
+        int end;
+        int firstMatch;
+        int lastMatch;
+        int score;
+    }
+
+    private static final Comparator<Match> MATCH_ORDER = new Comparator<Match>() {
+        @Override
+        public int compare(Match o1, Match o2) {
+            if (o1.valueIndex != o2.valueIndex) {
+                return o1.valueIndex < o2.valueIndex ? -1 : 1;
+            }
+            if (o1.start != o2.start) {
+                return o1.start < o2.start ? -1 : 1;
+            }
+            return o1.end < o2.end ? -1 : (o1.end == o2.end ? 0 : 1);
+        }
+    };
+
+    private static final Comparator<Fragment> FRAGMENT_SCORE_ORDER = new Comparator<Fragment>() {
+        @Override
+        public int compare(Fragment o1, Fragment o2) {
+            if (o1.score != o2.score) {
+                return o1.score > o2.score ? -1 : 1;
+            }
+            return FRAGMENT_DOC_ORDER.compare(o1, o2);
+        }
+    };
+
+    private static final Comparator<Fragment> FRAGMENT_DOC_ORDER = new Comparator<Fragment>() {
+        @Override
+        public int compare(Fragment o1, Fragment o2) {
+            if (o1.valueIndex != o2.valueIndex) {
+                return o1.valueIndex < o2.valueIndex ? -1 : 1;
+            }
+            return o1.start < o2.start ? -1 : (o1.start == o2.start ? 0 : 1);
+        }
+    };
+}
@@ -29,6 +29,7 @@ import org.elasticsearch.common.lucene.MinimumScoreCollector;
 import org.elasticsearch.common.lucene.MultiCollector;
 import org.elasticsearch.common.lucene.search.AndFilter;
 import org.elasticsearch.common.lucene.search.FilteredCollector;
+import org.elasticsearch.common.lucene.search.SearchAfterCollector;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.search.dfs.CachedDfSource;
 
@@ -146,6 +147,13 @@ public class ContextIndexSearcher extends ExtendedIndexSearcher {
 
         TopFieldCollector collector = TopFieldCollector.create(sort, nDocs,
                 fillFields, searchContext.trackScores(), searchContext.trackScores(), !weight.scoresDocsOutOfOrder());
+        if (searchContext.searchAfter() != null && Scopes.MAIN.equals(processingScope)) {
+            // only collect the top docs after the last hit of the previous page, but count all the hits
+            SearchAfterCollector searchAfterCollector = new SearchAfterCollector(collector, sort, searchContext.searchAfter());
+            search(weight, filter, searchAfterCollector);
+            TopFieldDocs topDocs = (TopFieldDocs) collector.topDocs();
+            return new TopFieldDocs(searchAfterCollector.totalHits(), topDocs.scoreDocs, topDocs.fields, topDocs.getMaxScore());
+        }
         search(weight, filter, collector);
         return (TopFieldDocs) collector.topDocs();
     }
@@ -25,8 +25,8 @@ import org.elasticsearch.ElasticSearchParseException;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.Unicode;
-import org.elasticsearch.common.compress.lzf.LZF;
-import org.elasticsearch.common.compress.lzf.LZFDecoder;
+import org.elasticsearch.common.compress.Compressor;
+import org.elasticsearch.common.compress.CompressorFactory;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.xcontent.XContentBuilder;
@@ -166,9 +166,10 @@ public class InternalSearchHit implements SearchHit {
         if (source == null) {
             return null;
         }
-        if (LZF.isCompressed(source)) {
+        Compressor compressor = CompressorFactory.compressor(source, 0, source.length);
+        if (compressor != null) {
             try {
-                this.source = LZFDecoder.decode(source);
+                this.source = compressor.uncompress(source, 0, source.length);
             } catch (IOException e) {
                 throw new ElasticSearchParseException("failed to decompress source", e);
             }
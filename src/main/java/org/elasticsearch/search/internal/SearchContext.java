@@ -128,6 +128,8 @@ public class SearchContext implements Releasable {
 
     private boolean trackScores = false; // when sorting, track scores as well...
 
+    private Object[] searchAfter;
+
     private ParsedQuery originalQuery;
 
     private Query query;
@@ -349,6 +351,18 @@ public class SearchContext implements Releasable {
         return this.trackScores;
     }
 
+    public SearchContext searchAfter(Object[] searchAfter) {
+        this.searchAfter = searchAfter;
+        return this;
+    }
+
+    /**
+     * The sort values of the last hit of the previous page, only hits sorting after them are returned.
+     */
+    public Object[] searchAfter() {
+        return this.searchAfter;
+    }
+
     public SearchContext parsedFilter(Filter filter) {
         this.filter = filter;
         return this;
@@ -28,6 +28,7 @@ import org.elasticsearch.index.cache.field.data.FieldDataCache;
 import org.elasticsearch.index.field.data.DocFieldData;
 import org.elasticsearch.index.field.data.FieldData;
 import org.elasticsearch.index.field.data.NumericDocFieldData;
+import org.elasticsearch.index.field.data.NumericFieldData;
 import org.elasticsearch.index.mapper.FieldMapper;
 import org.elasticsearch.index.mapper.MapperService;
 
@@ -91,10 +92,10 @@ public class DocLookup implements Map {
         return scorer.score();
     }
 
-    @Override
-    public Object get(Object key) {
-        // assume its a string...
-        String fieldName = key.toString();
+    /**
+     * Returns the field data of the provided field for the current reader. Loaded once per reader.
+     */
+    public <T extends FieldData> T fieldData(String fieldName) {
         FieldData fieldData = localCacheFieldData.get(fieldName);
         if (fieldData == null) {
             FieldMapper mapper = mapperService.smartNameFieldMapper(fieldName);
@@ -108,7 +109,49 @@ public class DocLookup implements Map {
             }
             localCacheFieldData.put(fieldName, fieldData);
         }
-        return fieldData.docFieldData(docId);
+        return (T) fieldData;
+    }
+
+    /**
+     * Does the current doc have a value for the provided field.
+     */
+    public boolean hasValue(String fieldName) {
+        return fieldData(fieldName).hasValue(docId);
+    }
+
+    /**
+     * The (first) value of the provided numeric field for the current doc, read directly from the
+     * field data without going through the per doc field data wrapper (and boxing).
+     */
+    public long longValue(String fieldName) {
+        return this.<NumericFieldData>fieldData(fieldName).longValue(docId);
+    }
+
+    /**
+     * @see #longValue(String)
+     */
+    public int intValue(String fieldName) {
+        return this.<NumericFieldData>fieldData(fieldName).intValue(docId);
+    }
+
+    /**
+     * @see #longValue(String)
+     */
+    public double doubleValue(String fieldName) {
+        return this.<NumericFieldData>fieldData(fieldName).doubleValue(docId);
+    }
+
+    /**
+     * @see #longValue(String)
+     */
+    public float floatValue(String fieldName) {
+        return this.<NumericFieldData>fieldData(fieldName).floatValue(docId);
+    }
+
+    @Override
+    public Object get(Object key) {
+        // assume its a string...
+        return fieldData(key.toString()).docFieldData(docId);
     }
 
     public boolean containsKey(Object key) {
@@ -20,15 +20,22 @@
 package org.elasticsearch.search.lookup;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Fieldable;
 import org.apache.lucene.index.IndexReader;
 import org.elasticsearch.ElasticSearchParseException;
+import org.elasticsearch.common.compress.Compressor;
+import org.elasticsearch.common.compress.CompressorFactory;
 import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.support.XContentMapConverter;
 import org.elasticsearch.common.xcontent.support.XContentMapValues;
 import org.elasticsearch.index.mapper.internal.SourceFieldMapper;
 import org.elasticsearch.index.mapper.internal.SourceFieldSelector;
 
+import java.io.IOException;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -47,8 +54,15 @@ public class SourceLookup implements Map {
     private byte[] sourceAsBytes;
     private int sourceAsBytesOffset;
     private int sourceAsBytesLength;
+    private boolean sourceAsBytesUncompressed;
     private Map<String, Object> source;
 
+    // top level values read by get() with a single parser per doc, kept open and moved forward across keys
+    private XContentParser keysParser;
+    private boolean keysParserExhausted;
+    private final Map<String, Object> streamedValues = Maps.newHashMap();
+    private final Set<String> skippedKeys = Sets.newHashSet();
+
     public Map<String, Object> source() {
         return source;
     }
@@ -57,24 +71,54 @@ public class SourceLookup implements Map {
         if (source != null) {
             return source;
         }
-        if (sourceAsBytes != null) {
-            source = sourceAsMap(sourceAsBytes, sourceAsBytesOffset, sourceAsBytesLength);
+        if (!loadSourceBytesIfNeeded()) {
+            source = ImmutableMap.of();
             return source;
         }
         try {
-            Document doc = reader.document(docId, SourceFieldSelector.INSTANCE);
-            Fieldable sourceField = doc.getFieldable(SourceFieldMapper.NAME);
-            if (sourceField == null) {
-                source = ImmutableMap.of();
-            } else {
-                this.source = sourceAsMap(sourceField.getBinaryValue(), sourceField.getBinaryOffset(), sourceField.getBinaryLength());
-            }
+            source = sourceAsMap(sourceAsBytes, sourceAsBytesOffset, sourceAsBytesLength);
         } catch (Exception e) {
             throw new ElasticSearchParseException("failed to parse / load source", e);
         }
+        // the map replaces the values streamed so far
+        resetStreamedValues();
         return this.source;
     }
 
+    /**
+     * Loads the raw source bytes of the current doc (without parsing them), returns <tt>false</tt> if
+     * the doc has no source. Compressed sources are uncompressed once here, and not again when streaming
+     * over them and when parsing the map.
+     */
+    private boolean loadSourceBytesIfNeeded() {
+        if (sourceAsBytes == null) {
+            try {
+                Document doc = reader.document(docId, SourceFieldSelector.INSTANCE);
+                Fieldable sourceField = doc.getFieldable(SourceFieldMapper.NAME);
+                if (sourceField == null) {
+                    return false;
+                }
+                setNextSource(sourceField.getBinaryValue(), sourceField.getBinaryOffset(), sourceField.getBinaryLength());
+            } catch (Exception e) {
+                throw new ElasticSearchParseException("failed to load source", e);
+            }
+        }
+        if (!sourceAsBytesUncompressed) {
+            Compressor compressor = CompressorFactory.compressor(sourceAsBytes, sourceAsBytesOffset, sourceAsBytesLength);
+            if (compressor != null) {
+                try {
+                    sourceAsBytes = compressor.uncompress(sourceAsBytes, sourceAsBytesOffset, sourceAsBytesLength);
+                } catch (IOException e) {
+                    throw new ElasticSearchParseException("failed to decompress source", e);
+                }
+                sourceAsBytesOffset = 0;
+                sourceAsBytesLength = sourceAsBytes.length;
+            }
+            sourceAsBytesUncompressed = true;
+        }
+        return true;
+    }
+
     public static Map<String, Object> sourceAsMap(byte[] bytes, int offset, int length) throws ElasticSearchParseException {
         return XContentHelper.convertToMap(bytes, offset, length).v2();
     }
@@ -87,6 +131,7 @@ public class SourceLookup implements Map {
         this.source = null;
         this.sourceAsBytes = null;
         this.docId = -1;
+        resetStreamedValues();
     }
 
     public void setNextDocId(int docId) {
@@ -96,12 +141,15 @@ public class SourceLookup implements Map {
         this.docId = docId;
         this.sourceAsBytes = null;
         this.source = null;
+        resetStreamedValues();
     }
 
     public void setNextSource(byte[] source, int offset, int length) {
         this.sourceAsBytes = source;
         this.sourceAsBytesOffset = offset;
         this.sourceAsBytesLength = length;
+        this.sourceAsBytesUncompressed = false;
+        resetStreamedValues();
     }
 
     public void setNextSource(Map<String, Object> source) {
@@ -111,18 +159,93 @@ public class SourceLookup implements Map {
     /**
      * Returns the values associated with the path. Those are "low" level values, and it can
      * handle path expression where an array/list is navigated within.
+     * <p/>
+     * If the source has not been parsed yet, only the top level value of the path is read from the
+     * source, see {@link #get(Object)}.
      */
+    @SuppressWarnings({"unchecked"})
     public List<Object> extractRawValues(String path) {
-        return XContentMapValues.extractRawValues(path, loadSourceIfNeeded());
+        return XContentMapValues.extractRawValues(path, this);
     }
 
+    @SuppressWarnings({"unchecked"})
     public Object extractValue(String path) {
-        return XContentMapValues.extractValue(path, loadSourceIfNeeded());
+        return XContentMapValues.extractValue(path, this);
     }
 
+    /**
+     * Returns the top level value of the key, used by scripts accessing <tt>_source.[key]</tt>. If the source has
+     * not been parsed into a map, the value is read by streaming over the source with a single parser per doc,
+     * which only moves forward: other top level fields it passes are skipped without being materialized, and
+     * values already read are kept for the doc. Only a key that was skipped by an earlier lookup on the same doc
+     * requires parsing the whole source.
+     */
     @Override
     public Object get(Object key) {
-        return loadSourceIfNeeded().get(key);
+        if (source != null || !(key instanceof String)) {
+            return loadSourceIfNeeded().get(key);
+        }
+        if (streamedValues.containsKey(key)) {
+            return streamedValues.get(key);
+        }
+        if (keysParserExhausted) {
+            // the whole top level object was scanned, the key is either not there, or was skipped
+            return skippedKeys.contains(key) ? loadSourceIfNeeded().get(key) : null;
+        }
+        if (skippedKeys.contains(key)) {
+            return loadSourceIfNeeded().get(key);
+        }
+        try {
+            if (keysParser == null) {
+                if (!loadSourceBytesIfNeeded()) {
+                    source = ImmutableMap.of();
+                    return null;
+                }
+                keysParser = XContentHelper.createParser(sourceAsBytes, sourceAsBytesOffset, sourceAsBytesLength);
+                if (keysParser.nextToken() != XContentParser.Token.START_OBJECT) {
+                    closeKeysParser();
+                    return null;
+                }
+            }
+            XContentParser.Token token;
+            while ((token = keysParser.nextToken()) == XContentParser.Token.FIELD_NAME) {
+                String fieldName = keysParser.currentName();
+                token = keysParser.nextToken();
+                if (fieldName.equals(key)) {
+                    Object value = XContentMapConverter.readValue(keysParser, token);
+                    streamedValues.put(fieldName, value);
+                    return value;
+                }
+                keysParser.skipChildren();
+                skippedKeys.add(fieldName);
+            }
+            closeKeysParser();
+            return null;
+        } catch (IOException e) {
+            throw new ElasticSearchParseException("failed to extract [" + key + "] from source", e);
+        }
+    }
+
+    private void closeKeysParser() {
+        keysParserExhausted = true;
+        if (keysParser != null) {
+            keysParser.close();
+            keysParser = null;
+        }
+    }
+
+    private void resetStreamedValues() {
+        if (keysParser != null) {
+            keysParser.close();
+            keysParser = null;
+        }
+        keysParserExhausted = false;
+        if (!streamedValues.isEmpty()) {
+            streamedValues.clear();
+        }
+        if (!skippedKeys.isEmpty()) {
+            skippedKeys.clear();
+        }
     }
 
     @Override
@@ -65,6 +65,8 @@ public class QueryPhase implements SearchPhase {
                 .put("filterBinary", new FilterBinaryParseElement())
                 .put("filter_binary", new FilterBinaryParseElement())
                 .put("sort", new SortParseElement())
+                .put("search_after", new SearchAfterParseElement())
+                .put("searchAfter", new SearchAfterParseElement())
                 .put("trackScores", new TrackScoresParseElement())
                 .put("track_scores", new TrackScoresParseElement())
                 .put("min_score", new MinScoreParseElement())
@@ -81,6 +83,13 @@ public class QueryPhase implements SearchPhase {
         if (context.queryBoost() != 1.0f) {
             context.parsedQuery(new ParsedQuery(new FunctionScoreQuery(context.query(), new BoostScoreFunction(context.queryBoost())), context.parsedQuery()));
         }
+        if (context.searchAfter() != null) {
+            // the previous pages are skipped by the search after values, not by from
+            context.from(0);
+            if (context.sort() == null) {
+                context.sort(new Sort(SortField.FIELD_SCORE));
+            }
+        }
         facetPhase.preProcess(context);
     }
 
@@ -190,6 +199,10 @@ public class QueryPhase implements SearchPhase {
                     }
                 }
             }
+            if (searchContext.searchAfter() != null) {
+                // search after is applied when sorting, even when sorting by score
+                sort = true;
+            }
 
             if (searchContext.searchType() == SearchType.COUNT) {
                 CountCollector countCollector = new CountCollector();
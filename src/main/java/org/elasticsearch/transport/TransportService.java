@@ -24,8 +24,10 @@ import org.elasticsearch.ElasticSearchException;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.collect.MapBuilder;
 import org.elasticsearch.common.component.AbstractLifecycleComponent;
+import org.elasticsearch.common.compress.CompressorFactory;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.io.stream.Streamable;
+import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.metrics.MeanMetric;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.transport.BoundTransportAddress;
@@ -113,7 +115,7 @@ public class TransportService extends AbstractLifecycleComponent<TransportServic
     }
 
     public TransportStats stats() {
-        return new TransportStats(transport.serverOpen(), adapter.rxMetric.count(), adapter.rxMetric.sum(), adapter.txMetric.count(), adapter.txMetric.sum());
+        return new TransportStats(transport.serverOpen(), adapter.rxMetric.count(), adapter.rxMetric.sum(), adapter.txMetric.count(), adapter.txMetric.sum(), adapter.batchCounts(), CompressorFactory.stats());
     }
 
     public BoundTransportAddress boundAddress() {
@@ -239,6 +241,13 @@ public class TransportService extends AbstractLifecycleComponent<TransportServic
 
         final MeanMetric rxMetric = new MeanMetric();
         final MeanMetric txMetric = new MeanMetric();
+        final CounterMetric[] batchMetrics = new CounterMetric[TransportStats.BATCH_SIZE_BUCKETS.length];
+
+        Adapter() {
+            for (int i = 0; i < batchMetrics.length; i++) {
+                batchMetrics[i] = new CounterMetric();
+            }
+        }
 
         @Override
         public void received(long size) {
@@ -250,6 +259,19 @@ public class TransportService extends AbstractLifecycleComponent<TransportServic
             txMetric.inc(size);
         }
 
+        @Override
+        public void batched(int messages) {
+            batchMetrics[TransportStats.batchSizeBucket(messages)].inc();
+        }
+
+        long[] batchCounts() {
+            long[] counts = new long[batchMetrics.length];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = batchMetrics[i].count();
+            }
+            return counts;
+        }
+
         @Override
         public TransportRequestHandler handler(String action) {
             return serverHandlers.get(action);
@@ -30,6 +30,11 @@ public interface TransportServiceAdapter {
 
     void sent(long size);
 
+    /**
+     * Called when several messages were batched into a single write.
+     */
+    void batched(int messages);
+
     TransportRequestHandler handler(String action);
 
     TransportResponseHandler remove(long requestId);
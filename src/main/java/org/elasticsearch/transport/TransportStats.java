@@ -19,6 +19,7 @@
 
 package org.elasticsearch.transport;
 
+import org.elasticsearch.common.compress.CompressorStats;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Streamable;
@@ -30,22 +31,40 @@ import java.io.IOException;
 
 public class TransportStats implements Streamable, ToXContent {
 
+    /**
+     * The (inclusive) upper bounds of the batch size histogram buckets, the last one holds all larger batches.
+     */
+    public static final int[] BATCH_SIZE_BUCKETS = new int[]{1, 2, 4, 8, 16, 32, Integer.MAX_VALUE};
+
+    public static int batchSizeBucket(int messages) {
+        for (int i = 0; i < BATCH_SIZE_BUCKETS.length; i++) {
+            if (messages <= BATCH_SIZE_BUCKETS[i]) {
+                return i;
+            }
+        }
+        return BATCH_SIZE_BUCKETS.length - 1;
+    }
+
     private long serverOpen;
     private long rxCount;
     private long rxSize;
     private long txCount;
     private long txSize;
+    private long[] batchCounts;
+    private CompressorStats[] compression;
 
     TransportStats() {
 
     }
 
-    public TransportStats(long serverOpen, long rxCount, long rxSize, long txCount, long txSize) {
+    public TransportStats(long serverOpen, long rxCount, long rxSize, long txCount, long txSize, long[] batchCounts, CompressorStats[] compression) {
         this.serverOpen = serverOpen;
         this.rxCount = rxCount;
         this.rxSize = rxSize;
         this.txCount = txCount;
         this.txSize = txSize;
+        this.batchCounts = batchCounts;
+        this.compression = compression;
     }
 
     public long serverOpen() {
@@ -88,6 +107,28 @@ public class TransportStats implements Streamable, ToXContent {
         return txSize();
     }
 
+    /**
+     * The number of batched writes per batch size bucket, see {@link #BATCH_SIZE_BUCKETS}.
+     */
+    public long[] batchCounts() {
+        return batchCounts;
+    }
+
+    public long[] getBatchCounts() {
+        return batchCounts();
+    }
+
+    /**
+     * The node wide stats of each of the compressors, shared by transport, gateway and source compression.
+     */
+    public CompressorStats[] compression() {
+        return compression;
+    }
+
+    public CompressorStats[] getCompression() {
+        return compression();
+    }
+
     public static TransportStats readTransportStats(StreamInput in) throws IOException {
         TransportStats stats = new TransportStats();
         stats.readFrom(in);
@@ -101,6 +142,14 @@ public class TransportStats implements Streamable, ToXContent {
         rxSize = in.readVLong();
         txCount = in.readVLong();
         txSize = in.readVLong();
+        batchCounts = new long[in.readVInt()];
+        for (int i = 0; i < batchCounts.length; i++) {
+            batchCounts[i] = in.readVLong();
+        }
+        compression = new CompressorStats[in.readVInt()];
+        for (int i = 0; i < compression.length; i++) {
+            compression[i] = CompressorStats.readCompressorStats(in);
+        }
     }
 
     @Override
@@ -110,6 +159,14 @@ public class TransportStats implements Streamable, ToXContent {
         out.writeVLong(rxSize);
         out.writeVLong(txCount);
         out.writeVLong(txSize);
+        out.writeVInt(batchCounts.length);
+        for (long batchCount : batchCounts) {
+            out.writeVLong(batchCount);
+        }
+        out.writeVInt(compression.length);
+        for (CompressorStats compressorStats : compression) {
+            compressorStats.writeTo(out);
+        }
     }
 
     @Override
@@ -122,6 +179,20 @@ public class TransportStats implements Streamable, ToXContent {
         builder.field("tx_count", txCount);
         builder.field("tx_size", txSize().toString());
         builder.field("tx_size_in_bytes", txSize);
+        builder.startObject("batches");
+        for (int i = 0; i < batchCounts.length; i++) {
+            if (i == BATCH_SIZE_BUCKETS.length - 1) {
+                builder.field((BATCH_SIZE_BUCKETS[i - 1] + 1) + "+", batchCounts[i]);
+            } else {
+                builder.field(Integer.toString(BATCH_SIZE_BUCKETS[i]), batchCounts[i]);
+            }
+        }
+        builder.endObject();
+        builder.startObject("compression");
+        for (CompressorStats compressorStats : compression) {
+            compressorStats.toXContent(builder, params);
+        }
+        builder.endObject();
         builder.endObject();
         return builder;
     }
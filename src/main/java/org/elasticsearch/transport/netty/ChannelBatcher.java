@@ -0,0 +1,138 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.transport.netty;
+
+import jsr166y.LinkedTransferQueue;
+import org.elasticsearch.common.io.stream.CachedStreamOutput;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.transport.TransportServiceAdapter;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelFutureListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Coalesces small messages sent concurrently over the same channel into a single channel write. Each message
+ * keeps its own (size prefixed) framing, so the receiving side does not need to know about batching.
+ * <p/>
+ * The first sender that finds no pending messages becomes the one writing, optionally waiting for the batch
+ * window to let other senders queue up, and keeps on writing until no more messages are pending. Other senders
+ * only enqueue their message and return.
+ * <p/>
+ * If a batch can't be written, the channel is closed, which fails all the requests sent over it, including the
+ * ones in the batch, and the writing sender carries on with the messages still pending.
+ */
+public class ChannelBatcher {
+
+    private static final ESLogger logger = Loggers.getLogger(ChannelBatcher.class);
+
+    private final Channel channel;
+
+    private final TransportServiceAdapter transportServiceAdapter;
+
+    private final long windowNanos;
+
+    private final int maxBatchSize;
+
+    private final Queue<CachedStreamOutput.Entry> queue = new LinkedTransferQueue<CachedStreamOutput.Entry>();
+
+    private final AtomicInteger pending = new AtomicInteger();
+
+    public ChannelBatcher(Channel channel, TransportServiceAdapter transportServiceAdapter, long windowNanos, int maxBatchSize) {
+        this.channel = channel;
+        this.transportServiceAdapter = transportServiceAdapter;
+        this.windowNanos = windowNanos;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Writes the (fully framed) message held by the cached entry, the entry is pushed back to the cache once written.
+     */
+    public void write(CachedStreamOutput.Entry cachedEntry) {
+        queue.add(cachedEntry);
+        if (pending.getAndIncrement() != 0) {
+            // someone else is writing, and will pick up our message
+            return;
+        }
+        if (windowNanos > 0) {
+            LockSupport.parkNanos(windowNanos);
+        }
+        int remaining;
+        do {
+            List<CachedStreamOutput.Entry> batch = new ArrayList<CachedStreamOutput.Entry>();
+            int batchSize = 0;
+            CachedStreamOutput.Entry entry;
+            while (batchSize < maxBatchSize && (entry = queue.poll()) != null) {
+                batch.add(entry);
+                batchSize += entry.bytes().size();
+            }
+            try {
+                if (!batch.isEmpty()) {
+                    writeBatch(batch);
+                }
+            } catch (Exception e) {
+                failBatch(batch, e);
+            } finally {
+                // a message can be polled before its sender incremented the pending count, in which case it goes
+                // negative, and that sender will find it at 0 (or less) and not write it again
+                remaining = pending.addAndGet(-batch.size());
+            }
+        } while (remaining > 0);
+    }
+
+    private void failBatch(List<CachedStreamOutput.Entry> batch, Exception e) {
+        logger.warn("failed to write a batch of [{}] messages to [{}], closing the channel", e, batch.size(), channel);
+        // the entries are not pushed back to the cache, since we can't tell whether the channel still holds on
+        // to their bytes
+        channel.close();
+    }
+
+    private void writeBatch(final List<CachedStreamOutput.Entry> batch) {
+        ChannelBuffer buffer;
+        if (batch.size() == 1) {
+            CachedStreamOutput.Entry entry = batch.get(0);
+            buffer = ChannelBuffers.wrappedBuffer(entry.bytes().underlyingBytes(), 0, entry.bytes().size());
+        } else {
+            ChannelBuffer[] buffers = new ChannelBuffer[batch.size()];
+            for (int i = 0; i < buffers.length; i++) {
+                CachedStreamOutput.Entry entry = batch.get(i);
+                buffers[i] = ChannelBuffers.wrappedBuffer(entry.bytes().underlyingBytes(), 0, entry.bytes().size());
+            }
+            buffer = ChannelBuffers.wrappedBuffer(buffers);
+        }
+        transportServiceAdapter.batched(batch.size());
+        ChannelFuture future = channel.write(buffer);
+        future.addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) throws Exception {
+                for (CachedStreamOutput.Entry entry : batch) {
+                    CachedStreamOutput.pushEntry(entry);
+                }
+            }
+        });
+    }
+}
@@ -19,6 +19,8 @@
 
 package org.elasticsearch.transport.netty;
 
+import org.elasticsearch.common.compress.Compressor;
+import org.elasticsearch.common.compress.CompressorFactory;
 import org.elasticsearch.common.io.ThrowableObjectInputStream;
 import org.elasticsearch.common.io.stream.CachedStreamInput;
 import org.elasticsearch.common.io.stream.HandlesStreamInput;
@@ -187,14 +189,19 @@ public class MessageChannelHandler extends SimpleChannelUpstreamHandler {
         boolean isRequest = TransportStreams.statusIsRequest(status);
 
         HandlesStreamInput handlesStream;
+        Compressor compressor = null;
         if (TransportStreams.statusIsCompress(status)) {
-            handlesStream = CachedStreamInput.cachedHandlesLzf(streamIn);
+            compressor = CompressorFactory.compressor(buffer);
+            if (compressor == null) {
+                throw new StreamCorruptedException("unknown compression format for message [" + requestId + "]");
+            }
+            handlesStream = CachedStreamInput.cachedHandlesCompressed(compressor, streamIn);
         } else {
             handlesStream = CachedStreamInput.cachedHandles(streamIn);
         }
 
         if (isRequest) {
-            String action = handleRequest(channel, handlesStream, requestId);
+            String action = handleRequest(channel, handlesStream, requestId, compressor);
             if (buffer.readerIndex() != expectedIndexReader) {
                 if (buffer.readerIndex() < expectedIndexReader) {
                     logger.warn("Message not fully read (request) for [{}] and action [{}], resetting", requestId, action);
@@ -280,10 +287,10 @@ public class MessageChannelHandler extends SimpleChannelUpstreamHandler {
         }
     }
 
-    private String handleRequest(Channel channel, StreamInput buffer, long requestId) throws IOException {
+    private String handleRequest(Channel channel, StreamInput buffer, long requestId, Compressor compressor) throws IOException {
         final String action = buffer.readUTF();
 
-        final NettyTransportChannel transportChannel = new NettyTransportChannel(transport, action, channel, requestId);
+        final NettyTransportChannel transportChannel = new NettyTransportChannel(transport, action, channel, requestId, compressor == null ? transport.compressor : compressor);
         try {
             final TransportRequestHandler handler = transportServiceAdapter.handler(action);
             if (handler == null) {
@@ -26,6 +26,8 @@ import org.elasticsearch.ElasticSearchIllegalStateException;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.component.AbstractLifecycleComponent;
+import org.elasticsearch.common.compress.Compressor;
+import org.elasticsearch.common.compress.CompressorFactory;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.io.stream.CachedStreamOutput;
 import org.elasticsearch.common.io.stream.Streamable;
@@ -37,6 +39,7 @@ import org.elasticsearch.common.transport.BoundTransportAddress;
 import org.elasticsearch.common.transport.InetSocketTransportAddress;
 import org.elasticsearch.common.transport.PortsRange;
 import org.elasticsearch.common.transport.TransportAddress;
+import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.threadpool.ThreadPool;
@@ -107,6 +110,8 @@ public class NettyTransport extends AbstractLifecycleComponent<Transport> implem
 
     final boolean compress;
 
+    final Compressor compressor;
+
     final TimeValue connectTimeout;
 
     final Boolean tcpNoDelay;
@@ -123,6 +128,14 @@ public class NettyTransport extends AbstractLifecycleComponent<Transport> implem
     final int connectionsPerNodeMed;
     final int connectionsPerNodeHigh;
 
+    final boolean batch;
+
+    final long batchWindowMicros;
+
+    final ByteSizeValue batchMaxMessageSize;
+
+    final ByteSizeValue batchMaxSize;
+
     private final ThreadPool threadPool;
 
     private volatile OpenChannelsHandler serverOpenChannels;
@@ -162,6 +175,8 @@ public class NettyTransport extends AbstractLifecycleComponent<Transport> implem
         this.bindHost = componentSettings.get("bind_host", settings.get("transport.bind_host", settings.get("transport.host")));
         this.publishHost = componentSettings.get("publish_host", settings.get("transport.publish_host", settings.get("transport.host")));
         this.compress = settings.getAsBoolean("transport.tcp.compress", false);
+        String compressType = settings.get("transport.tcp.compress_type");
+        this.compressor = compressType == null ? CompressorFactory.defaultCompressor() : CompressorFactory.compressor(compressType, true);
         this.connectTimeout = componentSettings.getAsTime("connect_timeout", settings.getAsTime("transport.tcp.connect_timeout", settings.getAsTime(TCP_CONNECT_TIMEOUT, TCP_DEFAULT_CONNECT_TIMEOUT)));
         this.tcpNoDelay = componentSettings.getAsBoolean("tcp_no_delay", settings.getAsBoolean(TCP_NO_DELAY, true));
         this.tcpKeepAlive = componentSettings.getAsBoolean("tcp_keep_alive", settings.getAsBoolean(TCP_KEEP_ALIVE, true));
@@ -172,8 +187,14 @@ public class NettyTransport extends AbstractLifecycleComponent<Transport> implem
         this.connectionsPerNodeMed = componentSettings.getAsInt("connections_per_node.med", settings.getAsInt("transport.connections_per_node.med", 4));
         this.connectionsPerNodeHigh = componentSettings.getAsInt("connections_per_node.high", settings.getAsInt("transport.connections_per_node.high", 1));
 
-        logger.debug("using worker_count[{}], port[{}], bind_host[{}], publish_host[{}], compress[{}], connect_timeout[{}], connections_per_node[{}/{}/{}]",
-                workerCount, port, bindHost, publishHost, compress, connectTimeout, connectionsPerNodeLow, connectionsPerNodeMed, connectionsPerNodeHigh);
+        this.batch = componentSettings.getAsBoolean("batch.enabled", settings.getAsBoolean("transport.batch.enabled", false));
+        // time settings have milliseconds resolution, while the batch window is typically a few tens of microseconds
+        this.batchWindowMicros = componentSettings.getAsLong("batch.window_micros", settings.getAsLong("transport.batch.window_micros", 0l));
+        this.batchMaxMessageSize = componentSettings.getAsBytesSize("batch.max_message_size", settings.getAsBytesSize("transport.batch.max_message_size", new ByteSizeValue(8, ByteSizeUnit.KB)));
+        this.batchMaxSize = componentSettings.getAsBytesSize("batch.max_size", settings.getAsBytesSize("transport.batch.max_size", new ByteSizeValue(64, ByteSizeUnit.KB)));
+
+        logger.debug("using worker_count[{}], port[{}], bind_host[{}], publish_host[{}], compress[{}/{}], connect_timeout[{}], connections_per_node[{}/{}/{}], batch[{}]",
+                workerCount, port, bindHost, publishHost, compress, compressor.type(), connectTimeout, connectionsPerNodeLow, connectionsPerNodeMed, connectionsPerNodeHigh, batch);
     }
 
     public Settings settings() {
@@ -444,14 +465,22 @@ public class NettyTransport extends AbstractLifecycleComponent<Transport> implem
 
     @Override
     public <T extends Streamable> void sendRequest(final DiscoveryNode node, final long requestId, final String action, final Streamable message, TransportRequestOptions options) throws IOException, TransportException {
-        Channel targetChannel = nodeChannel(node, options);
+        NodeChannels nodeChannels = connectedNodes.get(node);
+        if (nodeChannels == null) {
+            throw new NodeNotConnectedException(node, "Node not connected");
+        }
+        Channel targetChannel = nodeChannels.channel(options.type());
 
         if (compress) {
             options.withCompress(true);
         }
 
         CachedStreamOutput.Entry cachedEntry = CachedStreamOutput.popEntry();
-        TransportStreams.buildRequest(cachedEntry, requestId, action, message, options);
+        TransportStreams.buildRequest(cachedEntry, requestId, action, message, options, compressor);
+        if (batch && cachedEntry.bytes().size() <= batchMaxMessageSize.bytes()) {
+            nodeChannels.batcher(targetChannel, this).write(cachedEntry);
+            return;
+        }
         ChannelBuffer buffer = ChannelBuffers.wrappedBuffer(cachedEntry.bytes().underlyingBytes(), 0, cachedEntry.bytes().size());
         ChannelFuture future = targetChannel.write(buffer);
         future.addListener(new CacheFutureListener(cachedEntry));
@@ -633,14 +662,6 @@ public class NettyTransport extends AbstractLifecycleComponent<Transport> implem
         }
     }
 
-    private Channel nodeChannel(DiscoveryNode node, TransportRequestOptions options) throws ConnectTransportException {
-        NodeChannels nodeChannels = connectedNodes.get(node);
-        if (nodeChannels == null) {
-            throw new NodeNotConnectedException(node, "Node not connected");
-        }
-        return nodeChannels.channel(options.type());
-    }
-
     private class ChannelCloseListener implements ChannelFutureListener {
 
         private final DiscoveryNode node;
@@ -664,6 +685,8 @@ public class NettyTransport extends AbstractLifecycleComponent<Transport> implem
         private Channel[] high;
         private final AtomicInteger highCounter = new AtomicInteger();
 
+        private final ConcurrentMap<Channel, ChannelBatcher> batchers = newConcurrentMap();
+
         public NodeChannels(Channel[] low, Channel[] med, Channel[] high) {
             this.low = low;
             this.med = med;
@@ -693,7 +716,20 @@ public class NettyTransport extends AbstractLifecycleComponent<Transport> implem
             }
         }
 
+        ChannelBatcher batcher(Channel channel, NettyTransport transport) {
+            ChannelBatcher batcher = batchers.get(channel);
+            if (batcher == null) {
+                batcher = new ChannelBatcher(channel, transport.transportServiceAdapter(), TimeUnit.MICROSECONDS.toNanos(transport.batchWindowMicros), (int) transport.batchMaxSize.bytes());
+                ChannelBatcher existing = batchers.putIfAbsent(channel, batcher);
+                if (existing != null) {
+                    batcher = existing;
+                }
+            }
+            return batcher;
+        }
+
         public synchronized void close() {
+            batchers.clear();
             List<ChannelFuture> futures = new ArrayList<ChannelFuture>();
             closeChannelsAndWait(low, futures);
             closeChannelsAndWait(med, futures);
@@ -19,6 +19,7 @@
 
 package org.elasticsearch.transport.netty;
 
+import org.elasticsearch.common.compress.Compressor;
 import org.elasticsearch.common.io.ThrowableObjectOutputStream;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.CachedStreamOutput;
@@ -51,11 +52,18 @@ public class NettyTransportChannel implements TransportChannel {
 
     private final long requestId;
 
-    public NettyTransportChannel(NettyTransport transport, String action, Channel channel, long requestId) {
+    private final Compressor compressor;
+
+    /**
+     * @param compressor the compressor responses are compressed with, the one the request was compressed with
+     *                   so the sender can always read it back, or the transport one if the request was not compressed
+     */
+    public NettyTransportChannel(NettyTransport transport, String action, Channel channel, long requestId, Compressor compressor) {
         this.transport = transport;
         this.action = action;
         this.channel = channel;
         this.requestId = requestId;
+        this.compressor = compressor;
     }
 
     @Override
@@ -74,7 +82,7 @@ public class NettyTransportChannel implements TransportChannel {
             options.withCompress(true);
         }
         CachedStreamOutput.Entry cachedEntry = CachedStreamOutput.popEntry();
-        TransportStreams.buildResponse(cachedEntry, requestId, message, options);
+        TransportStreams.buildResponse(cachedEntry, requestId, message, options, compressor);
         ChannelBuffer buffer = ChannelBuffers.wrappedBuffer(cachedEntry.bytes().underlyingBytes(), 0, cachedEntry.bytes().size());
         ChannelFuture future = channel.write(buffer);
         future.addListener(new NettyTransport.CacheFutureListener(cachedEntry));
@@ -19,6 +19,7 @@
 
 package org.elasticsearch.transport.support;
 
+import org.elasticsearch.common.compress.Compressor;
 import org.elasticsearch.common.io.stream.CachedStreamOutput;
 import org.elasticsearch.common.io.stream.HandlesStreamOutput;
 import org.elasticsearch.common.io.stream.Streamable;
@@ -99,13 +100,13 @@ public class TransportStreams {
         return value;
     }
 
-    public static void buildRequest(CachedStreamOutput.Entry cachedEntry, final long requestId, final String action, final Streamable message, TransportRequestOptions options) throws IOException {
+    public static void buildRequest(CachedStreamOutput.Entry cachedEntry, final long requestId, final String action, final Streamable message, TransportRequestOptions options, Compressor compressor) throws IOException {
         byte status = 0;
         status = TransportStreams.statusSetRequest(status);
 
         if (options.compress()) {
             status = TransportStreams.statusSetCompress(status);
-            HandlesStreamOutput stream = cachedEntry.cachedHandlesLzfBytes();
+            HandlesStreamOutput stream = cachedEntry.cachedHandlesCompressedBytes(compressor);
             cachedEntry.bytes().write(HEADER_PLACEHOLDER);
             stream.writeUTF(action);
             message.writeTo(stream);
@@ -120,13 +121,13 @@ public class TransportStreams {
         TransportStreams.writeHeader(cachedEntry.bytes().underlyingBytes(), cachedEntry.bytes().size(), requestId, status);
     }
 
-    public static void buildResponse(CachedStreamOutput.Entry cachedEntry, final long requestId, Streamable message, TransportResponseOptions options) throws IOException {
+    public static void buildResponse(CachedStreamOutput.Entry cachedEntry, final long requestId, Streamable message, TransportResponseOptions options, Compressor compressor) throws IOException {
         byte status = 0;
         status = TransportStreams.statusSetResponse(status);
 
         if (options.compress()) {
             status = TransportStreams.statusSetCompress(status);
-            HandlesStreamOutput stream = cachedEntry.cachedHandlesLzfBytes();
+            HandlesStreamOutput stream = cachedEntry.cachedHandlesCompressedBytes(compressor);
             cachedEntry.bytes().write(HEADER_PLACEHOLDER);
             message.writeTo(stream);
             stream.flush();
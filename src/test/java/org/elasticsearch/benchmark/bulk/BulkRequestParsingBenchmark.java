@@ -0,0 +1,117 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.bulk;
+
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.common.StopWatch;
+import org.elasticsearch.common.xcontent.XContent;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.json.CachedJsonXContentParser;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures the time and the bytes allocated per action when parsing bulk requests, and when parsing a single
+ * action line or document source with a new parser compared to a cached (per thread) one.
+ */
+public class BulkRequestParsingBenchmark {
+
+    private static final int NUMBER_OF_ACTIONS = 10000;
+    private static final int NUMBER_OF_ITERATIONS = 100;
+
+    public static void main(String[] args) throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < NUMBER_OF_ACTIONS; i++) {
+            sb.append("{ \"index\" : { \"_index\" : \"test\", \"_type\" : \"type1\", \"_id\" : \"").append(i).append("\" } }\n");
+            sb.append("{ \"field1\" : \"value").append(i).append("\", \"field2\" : ").append(i).append(" }\n");
+        }
+        byte[] data = sb.toString().getBytes("UTF-8");
+        byte[] actionLine = "{ \"index\" : { \"_index\" : \"test\", \"_type\" : \"type1\", \"_id\" : \"1\" } }".getBytes("UTF-8");
+        byte[] source = ("{ \"user\" : \"kimchy\", \"post_date\" : \"2009-11-15T14:12:12\", \"message\" : \"trying out Elastic Search\", "
+                + "\"tags\" : [\"search\", \"bulk\"], \"counter\" : 1, \"nested\" : { \"field1\" : \"value1\", \"field2\" : 2.5 } }").getBytes("UTF-8");
+        XContent xContent = JsonXContent.jsonXContent;
+
+        for (int run = 0; run < 3; run++) {
+            long allocated = allocatedBytes();
+            StopWatch stopWatch = new StopWatch().start();
+            for (int i = 0; i < NUMBER_OF_ITERATIONS; i++) {
+                new BulkRequest().add(data, 0, data.length, false);
+            }
+            stopWatch.stop();
+            report("bulk parsing", stopWatch, allocated, allocatedBytes());
+
+            allocated = allocatedBytes();
+            stopWatch = new StopWatch().start();
+            for (int i = 0; i < NUMBER_OF_ITERATIONS; i++) {
+                for (int j = 0; j < NUMBER_OF_ACTIONS; j++) {
+                    xContent.createParser(actionLine, 0, actionLine.length).mapAndClose();
+                }
+            }
+            stopWatch.stop();
+            report("action line, new parser", stopWatch, allocated, allocatedBytes());
+
+            allocated = allocatedBytes();
+            stopWatch = new StopWatch().start();
+            for (int i = 0; i < NUMBER_OF_ITERATIONS; i++) {
+                for (int j = 0; j < NUMBER_OF_ACTIONS; j++) {
+                    xContent.createCachedParser(actionLine, 0, actionLine.length).mapAndClose();
+                }
+            }
+            stopWatch.stop();
+            report("action line, cached parser", stopWatch, allocated, allocatedBytes());
+
+            allocated = allocatedBytes();
+            stopWatch = new StopWatch().start();
+            for (int i = 0; i < NUMBER_OF_ITERATIONS; i++) {
+                for (int j = 0; j < NUMBER_OF_ACTIONS; j++) {
+                    xContent.createParser(source, 0, source.length).mapAndClose();
+                }
+            }
+            stopWatch.stop();
+            report("source, new parser", stopWatch, allocated, allocatedBytes());
+
+            allocated = allocatedBytes();
+            stopWatch = new StopWatch().start();
+            for (int i = 0; i < NUMBER_OF_ITERATIONS; i++) {
+                for (int j = 0; j < NUMBER_OF_ACTIONS; j++) {
+                    xContent.createCachedParser(source, 0, source.length).mapAndClose();
+                }
+            }
+            stopWatch.stop();
+            report("source, cached parser", stopWatch, allocated, allocatedBytes());
+            System.out.println("cached parsers: created " + CachedJsonXContentParser.createdCount() + ", reused " + CachedJsonXContentParser.reusedCount());
+            System.out.println();
+        }
+    }
+
+    private static void report(String name, StopWatch stopWatch, long allocatedBefore, long allocatedAfter) {
+        long actions = ((long) NUMBER_OF_ACTIONS) * NUMBER_OF_ITERATIONS;
+        System.out.println(name + ": took " + stopWatch.totalTime() + ", " + (stopWatch.totalTime().nanos() / actions) + "ns per action"
+                + (allocatedBefore < 0 ? "" : ", " + ((allocatedAfter - allocatedBefore) / actions) + " bytes allocated per action"));
+    }
+
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+}
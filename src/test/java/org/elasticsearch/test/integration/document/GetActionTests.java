@@ -21,11 +21,14 @@ package org.elasticsearch.test.integration.document;
 
 import org.elasticsearch.action.admin.cluster.health.ClusterHealthResponse;
 import org.elasticsearch.action.admin.cluster.health.ClusterHealthStatus;
+import org.elasticsearch.action.admin.indices.stats.IndicesStats;
 import org.elasticsearch.action.delete.DeleteResponse;
 import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.get.MultiGetItemResponse;
 import org.elasticsearch.action.get.MultiGetRequest;
 import org.elasticsearch.action.get.MultiGetResponse;
 import org.elasticsearch.client.Client;
+import org.elasticsearch.client.action.get.MultiGetRequestBuilder;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.settings.ImmutableSettings;
 import org.elasticsearch.test.integration.AbstractNodesTests;
@@ -222,4 +225,76 @@ public class GetActionTests extends AbstractNodesTests {
         assertThat(getResponse.exists(), equalTo(true));
         assertThat(getResponse.sourceAsMap().get("field").toString(), equalTo(fieldValue));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void largeMultiGetAcrossSegmentsAndTranslog() throws Exception {
+        client.admin().indices().prepareDelete().execute().actionGet();
+
+        // a single shard, so all items end up in one shard request, larger than the default chunk size
+        client.admin().indices().prepareCreate("test").setSettings(ImmutableSettings.settingsBuilder()
+                .put("index.number_of_shards", 1).put("index.refresh_interval", -1))
+                .execute().actionGet();
+
+        ClusterHealthResponse clusterHealth = client.admin().cluster().health(clusterHealthRequest().waitForGreenStatus()).actionGet();
+        assertThat(clusterHealth.timedOut(), equalTo(false));
+        assertThat(clusterHealth.status(), equalTo(ClusterHealthStatus.GREEN));
+
+        // two segments, flushed ones, and the rest only in the translog
+        for (int i = 0; i < 75; i++) {
+            client.prepareIndex("test", "type1", Integer.toString(i)).setSource("field", "value" + i).execute().actionGet();
+        }
+        client.admin().indices().prepareFlush().execute().actionGet();
+        for (int i = 75; i < 150; i++) {
+            client.prepareIndex("test", "type1", Integer.toString(i)).setSource("field", "value" + i).execute().actionGet();
+        }
+        client.admin().indices().prepareFlush().execute().actionGet();
+        for (int i = 150; i < 250; i++) {
+            client.prepareIndex("test", "type1", Integer.toString(i)).setSource("field", "value" + i).execute().actionGet();
+        }
+
+        // ask for the ids in reverse order, with missing ones mixed in, and specific fields for some
+        MultiGetRequestBuilder request = client.prepareMultiGet();
+        for (int i = 299; i >= 0; i--) {
+            if (i % 3 == 0) {
+                request.add(new MultiGetRequest.Item("test", "type1", Integer.toString(i)).fields("field"));
+            } else {
+                request.add("test", "type1", Integer.toString(i));
+            }
+        }
+        MultiGetResponse response = request.execute().actionGet();
+        assertThat(response.responses().length, equalTo(300));
+        for (int i = 0; i < 300; i++) {
+            int id = 299 - i;
+            MultiGetItemResponse item = response.responses()[i];
+            assertThat(item.failed(), equalTo(false));
+            assertThat(item.id(), equalTo(Integer.toString(id)));
+            if (id >= 250) {
+                assertThat(item.response().exists(), equalTo(false));
+            } else if (id % 3 == 0) {
+                assertThat(item.response().exists(), equalTo(true));
+                assertThat(item.response().source(), nullValue());
+                assertThat(item.response().field("field").values().get(0).toString(), equalTo("value" + id));
+            } else {
+                assertThat(item.response().exists(), equalTo(true));
+                assertThat(item.response().sourceAsMap().get("field").toString(), equalTo("value" + id));
+            }
+        }
+
+        IndicesStats stats = client.admin().indices().prepareStats("test").execute().actionGet();
+        assertThat(stats.total().get().existsIndexCount(), equalTo(150l));
+        assertThat(stats.total().get().existsTranslogCount(), equalTo(100l));
+        assertThat(stats.total().get().missingCount(), equalTo(50l));
+
+        // non realtime, the translog docs are not visible yet
+        response = client.prepareMultiGet().setRealtime(false)
+                .add("test", "type1", "200")
+                .add("test", "type1", "100")
+                .add("test", "type1", "10")
+                .execute().actionGet();
+        assertThat(response.responses()[0].response().exists(), equalTo(false));
+        assertThat(response.responses()[1].response().exists(), equalTo(true));
+        assertThat(response.responses()[1].response().sourceAsMap().get("field").toString(), equalTo("value100"));
+        assertThat(response.responses()[2].response().exists(), equalTo(true));
+        assertThat(response.responses()[2].response().sourceAsMap().get("field").toString(), equalTo("value10"));
+    }
+}
@@ -32,11 +32,17 @@ import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.env.NodeEnvironment;
 import org.elasticsearch.gateway.Gateway;
+import org.elasticsearch.gateway.GatewayService;
 import org.elasticsearch.node.internal.InternalNode;
 import org.elasticsearch.test.integration.AbstractNodesTests;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.Test;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Arrays;
+import java.util.Comparator;
+
 import static org.elasticsearch.common.settings.ImmutableSettings.settingsBuilder;
 import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -323,4 +329,87 @@ public class LocalGatewayIndexStateTests extends AbstractNodesTests {
             assertThat(client("node1").prepareCount().setQuery(matchAllQuery()).execute().actionGet().count(), equalTo(1l));
         }
     }
+
+    @Test
+    public void testCorruptLatestIndexStateFallsBackToOlderState() throws Exception {
+        logger.info("--> cleaning nodes");
+        buildNode("node1", settingsBuilder().put("gateway.type", "local").build());
+        cleanAndCloseNodes();
+
+        File[] indexStateFiles = createIndexWithTwoStates();
+
+        logger.info("--> corrupting the latest index state [{}]", indexStateFiles[indexStateFiles.length - 1]);
+        corrupt(indexStateFiles[indexStateFiles.length - 1]);
+
+        logger.info("--> starting 1 master node non data again");
+        startNode("node1", settingsBuilder().put("node.data", false).put("gateway.type", "local").build());
+
+        logger.info("--> verify the index was recovered from the older state");
+        ClusterHealthResponse health = client("node1").admin().cluster().prepareHealth().setIndices("test").execute().actionGet();
+        assertThat(health.timedOut(), equalTo(false));
+        ClusterStateResponse clusterStateResponse = client("node1").admin().cluster().prepareState().setFilterIndices("test").execute().actionGet();
+        assertThat(clusterStateResponse.state().metaData().hasIndex("test"), equalTo(true));
+    }
+
+    @Test
+    public void testUnreadableIndexStateFailsRecovery() throws Exception {
+        logger.info("--> cleaning nodes");
+        buildNode("node1", settingsBuilder().put("gateway.type", "local").build());
+        cleanAndCloseNodes();
+
+        File[] indexStateFiles = createIndexWithTwoStates();
+
+        logger.info("--> corrupting all the index states");
+        for (File indexStateFile : indexStateFiles) {
+            corrupt(indexStateFile);
+        }
+
+        logger.info("--> starting 1 master node non data again");
+        startNode("node1", settingsBuilder().put("node.data", false).put("gateway.type", "local").build());
+
+        logger.info("--> verify the state is not recovered (and the index is not silently dropped)");
+        for (int i = 0; i < 20; i++) {
+            ClusterStateResponse clusterStateResponse = client("node1").admin().cluster().prepareState().setLocal(true).execute().actionGet();
+            assertThat(clusterStateResponse.state().blocks().hasGlobalBlock(GatewayService.STATE_NOT_RECOVERED_BLOCK), equalTo(true));
+            Thread.sleep(100);
+        }
+    }
+
+    /**
+     * Creates an index on a master non data node, and changes it so it has two persisted states, returning the
+     * index state files, oldest first, once the node is closed.
+     */
+    private File[] createIndexWithTwoStates() throws Exception {
+        logger.info("--> starting 1 master node non data");
+        startNode("node1", settingsBuilder().put("node.data", false).put("gateway.type", "local").put("index.number_of_shards", 2).put("index.number_of_replicas", 1).build());
+        File[] dataLocations = ((InternalNode) node("node1")).injector().getInstance(NodeEnvironment.class).nodeDataLocations();
+
+        logger.info("--> create an index, and update its settings");
+        client("node1").admin().indices().prepareCreate("test").execute().actionGet();
+        client("node1").admin().indices().prepareUpdateSettings("test").setSettings(settingsBuilder().put("index.number_of_replicas", 0)).execute().actionGet();
+
+        logger.info("--> closing master node");
+        closeNode("node1");
+
+        File[] indexStateFiles = new File(new File(new File(dataLocations[0], "_state"), "indices"), "test").listFiles();
+        assertThat(indexStateFiles.length, equalTo(2));
+        Arrays.sort(indexStateFiles, new Comparator<File>() {
+            @Override
+            public int compare(File o1, File o2) {
+                long v1 = Long.parseLong(o1.getName().substring("state-".length()));
+                long v2 = Long.parseLong(o2.getName().substring("state-".length()));
+                return v1 < v2 ? -1 : (v1 == v2 ? 0 : 1);
+            }
+        });
+        return indexStateFiles;
+    }
+
+    private void corrupt(File file) throws Exception {
+        FileOutputStream fos = new FileOutputStream(file);
+        try {
+            fos.write("not a state".getBytes("UTF-8"));
+        } finally {
+            fos.close();
+        }
+    }
 }
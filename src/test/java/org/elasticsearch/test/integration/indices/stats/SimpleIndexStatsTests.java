@@ -23,6 +23,7 @@ import org.elasticsearch.action.admin.cluster.health.ClusterHealthResponse;
 import org.elasticsearch.action.admin.indices.stats.IndicesStats;
 import org.elasticsearch.action.get.GetResponse;
 import org.elasticsearch.client.Client;
+import org.elasticsearch.common.settings.ImmutableSettings;
 import org.elasticsearch.test.integration.AbstractNodesTests;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
@@ -141,4 +142,54 @@ public class SimpleIndexStatsTests extends AbstractNodesTests {
         assertThat(stats.total().get().existsCount(), equalTo(1l));
         assertThat(stats.total().get().missingCount(), equalTo(1l));
     }
+
+    @Test
+    public void getStatsTranslogAndIndex() throws Exception {
+        // no replicas, so all gets are executed on the primary and counted once
+        client.admin().indices().prepareCreate("test3")
+                .setSettings(ImmutableSettings.settingsBuilder().put("index.number_of_shards", 1).put("index.number_of_replicas", 0))
+                .execute().actionGet();
+        ClusterHealthResponse clusterHealthResponse = client.admin().cluster().prepareHealth("test3").setWaitForGreenStatus().execute().actionGet();
+        assertThat(clusterHealthResponse.timedOut(), equalTo(false));
+
+        client.prepareIndex("test3", "type1", "1").setSource("field", "value").setRefresh(false).execute().actionGet();
+
+        // realtime get of a doc not yet flushed is served from the translog
+        GetResponse getResponse = client.prepareGet("test3", "type1", "1").setRealtime(true).execute().actionGet();
+        assertThat(getResponse.exists(), equalTo(true));
+
+        IndicesStats stats = client.admin().indices().prepareStats("test3").execute().actionGet();
+        assertThat(stats.index("test3").total().get().existsCount(), equalTo(1l));
+        assertThat(stats.index("test3").total().get().existsTranslogCount(), equalTo(1l));
+        assertThat(stats.index("test3").total().get().existsIndexCount(), equalTo(0l));
+
+        // non realtime get always goes to the index
+        client.admin().indices().prepareRefresh("test3").execute().actionGet();
+        getResponse = client.prepareGet("test3", "type1", "1").setRealtime(false).execute().actionGet();
+        assertThat(getResponse.exists(), equalTo(true));
+
+        stats = client.admin().indices().prepareStats("test3").execute().actionGet();
+        assertThat(stats.index("test3").total().get().existsCount(), equalTo(2l));
+        assertThat(stats.index("test3").total().get().existsTranslogCount(), equalTo(1l));
+        assertThat(stats.index("test3").total().get().existsIndexCount(), equalTo(1l));
+
+        // once flushed, the translog location is gone and a realtime get falls back to the index
+        client.admin().indices().prepareFlush("test3").execute().actionGet();
+        getResponse = client.prepareGet("test3", "type1", "1").setRealtime(true).execute().actionGet();
+        assertThat(getResponse.exists(), equalTo(true));
+
+        stats = client.admin().indices().prepareStats("test3").execute().actionGet();
+        assertThat(stats.index("test3").total().get().existsCount(), equalTo(3l));
+        assertThat(stats.index("test3").total().get().existsTranslogCount(), equalTo(1l));
+        assertThat(stats.index("test3").total().get().existsIndexCount(), equalTo(2l));
+
+        // missing docs are counted in neither
+        getResponse = client.prepareGet("test3", "type1", "2").setRealtime(true).execute().actionGet();
+        assertThat(getResponse.exists(), equalTo(false));
+
+        stats = client.admin().indices().prepareStats("test3").execute().actionGet();
+        assertThat(stats.index("test3").total().get().missingCount(), equalTo(1l));
+        assertThat(stats.index("test3").total().get().existsTranslogCount(), equalTo(1l));
+        assertThat(stats.index("test3").total().get().existsIndexCount(), equalTo(2l));
+    }
 }
@@ -0,0 +1,158 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.test.integration.rest;
+
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.io.Streams;
+import org.elasticsearch.common.transport.InetSocketTransportAddress;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.http.HttpServerTransport;
+import org.elasticsearch.node.internal.InternalNode;
+import org.elasticsearch.test.integration.AbstractNodesTests;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.List;
+import java.util.Map;
+
+import static org.elasticsearch.common.settings.ImmutableSettings.settingsBuilder;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ *
+ */
+public class StreamingBulkHttpTests extends AbstractNodesTests {
+
+    private Client client;
+
+    private InetSocketAddress httpAddress;
+
+    @BeforeClass
+    public void startNodes() {
+        startNode("server1", settingsBuilder()
+                .put("rest.action.bulk.streaming_batch_size", "1kb")
+                .put("rest.action.bulk.streaming_max_action_size", "4kb"));
+        client = client("server1");
+        httpAddress = ((InetSocketTransportAddress) ((InternalNode) node("server1")).injector().getInstance(HttpServerTransport.class).boundAddress().publishAddress()).address();
+    }
+
+    @AfterClass
+    public void closeNodes() {
+        closeAllNodes();
+    }
+
+    private void createIndex() {
+        try {
+            client.admin().indices().prepareDelete("test").execute().actionGet();
+        } catch (Exception e) {
+            // ignore
+        }
+        client.admin().indices().prepareCreate("test").execute().actionGet();
+        client.admin().cluster().prepareHealth().setWaitForYellowStatus().execute().actionGet();
+    }
+
+    @Test
+    public void testStreamedBulk() throws Exception {
+        createIndex();
+        HttpResult result = post("/_bulk?stream=true", actions(0, 100));
+        assertThat(result.status, equalTo(200));
+        assertThat(result.map.get("error"), nullValue());
+        assertThat(((List) result.map.get("items")).size(), equalTo(100));
+
+        client.admin().indices().prepareRefresh().execute().actionGet();
+        assertThat(client.prepareCount("test").execute().actionGet().count(), equalTo(100l));
+    }
+
+    @Test
+    public void testStreamingIsOptIn() throws Exception {
+        createIndex();
+        HttpResult result = post("/_bulk", actions(0, 10) + "{ \"index\" : { \"_index\" : \"test\" \n");
+        // not streamed, the whole request fails to parse and nothing gets executed
+        assertThat(result.status, equalTo(400));
+        client.admin().indices().prepareRefresh().execute().actionGet();
+        assertThat(client.prepareCount("test").execute().actionGet().count(), equalTo(0l));
+    }
+
+    @Test
+    public void testStreamedBulkReturnsExecutedItemsOnFailure() throws Exception {
+        createIndex();
+        HttpResult result = post("/_bulk?stream=true", actions(0, 50) + "{ \"index\" : { \"_index\" : \"test\" \n" + actions(50, 100));
+        assertThat(result.status, equalTo(200));
+        assertThat(result.map.get("error"), notNullValue());
+        List items = (List) result.map.get("items");
+        assertThat(items.size(), greaterThan(0));
+        assertThat(items.size(), lessThanOrEqualTo(50));
+
+        client.admin().indices().prepareRefresh().execute().actionGet();
+        assertThat(client.prepareCount("test").execute().actionGet().count(), equalTo((long) items.size()));
+    }
+
+    @Test
+    public void testStreamedBulkMaxActionSize() throws Exception {
+        createIndex();
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < 8 * 1024; i++) {
+            value.append('a');
+        }
+        HttpResult result = post("/_bulk?stream=true", "{ \"index\" : { \"_index\" : \"test\", \"_type\" : \"type1\", \"_id\" : \"1\" } }\n" +
+                "{ \"field\" : \"" + value + "\" }\n");
+        assertThat(result.status, equalTo(400));
+        assertThat((String) result.map.get("error"), containsString("max action size"));
+    }
+
+    private String actions(int from, int to) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = from; i < to; i++) {
+            sb.append("{ \"index\" : { \"_index\" : \"test\", \"_type\" : \"type1\", \"_id\" : \"").append(i).append("\" } }\n");
+            sb.append("{ \"field\" : \"value").append(i).append("\" }\n");
+        }
+        return sb.toString();
+    }
+
+    private HttpResult post(String path, String content) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http", httpAddress.getAddress().getHostAddress(), httpAddress.getPort(), path).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        // chunked, so the content gets streamed to the bulk action
+        connection.setChunkedStreamingMode(256);
+        OutputStream out = connection.getOutputStream();
+        out.write(content.getBytes("UTF-8"));
+        out.close();
+
+        HttpResult result = new HttpResult();
+        result.status = connection.getResponseCode();
+        InputStream in = result.status < 400 ? connection.getInputStream() : connection.getErrorStream();
+        byte[] body = Streams.copyToByteArray(in);
+        result.map = XContentHelper.convertToMap(body, 0, body.length).v2();
+        connection.disconnect();
+        return result;
+    }
+
+    static class HttpResult {
+        int status;
+        Map<String, Object> map;
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.integration.search.geo;
+
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.client.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.index.query.FilterBuilder;
+import org.elasticsearch.index.query.GeoPolygonFilterBuilder;
+import org.elasticsearch.index.search.geo.GeoHashUtils;
+import org.elasticsearch.index.search.geo.GeoUtils;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.test.integration.AbstractNodesTests;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
+import static org.elasticsearch.index.query.FilterBuilders.geoDistanceFilter;
+import static org.elasticsearch.index.query.FilterBuilders.geoPolygonFilter;
+import static org.elasticsearch.index.query.QueryBuilders.filteredQuery;
+import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * Compares the filters on the indexed geohash cells (<tt>cells</tt> field, with <tt>geohash_prefix</tt> enabled)
+ * with the field data based filters (<tt>location</tt> field) over the same points. The points are snapped to the
+ * center of their geohash cell, so both filters check the exact same coordinates.
+ */
+public class IndexedGeoHashCellsTests extends AbstractNodesTests {
+
+    private static final int NUMBER_OF_DOCS = 1000;
+
+    private Client client;
+
+    private final Random random = new Random();
+
+    private int precision;
+
+    @BeforeClass
+    public void createNodes() throws Exception {
+        startNode("server1");
+        client = client("server1");
+    }
+
+    @AfterClass
+    public void closeNodes() {
+        client.close();
+        closeAllNodes();
+    }
+
+    @Test
+    public void testDistanceNearEdges() throws Exception {
+        createIndex(12);
+        // points on a ring around the edge of the circle
+        indexPointsAround(40.7143528, -74.0059731, 50, 0.9, 1.1);
+        assertSameHits(geoDistanceFilter("location").point(40.7143528, -74.0059731).distance("50km").optimizeBbox("none"),
+                geoDistanceFilter("cells").point(40.7143528, -74.0059731).distance("50km"));
+    }
+
+    @Test
+    public void testDistanceLowPrecision() throws Exception {
+        // the boundary cells are refined down to the geohash precision
+        createIndex(5);
+        indexPointsAround(40.7143528, -74.0059731, 50, 0.8, 1.2);
+        assertSameHits(geoDistanceFilter("location").point(40.7143528, -74.0059731).distance("50km").optimizeBbox("none"),
+                geoDistanceFilter("cells").point(40.7143528, -74.0059731).distance("50km"));
+    }
+
+    @Test
+    public void testDistanceAtMaxCells() throws Exception {
+        // a large circle at full precision stops refining when reaching the maximum number of cells
+        createIndex(12);
+        indexPointsAround(45, 10, 2000, 0, 1.3);
+        assertSameHits(geoDistanceFilter("location").point(45, 10).distance("2000km").optimizeBbox("none"),
+                geoDistanceFilter("cells").point(45, 10).distance("2000km"));
+    }
+
+    @Test
+    public void testDistanceAcrossDateline() throws Exception {
+        createIndex(12);
+        indexPointsAround(-17, 179.5, 200, 0.5, 1.5);
+        assertSameHits(geoDistanceFilter("location").point(-17, 179.5).distance("200km").optimizeBbox("none"),
+                geoDistanceFilter("cells").point(-17, 179.5).distance("200km"));
+        assertSameHits(geoDistanceFilter("location").point(-17, -179.5).distance("200km").optimizeBbox("none"),
+                geoDistanceFilter("cells").point(-17, -179.5).distance("200km"));
+    }
+
+    @Test
+    public void testPolygonNearEdges() throws Exception {
+        createIndex(12);
+        indexPointsAround(40.7, -74, 30, 0, 1.2);
+        assertSameHits(polygon("location"), polygon("cells"));
+    }
+
+    @Test
+    public void testPolygonAtMaxCells() throws Exception {
+        createIndex(12);
+        indexPointsAround(40.7, -74, 3000, 0, 1.2);
+        assertSameHits(largePolygon("location"), largePolygon("cells"));
+    }
+
+    private GeoPolygonFilterBuilder polygon(String field) {
+        // a concave polygon, the edges cross cells at all levels
+        return geoPolygonFilter(field)
+                .addPoint(40.9, -74.2)
+                .addPoint(40.9, -73.8)
+                .addPoint(40.6, -73.75)
+                .addPoint(40.72, -74.01)
+                .addPoint(40.5, -74.25);
+    }
+
+    private GeoPolygonFilterBuilder largePolygon(String field) {
+        return geoPolygonFilter(field)
+                .addPoint(60, -100)
+                .addPoint(55, -50)
+                .addPoint(20, -60)
+                .addPoint(38, -75)
+                .addPoint(25, -110);
+    }
+
+    private void createIndex(int precision) throws Exception {
+        try {
+            client.admin().indices().prepareDelete("test").execute().actionGet();
+        } catch (Exception e) {
+            // ignore
+        }
+        this.precision = precision;
+        String mapping = jsonBuilder().startObject().startObject("type1").startObject("properties")
+                .startObject("location").field("type", "geo_point").field("lat_lon", true).endObject()
+                .startObject("cells").field("type", "geo_point").field("geohash_prefix", true).field("geohash_precision", precision).endObject()
+                .endObject().endObject().endObject().string();
+        client.admin().indices().prepareCreate("test").addMapping("type1", mapping).execute().actionGet();
+        client.admin().cluster().prepareHealth().setWaitForGreenStatus().execute().actionGet();
+    }
+
+    /**
+     * Indexes random points at a distance of between <tt>minFactor</tt> and <tt>maxFactor</tt> times
+     * <tt>distanceInKm</tt> around the given point, snapped to the center of their geohash cell at the precision
+     * of the <tt>cells</tt> field.
+     */
+    private void indexPointsAround(double lat, double lon, double distanceInKm, double minFactor, double maxFactor) throws Exception {
+        double degrees = distanceInKm / 111.2;
+        BulkRequestBuilder bulk = client.prepareBulk();
+        for (int i = 0; i < NUMBER_OF_DOCS; i++) {
+            double angle = random.nextDouble() * 2 * Math.PI;
+            double factor = minFactor + random.nextDouble() * (maxFactor - minFactor);
+            double pointLat = GeoUtils.normalizeLat(lat + degrees * factor * Math.sin(angle));
+            double pointLon = GeoUtils.normalizeLon(lon + degrees * factor * Math.cos(angle) / Math.cos(Math.toRadians(pointLat)));
+            double[] point = GeoHashUtils.decode(GeoHashUtils.encode(pointLat, pointLon, precision));
+            bulk.add(client.prepareIndex("test", "type1", Integer.toString(i)).setSource(jsonBuilder().startObject()
+                    .startObject("location").field("lat", point[0]).field("lon", point[1]).endObject()
+                    .startObject("cells").field("lat", point[0]).field("lon", point[1]).endObject()
+                    .endObject()));
+        }
+        BulkResponse response = bulk.execute().actionGet();
+        assertThat(response.hasFailures(), equalTo(false));
+        client.admin().indices().prepareRefresh().execute().actionGet();
+    }
+
+    private void assertSameHits(FilterBuilder fieldDataFilter, FilterBuilder cellsFilter) {
+        Set<String> expected = hits(fieldDataFilter);
+        Set<String> actual = hits(cellsFilter);
+        assertThat(actual, equalTo(expected));
+    }
+
+    private Set<String> hits(FilterBuilder filter) {
+        SearchResponse response = client.prepareSearch("test")
+                .setQuery(filteredQuery(matchAllQuery(), filter))
+                .setSize(NUMBER_OF_DOCS)
+                .execute().actionGet();
+        assertThat(response.failedShards(), equalTo(0));
+        Set<String> ids = new HashSet<String>();
+        for (SearchHit hit : response.hits()) {
+            ids.add(hit.id());
+        }
+        assertThat(ids.size(), equalTo((int) response.hits().totalHits()));
+        return ids;
+    }
+}
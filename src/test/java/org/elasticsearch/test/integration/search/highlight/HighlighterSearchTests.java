@@ -525,4 +525,49 @@ public class HighlighterSearchTests extends AbstractNodesTests {
             assertThat(hit.highlightFields().get("title").fragments()[0], equalTo("highlighting <em>test</em> for *&amp;? elasticsearch "));
         }
     }
+
+    @Test
+    public void testPostingsHighlighterMultiTermQueries() throws Exception {
+        try {
+            client.admin().indices().prepareDelete("test").execute().actionGet();
+        } catch (Exception e) {
+            // ignore
+        }
+
+        client.admin().indices().prepareCreate("test").setSettings(ImmutableSettings.settingsBuilder().put("number_of_shards", 2))
+                .addMapping("type1", jsonBuilder().startObject().startObject("type1").startObject("properties")
+                        .startObject("title").field("type", "string").field("index_offsets", true).field("null_value", "nothing").endObject()
+                        .endObject().endObject().endObject())
+                .execute().actionGet();
+
+        for (int i = 0; i < 5; i++) {
+            client.prepareIndex("test", "type1", Integer.toString(i))
+                    .setSource(jsonBuilder().startObject()
+                            .startArray("title").nullValue().value("The quick brown fox").value("jumps over the lazy dog").endArray()
+                            .endObject())
+                    .setRefresh(true).execute().actionGet();
+        }
+
+        SearchResponse search = client.prepareSearch()
+                .setQuery(prefixQuery("title", "qui"))
+                .addHighlightedField("title", -1, 0)
+                .execute().actionGet();
+
+        assertThat(Arrays.toString(search.shardFailures()), search.failedShards(), equalTo(0));
+        assertThat(search.hits().totalHits(), equalTo(5l));
+        for (SearchHit hit : search.hits()) {
+            assertThat(hit.highlightFields().get("title").fragments()[0], equalTo("The <em>quick</em> brown fox"));
+        }
+
+        search = client.prepareSearch()
+                .setQuery(boolQuery().should(wildcardQuery("title", "la*y")).should(termQuery("title", "nothing")))
+                .addHighlightedField("title", -1, 0)
+                .execute().actionGet();
+
+        assertThat(Arrays.toString(search.shardFailures()), search.failedShards(), equalTo(0));
+        assertThat(search.hits().totalHits(), equalTo(5l));
+        for (SearchHit hit : search.hits()) {
+            assertThat(hit.highlightFields().get("title").fragments()[0], equalTo("<em>nothing</em> jumps over the <em>lazy</em> dog"));
+        }
+    }
 }
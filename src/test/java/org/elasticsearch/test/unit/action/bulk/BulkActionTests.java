@@ -43,4 +43,20 @@ public class BulkActionTests {
         bulkRequest.add(bulkAction.getBytes(), 0, bulkAction.length(), true, null, null);
         assertThat(bulkRequest.numberOfActions(), equalTo(3));
     }
+
+    @Test
+    public void testAddCompleteStopsBeforeIncompleteAction() throws Exception {
+        String bulkAction = copyToStringFromClasspath("/org/elasticsearch/test/unit/action/bulk/simple-bulk.json");
+        byte[] data = bulkAction.getBytes();
+        // cut the data before the source of the create action
+        int cut = bulkAction.indexOf("{ \"field1\" : \"value3\" }");
+        BulkRequest bulkRequest = new BulkRequest();
+        int consumed = bulkRequest.addComplete(data, 0, cut, true, null, null);
+        assertThat(bulkRequest.numberOfActions(), equalTo(2));
+        assertThat(consumed, equalTo(bulkAction.indexOf("{ \"create\"")));
+
+        consumed = bulkRequest.addComplete(data, consumed, data.length, true, null, null);
+        assertThat(bulkRequest.numberOfActions(), equalTo(3));
+        assertThat(consumed, equalTo(data.length));
+    }
 }
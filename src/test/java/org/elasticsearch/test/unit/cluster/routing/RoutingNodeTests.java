@@ -0,0 +1,67 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.unit.cluster.routing;
+
+import org.elasticsearch.cluster.routing.MutableShardRouting;
+import org.elasticsearch.cluster.routing.RoutingNode;
+import org.elasticsearch.index.shard.ShardId;
+import org.testng.annotations.Test;
+
+import java.util.Iterator;
+
+import static org.elasticsearch.cluster.routing.ShardRoutingState.INITIALIZING;
+import static org.elasticsearch.cluster.routing.ShardRoutingState.STARTED;
+import static org.elasticsearch.test.unit.cluster.routing.allocation.RoutingAllocationTests.newNode;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ *
+ */
+public class RoutingNodeTests {
+
+    @Test
+    public void testShardLookup() {
+        RoutingNode routingNode = new RoutingNode(newNode("node1"));
+        MutableShardRouting shard0 = new MutableShardRouting("test", 0, null, true, INITIALIZING, 0);
+        MutableShardRouting shard1 = new MutableShardRouting("test", 1, null, false, STARTED, 0);
+        routingNode.add(shard0);
+        routingNode.add(shard1);
+
+        assertThat(routingNode.shards().size(), equalTo(2));
+        assertThat(routingNode.shard(new ShardId("test", 0)), sameInstance(shard0));
+        assertThat(routingNode.shard(new ShardId("test", 1)), sameInstance(shard1));
+        assertThat(routingNode.shard(new ShardId("test", 2)), nullValue());
+        assertThat(routingNode.shard(new ShardId("test2", 0)), nullValue());
+
+        for (Iterator<MutableShardRouting> it = routingNode.iterator(); it.hasNext(); ) {
+            if (it.next().id() == 0) {
+                it.remove();
+            }
+        }
+        assertThat(routingNode.shards().size(), equalTo(1));
+        assertThat(routingNode.shard(new ShardId("test", 0)), nullValue());
+        assertThat(routingNode.shard(new ShardId("test", 1)), sameInstance(shard1));
+
+        routingNode.removeByShardId(1);
+        assertThat(routingNode.shards().isEmpty(), equalTo(true));
+        assertThat(routingNode.shard(new ShardId("test", 1)), nullValue());
+    }
+}
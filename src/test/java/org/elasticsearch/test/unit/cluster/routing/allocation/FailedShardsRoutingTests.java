@@ -30,6 +30,9 @@ import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.logging.Loggers;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.elasticsearch.cluster.ClusterState.newClusterStateBuilder;
 import static org.elasticsearch.cluster.metadata.IndexMetaData.newIndexMetaDataBuilder;
 import static org.elasticsearch.cluster.metadata.MetaData.newMetaDataBuilder;
@@ -340,4 +343,49 @@ public class FailedShardsRoutingTests {
         // make sure the failedShard is not INITIALIZING again on node3
         assertThat(routingNodes.node("node3").shards().get(0).shardId(), not(equalTo(shardToFail.shardId())));
     }
+
+    @Test
+    public void failSeveralShardsAtOnce() {
+        AllocationService strategy = new AllocationService(settingsBuilder()
+                .put("cluster.routing.allocation.concurrent_recoveries", 10)
+                .put("cluster.routing.allocation.allow_rebalance", "always")
+                .build());
+
+        logger.info("Building initial routing table");
+
+        MetaData metaData = newMetaDataBuilder()
+                .put(newIndexMetaDataBuilder("test").numberOfShards(2).numberOfReplicas(0))
+                .build();
+
+        RoutingTable routingTable = routingTable()
+                .add(indexRoutingTable("test").initializeEmpty(metaData.index("test")))
+                .build();
+
+        ClusterState clusterState = newClusterStateBuilder().metaData(metaData).routingTable(routingTable).build();
+
+        logger.info("Adding single node and performing rerouting");
+        clusterState = newClusterStateBuilder().state(clusterState).nodes(newNodesBuilder().put(newNode("node1"))).build();
+        routingTable = strategy.reroute(clusterState).routingTable();
+        clusterState = newClusterStateBuilder().state(clusterState).routingTable(routingTable).build();
+
+        assertThat(routingTable.index("test").shard(0).primaryShard().state(), equalTo(INITIALIZING));
+        assertThat(routingTable.index("test").shard(1).primaryShard().state(), equalTo(INITIALIZING));
+
+        logger.info("fail both shards together, they have no place to be rerouted to, so stay unassigned");
+        List<ShardRouting> shardsToFail = new ArrayList<ShardRouting>();
+        shardsToFail.add(new ImmutableShardRouting("test", 0, "node1", true, INITIALIZING, 0));
+        shardsToFail.add(new ImmutableShardRouting("test", 1, "node1", true, INITIALIZING, 0));
+        RoutingTable prevRoutingTable = routingTable;
+        routingTable = strategy.applyFailedShards(clusterState, shardsToFail).routingTable();
+        clusterState = newClusterStateBuilder().state(clusterState).routingTable(routingTable).build();
+
+        assertThat(prevRoutingTable != routingTable, equalTo(true));
+        for (int i = 0; i < routingTable.index("test").shards().size(); i++) {
+            assertThat(routingTable.index("test").shard(i).primaryShard().state(), equalTo(UNASSIGNED));
+            assertThat(routingTable.index("test").shard(i).primaryShard().currentNodeId(), nullValue());
+        }
+
+        logger.info("fail the shards again, see that nothing happens");
+        assertThat(strategy.applyFailedShards(clusterState, shardsToFail).changed(), equalTo(false));
+    }
 }
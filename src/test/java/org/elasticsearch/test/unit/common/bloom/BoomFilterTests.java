@@ -20,8 +20,12 @@
 package org.elasticsearch.test.unit.common.bloom;
 
 import com.google.common.base.Charsets;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.store.RAMDirectory;
 import org.elasticsearch.common.bloom.BloomFilter;
 import org.elasticsearch.common.bloom.BloomFilterFactory;
+import org.elasticsearch.common.bloom.ObsBloomFilter;
 import org.testng.annotations.Test;
 
 import java.nio.ByteBuffer;
@@ -46,6 +50,32 @@ public class BoomFilterTests {
         assertThat(filter.isPresent(wrap("2")), equalTo(true));
     }
 
+    @Test
+    public void testWriteAndRead() throws Exception {
+        ObsBloomFilter filter = (ObsBloomFilter) BloomFilterFactory.getFilter(100, 15);
+        for (int i = 0; i < 100; i++) {
+            filter.add(wrap(Integer.toString(i)));
+        }
+
+        RAMDirectory dir = new RAMDirectory();
+        IndexOutput output = dir.createOutput("test.bloom");
+        filter.writeTo(output);
+        output.close();
+
+        IndexInput input = dir.openInput("test.bloom");
+        ObsBloomFilter readFilter = ObsBloomFilter.readFrom(input);
+        assertThat(input.getFilePointer(), equalTo(input.length()));
+        input.close();
+
+        assertThat(readFilter.sizeInBytes(), equalTo(filter.sizeInBytes()));
+        for (int i = 0; i < 100; i++) {
+            assertThat(readFilter.isPresent(wrap(Integer.toString(i))), equalTo(true));
+        }
+        for (int i = 100; i < 200; i++) {
+            assertThat(readFilter.isPresent(wrap(Integer.toString(i))), equalTo(filter.isPresent(wrap(Integer.toString(i)))));
+        }
+    }
+
     private ByteBuffer wrap(String key) {
         return ByteBuffer.wrap(key.getBytes(Charsets.UTF_8));
     }
@@ -0,0 +1,172 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.unit.common.compress;
+
+import org.elasticsearch.common.compress.Compressor;
+import org.elasticsearch.common.compress.CompressorFactory;
+import org.elasticsearch.common.compress.lz4.LZ4Codec;
+import org.elasticsearch.common.compress.lz4.LZ4Compressor;
+import org.elasticsearch.common.compress.lzf.LZFCompressor;
+import org.elasticsearch.common.io.stream.BytesStreamInput;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.CompressedStreamInput;
+import org.elasticsearch.common.io.stream.CompressedStreamOutput;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ *
+ */
+public class LZ4CompressorTests {
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Compressor compressor = CompressorFactory.compressor(LZ4Compressor.TYPE);
+        byte[] data = source(1000);
+        byte[] compressed = compressor.compress(data, 0, data.length);
+        assertThat(compressed.length, lessThan(data.length));
+        assertThat(compressor.isCompressed(compressed, 0, compressed.length), equalTo(true));
+        assertThat(compressor.uncompress(compressed, 0, compressed.length), equalTo(data));
+
+        // random data does not compress, and is stored as is
+        byte[] random = new byte[100000];
+        new Random().nextBytes(random);
+        compressed = compressor.compress(random, 0, random.length);
+        assertThat(compressor.uncompress(compressed, 0, compressed.length), equalTo(random));
+
+        byte[] empty = new byte[0];
+        compressed = compressor.compress(empty, 0, 0);
+        assertThat(compressor.uncompress(compressed, 0, compressed.length), equalTo(empty));
+    }
+
+    @Test
+    public void testStreams() throws IOException {
+        Compressor compressor = CompressorFactory.compressor(LZ4Compressor.TYPE);
+        byte[] data = source(5000);
+
+        BytesStreamOutput bytes = new BytesStreamOutput();
+        CompressedStreamOutput out = compressor.streamOutput(bytes);
+        out.writeVInt(data.length);
+        // write in pieces, so some land across chunk boundaries
+        for (int offset = 0; offset < data.length; offset += 1000) {
+            out.writeBytes(data, offset, Math.min(1000, data.length - offset));
+        }
+        out.writeUTF("end");
+        out.close();
+
+        byte[] compressed = bytes.copiedByteArray();
+        assertThat(CompressorFactory.compressor(compressed, 0, compressed.length), sameInstance(compressor));
+
+        CompressedStreamInput in = compressor.streamInput(new BytesStreamInput(compressed));
+        byte[] read = new byte[in.readVInt()];
+        in.readBytes(read, 0, read.length);
+        assertThat(read, equalTo(data));
+        assertThat(in.readUTF(), equalTo("end"));
+        assertThat(in.read(), equalTo(-1));
+    }
+
+    @Test
+    public void testDictionary() throws IOException {
+        Compressor compressor = CompressorFactory.compressor(LZ4Compressor.DICTIONARY_TYPE);
+        Compressor plain = CompressorFactory.compressor(LZ4Compressor.TYPE);
+
+        // a small doc hardly compresses on its own, the dictionary gives it some history to reference
+        byte[] data = XContentFactory.jsonBuilder().startObject()
+                .field("@timestamp", "2012-05-01T10:11:12.000Z")
+                .field("host", "web-1")
+                .field("level", "ERROR")
+                .field("message", "failed to execute request")
+                .endObject().copiedBytes();
+        byte[] compressed = compressor.compress(data, 0, data.length);
+        assertThat(compressed.length, lessThan(plain.compress(data, 0, data.length).length));
+        assertThat(CompressorFactory.compressor(compressed, 0, compressed.length), notNullValue());
+        assertThat(CompressorFactory.uncompressIfNeeded(compressed, 0, compressed.length), equalTo(data));
+
+        data = source(5000);
+        BytesStreamOutput bytes = new BytesStreamOutput();
+        CompressedStreamOutput out = compressor.streamOutput(bytes);
+        out.writeBytes(data, 0, data.length);
+        out.close();
+        compressed = bytes.copiedByteArray();
+        assertThat(compressor.uncompress(compressed, 0, compressed.length), equalTo(data));
+
+        CompressedStreamInput in = plain.streamInput(new BytesStreamInput(compressed));
+        byte[] read = new byte[data.length];
+        in.readBytes(read, 0, read.length);
+        assertThat(read, equalTo(data));
+    }
+
+    @Test
+    public void testUnknownDictionaryIsRejected() throws IOException {
+        Compressor compressor = CompressorFactory.compressor(LZ4Compressor.DICTIONARY_TYPE);
+        byte[] data = source(10);
+        byte[] compressed = compressor.compress(data, 0, data.length);
+        assertThat(compressed[2], equalTo((byte) LZ4Codec.BLOCK_TYPE_COMPRESSED_DICTIONARY));
+
+        // the dictionary id follows the chunk lengths
+        compressed[7] = 42;
+        try {
+            compressor.uncompress(compressed, 0, compressed.length);
+            assert false : "should fail";
+        } catch (StreamCorruptedException e) {
+            assertThat(e.getMessage(), containsString("unknown dictionary id [42]"));
+        }
+        try {
+            CompressedStreamInput in = compressor.streamInput(new BytesStreamInput(compressed));
+            in.readBytes(new byte[data.length], 0, data.length);
+            assert false : "should fail";
+        } catch (StreamCorruptedException e) {
+            assertThat(e.getMessage(), containsString("unknown dictionary id [42]"));
+        }
+    }
+
+    @Test
+    public void testDetection() throws IOException {
+        byte[] data = source(100);
+        assertThat(CompressorFactory.isCompressed(data), equalTo(false));
+        assertThat(CompressorFactory.uncompressIfNeeded(data, 0, data.length), nullValue());
+
+        byte[] lzf = CompressorFactory.compressor(LZFCompressor.TYPE).compress(data, 0, data.length);
+        byte[] lz4 = CompressorFactory.compressor(LZ4Compressor.TYPE).compress(data, 0, data.length);
+        assertThat(CompressorFactory.compressor(lzf, 0, lzf.length).type(), equalTo(LZFCompressor.TYPE));
+        assertThat(CompressorFactory.compressor(lz4, 0, lz4.length).type(), equalTo(LZ4Compressor.TYPE));
+        assertThat(CompressorFactory.uncompressIfNeeded(lzf, 0, lzf.length), equalTo(data));
+        assertThat(CompressorFactory.uncompressIfNeeded(lz4, 0, lz4.length), equalTo(data));
+    }
+
+    private byte[] source(int docs) throws IOException {
+        BytesStreamOutput bytes = new BytesStreamOutput();
+        for (int i = 0; i < docs; i++) {
+            bytes.writeBytes(XContentFactory.jsonBuilder().startObject()
+                    .field("id", i)
+                    .field("user", "kimchy")
+                    .field("message", "trying out elastic search " + (i % 10))
+                    .endObject().copiedBytes());
+        }
+        return bytes.copiedByteArray();
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.unit.common.lucene.analysis;
+
+import org.apache.lucene.analysis.CharReader;
+import org.elasticsearch.common.lucene.analysis.HTMLStripCharFilter;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ *
+ */
+public class HTMLStripCharFilterTests {
+
+    @Test
+    public void testResetToNewInput() throws Exception {
+        HTMLStripCharFilter filter = new HTMLStripCharFilter(CharReader.get(new StringReader("<b>hello</b> world")));
+        String expected = read(filter);
+        int expectedOffset = filter.correctOffset(expected.indexOf("world"));
+
+        // stop half way to leave state behind
+        filter.reset(CharReader.get(new StringReader("<i>foo</i> &amp; bar")));
+        filter.read(new char[4]);
+
+        filter.reset(CharReader.get(new StringReader("<b>hello</b> world")));
+        assertThat(read(filter), equalTo(expected));
+        assertThat(filter.correctOffset(expected.indexOf("world")), equalTo(expectedOffset));
+    }
+
+    private String read(Reader reader) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int ch;
+        while ((ch = reader.read()) != -1) {
+            sb.append((char) ch);
+        }
+        return sb.toString();
+    }
+}
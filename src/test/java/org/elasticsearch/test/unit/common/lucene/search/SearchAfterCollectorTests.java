@@ -0,0 +1,105 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.unit.common.lucene.search;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.NumericField;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.*;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.RAMDirectory;
+import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.common.lucene.search.SearchAfterCollector;
+import org.testng.annotations.Test;
+
+import static org.elasticsearch.common.lucene.DocumentBuilder.doc;
+import static org.elasticsearch.common.lucene.DocumentBuilder.field;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ *
+ */
+public class SearchAfterCollectorTests {
+
+    @Test
+    public void testSearchAfterPages() throws Exception {
+        Directory dir = new RAMDirectory();
+        IndexWriter indexWriter = new IndexWriter(dir, new IndexWriterConfig(Lucene.VERSION, Lucene.STANDARD_ANALYZER));
+        for (int i = 0; i < 10; i++) {
+            Document document = doc().add(field("_id", Integer.toString(i))).build();
+            // two docs for each value, the id breaks the ties
+            document.add(new NumericField("value").setLongValue(i / 2));
+            indexWriter.addDocument(document);
+        }
+
+        IndexReader reader = IndexReader.open(indexWriter, true);
+        IndexSearcher searcher = new IndexSearcher(reader);
+        Sort sort = new Sort(new SortField("value", SortField.LONG, true), new SortField("_id", SortField.STRING));
+
+        Object[] after = new Object[]{4l, "8"};
+        String[] expected = new String[]{"9", "6", "7", "4", "5", "2", "3", "0", "1"};
+        int page = 0;
+        while (true) {
+            TopFieldCollector topCollector = TopFieldCollector.create(sort, 2, true, false, false, false);
+            SearchAfterCollector collector = new SearchAfterCollector(topCollector, sort, after);
+            searcher.search(new MatchAllDocsQuery(), collector);
+            assertThat(collector.totalHits(), equalTo(10));
+            TopDocs topDocs = topCollector.topDocs();
+            if (topDocs.scoreDocs.length == 0) {
+                break;
+            }
+            for (int i = 0; i < topDocs.scoreDocs.length; i++) {
+                assertThat(reader.document(topDocs.scoreDocs[i].doc).get("_id"), equalTo(expected[page * 2 + i]));
+            }
+            after = ((FieldDoc) topDocs.scoreDocs[topDocs.scoreDocs.length - 1]).fields;
+            page++;
+        }
+        assertThat(page, equalTo(5));
+
+        reader.close();
+        indexWriter.close();
+    }
+
+    @Test
+    public void testCompareRequestValues() throws Exception {
+        TopFieldCollector topCollector = TopFieldCollector.create(new Sort(new SortField("value", SortField.FLOAT)), 1, true, false, false, false);
+        Directory dir = new RAMDirectory();
+        IndexWriter indexWriter = new IndexWriter(dir, new IndexWriterConfig(Lucene.VERSION, Lucene.STANDARD_ANALYZER));
+        for (int i = 0; i < 3; i++) {
+            Document document = new Document();
+            document.add(new NumericField("value").setFloatValue(i + 0.1f));
+            indexWriter.addDocument(document);
+        }
+        IndexReader reader = IndexReader.open(indexWriter, true);
+        IndexSearcher searcher = new IndexSearcher(reader);
+
+        // a float sort value parsed back from json as a double
+        SearchAfterCollector collector = new SearchAfterCollector(topCollector, new Sort(new SortField("value", SortField.FLOAT)), new Object[]{(double) 1.1f});
+        searcher.search(new MatchAllDocsQuery(), collector);
+        assertThat(topCollector.getTotalHits(), equalTo(1));
+        assertThat(((FieldDoc) topCollector.topDocs().scoreDocs[0]).fields[0], equalTo((Object) 2.1f));
+
+        reader.close();
+        indexWriter.close();
+    }
+}
@@ -27,6 +27,7 @@ import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.store.RAMDirectory;
 import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.common.lucene.uid.SegmentsUidLookup;
 import org.elasticsearch.common.lucene.uid.UidField;
 import org.hamcrest.MatcherAssert;
 import org.testng.annotations.Test;
@@ -34,6 +35,7 @@ import org.testng.annotations.Test;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 
 /**
  *
@@ -83,4 +85,45 @@ public class UidFieldTests {
         assertThat(UidField.loadVersion(reader, new Term("_uid", "1")), equalTo(-1l));
         assertThat(UidField.loadDocIdAndVersion(reader, new Term("_uid", "1")), nullValue());
     }
+
+    @Test
+    public void testSegmentsUidLookup() throws Exception {
+        IndexWriter writer = new IndexWriter(new RAMDirectory(), new IndexWriterConfig(Lucene.VERSION, Lucene.STANDARD_ANALYZER));
+        for (int i = 0; i < 10; i++) {
+            Document doc = new Document();
+            doc.add(new UidField("_uid", Integer.toString(i), i + 1));
+            writer.addDocument(doc);
+        }
+        writer.commit();
+        // a newer version of 3 in a second segment
+        Document doc = new Document();
+        doc.add(new UidField("_uid", "3", 20));
+        writer.updateDocument(new Term("_uid", "3"), doc);
+        writer.commit();
+
+        IndexReader reader = IndexReader.open(writer, true);
+        IndexReader[] subReaders = reader.getSequentialSubReaders();
+        assertThat(subReaders.length, equalTo(2));
+
+        SegmentsUidLookup uidLookup = new SegmentsUidLookup(subReaders);
+        // sorted, then going backwards, the term positions are seeked from one uid to the next
+        String[] uids = new String[]{"0", "1", "3", "5", "9", "2"};
+        for (String uid : uids) {
+            UidField.DocIdAndVersion docIdAndVersion = uidLookup.loadDocIdAndVersion(0, new Term("_uid", uid));
+            if (uid.equals("3")) {
+                assertThat(docIdAndVersion, nullValue());
+            } else {
+                assertThat(docIdAndVersion.version, equalTo(Long.parseLong(uid) + 1));
+                assertThat(docIdAndVersion.reader, sameInstance(subReaders[0]));
+                assertThat(docIdAndVersion.docId, equalTo(UidField.loadDocIdAndVersion(subReaders[0], new Term("_uid", uid)).docId));
+            }
+        }
+        assertThat(uidLookup.loadDocIdAndVersion(1, new Term("_uid", "3")).version, equalTo(20l));
+        assertThat(uidLookup.loadDocIdAndVersion(1, new Term("_uid", "4")), nullValue());
+        assertThat(uidLookup.loadDocIdAndVersion(0, new Term("_uid", "10")), nullValue());
+        uidLookup.close();
+
+        reader.close();
+        writer.close();
+    }
 }
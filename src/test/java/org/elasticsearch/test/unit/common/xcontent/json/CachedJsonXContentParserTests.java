@@ -0,0 +1,141 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.unit.common.xcontent.json;
+
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.json.CachedJsonXContentParser;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ *
+ */
+public class CachedJsonXContentParserTests {
+
+    private static final String DOC1 = "{\"field1\":\"value1\",\"obj\":{\"num\":12,\"arr\":[1,2.5,true,null]},\"esc\":\"a\\\"b\\u00e9\"}";
+    private static final String DOC2 = "{ \"other\" : [ {\"field1\" : -3}, \"x\" ], \"big\" : 12345678901234, unquoted : \"\\n\" }";
+
+    @BeforeMethod
+    public void clear() {
+        CachedJsonXContentParser.clear();
+    }
+
+    @Test
+    public void testReusedParserParsesNewContent() throws Exception {
+        assertThat(cachedMap(DOC1), equalTo(map(DOC1)));
+        long reused = CachedJsonXContentParser.reusedCount();
+        assertThat(cachedMap(DOC2), equalTo(map(DOC2)));
+        assertThat(cachedMap(DOC1), equalTo(map(DOC1)));
+        assertThat(CachedJsonXContentParser.reusedCount(), equalTo(reused + 2));
+    }
+
+    @Test
+    public void testResetAfterPartialParsing() throws Exception {
+        byte[] data = DOC1.getBytes("UTF-8");
+        XContentParser parser = JsonXContent.jsonXContent.createCachedParser(data, 0, data.length);
+        assertThat(parser, instanceOf(CachedJsonXContentParser.class));
+        parser.nextToken();
+        parser.nextToken();
+        parser.nextToken();
+        parser.nextToken();
+        parser.nextToken();
+        assertThat(parser.currentToken(), equalTo(XContentParser.Token.START_OBJECT));
+        parser.close();
+
+        assertThat(cachedMap(DOC2), equalTo(map(DOC2)));
+    }
+
+    @Test
+    public void testResetAfterFailure() throws Exception {
+        byte[] data = "{\"field1\" : [1, 2}".getBytes("UTF-8");
+        XContentParser parser = JsonXContent.jsonXContent.createCachedParser(data, 0, data.length);
+        try {
+            parser.map();
+            assertThat("should fail on malformed content", false);
+        } catch (Exception e) {
+            // expected
+        } finally {
+            parser.close();
+        }
+        assertThat(cachedMap(DOC1), equalTo(map(DOC1)));
+    }
+
+    @Test
+    public void testOffsetAndBom() throws Exception {
+        byte[] doc = DOC1.getBytes("UTF-8");
+        byte[] data = new byte[doc.length + 10];
+        data[5] = (byte) 0xEF;
+        data[6] = (byte) 0xBB;
+        data[7] = (byte) 0xBF;
+        System.arraycopy(doc, 0, data, 8, doc.length);
+        XContentParser parser = JsonXContent.jsonXContent.createCachedParser(data, 5, doc.length + 3);
+        assertThat(parser, instanceOf(CachedJsonXContentParser.class));
+        assertThat(parser.mapAndClose(), equalTo(map(DOC1)));
+    }
+
+    @Test
+    public void testNestedParsersAreNotCached() throws Exception {
+        byte[] data1 = DOC1.getBytes("UTF-8");
+        byte[] data2 = DOC2.getBytes("UTF-8");
+        XContentParser parser1 = JsonXContent.jsonXContent.createCachedParser(data1, 0, data1.length);
+        assertThat(parser1, instanceOf(CachedJsonXContentParser.class));
+        parser1.nextToken();
+        XContentParser parser2 = JsonXContent.jsonXContent.createCachedParser(data2, 0, data2.length);
+        assertThat(parser2, not(instanceOf(CachedJsonXContentParser.class)));
+        assertThat(parser2.mapAndClose(), equalTo(map(DOC2)));
+        parser1.nextToken();
+        assertThat(parser1.currentName(), equalTo("field1"));
+        parser1.close();
+
+        // closing twice does not release the parser while someone else uses it
+        XContentParser parser3 = JsonXContent.jsonXContent.createCachedParser(data2, 0, data2.length);
+        assertThat(parser3, instanceOf(CachedJsonXContentParser.class));
+        parser1.close();
+        XContentParser parser4 = JsonXContent.jsonXContent.createCachedParser(data1, 0, data1.length);
+        assertThat(parser4, not(instanceOf(CachedJsonXContentParser.class)));
+        parser4.close();
+        assertThat(parser3.mapAndClose(), equalTo(map(DOC2)));
+    }
+
+    @Test
+    public void testUtf16IsNotCached() throws Exception {
+        byte[] data = DOC1.getBytes("UTF-16BE");
+        XContentParser parser = JsonXContent.jsonXContent.createCachedParser(data, 0, data.length);
+        assertThat(parser, not(instanceOf(CachedJsonXContentParser.class)));
+        assertThat(parser.mapAndClose(), equalTo(map(DOC1)));
+    }
+
+    private Map<String, Object> cachedMap(String json) throws Exception {
+        byte[] data = json.getBytes("UTF-8");
+        XContentParser parser = JsonXContent.jsonXContent.createCachedParser(data, 0, data.length);
+        assertThat(parser, instanceOf(CachedJsonXContentParser.class));
+        return parser.mapAndClose();
+    }
+
+    private Map<String, Object> map(String json) throws Exception {
+        return JsonXContent.jsonXContent.createParser(json).mapAndClose();
+    }
+}
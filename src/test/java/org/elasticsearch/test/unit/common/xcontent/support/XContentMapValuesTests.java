@@ -145,4 +145,30 @@ public class XContentMapValuesTests {
         assertThat(extListValue.get(0).toString(), equalTo("value1"));
         assertThat(extListValue.get(1).toString(), equalTo("value2"));
     }
+
+    @Test
+    public void testStreamingExtractValue() throws Exception {
+        XContentBuilder builder = XContentFactory.jsonBuilder().startObject()
+                .field("test", "value")
+                .startObject("path1")
+                .startObject("skipped").field("test", "other").endObject()
+                .startArray("path2")
+                .startObject().field("test", "value1").endObject()
+                .startObject().field("test", "value2").endObject()
+                .endArray()
+                .endObject()
+                .field("last", 1)
+                .endObject();
+        String json = builder.string();
+        Map<String, Object> map = XContentFactory.xContent(XContentType.JSON).createParser(json).mapAndClose();
+
+        String[] paths = new String[]{"test", "test.me", "path1.path2.test", "path1.path2", "path1.skipped.test", "path1.non_path.test", "last", "missing"};
+        for (String path : paths) {
+            String[] pathElements = Strings.splitStringToArray(path, '.');
+            Object streamed = XContentMapValues.extractValue(pathElements, XContentFactory.xContent(XContentType.JSON).createParser(json));
+            assertThat(path, streamed, equalTo(XContentMapValues.extractValue(path, map)));
+            List<Object> streamedRaw = XContentMapValues.extractRawValues(pathElements, XContentFactory.xContent(XContentType.JSON).createParser(json));
+            assertThat(path, streamedRaw, equalTo(XContentMapValues.extractRawValues(path, map)));
+        }
+    }
 }
@@ -0,0 +1,190 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.test.unit.http.netty;
+
+import org.elasticsearch.http.netty.HttpChunkedOutputStream;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.DefaultChannelFuture;
+import org.jboss.netty.handler.codec.http.HttpChunk;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ *
+ */
+public class HttpChunkedOutputStreamTests {
+
+    @Test
+    public void testChunking() throws Exception {
+        MockChannel mock = new MockChannel();
+        HttpChunkedOutputStream out = new HttpChunkedOutputStream(mock.channel, 4);
+        out.write(new byte[]{1, 2, 3, 4, 5, 6});
+        out.write(7);
+        assertThat(mock.chunks.size(), equalTo(1));
+        mock.completeAll();
+        out.finish();
+
+        assertThat(mock.chunks.size(), equalTo(3));
+        assertThat(content(mock.chunks.get(0)), equalTo(new byte[]{1, 2, 3, 4}));
+        assertThat(content(mock.chunks.get(1)), equalTo(new byte[]{5, 6, 7}));
+        assertThat(mock.chunks.get(2).isLast(), equalTo(true));
+    }
+
+    @Test
+    public void testBuffersAreRecycled() throws Exception {
+        MockChannel mock = new MockChannel();
+        HttpChunkedOutputStream out = new HttpChunkedOutputStream(mock.channel, 4);
+        out.write(new byte[]{1, 2, 3, 4});
+        out.write(5); // writes the first chunk
+        mock.completeAll();
+        out.write(new byte[]{6, 7, 8});
+        out.write(9); // writes the second chunk, the next one reuses the buffer of the first one
+        out.write(new byte[]{10, 11, 12});
+        out.write(13);
+
+        assertThat(mock.chunks.size(), equalTo(3));
+        assertThat(mock.chunks.get(2).getContent().array(), sameInstance(mock.chunks.get(0).getContent().array()));
+        assertThat(content(mock.chunks.get(2)), equalTo(new byte[]{9, 10, 11, 12}));
+    }
+
+    @Test
+    public void testWaitsWhileNotWritable() throws Exception {
+        final MockChannel mock = new MockChannel();
+        mock.writable = false;
+        final HttpChunkedOutputStream out = new HttpChunkedOutputStream(mock.channel, 4);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        Thread writer = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    out.write(new byte[]{1, 2, 3, 4, 5});
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            }
+        };
+        writer.start();
+
+        long deadline = System.currentTimeMillis() + 10000;
+        while (writer.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        // the chunk is written, but not flushed to the client yet
+        assertThat(writer.getState(), equalTo(Thread.State.WAITING));
+        assertThat(mock.chunks.size(), equalTo(1));
+
+        mock.completeAll();
+        writer.join(10000);
+        assertThat(writer.isAlive(), equalTo(false));
+        assertThat(failure.get(), nullValue());
+    }
+
+    @Test
+    public void testFailsOnFailedWrite() throws Exception {
+        MockChannel mock = new MockChannel();
+        mock.writable = false;
+        mock.failWrites = true;
+        HttpChunkedOutputStream out = new HttpChunkedOutputStream(mock.channel, 4);
+        try {
+            out.write(new byte[]{1, 2, 3, 4, 5});
+            assert false : "should fail";
+        } catch (IOException e) {
+            // all is well
+        }
+    }
+
+    @Test
+    public void testFailsOnClosedChannel() throws Exception {
+        MockChannel mock = new MockChannel();
+        mock.open = false;
+        HttpChunkedOutputStream out = new HttpChunkedOutputStream(mock.channel, 4);
+        try {
+            out.write(new byte[]{1, 2, 3, 4, 5});
+            assert false : "should fail";
+        } catch (IOException e) {
+            // all is well
+        }
+        assertThat(mock.chunks.size(), equalTo(0));
+    }
+
+    private static byte[] content(HttpChunk chunk) {
+        byte[] content = new byte[chunk.getContent().readableBytes()];
+        chunk.getContent().getBytes(chunk.getContent().readerIndex(), content);
+        return content;
+    }
+
+    static class MockChannel implements InvocationHandler {
+
+        final Channel channel = (Channel) Proxy.newProxyInstance(Channel.class.getClassLoader(), new Class[]{Channel.class}, this);
+
+        final List<HttpChunk> chunks = new CopyOnWriteArrayList<HttpChunk>();
+
+        final List<DefaultChannelFuture> pending = new CopyOnWriteArrayList<DefaultChannelFuture>();
+
+        volatile boolean writable = true;
+
+        volatile boolean open = true;
+
+        volatile boolean failWrites = false;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("write")) {
+                chunks.add((HttpChunk) args[0]);
+                DefaultChannelFuture future = new DefaultChannelFuture(channel, false);
+                if (failWrites) {
+                    future.setFailure(new IOException("failed write"));
+                } else {
+                    pending.add(future);
+                }
+                return future;
+            } else if (name.equals("isWritable")) {
+                return writable;
+            } else if (name.equals("isOpen")) {
+                return open;
+            } else if (name.equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            } else if (name.equals("equals")) {
+                return proxy == args[0];
+            } else if (name.equals("toString")) {
+                return "mock_channel";
+            }
+            throw new UnsupportedOperationException(name);
+        }
+
+        void completeAll() {
+            for (ChannelFuture future : pending) {
+                future.setSuccess();
+            }
+            pending.clear();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.unit.index.analysis;
+
+import org.apache.lucene.analysis.*;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.util.Version;
+import org.elasticsearch.common.lucene.analysis.HTMLStripCharFilter;
+import org.elasticsearch.index.analysis.CharFilterFactory;
+import org.elasticsearch.index.analysis.CustomAnalyzer;
+import org.elasticsearch.index.analysis.TokenFilterFactory;
+import org.elasticsearch.index.analysis.TokenizerFactory;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ *
+ */
+public class CustomAnalyzerTests {
+
+    @Test
+    public void testReusedChainAnalyzesNextValue() throws Exception {
+        CustomAnalyzer analyzer = analyzer();
+
+        TokenStream first = analyzer.reusableTokenStream("field", new StringReader("<b>Hello</b> Q&A"));
+        List<String> tokens = tokens(first);
+        assertThat(tokens.size(), equalTo(2));
+        assertThat(tokens.get(0), startsWith("hello[3-"));
+        assertThat(tokens.get(1), startsWith("qanda["));
+
+        // the second value goes through the reset chain, and gives the same as a newly built chain
+        String value = "<i>Foo</i> x&y  <br/>Bar";
+        TokenStream second = analyzer.reusableTokenStream("field", new StringReader(value));
+        assertThat(second, sameInstance(first));
+        List<String> reused = tokens(second);
+        assertThat(reused, equalTo(tokens(analyzer.tokenStream("field", new StringReader(value)))));
+        assertThat(reused.size(), equalTo(3));
+        assertThat(reused.get(0), startsWith("foo[3-"));
+        assertThat(reused.get(1), startsWith("xandy[11-"));
+        assertThat(reused.get(2), startsWith("bar["));
+
+        // the reusable chain got built once, the non reusable one once
+        assertThat(analyzer.stats().analyzeCount(), equalTo(3l));
+        assertThat(analyzer.stats().chainBuildCount(), equalTo(2l));
+    }
+
+    private CustomAnalyzer analyzer() {
+        final NormalizeCharMap normMap = new NormalizeCharMap();
+        normMap.add("&", "and");
+        CharFilterFactory htmlStrip = new CharFilterFactory() {
+            @Override
+            public String name() {
+                return "html_strip";
+            }
+
+            @Override
+            public CharStream create(CharStream tokenStream) {
+                return new HTMLStripCharFilter(tokenStream);
+            }
+        };
+        CharFilterFactory mapping = new CharFilterFactory() {
+            @Override
+            public String name() {
+                return "mapping";
+            }
+
+            @Override
+            public CharStream create(CharStream tokenStream) {
+                return new ResettableMappingCharFilter(normMap, tokenStream);
+            }
+        };
+        TokenizerFactory whitespace = new TokenizerFactory() {
+            @Override
+            public String name() {
+                return "whitespace";
+            }
+
+            @Override
+            public Tokenizer create(Reader reader) {
+                return new WhitespaceTokenizer(Version.LUCENE_35, reader);
+            }
+        };
+        TokenFilterFactory lowercase = new TokenFilterFactory() {
+            @Override
+            public String name() {
+                return "lowercase";
+            }
+
+            @Override
+            public TokenStream create(TokenStream tokenStream) {
+                return new LowerCaseFilter(Version.LUCENE_35, tokenStream);
+            }
+        };
+        return new CustomAnalyzer(whitespace, new CharFilterFactory[]{htmlStrip, mapping}, new TokenFilterFactory[]{lowercase});
+    }
+
+    private List<String> tokens(TokenStream stream) throws IOException {
+        CharTermAttribute termAtt = stream.addAttribute(CharTermAttribute.class);
+        OffsetAttribute offsetAtt = stream.addAttribute(OffsetAttribute.class);
+        List<String> tokens = new ArrayList<String>();
+        stream.reset();
+        while (stream.incrementToken()) {
+            tokens.add(termAtt.toString() + "[" + offsetAtt.startOffset() + "-" + offsetAtt.endOffset() + "]");
+        }
+        stream.end();
+        stream.close();
+        return tokens;
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.unit.index.cache.bloom;
+
+import org.apache.lucene.document.Field;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.SegmentReader;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.store.RAMDirectory;
+import org.elasticsearch.common.Unicode;
+import org.elasticsearch.common.bloom.BloomFilter;
+import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.cache.bloom.simple.SimpleBloomCache;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.elasticsearch.common.lucene.DocumentBuilder.doc;
+import static org.elasticsearch.common.lucene.DocumentBuilder.field;
+import static org.elasticsearch.common.settings.ImmutableSettings.Builder.EMPTY_SETTINGS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+
+/**
+ *
+ */
+public class SimpleBloomCacheTests {
+
+    private static final String FIELD = "_uid";
+
+    private ThreadPool threadPool;
+
+    private Directory dir;
+
+    private IndexReader reader;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        threadPool = new ThreadPool();
+        dir = new RAMDirectory();
+        // two segments with the same number of docs, but different uids
+        IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig(Lucene.VERSION, Lucene.STANDARD_ANALYZER));
+        for (int segment = 0; segment < 2; segment++) {
+            for (int i = 0; i < 100; i++) {
+                writer.addDocument(doc().add(field(FIELD, uid(segment, i), Field.Store.NO, Field.Index.NOT_ANALYZED)).build());
+            }
+            writer.commit();
+        }
+        writer.close();
+        reader = IndexReader.open(dir, true);
+        assertThat(reader.getSequentialSubReaders().length, equalTo(2));
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        reader.close();
+        dir.close();
+        threadPool.shutdownNow();
+    }
+
+    @Test
+    public void testPersistedFilterIsReused() throws Exception {
+        SegmentReader segment = segment(0);
+        assertAllPresent(newCache().filter(segment, FIELD, false), 0);
+        byte[] persisted = readFile(fileName(segment));
+
+        assertAllPresent(newCache().filter(segment, FIELD, false), 0);
+        assertThat(Arrays.equals(readFile(fileName(segment)), persisted), equalTo(true));
+    }
+
+    @Test
+    public void testCorruptedFilterIsRebuilt() throws Exception {
+        SegmentReader segment = segment(0);
+        newCache().filter(segment, FIELD, false);
+        byte[] persisted = readFile(fileName(segment));
+
+        // flip bits in the middle of the filter, the file still has the right structure and length
+        byte[] corrupted = persisted.clone();
+        corrupted[corrupted.length / 2] ^= 0xFF;
+        writeFile(fileName(segment), corrupted);
+
+        assertAllPresent(newCache().filter(segment, FIELD, false), 0);
+        // it was rebuilt and persisted again
+        assertThat(Arrays.equals(readFile(fileName(segment)), persisted), equalTo(true));
+    }
+
+    @Test
+    public void testFilterOfOtherSegmentIsRejected() throws Exception {
+        SegmentReader first = segment(0);
+        SegmentReader second = segment(1);
+        newCache().filter(first, FIELD, false);
+
+        // a valid filter, with the same doc count, left behind under the name of the second segment
+        byte[] other = readFile(fileName(first));
+        writeFile(fileName(second), other);
+
+        assertAllPresent(newCache().filter(second, FIELD, false), 1);
+        assertThat(Arrays.equals(readFile(fileName(second)), other), equalTo(false));
+    }
+
+    private SimpleBloomCache newCache() {
+        return new SimpleBloomCache(new Index("test"), EMPTY_SETTINGS, threadPool);
+    }
+
+    private SegmentReader segment(int i) {
+        return (SegmentReader) reader.getSequentialSubReaders()[i];
+    }
+
+    private static String uid(int segment, int i) {
+        return "type#" + segment + "_" + i;
+    }
+
+    private static String fileName(SegmentReader segment) {
+        return segment.getSegmentName() + "_" + FIELD + ".bloom";
+    }
+
+    private void assertAllPresent(BloomFilter filter, int segment) {
+        for (int i = 0; i < 100; i++) {
+            byte[] uid = Unicode.fromStringAsBytes(uid(segment, i));
+            assertThat(uid(segment, i), filter.isPresent(uid, 0, uid.length), equalTo(true));
+        }
+        assertThat(filter, not(equalTo(BloomFilter.NONE)));
+    }
+
+    private byte[] readFile(String name) throws IOException {
+        IndexInput input = dir.openInput(name);
+        try {
+            byte[] bytes = new byte[(int) input.length()];
+            input.readBytes(bytes, 0, bytes.length);
+            return bytes;
+        } finally {
+            input.close();
+        }
+    }
+
+    private void writeFile(String name, byte[] bytes) throws IOException {
+        IndexOutput output = dir.createOutput(name);
+        try {
+            output.writeBytes(bytes, bytes.length);
+        } finally {
+            output.close();
+        }
+    }
+}
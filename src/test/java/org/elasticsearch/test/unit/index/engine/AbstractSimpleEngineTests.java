@@ -684,6 +684,41 @@ public abstract class AbstractSimpleEngineTests {
         }
     }
 
+    @Test
+    public void testVersioningNonAsciiUid() {
+        // the version map and the bloom filters work on the utf8 bytes of the uid
+        String id = "\u00e9\u4e2d1";
+        ParsedDocument doc = new ParsedDocument(id, id, "test", null, -1, -1, doc().add(uidField(id)).build(), Lucene.STANDARD_ANALYZER, B_1, false);
+        Engine.Index index = new Engine.Index(null, newUid(id), doc);
+        engine.index(index);
+        assertThat(index.version(), equalTo(1l));
+
+        index = new Engine.Index(null, newUid(id), doc);
+        engine.index(index);
+        assertThat(index.version(), equalTo(2l));
+
+        String otherId = "\u00e9\u4e2d2";
+        ParsedDocument otherDoc = new ParsedDocument(otherId, otherId, "test", null, -1, -1, doc().add(uidField(otherId)).build(), Lucene.STANDARD_ANALYZER, B_1, false);
+        index = new Engine.Index(null, newUid(otherId), otherDoc);
+        engine.index(index);
+        assertThat(index.version(), equalTo(1l));
+
+        engine.flush(new Engine.Flush());
+
+        // now loaded from the index
+        index = new Engine.Index(null, newUid(id), doc).version(1l);
+        try {
+            engine.index(index);
+            assert false;
+        } catch (VersionConflictEngineException e) {
+            // all is well
+        }
+
+        index = new Engine.Index(null, newUid(id), doc);
+        engine.index(index);
+        assertThat(index.version(), equalTo(3l));
+    }
+
     @Test
     public void testExternalVersioningIndexConflictWithFlush() {
         ParsedDocument doc = new ParsedDocument("1", "1", "test", null, -1, -1, doc().add(uidField("1")).build(), Lucene.STANDARD_ANALYZER, B_1, false);
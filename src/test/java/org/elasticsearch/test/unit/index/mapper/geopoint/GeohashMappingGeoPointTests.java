@@ -91,4 +91,45 @@ public class GeohashMappingGeoPointTests {
         MatcherAssert.assertThat(doc.rootDoc().get("point.geohash"), equalTo(GeoHashUtils.encode(1.2, 1.3)));
         MatcherAssert.assertThat(doc.rootDoc().get("point"), notNullValue());
     }
+
+    @Test
+    public void testGeoHashPrefixValues() throws Exception {
+        String mapping = XContentFactory.jsonBuilder().startObject().startObject("type")
+                .startObject("properties").startObject("point").field("type", "geo_point").field("geohash_prefix", true).field("geohash_precision", 6).endObject().endObject()
+                .endObject().endObject().string();
+
+        DocumentMapper defaultMapper = MapperTests.newParser().parse(mapping);
+
+        ParsedDocument doc = defaultMapper.parse("type", "1", XContentFactory.jsonBuilder()
+                .startObject()
+                .startObject("point").field("lat", 1.2).field("lon", 1.3).endObject()
+                .endObject()
+                .copiedBytes());
+
+        String geohash = GeoHashUtils.encode(1.2, 1.3, 6);
+        String[] values = doc.rootDoc().getValues("point.geohash_prefix");
+        MatcherAssert.assertThat(values.length, equalTo(6));
+        for (int i = 0; i < values.length; i++) {
+            MatcherAssert.assertThat(values[i], equalTo(geohash.substring(0, i + 1)));
+        }
+    }
+
+    @Test
+    public void testGeoHashPrefixKeepsGeoHashSingleValued() throws Exception {
+        String mapping = XContentFactory.jsonBuilder().startObject().startObject("type")
+                .startObject("properties").startObject("point").field("type", "geo_point").field("geohash", true).field("geohash_prefix", true).endObject().endObject()
+                .endObject().endObject().string();
+
+        DocumentMapper defaultMapper = MapperTests.newParser().parse(mapping);
+
+        ParsedDocument doc = defaultMapper.parse("type", "1", XContentFactory.jsonBuilder()
+                .startObject()
+                .startObject("point").field("lat", 1.2).field("lon", 1.3).endObject()
+                .endObject()
+                .copiedBytes());
+
+        MatcherAssert.assertThat(doc.rootDoc().getValues("point.geohash").length, equalTo(1));
+        MatcherAssert.assertThat(doc.rootDoc().get("point.geohash"), equalTo(GeoHashUtils.encode(1.2, 1.3)));
+        MatcherAssert.assertThat(doc.rootDoc().getValues("point.geohash_prefix").length, equalTo(GeoHashUtils.PRECISION));
+    }
 }
@@ -0,0 +1,93 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.unit.index.mapper.object;
+
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.index.mapper.DocumentMapper;
+import org.elasticsearch.index.mapper.ParsedDocument;
+import org.elasticsearch.test.unit.index.mapper.MapperTests;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ *
+ */
+public class ParsePlanObjectMappingTests {
+
+    @Test
+    public void testFieldsInDifferentOrders() throws IOException {
+        String mapping = XContentFactory.jsonBuilder().startObject().startObject("type")
+                .startObject("properties")
+                .startObject("field1").field("type", "string").endObject()
+                .startObject("field2").field("type", "long").endObject()
+                .startObject("obj1").startObject("properties").startObject("field3").field("type", "string").endObject().endObject().endObject()
+                .endObject()
+                .endObject().endObject().string();
+
+        DocumentMapper defaultMapper = MapperTests.newParser().parse(mapping);
+
+        // in the mapping order
+        ParsedDocument doc = defaultMapper.parse("type", "1", XContentFactory.jsonBuilder()
+                .startObject()
+                .field("field1", "value1")
+                .field("field2", 1)
+                .startObject("obj1").field("field3", "value3").endObject()
+                .endObject()
+                .copiedBytes());
+        assertThat(doc.rootDoc().get("field1"), equalTo("value1"));
+        assertThat(doc.rootDoc().getFieldable("field2"), notNullValue());
+        assertThat(doc.rootDoc().get("obj1.field3"), equalTo("value3"));
+
+        // in another order, with a missing field and a new dynamic field
+        doc = defaultMapper.parse("type", "2", XContentFactory.jsonBuilder()
+                .startObject()
+                .startObject("obj1").field("field3", "value3").endObject()
+                .field("field4", "value4")
+                .field("field1", "value1")
+                .endObject()
+                .copiedBytes());
+        assertThat(doc.rootDoc().get("field1"), equalTo("value1"));
+        assertThat(doc.rootDoc().getFieldable("field2"), nullValue());
+        assertThat(doc.rootDoc().get("obj1.field3"), equalTo("value3"));
+        assertThat(doc.rootDoc().get("field4"), equalTo("value4"));
+
+        // the same order again, now resolved by the learned plan
+        for (int i = 0; i < 2; i++) {
+            doc = defaultMapper.parse("type", "3", XContentFactory.jsonBuilder()
+                    .startObject()
+                    .startObject("obj1").field("field3", "value3").endObject()
+                    .field("field4", "value4")
+                    .field("field2", 2)
+                    .field("field1", "value1")
+                    .endObject()
+                    .copiedBytes());
+            assertThat(doc.rootDoc().get("field1"), equalTo("value1"));
+            assertThat(doc.rootDoc().getFieldable("field2"), notNullValue());
+            assertThat(doc.rootDoc().get("obj1.field3"), equalTo("value3"));
+            assertThat(doc.rootDoc().get("field4"), equalTo("value4"));
+        }
+    }
+}
@@ -19,6 +19,8 @@
 
 package org.elasticsearch.test.unit.index.mapper.source;
 
+import org.elasticsearch.common.compress.CompressorFactory;
+import org.elasticsearch.common.compress.lz4.LZ4Compressor;
 import org.elasticsearch.common.compress.lzf.LZF;
 import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.index.mapper.DocumentMapper;
@@ -90,4 +92,23 @@ public class CompressSourceMappingTests {
 
         assertThat(LZF.isCompressed(doc.rootDoc().getBinaryValue("_source")), equalTo(true));
     }
+
+    @Test
+    public void testCompressType() throws Exception {
+        String mapping = XContentFactory.jsonBuilder().startObject().startObject("type")
+                .startObject("_source").field("compress", true).field("compress_type", "lz4").endObject()
+                .endObject().endObject().string();
+
+        DocumentMapper documentMapper = MapperTests.newParser().parse(mapping);
+
+        byte[] source = XContentFactory.jsonBuilder().startObject()
+                .field("field1", "value1")
+                .field("field2", "value2")
+                .endObject().copiedBytes();
+        ParsedDocument doc = documentMapper.parse("type", "1", source);
+
+        byte[] stored = doc.rootDoc().getBinaryValue("_source");
+        assertThat(CompressorFactory.compressor(stored, 0, stored.length).type(), equalTo(LZ4Compressor.TYPE));
+        assertThat(documentMapper.sourceMapper().value(doc.rootDoc()), equalTo(source));
+    }
 }
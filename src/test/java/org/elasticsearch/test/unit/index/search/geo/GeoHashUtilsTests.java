@@ -90,4 +90,22 @@ public class GeoHashUtilsTests {
         assertEquals(decode[0], GeoHashUtils.decode(geoHash)[0], 0.000001d);
         assertEquals(decode[1], GeoHashUtils.decode(geoHash)[1], 0.000001d);
     }
+
+    /**
+     * Pass condition: the cell of a geohash contains the point it was encoded from, and its center
+     * is the decoded point
+     */
+    @Test
+    public void testDecodeCell() {
+        String hash = GeoHashUtils.encode(52.3738007, 4.8909347, 5);
+        double[] bounds = new double[4];
+        GeoHashUtils.decodeCell(hash, bounds);
+
+        assertEquals(true, bounds[0] <= 52.3738007 && 52.3738007 <= bounds[1]);
+        assertEquals(true, bounds[2] <= 4.8909347 && 4.8909347 <= bounds[3]);
+
+        double[] latitudeLongitude = GeoHashUtils.decode(hash);
+        assertEquals((bounds[0] + bounds[1]) / 2, latitudeLongitude[0], 0.0000001D);
+        assertEquals((bounds[2] + bounds[3]) / 2, latitudeLongitude[1], 0.0000001D);
+    }
 }
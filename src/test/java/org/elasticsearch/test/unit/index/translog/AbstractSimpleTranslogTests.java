@@ -87,6 +87,27 @@ public abstract class AbstractSimpleTranslogTests {
         snapshot.release();
     }
 
+    @Test
+    public void testTotalTranslogSizeCarriesOverFlushes() {
+        translog.add(new Translog.Create("test", "1", new byte[]{1}));
+        long firstSize = translog.translogSizeInBytes();
+        assertThat(translog.totalTranslogSizeInBytes(), equalTo(firstSize));
+
+        translog.newTransientTranslog(2);
+        translog.add(new Translog.Index("test", "2", new byte[]{2}));
+        long total = translog.totalTranslogSizeInBytes();
+        assertThat(total, equalTo(translog.translogSizeInBytes()));
+
+        translog.makeTransientCurrent();
+        // the operations added while flushing are only counted once
+        assertThat(translog.totalTranslogSizeInBytes(), equalTo(total));
+
+        translog.newTranslog(3);
+        assertThat(translog.totalTranslogSizeInBytes(), equalTo(total));
+        translog.add(new Translog.Index("test", "3", new byte[]{3}));
+        assertThat(translog.totalTranslogSizeInBytes() - total, equalTo(translog.translogSizeInBytes()));
+    }
+
     @Test
     public void testSimpleOperations() {
         Translog.Snapshot snapshot = translog.snapshot();
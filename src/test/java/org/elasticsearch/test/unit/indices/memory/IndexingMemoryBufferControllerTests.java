@@ -0,0 +1,83 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.test.unit.indices.memory;
+
+import org.elasticsearch.indices.memory.IndexingMemoryBufferController;
+import org.testng.annotations.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ *
+ */
+public class IndexingMemoryBufferControllerTests {
+
+    private static final long MB = 1024 * 1024;
+
+    @Test
+    public void testEqualSplitWithoutRate() {
+        assertThat(IndexingMemoryBufferController.shardIndexingBufferSize(100 * MB, 4 * MB, 512 * MB, 4, 0, 0), equalTo(25 * MB));
+    }
+
+    @Test
+    public void testRateWeightedSplit() {
+        // 4 shards, one takes 3/4 of the writes, another 1/4, the other two are idle
+        long hot = IndexingMemoryBufferController.shardIndexingBufferSize(100 * MB, 4 * MB, 512 * MB, 4, 300, 400);
+        long warm = IndexingMemoryBufferController.shardIndexingBufferSize(100 * MB, 4 * MB, 512 * MB, 4, 100, 400);
+        long idle = IndexingMemoryBufferController.shardIndexingBufferSize(100 * MB, 4 * MB, 512 * MB, 4, 0, 400);
+        assertThat(idle, equalTo(4 * MB));
+        assertThat(hot, equalTo(4 * MB + 63 * MB));
+        assertThat(warm, equalTo(4 * MB + 21 * MB));
+        assertThat(hot + warm + 2 * idle, equalTo(100 * MB));
+    }
+
+    @Test
+    public void testSplitBounds() {
+        // not enough buffer for the min of each shard, equal split, bounded by the min
+        assertThat(IndexingMemoryBufferController.shardIndexingBufferSize(10 * MB, 4 * MB, 512 * MB, 4, 100, 200), equalTo(4 * MB));
+        // a single hot shard does not get more than the max
+        assertThat(IndexingMemoryBufferController.shardIndexingBufferSize(2048 * MB, 4 * MB, 512 * MB, 2, 100, 100), equalTo(512 * MB));
+    }
+
+    @Test
+    public void testDecayedRate() {
+        // 1mb in 1 second, from no rate
+        assertThat(IndexingMemoryBufferController.decayedRate(0, MB, 1000), equalTo(MB / 2.0));
+        // follows a constant rate
+        double rate = 0;
+        for (int i = 0; i < 20; i++) {
+            rate = IndexingMemoryBufferController.decayedRate(rate, MB, 1000);
+        }
+        assertThat(rate, closeTo(MB, 1));
+        // and decays once writes stop
+        rate = IndexingMemoryBufferController.decayedRate(rate, 0, 1000);
+        assertThat(rate, closeTo(MB / 2.0, 1));
+    }
+
+    @Test
+    public void testDecayedRateWeightsBySampleTime() {
+        // 2mb in 2 seconds weighs as much as two samples of 1mb in 1 second
+        double twoSamples = IndexingMemoryBufferController.decayedRate(IndexingMemoryBufferController.decayedRate(0, MB, 1000), MB, 1000);
+        assertThat(IndexingMemoryBufferController.decayedRate(0, 2 * MB, 2000), closeTo(twoSamples, 1));
+        assertThat(twoSamples, closeTo(MB * 0.75, 1));
+        // a short sample moves the rate less
+        assertThat(IndexingMemoryBufferController.decayedRate(0, MB / 2, 500), lessThan(MB / 2.0));
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.test.unit.indices.merge;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LogDocMergePolicy;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.store.RAMDirectory;
+import org.elasticsearch.common.RateLimiter;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.indices.merge.IndicesMergeScheduler;
+import org.elasticsearch.indices.merge.ShardMergeScheduler;
+import org.elasticsearch.node.settings.NodeSettingsService;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.elasticsearch.common.settings.ImmutableSettings.Builder.EMPTY_SETTINGS;
+import static org.elasticsearch.common.settings.ImmutableSettings.settingsBuilder;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ *
+ */
+public class IndicesMergeSchedulerTests {
+
+    @Test
+    public void testMergePriorityAging() {
+        long ageStep = 1000;
+        long large = 1024 * 1024 * 1024;
+        long small = 1024;
+
+        // same submission time, smaller first
+        assertThat(IndicesMergeScheduler.mergePriority(0, small, ageStep), lessThan(IndicesMergeScheduler.mergePriority(0, large, ageStep)));
+        // same size, submission order
+        assertThat(IndicesMergeScheduler.mergePriority(0, large, ageStep), lessThan(IndicesMergeScheduler.mergePriority(1, large, ageStep)));
+        // a large merge (20 doublings larger) overtakes the small merges submitted once it waited 20 steps
+        assertThat(IndicesMergeScheduler.mergePriority(19 * ageStep, small, ageStep), lessThan(IndicesMergeScheduler.mergePriority(0, large, ageStep)));
+        assertThat(IndicesMergeScheduler.mergePriority(21 * ageStep, small, ageStep), greaterThan(IndicesMergeScheduler.mergePriority(0, large, ageStep)));
+        // unknown sizes still age
+        assertThat(IndicesMergeScheduler.mergePriority(64 * ageStep, small, ageStep), greaterThan(IndicesMergeScheduler.mergePriority(0, Long.MAX_VALUE, ageStep)));
+    }
+
+    @Test
+    public void testRateBounds() {
+        IndicesMergeScheduler scheduler = new IndicesMergeScheduler(EMPTY_SETTINGS, new NodeSettingsService(EMPTY_SETTINGS));
+        assertThat(scheduler.currentMbPerSec(), equalTo(5.0));
+        scheduler.close();
+
+        scheduler = new IndicesMergeScheduler(settingsBuilder().put("indices.merge.max_bytes_per_sec", 0).build(), new NodeSettingsService(EMPTY_SETTINGS));
+        assertThat(scheduler.currentMbPerSec(), equalTo(0.0));
+        scheduler.close();
+
+        scheduler = new IndicesMergeScheduler(settingsBuilder().put("indices.merge.min_bytes_per_sec", "20mb").put("indices.merge.max_bytes_per_sec", "10mb").build(), new NodeSettingsService(EMPTY_SETTINGS));
+        assertThat(scheduler.currentMbPerSec(), equalTo(10.0));
+        scheduler.close();
+    }
+
+    @Test
+    public void testRateLimiterPauses() {
+        RateLimiter rateLimiter = new RateLimiter(1);
+        rateLimiter.pause(1);
+        long start = System.nanoTime();
+        rateLimiter.pause(512 * 1024);
+        long tookMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        // 512kb at 1mb/sec
+        assertThat(tookMillis, greaterThanOrEqualTo(400l));
+    }
+
+    @Test
+    public void testMerges() throws Exception {
+        IndicesMergeScheduler indicesScheduler = new IndicesMergeScheduler(settingsBuilder().put("indices.merge.max_bytes_per_sec", 0).build(), new NodeSettingsService(EMPTY_SETTINGS));
+        ShardMergeScheduler shardScheduler = new ShardMergeScheduler(Loggers.getLogger(IndicesMergeSchedulerTests.class), indicesScheduler, 4);
+        IndexWriter writer = new IndexWriter(new RAMDirectory(), writerConfig(shardScheduler));
+        for (int i = 0; i < 100; i++) {
+            writer.addDocument(doc(i));
+        }
+        writer.optimize();
+        IndexReader reader = IndexReader.open(writer, true);
+        assertThat(reader.getSequentialSubReaders().length, equalTo(1));
+        reader.close();
+        assertThat(writer.numDocs(), equalTo(100));
+        writer.close();
+
+        assertThat(shardScheduler.totalMerges(), greaterThan(0l));
+        assertThat(shardScheduler.currentMerges(), equalTo(0l));
+        assertThat(shardScheduler.queuedMerges(), equalTo(0l));
+        indicesScheduler.close();
+    }
+
+    @Test
+    public void testIndexingStallsOnMaxMergeCount() throws Exception {
+        IndicesMergeScheduler indicesScheduler = new IndicesMergeScheduler(settingsBuilder()
+                .put("indices.merge.max_thread_count", 1)
+                .put("indices.merge.max_bytes_per_sec", 0)
+                .build(), new NodeSettingsService(EMPTY_SETTINGS));
+        ShardMergeScheduler shardScheduler = new ShardMergeScheduler(Loggers.getLogger(IndicesMergeSchedulerTests.class), indicesScheduler, 1);
+        final CountDownLatch mergeStarted = new CountDownLatch(1);
+        final CountDownLatch releaseMerge = new CountDownLatch(1);
+        RAMDirectory dir = new RAMDirectory() {
+            @Override
+            public IndexOutput createOutput(String name) throws IOException {
+                if (Thread.currentThread().getName().contains("[merge]")) {
+                    mergeStarted.countDown();
+                    try {
+                        releaseMerge.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.createOutput(name);
+            }
+        };
+        final IndexWriter writer = new IndexWriter(dir, writerConfig(shardScheduler));
+        final AtomicInteger indexed = new AtomicInteger();
+        Thread indexer = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    for (int i = 0; i < 20; i++) {
+                        writer.addDocument(doc(i));
+                        indexed.incrementAndGet();
+                    }
+                } catch (Exception e) {
+                    // the assertions on the number of indexed docs fail
+                }
+            }
+        };
+        indexer.start();
+
+        assertThat(mergeStarted.await(10, TimeUnit.SECONDS), equalTo(true));
+        long deadline = System.currentTimeMillis() + 10000;
+        while (indexer.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        // the merge is blocked, so the indexer waits for it in the shard merge scheduler
+        assertThat(indexer.getState(), equalTo(Thread.State.WAITING));
+        assertThat(indexed.get(), lessThan(20));
+        assertThat(shardScheduler.currentMerges(), equalTo(1l));
+
+        releaseMerge.countDown();
+        indexer.join(10000);
+        assertThat(indexed.get(), equalTo(20));
+        writer.close();
+        assertThat(shardScheduler.totalMerges(), greaterThan(0l));
+        assertThat(shardScheduler.queuedMerges(), equalTo(0l));
+        indicesScheduler.close();
+    }
+
+    private IndexWriterConfig writerConfig(ShardMergeScheduler shardScheduler) {
+        LogDocMergePolicy mergePolicy = new LogDocMergePolicy();
+        mergePolicy.setMergeFactor(2);
+        mergePolicy.setMinMergeDocs(1);
+        return new IndexWriterConfig(Lucene.VERSION, Lucene.STANDARD_ANALYZER)
+                .setMaxBufferedDocs(2)
+                .setMergePolicy(mergePolicy)
+                .setMergeScheduler(shardScheduler);
+    }
+
+    private Document doc(int id) {
+        Document doc = new Document();
+        doc.add(new Field("_id", Integer.toString(id), Field.Store.YES, Field.Index.NOT_ANALYZED));
+        return doc;
+    }
+}
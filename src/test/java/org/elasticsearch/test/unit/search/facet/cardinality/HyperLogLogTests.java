@@ -0,0 +1,86 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.unit.search.facet.cardinality;
+
+import org.elasticsearch.common.io.stream.BytesStreamInput;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.search.facet.cardinality.HyperLogLog;
+import org.testng.annotations.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ */
+@Test
+public class HyperLogLogTests {
+
+    @Test
+    public void testSmallCardinalityIsExactEnough() {
+        HyperLogLog sketch = new HyperLogLog(HyperLogLog.DEFAULT_PRECISION);
+        assertThat(sketch.cardinality(), equalTo(0l));
+        for (int i = 0; i < 100; i++) {
+            // duplicates should not be counted
+            sketch.offer(HyperLogLog.hash(i));
+            sketch.offer(HyperLogLog.hash(Integer.toString(i)));
+            sketch.offer(HyperLogLog.hash(i));
+        }
+        assertThat(sketch.cardinality(), allOf(greaterThanOrEqualTo(195l), lessThanOrEqualTo(205l)));
+    }
+
+    @Test
+    public void testLargeCardinalityWithinError() {
+        HyperLogLog sketch = new HyperLogLog(HyperLogLog.DEFAULT_PRECISION);
+        for (long i = 0; i < 1000000; i++) {
+            sketch.offer(HyperLogLog.hash(i));
+        }
+        // standard error is 1.04 / sqrt(2^14) ~ 0.8%
+        assertThat(sketch.cardinality(), allOf(greaterThan(970000l), lessThan(1030000l)));
+    }
+
+    @Test
+    public void testMergeAndSerialize() throws Exception {
+        HyperLogLog first = new HyperLogLog(10);
+        HyperLogLog second = new HyperLogLog(10);
+        HyperLogLog all = new HyperLogLog(10);
+        for (long i = 0; i < 5000; i++) {
+            HyperLogLog sketch = i % 2 == 0 ? first : second;
+            sketch.offer(HyperLogLog.hash(i));
+            all.offer(HyperLogLog.hash(i));
+        }
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        second.writeTo(out);
+        HyperLogLog read = HyperLogLog.readFrom(new BytesStreamInput(out.copiedByteArray()));
+        assertThat(read.precision(), equalTo(10));
+        assertThat(read.cardinality(), equalTo(second.cardinality()));
+
+        first.merge(read);
+        assertThat(first.cardinality(), equalTo(all.cardinality()));
+
+        // a sparse sketch round trips as well
+        HyperLogLog sparse = new HyperLogLog(HyperLogLog.DEFAULT_PRECISION);
+        sparse.offer(HyperLogLog.hash("value"));
+        out = new BytesStreamOutput();
+        sparse.writeTo(out);
+        assertThat(out.copiedByteArray().length, lessThan(16));
+        assertThat(HyperLogLog.readFrom(new BytesStreamInput(out.copiedByteArray())).cardinality(), equalTo(1l));
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.unit.search.facet.datehistogram;
+
+import org.elasticsearch.index.field.data.longs.SingleValueLongFieldData;
+import org.elasticsearch.search.facet.datehistogram.OrdinalDateBuckets;
+import org.joda.time.DateTimeZone;
+import org.joda.time.MutableDateTime;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+/**
+ *
+ */
+public class OrdinalDateBucketsTests {
+
+    @Test
+    public void testMonthRounding() {
+        MutableDateTime dateTime = new MutableDateTime(DateTimeZone.UTC);
+        dateTime.setRounding(dateTime.getChronology().monthOfYear(), MutableDateTime.ROUND_FLOOR);
+
+        long[] values = new long[]{0, utc("2012-01-15"), utc("2012-01-31"), utc("2012-02-01")};
+        SingleValueLongFieldData fieldData = new SingleValueLongFieldData("date", new int[]{1, 2, 3}, values);
+
+        OrdinalDateBuckets buckets = new OrdinalDateBuckets(dateTime, 1);
+        buckets.reset(fieldData);
+        assertThat(buckets.bucket(1), equalTo(utc("2012-01-01")));
+        assertThat(buckets.bucket(2), equalTo(utc("2012-01-01")));
+        assertThat(buckets.bucket(3), equalTo(utc("2012-02-01")));
+        assertThat(buckets.bucket(1), equalTo(utc("2012-01-01")));
+        assertThat(buckets.size(), equalTo(2));
+
+        // a new segment
+        values = new long[]{0, utc("2012-03-02")};
+        buckets.reset(new SingleValueLongFieldData("date", new int[]{1}, values));
+        assertThat(buckets.bucket(1), equalTo(utc("2012-03-01")));
+    }
+
+    @Test
+    public void testInterval() {
+        long hour = 60 * 60 * 1000;
+        long[] values = new long[]{0, hour + 5, 3 * hour - 1};
+        SingleValueLongFieldData fieldData = new SingleValueLongFieldData("date", new int[]{1, 2}, values);
+
+        OrdinalDateBuckets buckets = new OrdinalDateBuckets(new MutableDateTime(DateTimeZone.UTC), 2 * hour);
+        buckets.reset(fieldData);
+        assertThat(buckets.bucket(1), equalTo(0l));
+        assertThat(buckets.bucket(2), equalTo(2 * hour));
+    }
+
+    @Test
+    public void testMillisecondValues() {
+        // distinct millisecond timestamps over ten days, including values before the epoch
+        Random random = new Random();
+        long day = 24 * 60 * 60 * 1000;
+        long[] values = new long[10001];
+        long value = -5 * day;
+        for (int i = 1; i < values.length; i++) {
+            value += 1 + random.nextInt((int) (day / 1000));
+            values[i] = value;
+        }
+        int[] ordinals = new int[values.length - 1];
+        for (int i = 0; i < ordinals.length; i++) {
+            ordinals[i] = i + 1;
+        }
+        SingleValueLongFieldData fieldData = new SingleValueLongFieldData("date", ordinals, values);
+
+        int[] roundings = new int[]{MutableDateTime.ROUND_FLOOR, MutableDateTime.ROUND_CEILING, MutableDateTime.ROUND_HALF_EVEN};
+        for (int rounding : roundings) {
+            MutableDateTime dateTime = new MutableDateTime(DateTimeZone.forID("America/New_York"));
+            dateTime.setRounding(dateTime.getChronology().hourOfDay(), rounding);
+            MutableDateTime expected = new MutableDateTime(DateTimeZone.forID("America/New_York"));
+            expected.setRounding(expected.getChronology().hourOfDay(), rounding);
+
+            OrdinalDateBuckets buckets = new OrdinalDateBuckets(dateTime, 1);
+            buckets.reset(fieldData);
+            // about one bucket per hour, not one per value
+            assertThat(buckets.size(), lessThanOrEqualTo(10 * 24 + 2));
+            for (int ordinal = 1; ordinal < values.length; ordinal++) {
+                expected.setMillis(values[ordinal]);
+                assertThat(buckets.bucket(ordinal), equalTo(expected.getMillis()));
+            }
+        }
+
+        long interval = 3 * 60 * 60 * 1000;
+        OrdinalDateBuckets buckets = new OrdinalDateBuckets(new MutableDateTime(DateTimeZone.UTC), interval);
+        buckets.reset(fieldData);
+        for (int ordinal = 1; ordinal < values.length; ordinal++) {
+            assertThat(buckets.bucket(ordinal), equalTo((values[ordinal] / interval) * interval));
+        }
+    }
+
+    @Test
+    public void testEmptySegment() {
+        OrdinalDateBuckets buckets = new OrdinalDateBuckets(new MutableDateTime(DateTimeZone.UTC), 1);
+        buckets.reset(new SingleValueLongFieldData("date", new int[]{0, 0}, new long[]{0}));
+        assertThat(buckets.size(), equalTo(0));
+    }
+
+    private static long utc(String date) {
+        return new MutableDateTime(date, DateTimeZone.UTC).getMillis();
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.unit.search.facet.terms;
+
+import org.elasticsearch.common.collect.BoundedTreeSet;
+import org.elasticsearch.search.facet.terms.TermsFacet;
+import org.elasticsearch.search.facet.terms.longs.InternalLongTermsFacet;
+import org.elasticsearch.search.facet.terms.support.PrimitiveEntryPriorityQueue;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ */
+@Test
+public class PrimitiveEntryPriorityQueueTests {
+
+    @Test
+    public void testSameOrderAsComparator() {
+        Random random = new Random(42);
+        for (TermsFacet.ComparatorType comparatorType : TermsFacet.ComparatorType.values()) {
+            for (int size : new int[]{1, 3, 10, 100}) {
+                PrimitiveEntryPriorityQueue queue = new PrimitiveEntryPriorityQueue(size, comparatorType);
+                BoundedTreeSet<InternalLongTermsFacet.LongEntry> expected = new BoundedTreeSet<InternalLongTermsFacet.LongEntry>(comparatorType.comparator(), size);
+                for (long term = 0; term < 50; term++) {
+                    int count = random.nextInt(10);
+                    queue.insert(term, count);
+                    expected.add(new InternalLongTermsFacet.LongEntry(term, count));
+                }
+
+                assertThat(queue.size(), equalTo(expected.size()));
+                InternalLongTermsFacet.LongEntry[] actual = new InternalLongTermsFacet.LongEntry[queue.size()];
+                for (int i = queue.size() - 1; i >= 0; i--) {
+                    queue.pop();
+                    actual[i] = new InternalLongTermsFacet.LongEntry(queue.poppedTerm(), queue.poppedCount());
+                }
+                int i = 0;
+                for (InternalLongTermsFacet.LongEntry entry : expected) {
+                    assertThat(actual[i].term(), equalTo(entry.term()));
+                    assertThat(actual[i].count(), equalTo(entry.count()));
+                    i++;
+                }
+            }
+        }
+    }
+}
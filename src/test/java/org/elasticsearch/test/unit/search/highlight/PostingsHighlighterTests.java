@@ -0,0 +1,150 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.unit.search.highlight;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.RAMDirectory;
+import org.elasticsearch.common.io.FastStringReader;
+import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.common.lucene.analysis.OffsetPayloadAnalyzer;
+import org.elasticsearch.common.lucene.analysis.OffsetPayloadTokenFilter;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.index.mapper.DocumentMapper;
+import org.elasticsearch.index.mapper.ParsedDocument;
+import org.elasticsearch.index.mapper.core.StringFieldMapper;
+import org.elasticsearch.search.lookup.SourceLookup;
+import org.elasticsearch.test.unit.index.mapper.MapperTests;
+import org.elasticsearch.search.highlight.HighlightPhase;
+import org.elasticsearch.search.highlight.postings.PostingsHighlighter;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ */
+@Test
+public class PostingsHighlighterTests {
+
+    @Test
+    public void testHighlightFromPayloadOffsets() throws Exception {
+        Directory dir = new RAMDirectory();
+        IndexWriter indexWriter = new IndexWriter(dir, new IndexWriterConfig(Lucene.VERSION, Lucene.STANDARD_ANALYZER));
+
+        List<Object> values = Lists.<Object>newArrayList("the quick brown fox", "jumps over the lazy dog and the brown cat");
+        Document doc = new Document();
+        for (int i = 0; i < values.size(); i++) {
+            Field field = new Field("content", values.get(i).toString(), Field.Store.YES, Field.Index.ANALYZED);
+            field.setTokenStream(new OffsetPayloadTokenFilter(Lucene.STANDARD_ANALYZER.tokenStream("content", new FastStringReader(values.get(i).toString())), i));
+            doc.add(field);
+        }
+        indexWriter.addDocument(doc);
+
+        IndexReader reader = IndexReader.open(indexWriter, true);
+        Term[] terms = new Term[]{new Term("content", "brown"), new Term("content", "lazy")};
+
+        PostingsHighlighter highlighter = new PostingsHighlighter(terms, "<em>", "</em>", HighlightPhase.Encoders.DEFAULT, 100, 0, false);
+        String[] fragments = highlighter.highlight(reader, 0, values);
+        assertThat(fragments.length, equalTo(1));
+        assertThat(fragments[0], equalTo("the quick <em>brown</em> fox jumps over the <em>lazy</em> dog and the <em>brown</em> cat"));
+
+        highlighter = new PostingsHighlighter(terms, "<em>", "</em>", HighlightPhase.Encoders.DEFAULT, 100, 1, false);
+        fragments = highlighter.highlight(reader, 0, values);
+        assertThat(fragments.length, equalTo(1));
+        assertThat(fragments[0], equalTo("jumps over the <em>lazy</em> dog and the <em>brown</em> cat"));
+
+        highlighter = new PostingsHighlighter(new Term[]{new Term("content", "missing")}, "<em>", "</em>", HighlightPhase.Encoders.DEFAULT, 100, 1, false);
+        assertThat(highlighter.highlight(reader, 0, values), nullValue());
+
+        reader.close();
+        indexWriter.close();
+    }
+
+    @Test
+    public void testValueIndicesRestartPerDoc() throws Exception {
+        Directory dir = new RAMDirectory();
+        IndexWriter indexWriter = new IndexWriter(dir, new IndexWriterConfig(Lucene.VERSION, Lucene.STANDARD_ANALYZER));
+
+        // same as a nested doc indexed before its parent
+        Document nested = new Document();
+        nested.add(new Field("content", "a brown bear", Field.Store.NO, Field.Index.ANALYZED));
+        List<Object> values = Lists.<Object>newArrayList("the quick brown fox", "the brown cat");
+        Document parent = new Document();
+        for (Object value : values) {
+            parent.add(new Field("content", value.toString(), Field.Store.NO, Field.Index.ANALYZED));
+        }
+        OffsetPayloadAnalyzer analyzer = new OffsetPayloadAnalyzer(Lucene.STANDARD_ANALYZER, ImmutableSet.of("content"), Lists.newArrayList(nested, parent));
+        assertThat(analyzer.hasValues(), equalTo(true));
+        indexWriter.addDocument(nested, analyzer);
+        indexWriter.addDocument(parent, analyzer);
+
+        IndexReader reader = IndexReader.open(indexWriter, true);
+        PostingsHighlighter highlighter = new PostingsHighlighter(new Term[]{new Term("content", "brown")}, "<em>", "</em>", HighlightPhase.Encoders.DEFAULT, 100, 0, false);
+        String[] fragments = highlighter.highlight(reader, 1, values);
+        assertThat(fragments.length, equalTo(1));
+        assertThat(fragments[0], equalTo("the quick <em>brown</em> fox the <em>brown</em> cat"));
+
+        reader.close();
+        indexWriter.close();
+    }
+
+    @Test
+    public void testParsedDocWithNullValues() throws Exception {
+        String mapping = XContentFactory.jsonBuilder().startObject().startObject("type")
+                .startObject("properties").startObject("content").field("type", "string").field("index_offsets", true).field("null_value", "brown nothing").endObject().endObject()
+                .endObject().endObject().string();
+        DocumentMapper docMapper = MapperTests.newParser().parse(mapping);
+        StringFieldMapper mapper = (StringFieldMapper) docMapper.mappers().smartNameFieldMapper("content");
+        assertThat(mapper.indexOffsets(), equalTo(true));
+
+        byte[] source = XContentFactory.jsonBuilder().startObject()
+                .startArray("content").nullValue().value("the quick brown fox").value("the lazy dog").value("the brown cat").endArray()
+                .endObject().copiedBytes();
+        ParsedDocument doc = docMapper.parse("type", "1", source);
+
+        Directory dir = new RAMDirectory();
+        IndexWriter indexWriter = new IndexWriter(dir, new IndexWriterConfig(Lucene.VERSION, Lucene.STANDARD_ANALYZER));
+        indexWriter.addDocument(doc.rootDoc(), doc.analyzer());
+        IndexReader reader = IndexReader.open(indexWriter, true);
+
+        Map<String, Object> sourceAsMap = SourceLookup.sourceAsMap(source, 0, source.length);
+        List<Object> values = mapper.sourceValues(sourceAsMap);
+        assertThat(values, equalTo((List<Object>) Lists.<Object>newArrayList("brown nothing", "the quick brown fox", "the lazy dog", "the brown cat")));
+
+        PostingsHighlighter highlighter = new PostingsHighlighter(new Term[]{new Term("content", "brown")}, "<em>", "</em>", HighlightPhase.Encoders.DEFAULT, 100, 0, false);
+        String[] fragments = highlighter.highlight(reader, 0, values);
+        assertThat(fragments.length, equalTo(1));
+        assertThat(fragments[0], equalTo("<em>brown</em> nothing the quick <em>brown</em> fox the <em>brown</em> cat"));
+
+        reader.close();
+        indexWriter.close();
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.unit.search.lookup;
+
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.search.lookup.SourceLookup;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ *
+ */
+public class SourceLookupTests {
+
+    private static byte[] source() throws Exception {
+        return XContentFactory.jsonBuilder().startObject()
+                .field("title", "the title")
+                .startObject("obj").field("field", "value").field("number", 1).endObject()
+                .startArray("arr").startObject().field("x", 1).endObject().startObject().field("x", 2).endObject().endArray()
+                .nullField("empty")
+                .field("last", "the end")
+                .endObject().copiedBytes();
+    }
+
+    @Test
+    public void testGetInOrderDoesNotParseTheWholeSource() throws Exception {
+        SourceLookup lookup = new SourceLookup();
+        byte[] source = source();
+        lookup.setNextSource(source, 0, source.length);
+
+        assertThat((String) lookup.get("title"), equalTo("the title"));
+        assertThat(((Map) lookup.get("obj")).get("field"), equalTo((Object) "value"));
+        // already read
+        assertThat((String) lookup.get("title"), equalTo("the title"));
+        assertThat(lookup.get("empty"), nullValue());
+        assertThat((String) lookup.get("last"), equalTo("the end"));
+        assertThat(lookup.get("missing"), nullValue());
+        assertThat(lookup.source(), nullValue());
+    }
+
+    @Test
+    public void testGetOfSkippedKeyParsesTheSource() throws Exception {
+        SourceLookup lookup = new SourceLookup();
+        byte[] source = source();
+        lookup.setNextSource(source, 0, source.length);
+
+        assertThat((String) lookup.get("last"), equalTo("the end"));
+        assertThat(lookup.source(), nullValue());
+        // title was skipped on the way to last
+        assertThat((String) lookup.get("title"), equalTo("the title"));
+        assertThat(lookup.source(), notNullValue());
+        assertThat((String) lookup.get("last"), equalTo("the end"));
+        assertThat(lookup.size(), equalTo(5));
+    }
+
+    @Test
+    public void testExtractMatchesTheParsedSource() throws Exception {
+        byte[] source = source();
+        Map<String, Object> map = SourceLookup.sourceAsMap(source, 0, source.length);
+        for (String path : Arrays.asList("title", "obj.field", "obj.number", "obj", "arr.x", "empty", "last", "missing", "obj.missing")) {
+            SourceLookup lookup = new SourceLookup();
+            lookup.setNextSource(source, 0, source.length);
+            SourceLookup parsed = new SourceLookup();
+            parsed.setNextSource(map);
+
+            assertThat(path, lookup.extractValue(path), equalTo(parsed.extractValue(path)));
+            List<Object> values = lookup.extractRawValues(path);
+            assertThat(path, values, equalTo(parsed.extractRawValues(path)));
+        }
+    }
+
+    @Test
+    public void testNextSourceResetsStreamedValues() throws Exception {
+        SourceLookup lookup = new SourceLookup();
+        byte[] source = source();
+        lookup.setNextSource(source, 0, source.length);
+        assertThat((String) lookup.get("title"), equalTo("the title"));
+
+        byte[] other = XContentFactory.jsonBuilder().startObject().field("title", "other").endObject().copiedBytes();
+        lookup.setNextSource(other, 0, other.length);
+        assertThat((String) lookup.get("title"), equalTo("other"));
+        assertThat(lookup.get("last"), nullValue());
+    }
+}
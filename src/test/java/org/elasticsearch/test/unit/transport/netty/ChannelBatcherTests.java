@@ -0,0 +1,144 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.unit.transport.netty;
+
+import org.elasticsearch.common.io.stream.CachedStreamOutput;
+import org.elasticsearch.transport.TransportServiceAdapter;
+import org.elasticsearch.transport.netty.ChannelBatcher;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.DefaultChannelFuture;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ *
+ */
+public class ChannelBatcherTests {
+
+    @Test
+    public void testWritesMessage() throws Exception {
+        MockChannel mock = new MockChannel();
+        ChannelBatcher batcher = new ChannelBatcher(mock.channel, adapter(), 0, 1024);
+        batcher.write(entry(1, 2, 3));
+
+        assertThat(mock.writes.size(), equalTo(1));
+        assertThat(mock.writes.get(0).readableBytes(), equalTo(3));
+        assertThat(mock.closed, equalTo(false));
+    }
+
+    @Test
+    public void testFailedWriteClosesChannelAndReleasesPending() throws Exception {
+        final MockChannel mock = new MockChannel();
+        final ChannelBatcher batcher = new ChannelBatcher(mock.channel, adapter(), 0, 1024);
+        final CachedStreamOutput.Entry queued = entry(4, 5);
+        mock.onWrite = new Runnable() {
+            @Override
+            public void run() {
+                if (mock.attempts == 1) {
+                    // another sender queues a message while the first batch is written, and then the write fails
+                    batcher.write(queued);
+                    throw new IllegalStateException("failed write");
+                }
+            }
+        };
+        batcher.write(entry(1, 2, 3));
+
+        assertThat(mock.closed, equalTo(true));
+        // the message queued during the failed write was still written, by the same sender
+        assertThat(mock.attempts, equalTo(2));
+        assertThat(mock.writes.size(), equalTo(1));
+        assertThat(mock.writes.get(0).readableBytes(), equalTo(2));
+
+        // nothing is left pending, so the next sender writes its own message
+        batcher.write(entry(6));
+        assertThat(mock.attempts, equalTo(3));
+        assertThat(mock.writes.size(), equalTo(2));
+    }
+
+    private static CachedStreamOutput.Entry entry(int... bytes) throws IOException {
+        CachedStreamOutput.Entry entry = CachedStreamOutput.popEntry();
+        for (int b : bytes) {
+            entry.bytes().write(b);
+        }
+        return entry;
+    }
+
+    private static TransportServiceAdapter adapter() {
+        return (TransportServiceAdapter) Proxy.newProxyInstance(TransportServiceAdapter.class.getClassLoader(), new Class[]{TransportServiceAdapter.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if (method.getName().equals("batched")) {
+                    return null;
+                }
+                throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    static class MockChannel implements InvocationHandler {
+
+        final Channel channel = (Channel) Proxy.newProxyInstance(Channel.class.getClassLoader(), new Class[]{Channel.class}, this);
+
+        final List<ChannelBuffer> writes = new CopyOnWriteArrayList<ChannelBuffer>();
+
+        volatile int attempts;
+
+        volatile boolean closed;
+
+        volatile Runnable onWrite;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("write")) {
+                attempts++;
+                if (onWrite != null) {
+                    onWrite.run();
+                }
+                writes.add((ChannelBuffer) args[0]);
+                DefaultChannelFuture future = new DefaultChannelFuture(channel, false);
+                future.setSuccess();
+                return future;
+            } else if (name.equals("close")) {
+                closed = true;
+                DefaultChannelFuture future = new DefaultChannelFuture(channel, false);
+                future.setSuccess();
+                return future;
+            } else if (name.equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            } else if (name.equals("equals")) {
+                return proxy == args[0];
+            } else if (name.equals("toString")) {
+                return "mock_channel";
+            }
+            throw new UnsupportedOperationException(name);
+        }
+    }
+}